@@ -1,7 +1,9 @@
 package io.devops.beian;
 
+import io.devops.beian.config.BeianRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
@@ -10,6 +12,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
  */
 @SpringBootApplication
 @EnableScheduling
+@ImportRuntimeHints(BeianRuntimeHints.class)
 public class BeianExporterApplication {
 
     public static void main(String[] args) {
@@ -1,13 +1,22 @@
 package io.devops.beian.config;
 
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 备案查询配置属性
@@ -47,42 +56,1580 @@ public class BeianProperties {
     private RateLimit rateLimit = new RateLimit();
 
     /**
-     * 要监控的域名列表
+     * 要监控的域名列表（default 分组，使用全局检查间隔与重试次数）
      */
-    @NotEmpty(message = "域名列表不能为空")
-    private List<@NotNull String> domains;
+    private List<@NotNull String> domains = new ArrayList<>();
+
+    /**
+     * 命名域名分组，各分组有独立的检查间隔、上游预算权重、重试策略与附加指标标签
+     */
+    private Map<String, DomainGroup> groups = new LinkedHashMap<>();
+
+    /**
+     * 状态变更通知配置
+     */
+    private Notification notification = new Notification();
+
+    /**
+     * 原始响应归档配置
+     */
+    private Archive archive = new Archive();
+
+    /**
+     * 上游请求调度配置
+     */
+    private Dispatcher dispatcher = new Dispatcher();
+
+    /**
+     * 手动查询接口准入控制配置
+     */
+    private Admission admission = new Admission();
+
+    /**
+     * 上游熔断配置
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * 域名规范化配置
+     */
+    private Normalization normalization = new Normalization();
+
+    /**
+     * 主办单位聚合查询配置
+     */
+    private FanIn fanIn = new FanIn();
+
+    /**
+     * 上游查询站点配置
+     */
+    private Upstream upstream = new Upstream();
+
+    /**
+     * 出口代理池配置
+     */
+    private Egress egress = new Egress();
+
+    /**
+     * 多副本结果共享配置
+     */
+    private Cluster cluster = new Cluster();
+
+    /**
+     * Prometheus Remote Write 推送配置
+     */
+    private RemoteWrite remoteWrite = new RemoteWrite();
+
+    /**
+     * 状态页配置
+     */
+    private Dashboard dashboard = new Dashboard();
+
+    /**
+     * 结果存储配置
+     */
+    private Store store = new Store();
+
+    /**
+     * 上游域名解析缓存配置
+     */
+    private Dns dns = new Dns();
+
+    /**
+     * 日志输出配置
+     */
+    private Logging logging = new Logging();
+
+    /**
+     * 启动预热配置
+     */
+    private Warmup warmup = new Warmup();
+
+    /**
+     * 进程角色：all 查询上游并输出指标与 API；worker 只查询上游，把结果写入结果日志；
+     * exporter 不查询上游，跟随结果日志输出指标与 API
+     */
+    @Pattern(regexp = "all|worker|exporter")
+    private String role = "all";
+
+    /**
+     * 结果日志配置（worker 与 exporter 之间共享结果）
+     */
+    private ResultLog resultLog = new ResultLog();
+
+    /**
+     * 检查容量估算配置
+     */
+    private Planner planner = new Planner();
 
     /**
      * 限流配置类
      */
-    public static class RateLimit {
+    public static class RateLimit {
+        /**
+         * 每分钟最大请求数
+         */
+        @Min(1)
+        private int maxRequestsPerMinute = 10;
+
+        /**
+         * 突发请求数量
+         */
+        @Min(1)
+        private int burstSize = 3;
+
+        public int getMaxRequestsPerMinute() {
+            return maxRequestsPerMinute;
+        }
+
+        public void setMaxRequestsPerMinute(int maxRequestsPerMinute) {
+            this.maxRequestsPerMinute = maxRequestsPerMinute;
+        }
+
+        public int getBurstSize() {
+            return burstSize;
+        }
+
+        public void setBurstSize(int burstSize) {
+            this.burstSize = burstSize;
+        }
+    }
+
+    /**
+     * 状态变更通知配置类
+     */
+    public static class Notification {
+        /**
+         * 是否启用Webhook通知
+         */
+        private boolean enabled = false;
+
+        /**
+         * Webhook地址列表
+         */
+        private List<@NotNull String> webhooks = new ArrayList<>();
+
+        /**
+         * 批量发送窗口（秒）
+         */
+        @Min(1)
+        private int batchWindow = 30;
+
+        /**
+         * 待发送事件队列容量（按域名合并后计数）
+         */
+        @Min(1)
+        private int queueCapacity = 1000;
+
+        /**
+         * 单次投递最大重试次数
+         */
+        @Min(0)
+        private int maxRetries = 3;
+
+        /**
+         * 投递请求超时（秒）
+         */
+        @Min(1)
+        private int requestTimeout = 10;
+
+        /**
+         * 停止时等待最后一批及未完成投递的最长时间（秒）
+         */
+        @Min(0)
+        private int shutdownTimeout = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getWebhooks() {
+            return webhooks;
+        }
+
+        public void setWebhooks(List<String> webhooks) {
+            this.webhooks = webhooks;
+        }
+
+        public int getBatchWindow() {
+            return batchWindow;
+        }
+
+        public void setBatchWindow(int batchWindow) {
+            this.batchWindow = batchWindow;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public int getRequestTimeout() {
+            return requestTimeout;
+        }
+
+        public void setRequestTimeout(int requestTimeout) {
+            this.requestTimeout = requestTimeout;
+        }
+
+        public int getShutdownTimeout() {
+            return shutdownTimeout;
+        }
+
+        public void setShutdownTimeout(int shutdownTimeout) {
+            this.shutdownTimeout = shutdownTimeout;
+        }
+    }
+
+    /**
+     * 原始响应归档配置类
+     */
+    public static class Archive {
+        /**
+         * 是否启用原始响应归档
+         */
+        private boolean enabled = false;
+
+        /**
+         * 归档目录
+         */
+        private String directory = "data/archive";
+
+        /**
+         * 单个分段文件最大字节数
+         */
+        @Min(1024)
+        private long maxSegmentBytes = 16 * 1024 * 1024;
+
+        /**
+         * 保留的分段数量；超出时有效数据最少分段中各域名的最新响应复制到当前分段后删除该分段，
+         * 总容量应为全部域名最新响应大小的数倍
+         */
+        @Min(2)
+        private int maxSegments = 8;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getMaxSegmentBytes() {
+            return maxSegmentBytes;
+        }
+
+        public void setMaxSegmentBytes(long maxSegmentBytes) {
+            this.maxSegmentBytes = maxSegmentBytes;
+        }
+
+        public int getMaxSegments() {
+            return maxSegments;
+        }
+
+        public void setMaxSegments(int maxSegments) {
+            this.maxSegments = maxSegments;
+        }
+    }
+
+    /**
+     * 上游请求调度配置类
+     */
+    public static class Dispatcher {
+        /**
+         * 后台检查等待时，高优先级请求最多连续抢占的次数，超过后让出一次给后台检查
+         */
+        @Min(1)
+        private int starvationLimit = 5;
+
+        public int getStarvationLimit() {
+            return starvationLimit;
+        }
+
+        public void setStarvationLimit(int starvationLimit) {
+            this.starvationLimit = starvationLimit;
+        }
+    }
+
+    /**
+     * 手动查询接口准入控制配置类
+     */
+    public static class Admission {
+        /**
+         * 同时执行的手动查询数
+         */
+        @Min(1)
+        private int maxConcurrent = 4;
+
+        /**
+         * 等待执行的手动查询数上限，超出后直接拒绝
+         */
+        @Min(0)
+        private int maxQueue = 8;
+
+        /**
+         * 排队等待的最长时间（毫秒）
+         */
+        @Min(0)
+        private long queueTimeoutMs = 500;
+
+        /**
+         * 拒绝时建议客户端的重试等待（秒）
+         */
+        @Min(1)
+        private int retryAfter = 5;
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        public void setMaxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+        }
+
+        public long getQueueTimeoutMs() {
+            return queueTimeoutMs;
+        }
+
+        public void setQueueTimeoutMs(long queueTimeoutMs) {
+            this.queueTimeoutMs = queueTimeoutMs;
+        }
+
+        public int getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(int retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    /**
+     * 上游熔断配置类
+     */
+    public static class CircuitBreaker {
+        /**
+         * 是否启用熔断
+         */
+        private boolean enabled = true;
+
+        /**
+         * 触发熔断的连续失败次数
+         */
+        @Min(1)
+        private int failureThreshold = 5;
+
+        /**
+         * 熔断打开后的初始冷却时间（秒）
+         */
+        @Min(1)
+        private int openDuration = 300;
+
+        /**
+         * 探测失败后冷却时间加倍的上限（秒）
+         */
+        @Min(1)
+        private int maxOpenDuration = 3600;
+
+        /**
+         * 半开状态下同时放行的探测请求数
+         */
+        @Min(1)
+        private int halfOpenProbes = 1;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public int getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(int openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getMaxOpenDuration() {
+            return maxOpenDuration;
+        }
+
+        public void setMaxOpenDuration(int maxOpenDuration) {
+            this.maxOpenDuration = maxOpenDuration;
+        }
+
+        public int getHalfOpenProbes() {
+            return halfOpenProbes;
+        }
+
+        public void setHalfOpenProbes(int halfOpenProbes) {
+            this.halfOpenProbes = halfOpenProbes;
+        }
+    }
+
+    /**
+     * 域名规范化配置类
+     */
+    public static class Normalization {
+        /**
+         * 是否将配置的域名规范化为可注册域名后再查询
+         */
+        private boolean enabled = true;
+
+        /**
+         * 公共后缀列表位置（支持 classpath: 与 file: 前缀）
+         */
+        private String suffixList = "classpath:public_suffix_list.dat";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getSuffixList() {
+            return suffixList;
+        }
+
+        public void setSuffixList(String suffixList) {
+            this.suffixList = suffixList;
+        }
+    }
+
+    /**
+     * 主办单位聚合查询配置类
+     */
+    public static class FanIn {
+        /**
+         * 是否按备案号前缀或主办单位名称聚合查询同一单位的多个域名
+         */
+        private boolean enabled = false;
+
+        /**
+         * 聚合关键字：beian-number（备案号前缀）或 company-name（主办单位名称）
+         */
+        @Pattern(regexp = "beian-number|company-name")
+        private String key = "beian-number";
+
+        /**
+         * 同一关键字下至少有多少个被监控域名才聚合查询
+         */
+        @Min(2)
+        private int minDomains = 2;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public int getMinDomains() {
+            return minDomains;
+        }
+
+        public void setMinDomains(int minDomains) {
+            this.minDomains = minDomains;
+        }
+    }
+
+    /**
+     * 上游查询站点配置类
+     */
+    public static class Upstream {
+        /**
+         * 查询地址前缀，域名直接拼接在其后（可指向本地模拟器）
+         */
+        @NotBlank
+        private String baseUrl = "https://www.beianx.cn/search/";
+
+        /**
+         * 每次请求前随机延迟的下限（毫秒），避免请求过于规律
+         */
+        @Min(0)
+        private long minJitterMs = 1000;
+
+        /**
+         * 每次请求前随机延迟的上限（毫秒）
+         */
+        @Min(0)
+        private long maxJitterMs = 3000;
+
+        /**
+         * 响应中结果表格部分的指纹与上次记录的结果相同时，跳过解析与指标重新处理，只更新最后检查时间
+         */
+        private boolean skipUnchanged = true;
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public void setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public long getMinJitterMs() {
+            return minJitterMs;
+        }
+
+        public void setMinJitterMs(long minJitterMs) {
+            this.minJitterMs = minJitterMs;
+        }
+
+        public long getMaxJitterMs() {
+            return maxJitterMs;
+        }
+
+        public void setMaxJitterMs(long maxJitterMs) {
+            this.maxJitterMs = maxJitterMs;
+        }
+
+        public boolean isSkipUnchanged() {
+            return skipUnchanged;
+        }
+
+        public void setSkipUnchanged(boolean skipUnchanged) {
+            this.skipUnchanged = skipUnchanged;
+        }
+    }
+
+    /**
+     * 上游域名解析缓存配置类
+     */
+    public static class Dns {
+        /**
+         * 是否为上游查询客户端启用进程内解析缓存（关闭时使用 Reactor Netty 默认解析器）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 缓存时间下限（秒），TTL 更短的记录按此缓存
+         */
+        @Min(1)
+        private int minTtl = 30;
+
+        /**
+         * 缓存时间上限（秒）
+         */
+        @Min(1)
+        private int maxTtl = 600;
+
+        /**
+         * 记录已过缓存时间的该比例后，下次使用时在后台刷新
+         */
+        @DecimalMin("0.1")
+        @DecimalMax("1.0")
+        private double refreshAhead = 0.75;
+
+        /**
+         * 刷新失败时，过期记录最多继续使用的时间（秒）
+         */
+        @Min(0)
+        private int staleTtl = 3600;
+
+        /**
+         * 单次查询超时（毫秒）
+         */
+        @Min(100)
+        private long queryTimeoutMs = 3000;
+
+        /**
+         * DNS 服务器（host 或 host:port），为空时使用系统配置
+         */
+        private List<String> nameServers = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMinTtl() {
+            return minTtl;
+        }
+
+        public void setMinTtl(int minTtl) {
+            this.minTtl = minTtl;
+        }
+
+        public int getMaxTtl() {
+            return maxTtl;
+        }
+
+        public void setMaxTtl(int maxTtl) {
+            this.maxTtl = maxTtl;
+        }
+
+        public double getRefreshAhead() {
+            return refreshAhead;
+        }
+
+        public void setRefreshAhead(double refreshAhead) {
+            this.refreshAhead = refreshAhead;
+        }
+
+        public int getStaleTtl() {
+            return staleTtl;
+        }
+
+        public void setStaleTtl(int staleTtl) {
+            this.staleTtl = staleTtl;
+        }
+
+        public long getQueryTimeoutMs() {
+            return queryTimeoutMs;
+        }
+
+        public void setQueryTimeoutMs(long queryTimeoutMs) {
+            this.queryTimeoutMs = queryTimeoutMs;
+        }
+
+        public List<String> getNameServers() {
+            return nameServers;
+        }
+
+        public void setNameServers(List<String> nameServers) {
+            this.nameServers = nameServers;
+        }
+    }
+
+    /**
+     * 出口代理池配置类
+     */
+    public static class Egress {
+        /**
+         * 是否通过代理池访问上游；启用后限流与请求间隔按出口分别计算
+         */
+        private boolean enabled = false;
+
+        /**
+         * 是否把本机直连也作为一个出口
+         */
+        private boolean includeDirect = false;
+
+        /**
+         * 出口代理列表
+         */
+        private List<@NotNull EgressProxy> proxies = new ArrayList<>();
+
+        /**
+         * 连续失败多少次后摘除出口
+         */
+        @Min(1)
+        private int failureThreshold = 3;
+
+        /**
+         * 首次摘除时长（秒），再次摘除时加倍
+         */
+        @Min(1)
+        private int ejectDuration = 120;
+
+        /**
+         * 摘除时长上限（秒）
+         */
+        @Min(1)
+        private int maxEjectDuration = 1800;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isIncludeDirect() {
+            return includeDirect;
+        }
+
+        public void setIncludeDirect(boolean includeDirect) {
+            this.includeDirect = includeDirect;
+        }
+
+        public List<EgressProxy> getProxies() {
+            return proxies;
+        }
+
+        public void setProxies(List<EgressProxy> proxies) {
+            this.proxies = proxies;
+        }
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public int getEjectDuration() {
+            return ejectDuration;
+        }
+
+        public void setEjectDuration(int ejectDuration) {
+            this.ejectDuration = ejectDuration;
+        }
+
+        public int getMaxEjectDuration() {
+            return maxEjectDuration;
+        }
+
+        public void setMaxEjectDuration(int maxEjectDuration) {
+            this.maxEjectDuration = maxEjectDuration;
+        }
+    }
+
+    /**
+     * 单个出口代理配置类
+     */
+    public static class EgressProxy {
+        /**
+         * 代理地址：http://[user:password@]host:port 或 socks5://[user:password@]host:port
+         */
+        @NotBlank
+        private String url;
+
+        /**
+         * 该出口每分钟最大请求数，0 表示沿用 rate-limit.max-requests-per-minute
+         */
+        @Min(0)
+        private int maxRequestsPerMinute = 0;
+
+        /**
+         * 该出口同时进行的请求数，0 表示沿用 rate-limit.burst-size
+         */
+        @Min(0)
+        private int maxConcurrent = 0;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public int getMaxRequestsPerMinute() {
+            return maxRequestsPerMinute;
+        }
+
+        public void setMaxRequestsPerMinute(int maxRequestsPerMinute) {
+            this.maxRequestsPerMinute = maxRequestsPerMinute;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+    }
+
+    /**
+     * 多副本结果共享配置类
+     */
+    public static class Cluster {
+        /**
+         * 是否启用多副本结果共享：每个查询关键字归属一个成员，其他成员向归属成员获取结果
+         */
+        private boolean enabled = false;
+
+        /**
+         * 本实例供其他成员访问的地址（如 http://10.0.0.1:8080），为空时按本机地址与服务端口识别
+         */
+        private String selfUrl = "";
+
+        /**
+         * 静态成员地址列表（可包含本实例），各副本应配置相同的列表
+         */
+        private List<@NotNull String> peers = new ArrayList<>();
+
+        /**
+         * 通过 DNS 发现成员的域名（如 Kubernetes headless service），解析出的每个地址为一个成员
+         */
+        private String dnsName = "";
+
+        /**
+         * DNS 发现的成员端口
+         */
+        @Min(1)
+        private int dnsPort = 8080;
+
+        /**
+         * DNS 成员列表刷新间隔（秒）
+         */
+        @Min(1)
+        private int dnsRefreshInterval = 30;
+
+        /**
+         * 共享结果的有效期（秒），0 表示与 check-interval 相同
+         */
+        @Min(0)
+        private int resultTtl = 0;
+
+        /**
+         * 等待归属成员返回结果的超时（秒），超时或成员不可达时本地查询上游
+         */
+        @Min(1)
+        private int peerTimeout = 120;
+
+        /**
+         * 内部接口共享密钥（各成员相同），启用结果共享时必须配置
+         */
+        private String token = "";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getSelfUrl() {
+            return selfUrl;
+        }
+
+        public void setSelfUrl(String selfUrl) {
+            this.selfUrl = selfUrl;
+        }
+
+        public List<String> getPeers() {
+            return peers;
+        }
+
+        public void setPeers(List<String> peers) {
+            this.peers = peers;
+        }
+
+        public String getDnsName() {
+            return dnsName;
+        }
+
+        public void setDnsName(String dnsName) {
+            this.dnsName = dnsName;
+        }
+
+        public int getDnsPort() {
+            return dnsPort;
+        }
+
+        public void setDnsPort(int dnsPort) {
+            this.dnsPort = dnsPort;
+        }
+
+        public int getDnsRefreshInterval() {
+            return dnsRefreshInterval;
+        }
+
+        public void setDnsRefreshInterval(int dnsRefreshInterval) {
+            this.dnsRefreshInterval = dnsRefreshInterval;
+        }
+
+        public int getResultTtl() {
+            return resultTtl;
+        }
+
+        public void setResultTtl(int resultTtl) {
+            this.resultTtl = resultTtl;
+        }
+
+        public int getPeerTimeout() {
+            return peerTimeout;
+        }
+
+        public void setPeerTimeout(int peerTimeout) {
+            this.peerTimeout = peerTimeout;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public void setToken(String token) {
+            this.token = token;
+        }
+    }
+
+    /**
+     * Prometheus Remote Write 推送配置类
+     */
+    public static class RemoteWrite {
+        /**
+         * 是否把变化的 beian_* 域名指标推送到 Remote Write 接收端
+         */
+        private boolean enabled = false;
+
+        /**
+         * 接收端地址，例如 http://prometheus:9090/api/v1/write
+         */
+        @NotBlank
+        private String url = "http://localhost:9090/api/v1/write";
+
+        /**
+         * 推送间隔（秒），间隔内同一序列的多次变化只发送最新值
+         */
+        @Min(1)
+        private int flushInterval = 15;
+
+        /**
+         * 单个请求的最大样本数
+         */
+        @Min(1)
+        private int maxSamplesPerRequest = 500;
+
+        /**
+         * 待发送序列上限，超出时丢弃新序列并计数
+         */
+        @Min(1)
+        private int bufferCapacity = 10000;
+
+        /**
+         * 发送失败（网络错误、429、5xx）的重试次数（指数退避）
+         */
+        @Min(0)
+        private int maxRetries = 3;
+
+        /**
+         * 请求超时（秒）
+         */
+        @Min(1)
+        private int requestTimeout = 10;
+
+        /**
+         * 未变化序列的重发间隔（秒），应小于接收端的过期判定时间（Prometheus 默认 5 分钟），0 表示不重发
+         */
+        @Min(0)
+        private int keepaliveInterval = 240;
+
+        /**
+         * 附加到所有推送序列的标签，例如 instance、cluster
+         */
+        private Map<String, String> externalLabels = new LinkedHashMap<>();
+
+        /**
+         * 附加请求头，例如 Authorization
+         */
+        private Map<String, String> headers = new LinkedHashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public int getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(int flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getMaxSamplesPerRequest() {
+            return maxSamplesPerRequest;
+        }
+
+        public void setMaxSamplesPerRequest(int maxSamplesPerRequest) {
+            this.maxSamplesPerRequest = maxSamplesPerRequest;
+        }
+
+        public int getBufferCapacity() {
+            return bufferCapacity;
+        }
+
+        public void setBufferCapacity(int bufferCapacity) {
+            this.bufferCapacity = bufferCapacity;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public int getRequestTimeout() {
+            return requestTimeout;
+        }
+
+        public void setRequestTimeout(int requestTimeout) {
+            this.requestTimeout = requestTimeout;
+        }
+
+        public int getKeepaliveInterval() {
+            return keepaliveInterval;
+        }
+
+        public void setKeepaliveInterval(int keepaliveInterval) {
+            this.keepaliveInterval = keepaliveInterval;
+        }
+
+        public Map<String, String> getExternalLabels() {
+            return externalLabels;
+        }
+
+        public void setExternalLabels(Map<String, String> externalLabels) {
+            this.externalLabels = externalLabels;
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        public void setHeaders(Map<String, String> headers) {
+            this.headers = headers;
+        }
+    }
+
+    /**
+     * 状态页配置类
+     */
+    public static class Dashboard {
+        /**
+         * 每页显示的域名数
+         */
+        @Min(1)
+        @Max(500)
+        private int pageSize = 50;
+
+        /**
+         * 缓存的已渲染分页数，结果变化时全部失效
+         */
+        @Min(0)
+        private int cachedPages = 256;
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public int getCachedPages() {
+            return cachedPages;
+        }
+
+        public void setCachedPages(int cachedPages) {
+            this.cachedPages = cachedPages;
+        }
+    }
+
+    /**
+     * 结果存储配置类
+     */
+    public static class Store {
+        /**
+         * 存储方式：heap（堆内对象）或 mapped（配置域名的结果以定长记录保存在堆外内存中）
+         */
+        @Pattern(regexp = "heap|mapped")
+        private String mode = "heap";
+
+        /**
+         * mapped 模式下映射的文件路径，为空时使用匿名堆外内存；文件只作为内存后备，重启后不会恢复结果
+         */
+        private String path = "";
+
+        /**
+         * mapped 模式下预留的记录数，0 表示按配置的域名数
+         */
+        @Min(0)
+        private int capacity = 0;
+
+        public boolean isMapped() {
+            return "mapped".equals(mode);
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * 日志输出配置类
+     * format 与 queue-size 在日志系统初始化时由 logback-spring.xml 读取，修改后需重启生效
+     */
+    public static class Logging {
+        /**
+         * 输出格式：text（单行文本）或 json（每行一个 JSON 对象，附带结构化字段）
+         */
+        @Pattern(regexp = "text|json")
+        private String format = "text";
+
+        /**
+         * 异步日志队列长度；队列将满时丢弃 INFO 及以下级别的日志，写满后丢弃新日志而不阻塞检查线程
+         */
+        @Min(256)
+        private int queueSize = 8192;
+
+        /**
+         * 每个错误类别在一个采样窗口内最多输出的日志条数，超出部分只计数，窗口结束时汇总输出一条
+         */
+        @Min(1)
+        private int samplesPerWindow = 10;
+
+        /**
+         * 错误日志采样窗口（秒）
+         */
+        @Min(1)
+        private int sampleWindow = 60;
+
+        public String getFormat() {
+            return format;
+        }
+
+        public void setFormat(String format) {
+            this.format = format;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public int getSamplesPerWindow() {
+            return samplesPerWindow;
+        }
+
+        public void setSamplesPerWindow(int samplesPerWindow) {
+            this.samplesPerWindow = samplesPerWindow;
+        }
+
+        public int getSampleWindow() {
+            return sampleWindow;
+        }
+
+        public void setSampleWindow(int sampleWindow) {
+            this.sampleWindow = sampleWindow;
+        }
+    }
+
+    /**
+     * 启动预热配置类
+     */
+    public static class Warmup {
         /**
-         * 每分钟最大请求数
+         * 是否在启动后、就绪前执行预热；预热完成前就绪探针返回 REFUSING_TRAFFIC，定时检查也不开始
+         */
+        private boolean enabled = true;
+
+        /**
+         * 用内置样例页面重复执行解析与指标标签处理的次数，使热点代码在接收流量前完成 JIT 编译
+         */
+        @Min(0)
+        private int parseIterations = 3000;
+
+        /**
+         * 预先与上游（及各出口代理）建立并保留在连接池中的连接数，0 表示不预建连接
+         */
+        @Min(0)
+        private int connections = 4;
+
+        /**
+         * 预热总时长上限（秒），超时后直接就绪，未完成的步骤不影响启动
          */
         @Min(1)
-        private int maxRequestsPerMinute = 10;
+        private int timeout = 60;
 
         /**
-         * 突发请求数量
+         * 启用原始响应归档时，是否在就绪前从归档重建结果与指标
+         */
+        private boolean restoreFromArchive = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getParseIterations() {
+            return parseIterations;
+        }
+
+        public void setParseIterations(int parseIterations) {
+            this.parseIterations = parseIterations;
+        }
+
+        public int getConnections() {
+            return connections;
+        }
+
+        public void setConnections(int connections) {
+            this.connections = connections;
+        }
+
+        public int getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(int timeout) {
+            this.timeout = timeout;
+        }
+
+        public boolean isRestoreFromArchive() {
+            return restoreFromArchive;
+        }
+
+        public void setRestoreFromArchive(boolean restoreFromArchive) {
+            this.restoreFromArchive = restoreFromArchive;
+        }
+    }
+
+    /**
+     * 结果日志配置类
+     */
+    public static class ResultLog {
+        /**
+         * 是否启用结果日志；worker 与 exporter 角色必须启用，all 角色启用时也写入，可另外部署 exporter
+         */
+        private boolean enabled = false;
+
+        /**
+         * 结果日志目录，worker 与 exporter 共享（同一目录只能有一个 worker 写入）
+         */
+        @NotBlank
+        private String directory = "data/results";
+
+        /**
+         * 单个分段文件大小上限（字节）
+         */
+        @Min(1024)
+        private long maxSegmentBytes = 16 * 1024 * 1024;
+
+        /**
+         * 保留的分段数量；超出时最旧分段中的各域名最新结果复制到当前分段后删除该分段，
+         * 总容量应为全部域名最新结果大小的数倍
+         */
+        @Min(2)
+        private int maxSegments = 8;
+
+        /**
+         * exporter 读取新记录的间隔（毫秒）
+         */
+        @Min(100)
+        private long pollIntervalMs = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public long getMaxSegmentBytes() {
+            return maxSegmentBytes;
+        }
+
+        public void setMaxSegmentBytes(long maxSegmentBytes) {
+            this.maxSegmentBytes = maxSegmentBytes;
+        }
+
+        public int getMaxSegments() {
+            return maxSegments;
+        }
+
+        public void setMaxSegments(int maxSegments) {
+            this.maxSegments = maxSegments;
+        }
+
+        public long getPollIntervalMs() {
+            return pollIntervalMs;
+        }
+
+        public void setPollIntervalMs(long pollIntervalMs) {
+            this.pollIntervalMs = pollIntervalMs;
+        }
+    }
+
+    /**
+     * 检查容量估算配置类
+     */
+    public static class Planner {
+        /**
+         * 观测样本不足时假定的单次上游请求耗时（毫秒，不含随机延迟）
          */
         @Min(1)
-        private int burstSize = 3;
+        private long assumedLatencyMs = 1500;
 
-        public int getMaxRequestsPerMinute() {
-            return maxRequestsPerMinute;
+        /**
+         * 观测样本不足时假定的单次请求失败（需要重试）比例
+         */
+        @DecimalMin("0.0")
+        @DecimalMax("0.95")
+        private double assumedErrorRate = 0.05;
+
+        /**
+         * 使用观测耗时与错误率所需的最少上游请求数
+         */
+        @Min(1)
+        private int minSamples = 50;
+
+        /**
+         * 预计耗时超过检查间隔的该倍数时视为无法按计划完成
+         */
+        @DecimalMin("0.1")
+        private double maxDurationRatio = 1.0;
+
+        public long getAssumedLatencyMs() {
+            return assumedLatencyMs;
         }
 
-        public void setMaxRequestsPerMinute(int maxRequestsPerMinute) {
-            this.maxRequestsPerMinute = maxRequestsPerMinute;
+        public void setAssumedLatencyMs(long assumedLatencyMs) {
+            this.assumedLatencyMs = assumedLatencyMs;
         }
 
-        public int getBurstSize() {
-            return burstSize;
+        public double getAssumedErrorRate() {
+            return assumedErrorRate;
         }
 
-        public void setBurstSize(int burstSize) {
-            this.burstSize = burstSize;
+        public void setAssumedErrorRate(double assumedErrorRate) {
+            this.assumedErrorRate = assumedErrorRate;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+
+        public double getMaxDurationRatio() {
+            return maxDurationRatio;
+        }
+
+        public void setMaxDurationRatio(double maxDurationRatio) {
+            this.maxDurationRatio = maxDurationRatio;
+        }
+    }
+
+    /**
+     * 域名分组配置类
+     */
+    public static class DomainGroup {
+        /**
+         * 分组内的域名列表
+         */
+        @NotEmpty
+        private List<@NotNull String> domains = new ArrayList<>();
+
+        /**
+         * 检查间隔（秒），为空时沿用全局 check-interval
+         */
+        @Min(60)
+        private Integer checkInterval;
+
+        /**
+         * 定时检查占用上游请求额度的权重，多个分组同时检查时按权重分配
+         */
+        @Min(1)
+        private int share = 1;
+
+        /**
+         * 最大重试次数，为空时沿用全局 max-retries
+         */
+        @Min(0)
+        private Integer maxRetries;
+
+        /**
+         * 首次重试的退避时间（秒），之后按指数增长，最长 30 秒
+         */
+        @Min(1)
+        private int retryBackoff = 5;
+
+        /**
+         * 附加到该分组域名指标上的标签
+         */
+        private Map<String, String> labels = new LinkedHashMap<>();
+
+        public List<String> getDomains() {
+            return domains;
+        }
+
+        public void setDomains(List<String> domains) {
+            this.domains = domains;
+        }
+
+        public Integer getCheckInterval() {
+            return checkInterval;
+        }
+
+        public void setCheckInterval(Integer checkInterval) {
+            this.checkInterval = checkInterval;
+        }
+
+        public int getShare() {
+            return share;
+        }
+
+        public void setShare(int share) {
+            this.share = share;
         }
+
+        public Integer getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(Integer maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public int getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(int retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        public Map<String, String> getLabels() {
+            return labels;
+        }
+
+        public void setLabels(Map<String, String> labels) {
+            this.labels = labels;
+        }
+    }
+
+    /**
+     * beian.domains 与 beian.groups 至少配置一项
+     */
+    @AssertTrue(message = "域名列表不能为空")
+    public boolean isDomainsConfigured() {
+        return (domains != null && !domains.isEmpty()) || !groups.isEmpty();
+    }
+
+    /**
+     * worker 与 exporter 角色通过结果日志共享结果
+     */
+    @AssertTrue(message = "worker 与 exporter 角色需要启用 result-log")
+    public boolean isResultLogConfigured() {
+        return "all".equals(role) || resultLog.isEnabled();
+    }
+
+    /**
+     * 内部接口对服务端口上的所有客户端开放，启用结果共享时必须用共享密钥限制调用方
+     */
+    @AssertTrue(message = "启用 cluster 时需要配置 cluster.token")
+    public boolean isClusterTokenConfigured() {
+        return !cluster.isEnabled() || !cluster.getToken().isBlank();
+    }
+
+    /**
+     * 是否查询上游（all、worker 角色）
+     */
+    public boolean hasUpstreamRole() {
+        return !"exporter".equals(role);
+    }
+
+    /**
+     * 是否输出域名指标（all、exporter 角色）
+     */
+    public boolean hasExporterRole() {
+        return !"worker".equals(role);
     }
 
     // Getters and Setters
@@ -126,6 +1673,14 @@ public class BeianProperties {
         this.domains = domains;
     }
 
+    public Map<String, DomainGroup> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(Map<String, DomainGroup> groups) {
+        this.groups = groups;
+    }
+
     public RateLimit getRateLimit() {
         return rateLimit;
     }
@@ -133,4 +1688,156 @@ public class BeianProperties {
     public void setRateLimit(RateLimit rateLimit) {
         this.rateLimit = rateLimit;
     }
-}
\ No newline at end of file
+
+    public Notification getNotification() {
+        return notification;
+    }
+
+    public void setNotification(Notification notification) {
+        this.notification = notification;
+    }
+
+    public Archive getArchive() {
+        return archive;
+    }
+
+    public void setArchive(Archive archive) {
+        this.archive = archive;
+    }
+
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public void setDispatcher(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public void setAdmission(Admission admission) {
+        this.admission = admission;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public Normalization getNormalization() {
+        return normalization;
+    }
+
+    public void setNormalization(Normalization normalization) {
+        this.normalization = normalization;
+    }
+
+    public FanIn getFanIn() {
+        return fanIn;
+    }
+
+    public void setFanIn(FanIn fanIn) {
+        this.fanIn = fanIn;
+    }
+
+    public Upstream getUpstream() {
+        return upstream;
+    }
+
+    public void setUpstream(Upstream upstream) {
+        this.upstream = upstream;
+    }
+
+    public Egress getEgress() {
+        return egress;
+    }
+
+    public void setEgress(Egress egress) {
+        this.egress = egress;
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    public void setCluster(Cluster cluster) {
+        this.cluster = cluster;
+    }
+
+    public RemoteWrite getRemoteWrite() {
+        return remoteWrite;
+    }
+
+    public void setRemoteWrite(RemoteWrite remoteWrite) {
+        this.remoteWrite = remoteWrite;
+    }
+
+    public Dashboard getDashboard() {
+        return dashboard;
+    }
+
+    public void setDashboard(Dashboard dashboard) {
+        this.dashboard = dashboard;
+    }
+
+    public Store getStore() {
+        return store;
+    }
+
+    public void setStore(Store store) {
+        this.store = store;
+    }
+
+    public Dns getDns() {
+        return dns;
+    }
+
+    public void setDns(Dns dns) {
+        this.dns = dns;
+    }
+
+    public Logging getLogging() {
+        return logging;
+    }
+
+    public void setLogging(Logging logging) {
+        this.logging = logging;
+    }
+
+    public Warmup getWarmup() {
+        return warmup;
+    }
+
+    public void setWarmup(Warmup warmup) {
+        this.warmup = warmup;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public ResultLog getResultLog() {
+        return resultLog;
+    }
+
+    public void setResultLog(ResultLog resultLog) {
+        this.resultLog = resultLog;
+    }
+
+    public Planner getPlanner() {
+        return planner;
+    }
+
+    public void setPlanner(Planner planner) {
+        this.planner = planner;
+    }
+}
@@ -0,0 +1,57 @@
+package io.devops.beian.config;
+
+import io.devops.beian.controller.BeianController;
+import io.devops.beian.controller.HomeController;
+import io.devops.beian.controller.PeerController;
+import io.devops.beian.controller.ResultExportController;
+import io.devops.beian.logging.ConsoleLogEncoder;
+import io.devops.beian.model.BeianChangeEvent;
+import io.devops.beian.model.BeianInfo;
+import io.devops.beian.model.BeianResult;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+/**
+ * AOT / 原生镜像运行时提示
+ * 配置属性、Jackson 序列化的模型类和控制器需要反射访问，内置资源文件需要显式打包
+ */
+public class BeianRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+        // 配置属性绑定（含嵌套配置类）
+        bindingRegistrar.registerReflectionHints(hints.reflection(), BeianProperties.class);
+        for (Class<?> nested : BeianProperties.class.getDeclaredClasses()) {
+            bindingRegistrar.registerReflectionHints(hints.reflection(), nested);
+        }
+
+        // API 与 Webhook 输出的模型类
+        bindingRegistrar.registerReflectionHints(hints.reflection(),
+                BeianInfo.class, BeianResult.class, BeianResult.Status.class, BeianChangeEvent.class);
+
+        // 控制器
+        hints.reflection().registerType(BeianController.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(HomeController.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(PeerController.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(ResultExportController.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        // Remote Write 使用的 snappy 按类名加载内存访问实现，找不到时退回较慢的实现
+        for (String memory : new String[] {"org.iq80.snappy.UnsafeMemory", "org.iq80.snappy.SlowMemory"}) {
+            hints.reflection().registerType(TypeReference.of(memory), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+
+        // logback-spring.xml 按类名创建的 控制台日志编码器
+        hints.reflection().registerType(ConsoleLogEncoder.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        // 内置资源
+        hints.resources().registerPattern("public_suffix_list.dat");
+        hints.resources().registerPattern("templates/*.html");
+        hints.resources().registerPattern("warmup/*.html");
+    }
+}
\ No newline at end of file
@@ -12,6 +12,12 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class MetricsConfig {
 
+    /**
+     * 所有指标附加的通用标签
+     */
+    public static final String APPLICATION = "beian-exporter";
+    public static final String VERSION = "1.0.0";
+
     /**
      * 自定义 MeterRegistry 配置
      */
@@ -20,8 +26,8 @@ public class MetricsConfig {
         return registry -> {
             // 添加通用标签
             registry.config()
-                    .commonTags("application", "beian-exporter")
-                    .commonTags("version", "1.0.0");
+                    .commonTags("application", APPLICATION)
+                    .commonTags("version", VERSION);
             
             // 配置指标过滤器 - 只保留我们需要的指标
             registry.config()
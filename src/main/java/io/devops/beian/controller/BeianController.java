@@ -3,11 +3,23 @@ package io.devops.beian.controller;
 import io.devops.beian.config.BeianProperties;
 import io.devops.beian.model.BeianResult;
 import io.devops.beian.service.BeianScheduler;
+import io.devops.beian.service.CapacityPlanner;
+import io.devops.beian.service.CheckAdmissionService;
+import io.devops.beian.service.BeianResultStore;
+import io.devops.beian.service.DomainGroupRegistry;
+import io.devops.beian.service.ResultSearchIndex;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 备案查询控制器
@@ -18,22 +30,49 @@ public class BeianController {
 
     private final BeianScheduler beianScheduler;
     private final BeianProperties beianProperties;
+    private final CheckAdmissionService checkAdmissionService;
+    private final DomainGroupRegistry domainGroups;
+    private final ResultSearchIndex searchIndex;
+    private final BeianResultStore resultStore;
+    private final CapacityPlanner capacityPlanner;
 
-    public BeianController(BeianScheduler beianScheduler, BeianProperties beianProperties) {
+    public BeianController(BeianScheduler beianScheduler, BeianProperties beianProperties,
+                           CheckAdmissionService checkAdmissionService, DomainGroupRegistry domainGroups,
+                           ResultSearchIndex searchIndex, BeianResultStore resultStore,
+                           CapacityPlanner capacityPlanner) {
         this.beianScheduler = beianScheduler;
         this.beianProperties = beianProperties;
+        this.checkAdmissionService = checkAdmissionService;
+        this.domainGroups = domainGroups;
+        this.searchIndex = searchIndex;
+        this.resultStore = resultStore;
+        this.capacityPlanner = capacityPlanner;
     }
 
     /**
-     * 手动触发所有域名检查
+     * 手动触发所有域名检查，指定 group 时只检查该分组
      */
     @PostMapping("/check")
-    public ResponseEntity<Map<String, Object>> triggerCheck() {
+    public ResponseEntity<Map<String, Object>> triggerCheck(@RequestParam(required = false) String group) {
+        Map<String, Object> response = new HashMap<>();
+        if (!beianProperties.hasUpstreamRole()) {
+            return exporterRoleConflict(response);
+        }
+        if (group != null) {
+            if (!beianScheduler.triggerCheck(group)) {
+                response.put("message", "分组不存在: " + group);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            response.put("message", "分组 " + group + " 的备案检查已触发");
+            response.put("domains", domainGroups.get(group).getDomains());
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.ok(response);
+        }
+
         beianScheduler.triggerCheck();
         
-        Map<String, Object> response = new HashMap<>();
         response.put("message", "备案检查已触发");
-        response.put("domains", beianProperties.getDomains());
+        response.put("domains", domainGroups.allDomains());
         response.put("timestamp", System.currentTimeMillis());
         
         return ResponseEntity.ok(response);
@@ -41,11 +80,117 @@ public class BeianController {
 
     /**
      * 检查单个域名
+     * 经准入控制后异步执行，排队等待不占用线程，饱和时返回 429 并附带 Retry-After；
+     * exporter 角色不查询上游，返回结果日志中该域名的最新结果
      */
     @GetMapping("/check/{domain}")
-    public ResponseEntity<BeianResult> checkDomain(@PathVariable String domain) {
-        BeianResult result = beianScheduler.checkSingleDomain(domain);
-        return ResponseEntity.ok(result);
+    public CompletableFuture<ResponseEntity<BeianResult>> checkDomain(@PathVariable String domain) {
+        if (!beianProperties.hasUpstreamRole()) {
+            BeianResult stored = resultStore.get(domain);
+            return CompletableFuture.completedFuture(stored != null ? ResponseEntity.ok(stored)
+                    : ResponseEntity.status(HttpStatus.NOT_FOUND).body(BeianResult.error("暂无该域名的结果")));
+        }
+        return checkAdmissionService.tryExecute(() -> beianScheduler.checkSingleDomain(domain).toFuture())
+                .handle((result, error) -> {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof CheckAdmissionService.AdmissionRejectedException) {
+                        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(checkAdmissionService.getRetryAfterSeconds()))
+                                .body(BeianResult.error("查询请求过多，请稍后重试"));
+                    }
+                    if (cause != null) {
+                        return ResponseEntity.internalServerError().body(BeianResult.error("查询异常: " + cause.getMessage()));
+                    }
+                    return ResponseEntity.ok(result);
+                });
+    }
+
+    /**
+     * 按备案信息搜索域名，各条件同时满足
+     * company 为主办单位名称（match=prefix 时按前缀，否则按子串），beianNumber 为备案号前缀，
+     * approvedFrom / approvedTo 为审核日期范围（yyyy-MM-dd，含两端）
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> search(@RequestParam(required = false) String company,
+                                                      @RequestParam(defaultValue = "substring") String match,
+                                                      @RequestParam(required = false) String beianNumber,
+                                                      @RequestParam(required = false) String companyType,
+                                                      @RequestParam(required = false) String websiteName,
+                                                      @RequestParam(required = false) String approvedFrom,
+                                                      @RequestParam(required = false) String approvedTo,
+                                                      @RequestParam(defaultValue = "1") int page,
+                                                      @RequestParam(defaultValue = "50") int size) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        Integer from = ResultSearchIndex.parseDate(approvedFrom);
+        Integer to = ResultSearchIndex.parseDate(approvedTo);
+        if ((approvedFrom != null && from == null) || (approvedTo != null && to == null)) {
+            response.put("message", "审核日期格式应为 yyyy-MM-dd");
+            return ResponseEntity.badRequest().body(response);
+        }
+        ResultSearchIndex.Query query = new ResultSearchIndex.Query()
+                .company(company, "prefix".equals(match))
+                .beianNumberPrefix(beianNumber)
+                .companyType(companyType)
+                .websiteName(websiteName)
+                .approvedBetween(from, to);
+        if (query.isEmpty()) {
+            response.put("message", "至少需要一个查询条件: company、beianNumber、companyType、websiteName、approvedFrom、approvedTo");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        long start = System.nanoTime();
+        List<String> matched = searchIndex.search(query);
+        long tookMicros = (System.nanoTime() - start) / 1000;
+
+        int pageSize = Math.max(1, Math.min(size, 500));
+        int pageNumber = Math.max(1, page);
+        int fromIndex = Math.min(matched.size(), (pageNumber - 1) * pageSize);
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (String domain : matched.subList(fromIndex, Math.min(matched.size(), fromIndex + pageSize))) {
+            BeianResult result = resultStore.get(domain);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("domain", domain);
+            item.put("group", domainGroups.groupOf(domain).getName());
+            item.put("records", result == null ? List.of() : result.getData());
+            items.add(item);
+        }
+
+        response.put("total", matched.size());
+        response.put("page", pageNumber);
+        response.put("size", pageSize);
+        response.put("tookMicros", tookMicros);
+        response.put("items", items);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 使用归档的原始响应重新解析所有域名（解析器修复后免请求恢复）
+     */
+    @PostMapping("/admin/reparse")
+    public ResponseEntity<Map<String, Object>> reparseArchive() {
+        if (!beianProperties.hasUpstreamRole()) {
+            return exporterRoleConflict(new HashMap<>());
+        }
+        return ResponseEntity.ok(beianScheduler.rebuildFromArchive());
+    }
+
+    /**
+     * 按当前配置与观测到的上游请求耗时、错误率估算各分组一轮检查的请求数与耗时，以及能否在检查间隔内完成
+     */
+    @GetMapping("/plan")
+    public ResponseEntity<Map<String, Object>> getPlan() {
+        if (!beianProperties.hasUpstreamRole()) {
+            return exporterRoleConflict(new HashMap<>());
+        }
+        return ResponseEntity.ok(capacityPlanner.evaluate());
+    }
+
+    /**
+     * exporter 角色不查询上游，检查、重新解析与容量估算应发往 worker
+     */
+    private ResponseEntity<Map<String, Object>> exporterRoleConflict(Map<String, Object> response) {
+        response.put("message", "exporter 角色不查询上游，请向 worker 发起该请求");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
     }
 
     /**
@@ -58,7 +203,21 @@ public class BeianController {
         config.put("requestTimeout", beianProperties.getRequestTimeout());
         config.put("requestDelay", beianProperties.getRequestDelay());
         config.put("maxRetries", beianProperties.getMaxRetries());
-        config.put("domains", beianProperties.getDomains());
+        config.put("role", beianProperties.getRole());
+        config.put("domains", domainGroups.allDomains());
+
+        Map<String, Object> groups = new LinkedHashMap<>();
+        for (DomainGroupRegistry.Group group : domainGroups.groups()) {
+            Map<String, Object> groupConfig = new HashMap<>();
+            groupConfig.put("domains", group.getDomains().size());
+            groupConfig.put("checkInterval", group.getCheckInterval());
+            groupConfig.put("share", group.getShare());
+            groupConfig.put("maxRetries", group.getMaxRetries());
+            groupConfig.put("retryBackoff", group.getRetryBackoff());
+            groupConfig.put("labels", group.getLabels());
+            groups.put(group.getName(), groupConfig);
+        }
+        config.put("groups", groups);
         
         return ResponseEntity.ok(config);
     }
@@ -1,9 +1,12 @@
 package io.devops.beian.controller;
 
 import io.devops.beian.config.BeianProperties;
+import io.devops.beian.service.DashboardService;
+import io.devops.beian.service.DomainGroupRegistry;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 /**
  * 主页控制器
@@ -12,21 +15,35 @@ import org.springframework.web.bind.annotation.GetMapping;
 public class HomeController {
 
     private final BeianProperties beianProperties;
+    private final DomainGroupRegistry domainGroups;
+    private final DashboardService dashboardService;
 
-    public HomeController(BeianProperties beianProperties) {
+    public HomeController(BeianProperties beianProperties, DomainGroupRegistry domainGroups,
+                          DashboardService dashboardService) {
         this.beianProperties = beianProperties;
+        this.domainGroups = domainGroups;
+        this.dashboardService = dashboardService;
     }
 
     /**
-     * 主页
+     * 主页：各状态域名数与分页的域名状态表格
      */
     @GetMapping("/")
-    public String home(Model model) {
+    public String home(@RequestParam(required = false) String status,
+                       @RequestParam(required = false) String group,
+                       @RequestParam(defaultValue = "1") int page,
+                       @RequestParam(required = false) Integer size,
+                       Model model) {
         try {
             model.addAttribute("version", "1.0.0");
-            model.addAttribute("domainCount", beianProperties.getDomains().size());
+            model.addAttribute("domainCount", dashboardService.domainCount());
             model.addAttribute("checkInterval", beianProperties.getCheckInterval());
-            model.addAttribute("domains", beianProperties.getDomains());
+            model.addAttribute("summary", dashboardService.summary());
+            model.addAttribute("statuses", dashboardService.statuses());
+            model.addAttribute("groups", domainGroups.groups().stream().map(DomainGroupRegistry.Group::getName).toList());
+            model.addAttribute("status", status);
+            model.addAttribute("group", group);
+            model.addAttribute("statusTable", dashboardService.renderTable(status, group, page, size));
             
             return "index";
         } catch (Exception e) {
@@ -42,7 +59,7 @@ public class HomeController {
     @org.springframework.web.bind.annotation.ResponseBody
     public String simpleHome() {
         return "<html><body><h1>Beian Exporter</h1><p>Application is running!</p>" +
-               "<p>Monitoring " + beianProperties.getDomains().size() + " domains</p>" +
+               "<p>Monitoring " + domainGroups.allDomains().size() + " domains</p>" +
                "<p><a href='/prometheus'>Prometheus Metrics</a></p>" +
                "<p><a href='/health'>Health Check</a></p>" +
                "<p><a href='/api/config'>Configuration</a></p></body></html>";
@@ -0,0 +1,46 @@
+package io.devops.beian.controller;
+
+import io.devops.beian.model.BeianResult;
+import io.devops.beian.service.PeerResultService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * 集群成员之间的内部接口
+ */
+@RestController
+public class PeerController {
+
+    private final PeerResultService peerResultService;
+
+    public PeerController(PeerResultService peerResultService) {
+        this.peerResultService = peerResultService;
+    }
+
+    /**
+     * 向归属成员获取查询关键字的结果，查询时间在响应头中返回；maxAge 为请求方可接受的结果有效期（秒）
+     * 未启用结果共享或本实例不是归属成员时返回 404，请求方回退为本地查询
+     */
+    @GetMapping(PeerResultService.RESULT_PATH)
+    public Mono<ResponseEntity<BeianResult>> result(
+            @RequestParam String key,
+            @RequestParam(required = false) Long maxAge,
+            @RequestHeader(value = PeerResultService.TOKEN_HEADER, required = false) String token) {
+        if (!peerResultService.isEnabled()) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        if (!peerResultService.isAuthorized(token)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+        }
+        return peerResultService.serve(key, maxAge)
+                .map(shared -> ResponseEntity.ok()
+                        .header(PeerResultService.FETCHED_AT_HEADER, String.valueOf(shared.getFetchedAt()))
+                        .body(shared.getResult()))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
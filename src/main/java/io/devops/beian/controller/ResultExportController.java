@@ -0,0 +1,156 @@
+package io.devops.beian.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import io.devops.beian.service.BeianResultStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 批量结果导出
+ * 以 NDJSON（每行一个域名）流式输出结果存储中的所有结果，客户端接受时使用 gzip 压缩。
+ * 响应头 X-Beian-State-Version 与 ETag 为导出时的状态版本号；下次以 ?since=版本号 请求只返回之后变化的域名。
+ */
+@RestController
+@RequestMapping("/api")
+public class ResultExportController {
+
+    public static final String STATE_VERSION_HEADER = "X-Beian-State-Version";
+    public static final String FULL_SYNC_HEADER = "X-Beian-Full-Sync";
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final BeianResultStore resultStore;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Counter> exportCounters = new HashMap<>();
+
+    public ResultExportController(BeianResultStore resultStore, ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.resultStore = resultStore;
+        this.objectMapper = objectMapper;
+        for (String mode : new String[] {"full", "delta", "not_modified"}) {
+            exportCounters.put(mode, Counter.builder("beian_results_export_total")
+                    .description("批量结果导出请求数")
+                    .tag("mode", mode)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 导出所有结果，或 since 版本之后变化的结果
+     * since 大于当前版本（如服务重启后版本号回退）时返回全部结果，并设置 X-Beian-Full-Sync: true
+     */
+    @GetMapping("/results")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        long version = resultStore.version();
+        String etag = "\"" + version + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            exportCounters.get("not_modified").increment();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(STATE_VERSION_HEADER, String.valueOf(version))
+                    .build();
+        }
+
+        boolean fullSync = since <= 0 || since > version;
+        long from = fullSync ? 0 : since;
+        boolean gzip = acceptsGzip(acceptEncoding);
+        exportCounters.get(fullSync ? "full" : "delta").increment();
+
+        StreamingResponseBody body = out -> {
+            OutputStream stream = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            boolean[] written = {false};
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(stream)) {
+                resultStore.forEachChangedSince(from, (domain, resultVersion, result) -> {
+                    Map<String, Object> line = new LinkedHashMap<>();
+                    line.put("domain", domain);
+                    line.put("version", resultVersion);
+                    line.put("status", result.getStatus().getValue());
+                    line.put("message", result.getMessage());
+                    line.put("data", result.getData());
+                    line.put("error", result.getError());
+                    try {
+                        writer.write(line);
+                        written[0] = true;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.flush();
+                if (written[0]) {
+                    stream.write('\n');
+                }
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(NDJSON)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(STATE_VERSION_HEADER, String.valueOf(version))
+                .header(FULL_SYNC_HEADER, String.valueOf(fullSync));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * 按 Accept-Encoding 的 q 值判断客户端是否接受 gzip
+     * 显式列出的 gzip / x-gzip 优先于 *；q=0 表示不接受
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        // 无法解析的 q 值按不接受处理
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (name.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        Double effective = gzipQuality != null ? gzipQuality : wildcardQuality;
+        return effective != null && effective > 0;
+    }
+}
@@ -0,0 +1,54 @@
+package io.devops.beian.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 单次上游查询事件：持续时间覆盖随机延迟、HTTP 请求与解析全过程
+ */
+@Name("io.devops.beian.Check")
+@Label("Beian Check")
+@Category({"Beian Exporter", "Upstream"})
+@Description("单次备案查询：随机延迟、上游请求与响应解析")
+@StackTrace(false)
+public class CheckEvent extends Event {
+
+    @Label("Domain")
+    public String domain;
+
+    @Label("Provider")
+    @Description("上游查询站点主机名")
+    public String provider;
+
+    @Label("Egress")
+    @Description("出口代理（host:port 或 direct），未启用代理池时为空")
+    public String egress;
+
+    @Label("Status")
+    public String status;
+
+    @Label("Response Size")
+    @Description("响应大小（Content-Length，缺失时为正文字符数；无响应时为 -1）")
+    @DataAmount
+    public long bytes = -1;
+
+    @Label("Jitter")
+    @Description("请求前的随机延迟")
+    @Timespan(Timespan.MILLISECONDS)
+    public long jitter;
+
+    @Label("Request")
+    @Description("从发出请求到处理完响应（含解析）")
+    @Timespan(Timespan.MILLISECONDS)
+    public long request;
+
+    @Label("Parse")
+    @Timespan(Timespan.NANOSECONDS)
+    public long parse;
+}
@@ -0,0 +1,30 @@
+package io.devops.beian.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 响应解析事件（实时查询与归档重新解析均会产生）
+ */
+@Name("io.devops.beian.Parse")
+@Label("Beian Parse")
+@Category({"Beian Exporter", "Parser"})
+@Description("解析一次备案查询页面")
+@StackTrace(false)
+public class ParseEvent extends Event {
+
+    @Label("Input Length")
+    @Description("页面字符数")
+    public int inputLength;
+
+    @Label("Rows")
+    @Description("解析出的备案记录数")
+    public int rows;
+
+    @Label("Status")
+    public String status;
+}
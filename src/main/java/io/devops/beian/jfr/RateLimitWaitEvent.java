@@ -0,0 +1,30 @@
+package io.devops.beian.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 上游调度器的一次等待：请求间隔、每分钟限流、出口代理额度或熔断冷却
+ */
+@Name("io.devops.beian.RateLimitWait")
+@Label("Beian Rate Limit Wait")
+@Category({"Beian Exporter", "Upstream"})
+@Description("调度器因请求间隔、限流或熔断而等待")
+@StackTrace(false)
+public class RateLimitWaitEvent extends Event {
+
+    @Label("Reason")
+    @Description("request_delay、rate_limit、egress_limit 或 circuit_open")
+    public String reason;
+
+    @Label("Lane")
+    public String lane;
+
+    @Label("Domain")
+    @Description("队首等待的查询")
+    public String domain;
+}
@@ -0,0 +1,41 @@
+package io.devops.beian.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一轮批量检查：开始时间与持续时间即该轮的起止
+ */
+@Name("io.devops.beian.Sweep")
+@Label("Beian Sweep")
+@Category({"Beian Exporter", "Scheduler"})
+@Description("一轮批量备案检查")
+@StackTrace(false)
+public class SweepEvent extends Event {
+
+    @Label("Group")
+    @Description("域名分组")
+    public String group;
+
+    @Label("Configured Domains")
+    public int configuredDomains;
+
+    @Label("Lookups")
+    @Description("合并为可注册域名后的查询数")
+    public int lookups;
+
+    @Label("Company Queries")
+    @Description("按主办单位聚合的查询数")
+    public int companyQueries;
+
+    @Label("Covered By Company Queries")
+    public int covered;
+
+    @Label("Failed")
+    @Description("批量检查是否异常结束")
+    public boolean failed;
+}
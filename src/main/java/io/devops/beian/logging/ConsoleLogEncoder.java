@@ -0,0 +1,127 @@
+package io.devops.beian.logging;
+
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import org.slf4j.event.KeyValuePair;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 控制台日志编码器
+ * format 为 text 时按 pattern 输出单行文本；为 json 时每条日志输出一个 JSON 对象：时间、级别、线程、日志名、
+ * 格式化后的消息，以及通过 SLF4J 键值对（addKeyValue）与 MDC 附加的字段，异常堆栈放在 exception 字段中。
+ * logback 自带的 JsonEncoder 输出未格式化的消息模板与参数数组，不便于日志平台直接检索，因此单独实现。
+ * 两种格式共用一个编码器，logback-spring.xml 只需声明一个输出目标。
+ */
+public class ConsoleLogEncoder extends PatternLayoutEncoder {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private boolean jsonFormat;
+
+    /**
+     * 输出格式：text 或 json
+     */
+    public void setFormat(String format) {
+        this.jsonFormat = "json".equalsIgnoreCase(format);
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return jsonFormat ? EMPTY : super.headerBytes();
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        if (!jsonFormat) {
+            return super.encode(event);
+        }
+        StringBuilder json = new StringBuilder(256);
+        json.append('{');
+        field(json, "timestamp", Instant.ofEpochMilli(event.getTimeStamp()).toString());
+        json.append(',');
+        field(json, "level", event.getLevel().toString());
+        json.append(',');
+        field(json, "thread", event.getThreadName());
+        json.append(',');
+        field(json, "logger", event.getLoggerName());
+        json.append(',');
+        field(json, "message", event.getFormattedMessage());
+
+        List<KeyValuePair> keyValues = event.getKeyValuePairs();
+        if (keyValues != null) {
+            for (KeyValuePair pair : keyValues) {
+                json.append(',');
+                value(json, pair.key, pair.value);
+            }
+        }
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        if (mdc != null) {
+            for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                json.append(',');
+                field(json, entry.getKey(), entry.getValue());
+            }
+        }
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            json.append(',');
+            field(json, "exception", ThrowableProxyUtil.asString(throwable));
+        }
+        json.append('}').append('\n');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return jsonFormat ? EMPTY : super.footerBytes();
+    }
+
+    /**
+     * 数值与布尔值原样输出，其余按字符串输出
+     */
+    private static void value(StringBuilder json, String name, Object value) {
+        if (value instanceof Number || value instanceof Boolean) {
+            quote(json, name);
+            json.append(':').append(value);
+        } else {
+            field(json, name, value == null ? null : value.toString());
+        }
+    }
+
+    private static void field(StringBuilder json, String name, String value) {
+        quote(json, name);
+        json.append(':');
+        if (value == null) {
+            json.append("null");
+        } else {
+            quote(json, value);
+        }
+    }
+
+    private static void quote(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
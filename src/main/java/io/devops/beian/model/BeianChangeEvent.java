@@ -0,0 +1,102 @@
+package io.devops.beian.model;
+
+/**
+ * 备案状态变更事件
+ */
+public class BeianChangeEvent {
+
+    private String domain;
+    private BeianResult.Status previousStatus;
+    private BeianResult.Status currentStatus;
+    private long firstChangedAt;
+    private long lastChangedAt;
+    private int flipCount;
+
+    // 构造函数
+    public BeianChangeEvent() {}
+
+    public BeianChangeEvent(String domain, BeianResult.Status previousStatus, BeianResult.Status currentStatus) {
+        long now = System.currentTimeMillis();
+        this.domain = domain;
+        this.previousStatus = previousStatus;
+        this.currentStatus = currentStatus;
+        this.firstChangedAt = now;
+        this.lastChangedAt = now;
+        this.flipCount = 1;
+    }
+
+    /**
+     * 合并同一窗口内的后续变更，保留最初的前置状态
+     */
+    public void merge(BeianResult.Status newStatus) {
+        this.currentStatus = newStatus;
+        this.lastChangedAt = System.currentTimeMillis();
+        this.flipCount++;
+    }
+
+    /**
+     * 窗口内来回翻转后是否已回到原状态
+     */
+    public boolean isReverted() {
+        return previousStatus == currentStatus;
+    }
+
+    // Getters and Setters
+    public String getDomain() {
+        return domain;
+    }
+
+    public void setDomain(String domain) {
+        this.domain = domain;
+    }
+
+    public BeianResult.Status getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public void setPreviousStatus(BeianResult.Status previousStatus) {
+        this.previousStatus = previousStatus;
+    }
+
+    public BeianResult.Status getCurrentStatus() {
+        return currentStatus;
+    }
+
+    public void setCurrentStatus(BeianResult.Status currentStatus) {
+        this.currentStatus = currentStatus;
+    }
+
+    public long getFirstChangedAt() {
+        return firstChangedAt;
+    }
+
+    public void setFirstChangedAt(long firstChangedAt) {
+        this.firstChangedAt = firstChangedAt;
+    }
+
+    public long getLastChangedAt() {
+        return lastChangedAt;
+    }
+
+    public void setLastChangedAt(long lastChangedAt) {
+        this.lastChangedAt = lastChangedAt;
+    }
+
+    public int getFlipCount() {
+        return flipCount;
+    }
+
+    public void setFlipCount(int flipCount) {
+        this.flipCount = flipCount;
+    }
+
+    @Override
+    public String toString() {
+        return "BeianChangeEvent{" +
+                "domain='" + domain + '\'' +
+                ", previousStatus=" + previousStatus +
+                ", currentStatus=" + currentStatus +
+                ", flipCount=" + flipCount +
+                '}';
+    }
+}
\ No newline at end of file
@@ -11,6 +11,7 @@ public class BeianResult {
         SUCCESS("success"),
         NOT_FOUND("not_found"),
         PARSE_ERROR("parse_error"),
+        BLOCKED("blocked"),
         ERROR("error");
         
         private final String value;
@@ -59,6 +60,10 @@ public class BeianResult {
         return new BeianResult(Status.PARSE_ERROR, message);
     }
 
+    public static BeianResult blocked(String message) {
+        return new BeianResult(Status.BLOCKED, message);
+    }
+
     public static BeianResult error(String error) {
         BeianResult result = new BeianResult(Status.ERROR);
         result.setError(error);
@@ -1,18 +1,35 @@
 package io.devops.beian.service;
 
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.jfr.CheckEvent;
+import io.devops.beian.jfr.ParseEvent;
 import io.devops.beian.model.BeianInfo;
 import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
 
+import java.net.IDN;
+import java.net.URI;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -23,19 +40,54 @@ import java.util.regex.Pattern;
 public class BeianChecker {
 
     private static final Logger logger = LoggerFactory.getLogger(BeianChecker.class);
-    private static final String BASE_URL = "https://www.beianx.cn/search/";
     private static final Random random = new Random();
+    private static final String[] BLOCK_PAGE_MARKERS = {
+        "验证码", "滑动验证", "安全验证", "人机验证", "访问过于频繁", "请求过于频繁", "访问被拒绝",
+        "captcha", "Captcha", "Access Denied", "acw_sc__v2", "_waf_", "aliyun_waf"
+    };
     
     private final WebClient webClient;
+    private final BeianProperties.Upstream upstream;
+    private final String provider;
+    private final ResponseArchive responseArchive;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final ErrorLogSampler errorLogSampler;
+    private final ResponseFingerprints fingerprints;
+    private final Map<BeianResult.Status, Timer> requestTimers = new EnumMap<>(BeianResult.Status.class);
+    private final Map<String, WebClient> egressClients = new ConcurrentHashMap<>();
 
-    public BeianChecker() {
-        this.webClient = WebClient.builder()
+    public BeianChecker(BeianProperties beianProperties,
+                        ResponseArchive responseArchive,
+                        UpstreamCircuitBreaker circuitBreaker,
+                        UpstreamDnsResolver dnsResolver,
+                        ErrorLogSampler errorLogSampler,
+                        ResponseFingerprints fingerprints,
+                        MeterRegistry meterRegistry) {
+        this.upstream = beianProperties.getUpstream();
+        this.provider = URI.create(upstream.getBaseUrl()).getHost();
+        this.responseArchive = responseArchive;
+        this.circuitBreaker = circuitBreaker;
+        this.errorLogSampler = errorLogSampler;
+        this.fingerprints = fingerprints;
+        for (BeianResult.Status status : BeianResult.Status.values()) {
+            requestTimers.put(status, Timer.builder("beian_upstream_request_seconds")
+                    .description("单次上游查询耗时（不含随机延迟）")
+                    .tag("status", status.getValue())
+                    .register(meterRegistry));
+        }
+        WebClient.Builder builder = WebClient.builder();
+        if (dnsResolver.addressResolverGroup() != null) {
+            // 直连上游时使用带缓存的解析器；经代理访问时由代理解析上游域名
+            builder.clientConnector(new ReactorClientHttpConnector(
+                    HttpClient.create().resolver(dnsResolver.addressResolverGroup())));
+        }
+        this.webClient = builder
                 .defaultHeader("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8,application/signed-exchange;v=b3;q=0.7")
                 .defaultHeader("Accept-Language", "zh-CN,zh;q=0.9,en;q=0.8")
                 .defaultHeader("Cache-Control", "no-cache")
                 .defaultHeader("Connection", "keep-alive")
                 .defaultHeader("Pragma", "no-cache")
-                .defaultHeader("Referer", "https://www.beianx.cn/search/")
+                .defaultHeader("Referer", upstream.getBaseUrl())
                 .defaultHeader("Sec-Fetch-Dest", "document")
                 .defaultHeader("Sec-Fetch-Mode", "navigate")
                 .defaultHeader("Sec-Fetch-Site", "same-origin")
@@ -50,43 +102,202 @@ public class BeianChecker {
 
     /**
      * 查询单个域名的备案信息
+     * 国际化域名以 Unicode 形式查询（备案系统按中文域名登记）
      */
     public Mono<BeianResult> checkAsync(String domain, Duration timeout) {
+        return checkAsync(domain, timeout, null);
+    }
+
+    /**
+     * 经指定出口查询单个域名的备案信息
+     * @param egress 出口租约，为 null 或直连出口时使用本机网络
+     */
+    public Mono<BeianResult> checkAsync(String domain, Duration timeout, EgressProxyPool.Lease egress) {
         logger.debug("开始查询域名: {} (添加随机延迟避免被封)", domain);
         
-        // 添加随机延迟 1-3秒，避免请求过于规律
-        long randomDelay = 1000 + (long)(Math.random() * 2000);
+        // 添加随机延迟（默认 1-3秒），避免请求过于规律
+        long jitterRange = Math.max(0, upstream.getMaxJitterMs() - upstream.getMinJitterMs());
+        long randomDelay = upstream.getMinJitterMs() + (long)(Math.random() * jitterRange);
         
-        return Mono.delay(Duration.ofMillis(randomDelay))
-                .then(webClient.get()
-                        .uri(BASE_URL + domain)
-                        .header("Cookie", generateRandomCookie())
-                        .header("User-Agent", generateRandomUserAgent())
-                        .header("sec-ch-ua", generateRandomSecChUa())
-                        .header("X-Forwarded-For", generateRandomIP())
-                        .retrieve()
-                        .bodyToMono(String.class)
-                        .timeout(timeout)
-                        .map(this::parseResponse)
-                        .doOnSuccess(result -> {
-                            if (result.getStatus() == BeianResult.Status.SUCCESS) {
-                                logger.info("域名 {} 查询成功: 找到 {} 条备案信息", domain, result.getData().size());
-                            } else if (result.getStatus() == BeianResult.Status.NOT_FOUND) {
-                                logger.info("域名 {} 查询完成: 未找到备案信息", domain);
-                            } else {
-                                logger.warn("域名 {} 查询异常: {}", domain, result.getMessage());
-                            }
-                        })
-                        .doOnError(error -> {
-                            logger.error("查询域名 {} 网络请求失败: {}", domain, error.getMessage());
-                            // 检查是否是超时或网络错误，这些情况适合重试
-                            if (error.getMessage().contains("timeout") || 
-                                error.getMessage().contains("connection") ||
-                                error.getMessage().contains("ConnectException")) {
-                                logger.debug("域名 {} 遇到网络问题，适合重试", domain);
-                            }
-                        })
-                        .onErrorReturn(BeianResult.error("查询失败: " + getErrorMessage(domain))));
+        return Mono.defer(() -> {
+            CheckEvent event = new CheckEvent();
+            event.begin();
+            return Mono.delay(Duration.ofMillis(randomDelay))
+                    .then(clientFor(egress).get()
+                            .uri(upstream.getBaseUrl() + IDN.toUnicode(domain))
+                            .header("Cookie", generateRandomCookie())
+                            .header("User-Agent", generateRandomUserAgent())
+                            .header("sec-ch-ua", generateRandomSecChUa())
+                            .header("X-Forwarded-For", generateRandomIP())
+                            .exchangeToMono(response -> handleResponse(domain, response, event))
+                            .timeout(timeout)
+                            .doOnSuccess(result -> {
+                                if (result.getStatus() == BeianResult.Status.SUCCESS) {
+                                    logger.debug("域名 {} 查询成功: 找到 {} 条备案信息", domain, result.getData().size());
+                                } else if (result.getStatus() == BeianResult.Status.NOT_FOUND) {
+                                    logger.debug("域名 {} 查询完成: 未找到备案信息", domain);
+                                } else {
+                                    errorLogSampler.warn(logger, result.getStatus().getValue(), "域名 {} 查询异常: {}",
+                                            domain, result.getMessage());
+                                }
+                            })
+                            .onErrorResume(error -> {
+                                errorLogSampler.error(logger, ErrorLogSampler.errorClass(error), "查询域名 {} 网络请求失败: {}",
+                                        domain, error.getMessage());
+                                circuitBreaker.recordFailure(error instanceof TimeoutException
+                                        ? UpstreamCircuitBreaker.FailureKind.TIMEOUT
+                                        : UpstreamCircuitBreaker.FailureKind.NETWORK);
+                                return Mono.just(BeianResult.error("查询失败: " + getErrorMessage(domain)));
+                            })
+                            .elapsed()
+                            .map(timed -> {
+                                BeianResult result = timed.getT2();
+                                requestTimers.get(result.getStatus()).record(timed.getT1(), TimeUnit.MILLISECONDS);
+                                event.end();
+                                if (event.shouldCommit()) {
+                                    event.domain = domain;
+                                    event.provider = provider;
+                                    event.egress = egress == null ? null : egress.id();
+                                    event.status = result.getStatus().getValue();
+                                    event.jitter = randomDelay;
+                                    event.request = timed.getT1();
+                                    event.commit();
+                                }
+                                return result;
+                            }));
+        });
+    }
+
+    /**
+     * 出口对应的 WebClient，与默认客户端共享请求头配置
+     */
+    private WebClient clientFor(EgressProxyPool.Lease egress) {
+        return egress == null ? webClient : clientFor(egress.id(), egress.connector());
+    }
+
+    private WebClient clientFor(String egressId, ClientHttpConnector connector) {
+        if (connector == null) {
+            return webClient;
+        }
+        return egressClients.computeIfAbsent(egressId, id -> webClient.mutate().clientConnector(connector).build());
+    }
+
+    /**
+     * 预先建立到上游的连接：经每个出口（未启用出口代理池时为本机直连）并发向上游首页发送 perEgress 个 HEAD 请求，
+     * 完成 DNS 解析与 TLS 握手，响应后连接留在连接池中供后续查询复用。不经调度器限流，也不计入熔断器
+     * @param egresses 出口标识与连接器，为空时只预热直连客户端
+     * @return 收到响应的请求数
+     */
+    Mono<Long> warmupConnections(Map<String, ClientHttpConnector> egresses, int perEgress, Duration timeout) {
+        URI base = URI.create(upstream.getBaseUrl());
+        String origin = base.getScheme() + "://" + base.getRawAuthority() + "/";
+        List<WebClient> clients = egresses.isEmpty() ? List.of(webClient)
+                : egresses.entrySet().stream().map(entry -> clientFor(entry.getKey(), entry.getValue())).toList();
+        return Flux.fromIterable(clients)
+                .flatMap(client -> Flux.range(0, perEgress)
+                        .flatMap(i -> client.head().uri(origin)
+                                .header("User-Agent", generateRandomUserAgent())
+                                .exchangeToMono(response -> response.releaseBody().thenReturn(1L))
+                                .timeout(timeout)
+                                .onErrorResume(error -> {
+                                    logger.debug("预建上游连接失败: {}", error.getMessage());
+                                    return Mono.empty();
+                                }), perEgress))
+                .count();
+    }
+
+    /**
+     * 按HTTP状态分类上游响应：403/429 视为封禁，5xx 视为上游故障，均计入熔断器
+     */
+    private Mono<BeianResult> handleResponse(String domain, ClientResponse response, CheckEvent event) {
+        int statusCode = response.statusCode().value();
+        event.bytes = response.headers().contentLength().orElse(-1);
+        
+        if (statusCode == 403 || statusCode == 429) {
+            circuitBreaker.recordFailure(statusCode == 403
+                    ? UpstreamCircuitBreaker.FailureKind.HTTP_403
+                    : UpstreamCircuitBreaker.FailureKind.HTTP_429);
+            return response.releaseBody()
+                    .thenReturn(BeianResult.blocked("上游拒绝访问: HTTP " + statusCode));
+        }
+        if (response.statusCode().is5xxServerError()) {
+            circuitBreaker.recordFailure(UpstreamCircuitBreaker.FailureKind.HTTP_5XX);
+            return response.releaseBody()
+                    .thenReturn(BeianResult.error("查询失败: 上游服务异常 HTTP " + statusCode));
+        }
+        if (!response.statusCode().is2xxSuccessful()) {
+            // 上游可达，只是请求本身无效，不影响熔断状态
+            circuitBreaker.recordSuccess();
+            return response.releaseBody()
+                    .thenReturn(BeianResult.error("查询失败: 上游返回 HTTP " + statusCode));
+        }
+        
+        return response.bodyToMono(String.class)
+                .defaultIfEmpty("")
+                .map(body -> handleBody(domain, body, event));
+    }
+
+    /**
+     * 解析响应正文；解析失败且页面特征为验证码/WAF拦截页时视为封禁，且不覆盖归档中的有效响应
+     * 结果表格的指纹与上次已记录的结果相同时直接返回上次的结果对象，不再解析
+     */
+    private BeianResult handleBody(String domain, String body, CheckEvent event) {
+        long parseStart = System.nanoTime();
+        if (event.bytes < 0) {
+            event.bytes = body.length();
+        }
+        ResponseFingerprints.Fingerprint fingerprint = null;
+        if (fingerprints.isEnabled()) {
+            fingerprint = ResponseFingerprints.fingerprint(body);
+            BeianResult unchanged = fingerprints.match(domain, fingerprint, body.length());
+            if (unchanged != null) {
+                event.parse = System.nanoTime() - parseStart;
+                circuitBreaker.recordSuccess();
+                // 内容相同的响应已在归档中，只在已被滚动删除时补写
+                if (!responseArchive.contains(domain)) {
+                    responseArchive.store(domain, body);
+                }
+                return unchanged;
+            }
+        }
+
+        BeianResult result = classifyBody(body);
+        event.parse = System.nanoTime() - parseStart;
+        
+        if (result.getStatus() == BeianResult.Status.BLOCKED) {
+            circuitBreaker.recordFailure(UpstreamCircuitBreaker.FailureKind.BLOCK_PAGE);
+            return result;
+        }
+        
+        circuitBreaker.recordSuccess();
+        responseArchive.store(domain, body);
+        if (fingerprint != null) {
+            fingerprints.remember(domain, fingerprint, result);
+        }
+        return result;
+    }
+
+    /**
+     * 解析响应正文并识别拦截页，不更新熔断器与归档（也用于启动预热）
+     */
+    BeianResult classifyBody(String body) {
+        BeianResult result = parseResponse(body);
+        if (result.getStatus() == BeianResult.Status.PARSE_ERROR && isBlockPage(body)) {
+            return BeianResult.blocked("上游返回验证码或拦截页面");
+        }
+        return result;
+    }
+
+    /**
+     * 判断是否为验证码、限流或WAF拦截页面
+     */
+    private boolean isBlockPage(String body) {
+        for (String marker : BLOCK_PAGE_MARKERS) {
+            if (body.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
     }
     
     /**
@@ -210,9 +421,23 @@ public class BeianChecker {
     }
 
     /**
-     * 解析HTML响应
+     * 解析HTML响应（也用于归档响应的重新解析）
      */
-    private BeianResult parseResponse(String htmlContent) {
+    BeianResult parseResponse(String htmlContent) {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        BeianResult result = parseHtml(htmlContent);
+        event.end();
+        if (event.shouldCommit()) {
+            event.inputLength = htmlContent.length();
+            event.rows = result.getData() == null ? 0 : result.getData().size();
+            event.status = result.getStatus().getValue();
+            event.commit();
+        }
+        return result;
+    }
+
+    private BeianResult parseHtml(String htmlContent) {
         try {
             List<BeianInfo> beianInfoList = new ArrayList<>();
             
@@ -250,7 +475,7 @@ public class BeianChecker {
             }
             
         } catch (Exception e) {
-            logger.error("解析HTML内容时发生错误", e);
+            errorLogSampler.error(logger, "parse_exception", "解析HTML内容时发生错误", e);
             return BeianResult.parseError("解析HTML时发生错误: " + e.getMessage());
         }
     }
@@ -1,5 +1,6 @@
 package io.devops.beian.service;
 
+import io.devops.beian.config.BeianProperties;
 import io.devops.beian.model.BeianInfo;
 import io.devops.beian.model.BeianResult;
 import io.micrometer.core.instrument.Counter;
@@ -19,11 +20,16 @@ import java.util.concurrent.atomic.AtomicLong;
 public class BeianMetricsService {
 
     private final MeterRegistry meterRegistry;
+    private final DomainGroupRegistry domainGroups;
+    private final RemoteWriteService remoteWriteService;
+    private final BeianResultStore resultStore;
+    // worker 角色不输出域名指标，由 exporter 跟随结果日志输出
+    private final boolean domainMetrics;
     
     // 存储各域名的状态值
-    private final ConcurrentHashMap<String, AtomicLong> beianStatusGauges = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, AtomicLong> lastCheckTimeGauges = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, AtomicLong> beianInfoGauges = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TrackedGauge> beianStatusGauges = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TrackedGauge> lastCheckTimeGauges = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TrackedGauge> beianInfoGauges = new ConcurrentHashMap<>();
     
     // 计数器缓存
     private final ConcurrentHashMap<String, Counter> errorCounters = new ConcurrentHashMap<>();
@@ -31,8 +37,14 @@ public class BeianMetricsService {
     // 计时器缓存 - 已禁用
     // private final ConcurrentHashMap<String, Timer> durationTimers = new ConcurrentHashMap<>();
 
-    public BeianMetricsService(MeterRegistry meterRegistry) {
+    public BeianMetricsService(MeterRegistry meterRegistry, DomainGroupRegistry domainGroups,
+                               RemoteWriteService remoteWriteService, BeianResultStore resultStore,
+                               BeianProperties beianProperties) {
         this.meterRegistry = meterRegistry;
+        this.domainGroups = domainGroups;
+        this.remoteWriteService = remoteWriteService;
+        this.resultStore = resultStore;
+        this.domainMetrics = beianProperties.hasExporterRole();
     }
 
     /**
@@ -41,15 +53,16 @@ public class BeianMetricsService {
      * @param status 状态 (1=已备案, 0=未备案, -1=查询错误)
      */
     public void updateBeianStatus(String domain, int status) {
-        AtomicLong gauge = beianStatusGauges.computeIfAbsent(domain, d -> {
+        TrackedGauge gauge = beianStatusGauges.computeIfAbsent(domain, d -> {
             AtomicLong atomicLong = new AtomicLong(status);
-            Gauge.builder("beian_status", atomicLong, AtomicLong::doubleValue)
+            return new TrackedGauge(atomicLong, Gauge.builder("beian_status", atomicLong, AtomicLong::doubleValue)
                     .description("备案状态 (1=已备案, 0=未备案, -1=查询错误)")
                     .tag("domain", d)
-                    .register(meterRegistry);
-            return atomicLong;
+                    .tags(domainGroups.tags(d))
+                    .register(meterRegistry));
         });
-        gauge.set(status);
+        gauge.value().set(status);
+        remoteWriteService.record(gauge.gauge());
     }
 
     /**
@@ -63,9 +76,9 @@ public class BeianMetricsService {
         BeianInfo info = result.getData().get(0);
         
         // 为每个域名创建独立的指标
-        AtomicLong gauge = beianInfoGauges.computeIfAbsent(domain, d -> {
+        TrackedGauge gauge = beianInfoGauges.computeIfAbsent(domain, d -> {
             AtomicLong atomicLong = new AtomicLong(1);
-            Gauge.builder("beian_info", atomicLong, AtomicLong::doubleValue)
+            return new TrackedGauge(atomicLong, Gauge.builder("beian_info", atomicLong, AtomicLong::doubleValue)
                     .description("备案详细信息")
                     .tag("domain", d)
                     .tag("company_name", sanitizeLabel(info.getCompanyName()))
@@ -74,16 +87,17 @@ public class BeianMetricsService {
                     .tag("website_name", sanitizeLabel(info.getWebsiteName()))
                     .tag("website_url", sanitizeLabel(info.getWebsiteUrl()))
                     .tag("approval_date", sanitizeLabel(info.getApprovalDate()))
-                    .register(meterRegistry);
-            return atomicLong;
+                    .tags(domainGroups.tags(d))
+                    .register(meterRegistry));
         });
-        gauge.set(1);
+        gauge.value().set(1);
+        remoteWriteService.record(gauge.gauge());
     }
     
     /**
      * 清理标签值，确保符合Prometheus规范
      */
-    private String sanitizeLabel(String value) {
+    static String sanitizeLabel(String value) {
         if (value == null || value.trim().isEmpty()) {
             return "";
         }
@@ -120,32 +134,68 @@ public class BeianMetricsService {
                         .description("备案查询错误次数")
                         .tag("domain", domain)
                         .tag("error_type", errorType)
+                        .tags(domainGroups.tags(domain))
                         .register(meterRegistry)
         );
         counter.increment();
+        remoteWriteService.record(counter);
     }
 
     /**
      * 更新最后检查时间
      */
     public void updateLastCheckTime(String domain) {
-        long currentTime = System.currentTimeMillis() / 1000; // Unix timestamp
+        updateLastCheckTime(domain, System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * 按指定的检查时间（Unix 时间戳，秒）更新最后检查时间
+     */
+    public void updateLastCheckTime(String domain, long currentTime) {
         
-        AtomicLong gauge = lastCheckTimeGauges.computeIfAbsent(domain, d -> {
+        TrackedGauge gauge = lastCheckTimeGauges.computeIfAbsent(domain, d -> {
             AtomicLong atomicLong = new AtomicLong(currentTime);
-            Gauge.builder("beian_last_check_timestamp", atomicLong, AtomicLong::doubleValue)
+            return new TrackedGauge(atomicLong, Gauge.builder("beian_last_check_timestamp", atomicLong, AtomicLong::doubleValue)
                     .description("最后检查时间戳")
                     .tag("domain", d)
-                    .register(meterRegistry);
-            return atomicLong;
+                    .tags(domainGroups.tags(d))
+                    .register(meterRegistry));
         });
-        gauge.set(currentTime);
+        gauge.value().set(currentTime);
+        remoteWriteService.record(gauge.gauge());
     }
 
     /**
      * 根据查询结果更新所有相关指标
      */
     public void updateMetrics(String domain, BeianResult result) {
+        updateMetrics(domain, result, System.currentTimeMillis());
+    }
+
+    /**
+     * 根据查询结果更新所有相关指标，checkTimeMillis 为查询时间（跟随结果日志时为 worker 记录结果的时间）
+     */
+    public void updateMetrics(String domain, BeianResult result, long checkTimeMillis) {
+        applyResult(domain, result, checkTimeMillis, true);
+    }
+
+    /**
+     * 启动时从归档恢复的结果：状态与备案信息按结果设置，检查时间取归档时间；
+     * 恢复不是一次新的检查，不增加错误次数
+     */
+    public void restoreMetrics(String domain, BeianResult result, long archivedAtMillis) {
+        applyResult(domain, result, archivedAtMillis, false);
+    }
+
+    private void applyResult(String domain, BeianResult result, long checkTimeMillis, boolean countErrors) {
+        if (!domainMetrics) {
+            return;
+        }
+        if (resultStore.isMapped()) {
+            recordMapped(domain, result, checkTimeMillis, countErrors);
+            return;
+        }
+        String errorType = null;
         switch (result.getStatus()) {
             case SUCCESS:
                 updateBeianStatus(domain, 1);
@@ -153,22 +203,76 @@ public class BeianMetricsService {
                 break;
             case NOT_FOUND:
                 updateBeianStatus(domain, 0);
-                incrementError(domain, "not_found");
+                errorType = "not_found";
                 break;
             case PARSE_ERROR:
                 updateBeianStatus(domain, -1);
-                incrementError(domain, "parse_error");
+                errorType = "parse_error";
                 break;
             case ERROR:
                 updateBeianStatus(domain, -1);
-                incrementError(domain, "query_error");
+                errorType = "query_error";
                 break;
+            case BLOCKED:
+                // 被上游封禁或熔断时保留最近一次有效状态，只记录错误次数
+                if (countErrors) {
+                    incrementError(domain, "blocked");
+                }
+                return;
             default:
                 updateBeianStatus(domain, -1);
-                incrementError(domain, "unknown_error");
+                errorType = "unknown_error";
                 break;
         }
-        
-        updateLastCheckTime(domain);
+        if (errorType != null && countErrors) {
+            incrementError(domain, errorType);
+        }
+
+        updateLastCheckTime(domain, checkTimeMillis / 1000);
+    }
+
+    /**
+     * 结果与上次已记录的内容相同（响应指纹命中）时只更新检查时间，未备案仍计入 not_found 次数；
+     * 状态与备案信息指标不变，不再重新处理标签
+     */
+    public void recordUnchanged(String domain, BeianResult result) {
+        recordUnchanged(domain, result, System.currentTimeMillis());
+    }
+
+    public void recordUnchanged(String domain, BeianResult result, long checkTimeMillis) {
+        if (!domainMetrics) {
+            return;
+        }
+        if (resultStore.isMapped()) {
+            recordMapped(domain, result, checkTimeMillis, true);
+            return;
+        }
+        if (result.getStatus() == BeianResult.Status.NOT_FOUND) {
+            incrementError(domain, "not_found");
+        }
+        updateLastCheckTime(domain, checkTimeMillis / 1000);
+    }
+
+    /**
+     * mapped 结果存储下只在记录表中登记错误类型与检查时间，状态与备案信息取自已保存的结果，
+     * 由 MappedMetricsCollector 在抓取时输出；记录表已满后出现的域名不输出指标（与收集器的指标名冲突）
+     */
+    private void recordMapped(String domain, BeianResult result, long checkTimeMillis, boolean countErrors) {
+        String errorType = !countErrors ? null : switch (result.getStatus()) {
+            case SUCCESS -> null;
+            case NOT_FOUND -> "not_found";
+            case PARSE_ERROR -> "parse_error";
+            case ERROR -> "query_error";
+            case BLOCKED -> "blocked";
+            default -> "unknown_error";
+        };
+        long checkTime = result.getStatus() == BeianResult.Status.BLOCKED ? 0 : checkTimeMillis / 1000;
+        resultStore.recordCheck(domain, errorType, checkTime);
+    }
+
+    /**
+     * 域名指标的值与已注册的 Gauge，值变化时登记到 Remote Write
+     */
+    private record TrackedGauge(AtomicLong value, Gauge gauge) {
     }
-}
\ No newline at end of file
+}
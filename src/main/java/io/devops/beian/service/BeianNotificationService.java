@@ -0,0 +1,227 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianChangeEvent;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 备案状态变更通知服务
+ * 调度线程只负责入队，批量合并与Webhook投递在独立线程中异步完成；
+ * 停止时发送最后一批事件，并在 shutdown-timeout 内等待所有未完成的投递
+ */
+@Service
+public class BeianNotificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BeianNotificationService.class);
+
+    private final BeianProperties beianProperties;
+    private final MeterRegistry meterRegistry;
+    private final WebClient webClient;
+
+    // 各域名最近一次确定的备案状态（仅 SUCCESS / NOT_FOUND）
+    private final ConcurrentHashMap<String, BeianResult.Status> lastKnownStatus = new ConcurrentHashMap<>();
+
+    // 当前窗口内待发送的事件，按域名合并
+    private final Map<String, BeianChangeEvent> pending = new LinkedHashMap<>();
+
+    // 未完成的投递（含重试），停止时等待其结束
+    private final Set<CompletableFuture<Void>> deliveries = ConcurrentHashMap.newKeySet();
+
+    private final Counter droppedCounter;
+    private ScheduledExecutorService flushExecutor;
+
+    public BeianNotificationService(BeianProperties beianProperties, MeterRegistry meterRegistry) {
+        this.beianProperties = beianProperties;
+        this.meterRegistry = meterRegistry;
+        this.webClient = WebClient.builder()
+                .defaultHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .build();
+        this.droppedCounter = Counter.builder("beian_notification_dropped_total")
+                .description("因队列已满被丢弃的状态变更事件数")
+                .register(meterRegistry);
+        Gauge.builder("beian_notification_pending", this, BeianNotificationService::pendingCount)
+                .description("当前窗口内待发送的状态变更事件数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        BeianProperties.Notification config = beianProperties.getNotification();
+        if (!config.isEnabled() || config.getWebhooks().isEmpty()) {
+            return;
+        }
+
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "beian-notification");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flush,
+                config.getBatchWindow(), config.getBatchWindow(), TimeUnit.SECONDS);
+        logger.info("状态变更通知已启用，批量窗口 {} 秒，Webhook {} 个",
+                config.getBatchWindow(), config.getWebhooks().size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flushExecutor == null) {
+            return;
+        }
+        long timeoutMillis = beianProperties.getNotification().getShutdownTimeout() * 1000L;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        flushExecutor.shutdown();
+        try {
+            // 等待进行中的定时发送完成入队，避免与最后一批并发取走事件
+            flushExecutor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+            flush();
+            CompletableFuture.allOf(deliveries.toArray(new CompletableFuture<?>[0]))
+                    .get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("停止时仍有 {} 个状态变更通知投递未完成，等待 {} 秒后放弃",
+                    deliveries.size(), beianProperties.getNotification().getShutdownTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("停止时发送状态变更通知失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 记录查询结果，状态发生变化时入队变更事件（不阻塞调用方）
+     */
+    public void onResult(String domain, BeianResult result) {
+        if (flushExecutor == null || !isDefinitive(result.getStatus())) {
+            return;
+        }
+
+        BeianResult.Status previous = lastKnownStatus.put(domain, result.getStatus());
+        if (previous == null || previous == result.getStatus()) {
+            return;
+        }
+
+        synchronized (pending) {
+            BeianChangeEvent event = pending.get(domain);
+            if (event != null) {
+                event.merge(result.getStatus());
+                if (event.isReverted()) {
+                    pending.remove(domain);
+                }
+                return;
+            }
+
+            if (pending.size() >= beianProperties.getNotification().getQueueCapacity()) {
+                droppedCounter.increment();
+                return;
+            }
+            pending.put(domain, new BeianChangeEvent(domain, previous, result.getStatus()));
+        }
+        countEvent(previous, result.getStatus());
+    }
+
+    /**
+     * 发送当前窗口内的全部事件
+     */
+    void flush() {
+        List<BeianChangeEvent> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("events", batch);
+        payload.put("count", batch.size());
+        payload.put("timestamp", System.currentTimeMillis());
+
+        for (String webhook : beianProperties.getNotification().getWebhooks()) {
+            deliver(webhook, payload, batch.size());
+        }
+    }
+
+    /**
+     * 投递到单个Webhook，失败时指数退避重试；投递结束前保留在未完成集合中
+     */
+    private void deliver(String webhook, Map<String, Object> payload, int eventCount) {
+        BeianProperties.Notification config = beianProperties.getNotification();
+
+        CompletableFuture<Void> delivery = new CompletableFuture<>();
+        deliveries.add(delivery);
+        delivery.whenComplete((ignored, error) -> deliveries.remove(delivery));
+
+        webClient.post()
+                .uri(webhook)
+                .bodyValue(payload)
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(Duration.ofSeconds(config.getRequestTimeout()))
+                .retryWhen(Retry.backoff(config.getMaxRetries(), Duration.ofSeconds(2))
+                        .maxBackoff(Duration.ofSeconds(30)))
+                .doFinally(signal -> delivery.complete(null))
+                .subscribe(
+                        response -> {
+                            countDelivery(webhook, "success");
+                            logger.info("已向 {} 发送 {} 条备案状态变更通知", webhook, eventCount);
+                        },
+                        error -> {
+                            countDelivery(webhook, "failure");
+                            logger.error("向 {} 发送状态变更通知失败，丢弃 {} 条事件: {}",
+                                    webhook, eventCount, error.getMessage());
+                        });
+    }
+
+    private boolean isDefinitive(BeianResult.Status status) {
+        return status == BeianResult.Status.SUCCESS || status == BeianResult.Status.NOT_FOUND;
+    }
+
+    private double pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    private void countEvent(BeianResult.Status from, BeianResult.Status to) {
+        Counter.builder("beian_notification_events_total")
+                .description("检测到的备案状态变更事件数")
+                .tag("from", from.getValue())
+                .tag("to", to.getValue())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void countDelivery(String webhook, String outcome) {
+        Counter.builder("beian_notification_deliveries_total")
+                .description("Webhook批量投递次数")
+                .tag("webhook", webhook)
+                .tag("result", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
\ No newline at end of file
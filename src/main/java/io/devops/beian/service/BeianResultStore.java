@@ -0,0 +1,584 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianInfo;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 各域名最近一次查询结果
+ * 被封禁或熔断（BLOCKED）的结果不覆盖已有记录，保留最近一次有效结果。
+ *
+ * 结果以紧凑形式保存：重复出现的主办单位名称、单位性质、提示信息经字典编码为整数，
+ * 审核日期压缩为 yyyyMMdd 整数，单条记录不再包装为列表；读取时还原为 BeianResult，接口输出不变。
+ * 结果内容变化时版本号递增，供页面等派生数据判断缓存是否失效；每条结果记录最后变化时的版本号，
+ * 并按版本号维护有序的变更索引（每个域名只保留最新版本），增量导出时只遍历指定版本之后变化的域名。
+ * 版本号从启动时的毫秒时间戳开始，重启后通常仍大于重启前的版本号。
+ *
+ * beian.store.mode=mapped 时，域名按排序后的位置编号，结果、最后检查时间与错误计数以定长记录保存在堆外的
+ * {@link MappedResultTable} 中，读取不加锁；单条记录放不下的结果（多条备案记录、超长字段）仍保存在堆内。
+ * 记录表容量用尽后出现的新域名退回堆内存储。
+ */
+@Service
+public class BeianResultStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BeianResultStore.class);
+
+    private static final BeianResult.Status[] STATUSES = BeianResult.Status.values();
+
+    /**
+     * 未指定容量时，为手动查询等未配置的域名预留的记录数
+     */
+    private static final int EXTRA_CAPACITY = 1024;
+    private static final int ID_BITS = 23;
+
+    private final ConcurrentHashMap<String, Entry> results = new ConcurrentHashMap<>();
+    private final StringDictionary dictionary = new StringDictionary();
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    // 版本号 -> 在该版本变化的域名及结果（mapped 模式下只登记堆内存储的域名）
+    private final ConcurrentSkipListMap<Long, Change> changes = new ConcurrentSkipListMap<>();
+
+    // 以下仅 mapped 模式使用
+    private final MappedResultTable table;
+    // 记录编号 -> 域名：前 configuredCount 个为排序后的配置域名，之后按出现顺序追加
+    private final String[] domainsById;
+    private final int configuredCount;
+    private final Map<String, Integer> extraIds = new ConcurrentHashMap<>();
+    private volatile int assigned;
+    private final AtomicInteger mappedSize = new AtomicInteger();
+    // 记录编号 -> 记录表放不下的完整结果
+    private final Map<Integer, Entry> overflow = new ConcurrentHashMap<>();
+    private volatile boolean capacityWarned;
+
+    public BeianResultStore(BeianProperties beianProperties, DomainGroupRegistry domainGroups,
+                            MeterRegistry meterRegistry) {
+        BeianProperties.Store config = beianProperties.getStore();
+        if (config.isMapped()) {
+            String[] configured = domainGroups.allDomains().stream().distinct().sorted().toArray(String[]::new);
+            int capacity = config.getCapacity() > 0 ? config.getCapacity() : configured.length + EXTRA_CAPACITY;
+            if (capacity < configured.length) {
+                throw new IllegalArgumentException("beian.store.capacity (" + capacity
+                        + ") 小于配置的域名数 " + configured.length);
+            }
+            try {
+                table = MappedResultTable.allocate(capacity, config.getPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException("无法映射结果存储文件: " + config.getPath(), e);
+            }
+            domainsById = Arrays.copyOf(configured, capacity);
+            configuredCount = configured.length;
+            assigned = configured.length;
+            logger.info("结果存储使用定长记录表: {} 条记录，{} MB {}", capacity, table.bytes() / 1048576,
+                    config.getPath().isBlank() ? "堆外内存" : "映射文件 " + config.getPath());
+            if (beianProperties.getRemoteWrite().isEnabled()) {
+                logger.warn("mapped 结果存储下域名指标直接由记录表输出，Remote Write 不推送域名指标");
+            }
+        } else {
+            table = null;
+            domainsById = null;
+            configuredCount = 0;
+        }
+
+        Gauge.builder("beian_result_store_size", this, BeianResultStore::size)
+                .description("结果存储中的域名数")
+                .register(meterRegistry);
+        Gauge.builder("beian_result_store_dictionary_size", dictionary, StringDictionary::size)
+                .description("结果存储字符串字典中的不同取值数")
+                .register(meterRegistry);
+        if (table != null) {
+            Gauge.builder("beian_result_store_mapped_bytes", table, MappedResultTable::bytes)
+                    .description("定长记录表占用的堆外内存字节数")
+                    .register(meterRegistry);
+            Gauge.builder("beian_result_store_overflow_size", overflow, Map::size)
+                    .description("记录表放不下、保存在堆内的结果数")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 是否使用定长记录表（域名指标由记录表输出，不再注册为 Micrometer 指标）
+     */
+    public boolean isMapped() {
+        return table != null;
+    }
+
+    /**
+     * 保存查询结果
+     */
+    public void put(String domain, BeianResult result) {
+        if (result.getStatus() == BeianResult.Status.BLOCKED) {
+            return;
+        }
+        Entry entry = encode(result);
+        int id = table == null ? -1 : assignId(domain);
+        if (id >= 0) {
+            putMapped(id, entry);
+            return;
+        }
+        results.compute(domain, (d, previous) -> {
+            if (entry.equals(previous)) {
+                return previous;
+            }
+            // 分配版本号与登记变更在同一把锁内完成，读到的版本号之前的变更都已可见
+            synchronized (changes) {
+                entry.version = version.incrementAndGet();
+                if (previous != null) {
+                    changes.remove(previous.version);
+                }
+                changes.put(entry.version, new Change(d, entry));
+            }
+            return entry;
+        });
+    }
+
+    private void putMapped(int id, Entry entry) {
+        MappedResultTable.Row row = toRow(entry);
+        byte[] content = table.encode(row);
+        synchronized (changes) {
+            boolean first = table.status(id) < 0;
+            // 记录表中只有状态与提示信息，堆内的完整结果变化时强制写入；先发布完整结果再更新记录
+            boolean force = row.overflow && !entry.equals(overflow.get(id));
+            if (force) {
+                overflow.put(id, entry);
+            }
+            if (table.write(id, content, force, version::incrementAndGet) != 0) {
+                if (!row.overflow) {
+                    overflow.remove(id);
+                }
+                if (first) {
+                    mappedSize.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录一次检查的错误类型与检查时间（Unix 秒，0 表示不更新），供记录表输出域名指标；
+     * 非 mapped 模式或记录表已满时返回 false
+     */
+    public boolean recordCheck(String domain, String errorType, long checkTime) {
+        int id = table == null ? -1 : assignId(domain);
+        if (id < 0) {
+            return false;
+        }
+        table.recordCheck(id, errorType == null ? -1 : Arrays.asList(MappedResultTable.ERROR_TYPES).indexOf(errorType),
+                checkTime);
+        return true;
+    }
+
+    /**
+     * 获取域名最近一次结果，不存在时返回 null
+     */
+    public BeianResult get(String domain) {
+        int id = table == null ? -1 : idOf(domain);
+        if (id >= 0) {
+            MappedResultTable.Row row = new MappedResultTable.Row();
+            return table.read(id, row) && row.status >= 0 ? decode(id, row) : null;
+        }
+        Entry entry = results.get(domain);
+        return entry == null ? null : decode(entry);
+    }
+
+    /**
+     * 按版本号顺序遍历在 since 之后变化的域名及其最新结果（since 为 0 时遍历全部）
+     */
+    public void forEachChangedSince(long since, VersionedResultConsumer consumer) {
+        // 遍历期间再次变化的域名会在更大的版本号处出现
+        Iterator<Change> heap = changes.tailMap(since, false).values().iterator();
+        Change next = heap.hasNext() ? heap.next() : null;
+        if (table != null) {
+            MappedResultTable.Row row = new MappedResultTable.Row();
+            for (int id : changedIds(since)) {
+                long mappedVersion = table.version(id);
+                for (; next != null && next.entry.version < mappedVersion; next = heap.hasNext() ? heap.next() : null) {
+                    consumer.accept(next.domain, next.entry.version, decode(next.entry));
+                }
+                // 遍历期间再次变化的记录以最新内容与版本号输出，不再重复出现
+                if (table.read(id, row) && row.status >= 0) {
+                    consumer.accept(domainsById[id], row.version, decode(id, row));
+                }
+            }
+        }
+        for (; next != null; next = heap.hasNext() ? heap.next() : null) {
+            consumer.accept(next.domain, next.entry.version, decode(next.entry));
+        }
+    }
+
+    /**
+     * 遍历记录表中每个有检查记录的域名，供指标输出；非 mapped 模式时不遍历
+     */
+    void forEachMapped(MappedRecordConsumer consumer) {
+        if (table == null) {
+            return;
+        }
+        MappedResultTable.Row row = new MappedResultTable.Row();
+        int count = assigned;
+        for (int id = 0; id < count; id++) {
+            if (!table.read(id, row)) {
+                continue;
+            }
+            BeianInfo info = null;
+            if (row.status == BeianResult.Status.SUCCESS.ordinal() && row.hasRecord) {
+                BeianResult result = decode(id, row);
+                info = result.getData() == null || result.getData().isEmpty() ? null : result.getData().get(0);
+            }
+            consumer.accept(domainsById[id], row.status < 0 ? null : STATUSES[row.status], row.lastCheck,
+                    row.errors, info);
+        }
+    }
+
+    /**
+     * 域名最近一次结果的状态，不存在时返回 null（不还原完整结果）
+     */
+    public BeianResult.Status status(String domain) {
+        int id = table == null ? -1 : idOf(domain);
+        if (id >= 0) {
+            int status = table.status(id);
+            return status < 0 ? null : STATUSES[status];
+        }
+        Entry entry = results.get(domain);
+        return entry == null ? null : STATUSES[entry.status];
+    }
+
+    public int size() {
+        return results.size() + mappedSize.get();
+    }
+
+    /**
+     * 结果版本号，任一域名的结果内容变化时递增（重复写入相同结果不变）
+     */
+    public long version() {
+        synchronized (changes) {
+            return version.get();
+        }
+    }
+
+    private int idOf(String domain) {
+        int id = Arrays.binarySearch(domainsById, 0, configuredCount, domain);
+        if (id >= 0) {
+            return id;
+        }
+        Integer extra = extraIds.get(domain);
+        return extra == null ? -1 : extra;
+    }
+
+    /**
+     * 域名的记录编号，未配置的域名首次出现时分配；记录表已满时返回 -1
+     */
+    private int assignId(String domain) {
+        int id = idOf(domain);
+        if (id >= 0) {
+            return id;
+        }
+        synchronized (extraIds) {
+            Integer extra = extraIds.get(domain);
+            if (extra != null) {
+                return extra;
+            }
+            if (assigned == domainsById.length) {
+                if (!capacityWarned) {
+                    capacityWarned = true;
+                    logger.warn("结果记录表已满 ({} 条)，新域名的结果改为保存在堆内且不输出域名指标，可调大 beian.store.capacity",
+                            domainsById.length);
+                }
+                return -1;
+            }
+            id = assigned;
+            domainsById[id] = domain;
+            extraIds.put(domain, id);
+            // 先写入域名再发布数量，遍历时读到的编号都有对应域名
+            assigned = id + 1;
+            return id;
+        }
+    }
+
+    /**
+     * 版本号在 since 之后的记录编号，按版本号排序
+     */
+    private int[] changedIds(long since) {
+        int count = assigned;
+        int[] ids = new int[count];
+        long[] versions = new long[count];
+        int matched = 0;
+        long min = Long.MAX_VALUE;
+        for (int id = 0; id < count; id++) {
+            long recordVersion = table.version(id);
+            if (recordVersion > since) {
+                ids[matched] = id;
+                versions[matched++] = recordVersion;
+                min = Math.min(min, recordVersion);
+            }
+        }
+        // 单个记录表最多约 670 万条记录，编号不超过 23 位，与版本号差值合并为一个 long 排序
+        long[] keys = new long[matched];
+        for (int i = 0; i < matched; i++) {
+            keys[i] = (versions[i] - min) << ID_BITS | ids[i];
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[matched];
+        for (int i = 0; i < matched; i++) {
+            sorted[i] = (int) (keys[i] & ((1 << ID_BITS) - 1));
+        }
+        return sorted;
+    }
+
+    private MappedResultTable.Row toRow(Entry entry) {
+        MappedResultTable.Row row = new MappedResultTable.Row();
+        row.status = entry.status;
+        row.messageId = entry.messageId;
+        row.error = entry.error;
+        if (entry.records instanceof Record record) {
+            row.hasRecord = true;
+            row.serialId = record.serialId;
+            row.companyNameId = record.companyNameId;
+            row.companyTypeId = record.companyTypeId;
+            row.beianNumber = record.beianNumber;
+            row.websiteName = record.websiteName;
+            row.websiteUrl = record.websiteUrl;
+            row.approvalDate = record.approvalDate;
+        } else if (entry.records != null) {
+            row.hasRecord = true;
+            row.overflow = true;
+        }
+        return row;
+    }
+
+    private BeianResult decode(int id, MappedResultTable.Row row) {
+        if (row.overflow) {
+            Entry entry = overflow.get(id);
+            if (entry != null) {
+                return decode(entry);
+            }
+        }
+        BeianResult result = new BeianResult(STATUSES[row.status]);
+        result.setMessage(dictionary.decode(row.messageId));
+        result.setError(row.error);
+        if (row.hasRecord && !row.overflow) {
+            result.setData(List.of(new BeianInfo(
+                    dictionary.decode(row.serialId),
+                    dictionary.decode(row.companyNameId),
+                    dictionary.decode(row.companyTypeId),
+                    row.beianNumber,
+                    row.websiteName,
+                    row.websiteUrl,
+                    unpackDate(row.approvalDate))));
+        }
+        return result;
+    }
+
+    private Entry encode(BeianResult result) {
+        List<BeianInfo> data = result.getData();
+        Object records = null;
+        if (data != null && data.size() == 1) {
+            records = encodeRecord(data.get(0));
+        } else if (data != null) {
+            Record[] array = new Record[data.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = encodeRecord(data.get(i));
+            }
+            records = array;
+        }
+        // 错误信息通常包含域名，不进入字典
+        return new Entry((byte) result.getStatus().ordinal(),
+                dictionary.encode(result.getMessage()), result.getError(), records);
+    }
+
+    private Record encodeRecord(BeianInfo info) {
+        return new Record(
+                dictionary.encode(info.getSerialNumber()),
+                dictionary.encode(info.getCompanyName()),
+                dictionary.encode(info.getCompanyType()),
+                info.getBeianNumber(),
+                info.getWebsiteName(),
+                info.getWebsiteUrl(),
+                packDate(info.getApprovalDate()));
+    }
+
+    private BeianResult decode(Entry entry) {
+        BeianResult result = new BeianResult(STATUSES[entry.status]);
+        result.setMessage(dictionary.decode(entry.messageId));
+        result.setError(entry.error);
+
+        if (entry.records instanceof Record) {
+            result.setData(List.of(decodeRecord((Record) entry.records)));
+        } else if (entry.records != null) {
+            Record[] array = (Record[]) entry.records;
+            List<BeianInfo> data = new ArrayList<>(array.length);
+            for (Record record : array) {
+                data.add(decodeRecord(record));
+            }
+            result.setData(data);
+        }
+        return result;
+    }
+
+    private BeianInfo decodeRecord(Record record) {
+        return new BeianInfo(
+                dictionary.decode(record.serialId),
+                dictionary.decode(record.companyNameId),
+                dictionary.decode(record.companyTypeId),
+                record.beianNumber,
+                record.websiteName,
+                record.websiteUrl,
+                unpackDate(record.approvalDate));
+    }
+
+    /**
+     * yyyy-MM-dd 压缩为 yyyyMMdd；其他格式存入字典并以负数编号表示
+     */
+    private int packDate(String date) {
+        if (date != null && date.length() == 10 && date.charAt(4) == '-' && date.charAt(7) == '-') {
+            int packed = 0;
+            for (int i = 0; i < 10; i++) {
+                if (i == 4 || i == 7) {
+                    continue;
+                }
+                char c = date.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -2 - dictionary.encode(date);
+                }
+                packed = packed * 10 + (c - '0');
+            }
+            return packed;
+        }
+        return date == null ? -1 : -2 - dictionary.encode(date);
+    }
+
+    private String unpackDate(int packed) {
+        if (packed == -1) {
+            return null;
+        }
+        if (packed < -1) {
+            return dictionary.decode(-2 - packed);
+        }
+        char[] chars = new char[10];
+        int value = packed;
+        for (int i = 9; i >= 0; i--) {
+            if (i == 4 || i == 7) {
+                chars[i] = '-';
+                continue;
+            }
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(chars);
+    }
+
+    private record Change(String domain, Entry entry) {
+    }
+
+    /**
+     * 记录表遍历的回调：status 为 null 表示尚无结果，info 为成功结果的第一条备案记录
+     */
+    @FunctionalInterface
+    interface MappedRecordConsumer {
+        void accept(String domain, BeianResult.Status status, long lastCheck, int[] errors, BeianInfo info);
+    }
+
+    /**
+     * 增量遍历的回调
+     */
+    @FunctionalInterface
+    public interface VersionedResultConsumer {
+        void accept(String domain, long version, BeianResult result);
+    }
+
+    /**
+     * 紧凑结果：records 为 null、单个 Record 或 Record 数组
+     */
+    private static final class Entry {
+        private final byte status;
+        private final int messageId;
+        private final String error;
+        private final Object records;
+        // 最后变化时的版本号，不参与内容比较
+        private long version;
+
+        Entry(byte status, int messageId, String error, Object records) {
+            this.status = status;
+            this.messageId = messageId;
+            this.error = error;
+            this.records = records;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry other)) {
+                return false;
+            }
+            return status == other.status && messageId == other.messageId
+                    && Objects.equals(error, other.error)
+                    && (records instanceof Record[] array && other.records instanceof Record[] otherArray
+                            ? Arrays.equals(array, otherArray) : Objects.equals(records, other.records));
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(status, messageId, error);
+        }
+    }
+
+    /**
+     * 紧凑备案记录：备案号、网站名称与首页地址基本不重复，直接保存字符串
+     */
+    private static final class Record {
+        private final int serialId;
+        private final int companyNameId;
+        private final int companyTypeId;
+        private final String beianNumber;
+        private final String websiteName;
+        private final String websiteUrl;
+        private final int approvalDate;
+
+        Record(int serialId, int companyNameId, int companyTypeId, String beianNumber,
+               String websiteName, String websiteUrl, int approvalDate) {
+            this.serialId = serialId;
+            this.companyNameId = companyNameId;
+            this.companyTypeId = companyTypeId;
+            this.beianNumber = beianNumber;
+            this.websiteName = websiteName;
+            this.websiteUrl = websiteUrl;
+            this.approvalDate = approvalDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Record other)) {
+                return false;
+            }
+            return serialId == other.serialId && companyNameId == other.companyNameId
+                    && companyTypeId == other.companyTypeId && approvalDate == other.approvalDate
+                    && Objects.equals(beianNumber, other.beianNumber)
+                    && Objects.equals(websiteName, other.websiteName)
+                    && Objects.equals(websiteUrl, other.websiteUrl);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serialId, companyNameId, beianNumber);
+        }
+    }
+}
\ No newline at end of file
@@ -1,9 +1,13 @@
 package io.devops.beian.service;
 
 import io.devops.beian.config.BeianProperties;
+import io.devops.beian.jfr.SweepEvent;
+import io.devops.beian.model.BeianInfo;
 import io.devops.beian.model.BeianResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
@@ -12,7 +16,19 @@ import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
 
 /**
  * 备案检查调度服务
@@ -22,105 +38,479 @@ public class BeianScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(BeianScheduler.class);
 
+    // 手动查询首次重试的退避时间（秒），之后每次加倍
+    private static final int INTERACTIVE_RETRY_BACKOFF = 3;
+    private static final long GROUP_TICK_MILLIS = 5000;
+
     private final BeianProperties beianProperties;
     private final BeianChecker beianChecker;
     private final BeianMetricsService metricsService;
-    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final BeianNotificationService notificationService;
+    private final ResponseArchive responseArchive;
+    private final UpstreamDispatcher upstreamDispatcher;
+    private final DomainNormalizer domainNormalizer;
+    private final BeianResultStore resultStore;
+    private final CompanyLookupPlanner companyLookupPlanner;
+    private final PeerResultService peerResultService;
+    private final DomainGroupRegistry domainGroups;
+    private final ResultSearchIndex searchIndex;
+    private final ErrorLogSampler errorLogSampler;
+    private final ApplicationAvailability availability;
+    private final ResponseFingerprints fingerprints;
+    private final ResultLog resultLog;
+
+    // 各分组是否正在检查与下一次检查时间
+    private final Map<String, AtomicBoolean> running = new ConcurrentHashMap<>();
+    private final Map<String, Long> nextRunAt = new ConcurrentHashMap<>();
+    /** exporter 已应用到指标的各域名结果的记录时间，用于识别压缩副本是否为未应用过的更新结果 */
+    private final Map<String, Long> appliedAt = new ConcurrentHashMap<>();
 
     public BeianScheduler(BeianProperties beianProperties, 
                           BeianChecker beianChecker, 
-                          BeianMetricsService metricsService) {
+                          BeianMetricsService metricsService,
+                          BeianNotificationService notificationService,
+                          ResponseArchive responseArchive,
+                          UpstreamDispatcher upstreamDispatcher,
+                          DomainNormalizer domainNormalizer,
+                          BeianResultStore resultStore,
+                          CompanyLookupPlanner companyLookupPlanner,
+                          PeerResultService peerResultService,
+                          DomainGroupRegistry domainGroups,
+                          ResultSearchIndex searchIndex,
+                          ErrorLogSampler errorLogSampler,
+                          ApplicationAvailability availability,
+                          ResponseFingerprints fingerprints,
+                          ResultLog resultLog) {
         this.beianProperties = beianProperties;
         this.beianChecker = beianChecker;
         this.metricsService = metricsService;
+        this.notificationService = notificationService;
+        this.responseArchive = responseArchive;
+        this.upstreamDispatcher = upstreamDispatcher;
+        this.domainNormalizer = domainNormalizer;
+        this.resultStore = resultStore;
+        this.companyLookupPlanner = companyLookupPlanner;
+        this.peerResultService = peerResultService;
+        this.domainGroups = domainGroups;
+        this.searchIndex = searchIndex;
+        this.errorLogSampler = errorLogSampler;
+        this.availability = availability;
+        this.fingerprints = fingerprints;
+        this.resultLog = resultLog;
+        for (DomainGroupRegistry.Group group : domainGroups.groups()) {
+            running.put(group.getName(), new AtomicBoolean(false));
+        }
     }
 
     /**
-     * 定时执行备案检查
-     * 使用 Spring 的 @Scheduled 注解，间隔时间从配置文件读取
+     * 定时检查到期的域名分组
+     * 各分组在上一轮检查结束 check-interval 秒后开始下一轮，应用就绪（启动预热完成）后所有分组立即检查一轮
+     * exporter 角色不查询上游
+     */
+    @Scheduled(fixedDelay = GROUP_TICK_MILLIS)
+    public void scheduleDueGroups() {
+        if (!beianProperties.hasUpstreamRole()
+                || availability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (DomainGroupRegistry.Group group : domainGroups.groups()) {
+            if (!running.get(group.getName()).get() && now >= nextRunAt.getOrDefault(group.getName(), 0L)) {
+                startGroupCheck(group);
+            }
+        }
+    }
+
+    /**
+     * 立即检查所有分组
      */
-    @Scheduled(fixedDelayString = "#{${beian.check-interval:21600} * 1000}")
     public void scheduleCheck() {
-        if (!isRunning.compareAndSet(false, true)) {
-            logger.warn("上一次检查仍在进行中，跳过本次检查");
+        for (DomainGroupRegistry.Group group : domainGroups.groups()) {
+            startGroupCheck(group);
+        }
+    }
+
+    /**
+     * 对一个分组执行一轮检查，分组的查询在调度器中按预算权重与其他分组共享上游额度
+     */
+    private void startGroupCheck(DomainGroupRegistry.Group group) {
+        AtomicBoolean groupRunning = running.get(group.getName());
+        if (!groupRunning.compareAndSet(false, true)) {
+            logger.warn("分组 {} 上一次检查仍在进行中，跳过本次检查", group.getName());
             return;
         }
 
+        SweepEvent sweepEvent = new SweepEvent();
+        sweepEvent.begin();
+        SweepSummary summary = new SweepSummary(group.getName(), errorLogSampler.suppressedCount());
         try {
-            logger.info("开始检查所有域名备案状态，共 {} 个域名", beianProperties.getDomains().size());
-            logger.info("为避免被封禁，将串行检查，每个域名间隔 {} 秒", beianProperties.getRequestDelay());
+            Map<String, List<String>> targets = group.getLookupTargets();
+            logger.info("开始检查分组 {} 的域名备案状态，共 {} 个域名，合并为 {} 个可注册域名查询，每个域名请求间隔 {} 秒",
+                    group.getName(), group.getDomains().size(), targets.size(), beianProperties.getRequestDelay());
             
-            // 改为串行处理，避免并发请求被封禁
-            Flux.fromIterable(beianProperties.getDomains())
-                    .concatMap(domain -> {
-                        // 每个域名检查前先等待配置的延迟时间
-                        return Mono.delay(Duration.ofSeconds(beianProperties.getRequestDelay()))
-                                .then(this.checkDomainWithRetry(domain));
-                    })
+            // 已知同一主办单位的域名先按备案号/单位名称聚合查询，未覆盖的域名再逐个查询
+            Map<String, Set<String>> companyQueries = companyLookupPlanner.plan(targets.keySet(),
+                    key -> lastSuccess(targets, key));
+            Set<String> covered = ConcurrentHashMap.newKeySet();
+            int concurrency = beianProperties.getRateLimit().getBurstSize();
+            if (!companyQueries.isEmpty()) {
+                logger.info("按主办单位聚合查询 {} 组，预计覆盖 {} 个可注册域名", companyQueries.size(),
+                        companyQueries.values().stream().mapToInt(Set::size).sum());
+            }
+            
+            // 域名间隔与限流由 UpstreamDispatcher 统一控制，这里仅限制同时排队的查询数，
+            // 使处于重试退避中的域名不阻塞后续域名
+            Flux.fromIterable(companyQueries.entrySet())
+                    .flatMap(entry -> checkCompanyWithRetry(group, entry.getKey(), entry.getValue(), summary)
+                            .doOnNext(covered::addAll), concurrency)
+                    .thenMany(Flux.defer(() -> Flux.fromIterable(targets.keySet())
+                            .filter(key -> !covered.contains(key))))
+                    .flatMap(key -> checkDomainWithRetry(group, key, summary), concurrency)
                     .subscribeOn(Schedulers.boundedElastic())
                     .doOnComplete(() -> {
-                        logger.info("所有域名检查完成");
-                        isRunning.set(false);
+                        summary.log(logger, group.getDomains().size(), targets.size(), companyQueries.size(),
+                                covered.size(), errorLogSampler.suppressedCount(), false);
+                        commitSweepEvent(sweepEvent, group, targets.size(), companyQueries.size(), covered.size(), false);
+                        finishGroupCheck(group);
                     })
                     .doOnError(error -> {
-                        logger.error("批量检查过程中发生错误", error);
-                        isRunning.set(false);
+                        logger.error("分组 {} 批量检查过程中发生错误", group.getName(), error);
+                        summary.log(logger, group.getDomains().size(), targets.size(), companyQueries.size(),
+                                covered.size(), errorLogSampler.suppressedCount(), true);
+                        commitSweepEvent(sweepEvent, group, targets.size(), companyQueries.size(), covered.size(), true);
+                        finishGroupCheck(group);
                     })
                     .subscribe();
                     
         } catch (Exception e) {
-            logger.error("启动批量检查时发生错误", e);
-            isRunning.set(false);
+            logger.error("启动分组 {} 批量检查时发生错误", group.getName(), e);
+            finishGroupCheck(group);
+        }
+    }
+
+    private void finishGroupCheck(DomainGroupRegistry.Group group) {
+        nextRunAt.put(group.getName(), System.currentTimeMillis() + group.getCheckInterval() * 1000L);
+        running.get(group.getName()).set(false);
+    }
+
+    private void commitSweepEvent(SweepEvent event, DomainGroupRegistry.Group group, int lookups,
+                                  int companyQueries, int covered, boolean failed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.group = group.getName();
+            event.configuredDomains = group.getDomains().size();
+            event.lookups = lookups;
+            event.companyQueries = companyQueries;
+            event.covered = covered;
+            event.failed = failed;
+            event.commit();
         }
     }
 
     /**
      * 带重试机制的域名检查
      */
-    private Mono<Void> checkDomainWithRetry(String domain) {
-        return checkDomain(domain)
-                .retryWhen(reactor.util.retry.Retry.backoff(beianProperties.getMaxRetries(), Duration.ofSeconds(5))
+    private Mono<Void> checkDomainWithRetry(DomainGroupRegistry.Group group, String lookupKey,
+                                            SweepSummary summary) {
+        return lookupWithRetry(group, lookupKey, summary)
+                .doOnNext(result -> {
+                    if (recordLookupResult(group.getLookupTargets(), lookupKey, result)) {
+                        summary.recordUnchanged();
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * 按主办单位关键字聚合查询，更新响应中出现的所有被监控域名
+     * @return 本次已覆盖的可注册域名
+     */
+    private Mono<Set<String>> checkCompanyWithRetry(DomainGroupRegistry.Group group, String companyKey,
+                                                    Set<String> expectedKeys, SweepSummary summary) {
+        return lookupWithRetry(group, companyKey, summary)
+                .map(result -> {
+                    // 拆分出的各域名结果可能已被逐域名查询覆盖，聚合响应未变化时也完整记录，只省去解析
+                    if (fingerprints.isCurrent(companyKey, result)) {
+                        summary.recordUnchanged();
+                    }
+                    Set<String> covered = applyCompanyResult(group.getLookupTargets(), result);
+                    fingerprints.recorded(companyKey, result);
+                    int fallback = (int) expectedKeys.stream().filter(key -> !covered.contains(key)).count();
+                    companyLookupPlanner.recordCoverage(covered.size(), fallback);
+                    logger.debug("按 {} 聚合查询覆盖 {} 个域名，{} 个回退为逐域名查询", companyKey, covered.size(), fallback);
+                    return covered;
+                });
+    }
+
+    /**
+     * 带重试的上游查询，重试次数与退避时间取分组配置，重试耗尽后返回 ERROR 结果
+     * 结果与重试只计入本轮汇总，逐次失败日志按错误类别采样输出
+     */
+    private Mono<BeianResult> lookupWithRetry(DomainGroupRegistry.Group group, String query, SweepSummary summary) {
+        AtomicInteger attempts = new AtomicInteger();
+        
+        // 首次查询走定时通道，重试走优先级更高的重试通道
+        return Mono.defer(() -> lookup(group, query, attempts.getAndIncrement() == 0
+                        ? UpstreamDispatcher.Lane.SCHEDULED : UpstreamDispatcher.Lane.RETRY))
+                .retryWhen(reactor.util.retry.Retry.backoff(group.getMaxRetries(),
+                                Duration.ofSeconds(group.getRetryBackoff()))
                         .maxBackoff(Duration.ofSeconds(30))
                         .doBeforeRetry(retrySignal -> {
                             long retryCount = retrySignal.totalRetries() + 1;
                             Throwable failure = retrySignal.failure();
-                            logger.warn("域名 {} 第 {} 次重试 (共{}次)，失败原因: {}，等待 {} 秒后重试", 
-                                    domain, retryCount, beianProperties.getMaxRetries(), 
-                                    failure.getMessage(), 5 * retryCount);
+                            summary.recordRetry();
+                            errorLogSampler.warn(logger, "retry", "域名 {} 第 {} 次重试 (共{}次)，失败原因: {}，等待 {} 秒后重试",
+                                    query, retryCount, group.getMaxRetries(), 
+                                    failure.getMessage(), group.getRetryBackoff() * retryCount);
                         })
                         .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> {
-                            logger.error("域名 {} 重试 {} 次后仍然失败，放弃重试", 
-                                    domain, beianProperties.getMaxRetries());
+                            summary.recordExhausted();
                             return retrySignal.failure();
                         }))
                 .onErrorResume(error -> {
-                    logger.error("域名 {} 最终查询失败: {}", domain, error.getMessage());
-                    
-                    // 记录错误指标
-                    metricsService.updateMetrics(domain, BeianResult.error(error.getMessage()));
-                    return Mono.empty();
-                });
+                    errorLogSampler.error(logger, "lookup_failed", "域名 {} 重试 {} 次后查询仍然失败: {}",
+                            query, group.getMaxRetries(), error.getMessage());
+                    return Mono.just(BeianResult.error(error.getMessage()));
+                })
+                .doOnNext(result -> summary.recordResult(result.getStatus()));
     }
 
     /**
-     * 检查单个域名
+     * 发出单次上游查询，网络错误以异常形式返回以触发重试
+     * 启用多副本结果共享时优先使用集群内有效期内的结果
      */
-    private Mono<Void> checkDomain(String domain) {
+    private Mono<BeianResult> lookup(DomainGroupRegistry.Group group, String query, UpstreamDispatcher.Lane lane) {
         Instant startTime = Instant.now();
         
-        return beianChecker.checkAsync(domain, Duration.ofSeconds(beianProperties.getRequestTimeout()))
+        return peerResultService.lookup(query, lane, group)
+                .flatMap(result -> result.getStatus() == BeianResult.Status.ERROR
+                        ? Mono.<BeianResult>error(new IllegalStateException(result.getError()))
+                        : Mono.just(result))
                 .doOnNext(result -> {
                     // 记录耗时
                     Duration duration = Duration.between(startTime, Instant.now());
-                    metricsService.recordCheckDuration(domain, duration);
+                    metricsService.recordCheckDuration(query, duration);
                     
-                    // 更新指标
-                    metricsService.updateMetrics(domain, result);
-                    
-                    logger.info("域名 {} 检查完成: {}, 耗时: {}ms", 
-                            domain, result.getStatus(), duration.toMillis());
-                })
-                .then();
+                    logger.debug("域名 {} 检查完成: {}, 耗时: {}ms",
+                            query, result.getStatus(), duration.toMillis());
+                });
+    }
+
+    /**
+     * 将聚合查询结果拆分到各可注册域名并记录
+     * @return 已覆盖的可注册域名
+     */
+    private Set<String> applyCompanyResult(Map<String, List<String>> targets, BeianResult result) {
+        Map<String, List<BeianInfo>> matched = companyLookupPlanner.match(result, targets.keySet());
+        matched.forEach((key, rows) -> recordLookupResult(targets, key, BeianResult.success(rows)));
+        return matched.keySet();
+    }
+
+    /**
+     * 可注册域名上次的成功结果（取任一配置名的记录）
+     */
+    private BeianResult lastSuccess(Map<String, List<String>> targets, String lookupKey) {
+        for (String domain : targets.getOrDefault(lookupKey, List.of(lookupKey))) {
+            BeianResult result = resultStore.get(domain);
+            if (result != null && result.isSuccess()) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 将一次上游查询的结果分发给映射到该可注册域名的所有配置名
+     * 结果即上次已记录的结果（响应指纹命中）时只更新检查时间
+     * @return 结果是否与上次相同
+     */
+    private boolean recordLookupResult(Map<String, List<String>> targets, String lookupKey, BeianResult result) {
+        List<String> domains = targets.getOrDefault(lookupKey, List.of(lookupKey));
+        if (fingerprints.isCurrent(lookupKey, result)) {
+            for (String domain : domains) {
+                metricsService.recordUnchanged(domain, result);
+                resultLog.appendUnchanged(domain);
+            }
+            return true;
+        }
+        for (String domain : domains) {
+            recordResult(domain, result);
+        }
+        fingerprints.recorded(lookupKey, result);
+        return false;
+    }
+
+    /**
+     * 记录查询结果：更新指标与搜索索引，提交状态变更通知并写入结果日志
+     */
+    private void recordResult(String domain, BeianResult result) {
+        recordResult(domain, result, System.currentTimeMillis());
+    }
+
+    /**
+     * 记录结果，checkTimeMillis 为该结果的查询时间
+     */
+    private void recordResult(String domain, BeianResult result, long checkTimeMillis) {
+        resultStore.put(domain, result);
+        metricsService.updateMetrics(domain, result, checkTimeMillis);
+        searchIndex.update(domain, result);
+        notificationService.onResult(domain, result);
+        resultLog.append(domain, result, checkTimeMillis);
+    }
+
+    /**
+     * 启动时恢复归档中的结果：检查时间取归档时间，不计入错误次数，也不写入结果日志
+     * （结果日志中已有这些结果，重新写入会让 exporter 当作新的检查结果）
+     */
+    private void restoreResult(String domain, BeianResult result, long archivedAtMillis) {
+        resultStore.put(domain, result);
+        metricsService.restoreMetrics(domain, result, archivedAtMillis);
+        searchIndex.update(domain, result);
+        notificationService.onResult(domain, result);
+    }
+
+    /**
+     * exporter 角色下定时跟随结果日志
+     */
+    @Scheduled(fixedDelayString = "${beian.result-log.poll-interval-ms:1000}")
+    public void followResultLog() {
+        applyResultLog();
+    }
+
+    /**
+     * 把 worker 写入结果日志的新记录应用到结果存储、指标与搜索索引，检查时间取 worker 记录结果的时间；
+     * 状态变更通知由 worker 发送
+     * @return 应用的记录数
+     */
+    public int applyResultLog() {
+        return applyResultLog(() -> false);
+    }
+
+    /**
+     * 同 {@link #applyResultLog()}，stop 返回 true 时停止，其余记录由之后的定时跟随应用
+     */
+    public int applyResultLog(BooleanSupplier stop) {
+        return resultLog.follow(entry -> {
+            if (entry.isUnchanged()) {
+                BeianResult current = resultStore.get(entry.domain());
+                if (current != null) {
+                    metricsService.recordUnchanged(entry.domain(), current, entry.timestamp());
+                }
+                return;
+            }
+            Long applied = appliedAt.get(entry.domain());
+            if (entry.compacted() && applied != null && entry.timestamp() <= applied) {
+                // 压缩复制的结果已应用过（或已被更新的结果取代）
+                return;
+            }
+            appliedAt.put(entry.domain(), entry.timestamp());
+            resultStore.put(entry.domain(), entry.result());
+            if (entry.compacted() && applied == null) {
+                // 首次见到该域名时（新启动的 exporter）按恢复处理，不计入错误次数
+                metricsService.restoreMetrics(entry.domain(), entry.result(), entry.timestamp());
+            } else {
+                // 落后的 exporter 未读到的分段被压缩后，压缩副本是更新结果的唯一记录，按新结果应用
+                metricsService.updateMetrics(entry.domain(), entry.result(), entry.timestamp());
+            }
+            searchIndex.update(entry.domain(), entry.result());
+        }, stop);
+    }
+
+    /**
+     * 使用归档的原始响应重新解析并重建所有结果，不访问上游
+     * 解析在公共 ForkJoin 线程池中按CPU核数并行执行；检查时间取各响应的归档时间
+     */
+    public Map<String, Object> rebuildFromArchive() {
+        return rebuildFromArchive(false);
+    }
+
+    /**
+     * 从归档重建结果；restore 为 true 时用于启动恢复，只恢复状态，不计入错误次数，也不写入结果日志
+     */
+    public Map<String, Object> rebuildFromArchive(boolean restore) {
+        return rebuildFromArchive(restore, () -> false);
+    }
+
+    /**
+     * 同 {@link #rebuildFromArchive(boolean)}，stop 返回 true 后不再解析剩余域名（计入 skipped），由之后的检查补齐
+     */
+    public Map<String, Object> rebuildFromArchive(boolean restore, BooleanSupplier stop) {
+        Map<String, Object> summary = new HashMap<>();
+        if (!responseArchive.isEnabled()) {
+            summary.put("enabled", false);
+            return summary;
+        }
+
+        Instant startTime = Instant.now();
+        List<String> domains = responseArchive.domains();
+        ConcurrentMap<BeianResult.Status, LongAdder> counts = new ConcurrentHashMap<>();
+        LongAdder missing = new LongAdder();
+        LongAdder skipped = new LongAdder();
+
+        Map<String, List<String>> targets = domainGroups.allLookupTargets();
+        domains.parallelStream().forEach(domain -> {
+            if (stop.getAsBoolean()) {
+                skipped.increment();
+                return;
+            }
+            ResponseArchive.Archived archived = responseArchive.read(domain);
+            if (archived == null) {
+                missing.increment();
+                return;
+            }
+            BeianResult result = beianChecker.parseResponse(archived.body());
+            if (companyLookupPlanner.isCompanyKey(domain)) {
+                companyLookupPlanner.match(result, targets.keySet()).forEach((key, rows) ->
+                        applyArchived(targets, key, BeianResult.success(rows), archived.archivedAt(), restore));
+            } else {
+                applyArchived(targets, domain, result, archived.archivedAt(), restore);
+            }
+            counts.computeIfAbsent(result.getStatus(), s -> new LongAdder()).increment();
+        });
+
+        Map<BeianResult.Status, Long> byStatus = new EnumMap<>(BeianResult.Status.class);
+        counts.forEach((status, count) -> byStatus.put(status, count.sum()));
+        Duration duration = Duration.between(startTime, Instant.now());
+
+        summary.put("enabled", true);
+        summary.put("archived", domains.size());
+        summary.put("missing", missing.sum());
+        summary.put("skipped", skipped.sum());
+        summary.put("results", byStatus);
+        summary.put("durationMs", duration.toMillis());
+        logger.info("已从归档重新解析 {} 个域名, 结果分布 {}, 耗时 {}ms", domains.size() - skipped.sum(), byStatus,
+                duration.toMillis());
+        if (skipped.sum() > 0) {
+            logger.warn("归档重建提前停止，{} 个域名未解析，将由之后的检查补齐", skipped.sum());
+        }
+        return summary;
+    }
+
+    private void applyArchived(Map<String, List<String>> targets, String lookupKey, BeianResult result,
+                               long archivedAtMillis, boolean restore) {
+        for (String domain : targets.getOrDefault(lookupKey, List.of(lookupKey))) {
+            if (restore) {
+                restoreResult(domain, result, archivedAtMillis);
+            } else {
+                recordResult(domain, result, archivedAtMillis);
+            }
+        }
+        fingerprints.recorded(lookupKey, result);
+    }
+
+    /**
+     * 是否有批量检查正在进行
+     */
+    public boolean isRunning() {
+        return running.values().stream().anyMatch(AtomicBoolean::get);
+    }
+
+    /**
+     * 指定分组是否正在检查
+     */
+    public boolean isRunning(String group) {
+        AtomicBoolean groupRunning = running.get(group);
+        return groupRunning != null && groupRunning.get();
     }
 
     /**
@@ -132,57 +522,73 @@ public class BeianScheduler {
     }
 
     /**
-     * 检查单个域名（同步方法，用于API调用）
+     * 手动触发单个分组的检查
+     * @return 分组不存在时返回 false
+     */
+    public boolean triggerCheck(String groupName) {
+        DomainGroupRegistry.Group group = domainGroups.get(groupName);
+        if (group == null) {
+            return false;
+        }
+        logger.info("手动触发分组 {} 的备案检查", groupName);
+        startGroupCheck(group);
+        return true;
+    }
+
+    /**
+     * 检查单个域名（用于API调用）
+     * 首次查询走手动查询通道，失败后与批量检查相同，经重试通道按指数退避重试，退避期间不占用线程；
+     * 熔断期间的重试立即返回 BLOCKED，整个查询不超过 2×request-timeout+60 秒
      */
-    public BeianResult checkSingleDomain(String domain) {
-        logger.info("手动检查单个域名: {} (最多重试{}次)", domain, beianProperties.getMaxRetries());
+    public Mono<BeianResult> checkSingleDomain(String domain) {
+        String lookupKey = domainNormalizer.normalize(domain);
+        int maxRetries = beianProperties.getMaxRetries();
+        logger.info("手动检查单个域名: {} (查询 {}，最多重试{}次)", domain, lookupKey, maxRetries);
         
         Instant startTime = Instant.now();
-        BeianResult result = null;
+        // 整个手动查询（含重试与退避）的总时限；排队时间最多为一个在途请求加上限流等待
+        Duration interactiveTimeout = Duration.ofSeconds(beianProperties.getRequestTimeout() * 2L + 60);
+        AtomicInteger attempts = new AtomicInteger();
         
-        // 手动实现重试逻辑
-        for (int attempt = 1; attempt <= beianProperties.getMaxRetries() + 1; attempt++) {
-            try {
-                result = beianChecker.check(domain, Duration.ofSeconds(beianProperties.getRequestTimeout()));
-                
-                // 如果查询成功或者是业务层面的失败（如未备案），则不重试
-                if (result != null && !result.getStatus().equals(BeianResult.Status.ERROR)) {
-                    if (attempt > 1) {
-                        logger.info("域名 {} 在第 {} 次尝试后成功", domain, attempt);
-                    }
-                    break;
-                }
-                
-                // 如果是错误状态且还有重试机会
-                if (attempt <= beianProperties.getMaxRetries()) {
-                    logger.warn("域名 {} 第 {} 次查询失败: {}，等待 {} 秒后重试", 
-                            domain, attempt, result != null ? result.getError() : "未知错误", 3 * attempt);
-                    Thread.sleep(3000 * attempt); // 递增延迟
-                }
-                
-            } catch (Exception e) {
-                logger.warn("域名 {} 第 {} 次查询异常: {}", domain, attempt, e.getMessage());
-                
-                if (attempt <= beianProperties.getMaxRetries()) {
-                    try {
-                        Thread.sleep(3000 * attempt); // 递增延迟
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
+        // 重试走重试通道，熔断期间立即返回 BLOCKED，不等待熔断结束
+        return Mono.defer(() -> upstreamDispatcher.submit(lookupKey, attempts.getAndIncrement() == 0
+                        ? UpstreamDispatcher.Lane.INTERACTIVE : UpstreamDispatcher.Lane.RETRY,
+                        DomainGroupRegistry.DEFAULT_GROUP, true))
+                // 查询成功或业务层面的失败（如未备案）不重试
+                .flatMap(result -> result.getStatus() == BeianResult.Status.ERROR
+                        ? Mono.<BeianResult>error(new IllegalStateException(result.getError()))
+                        : Mono.just(result))
+                .retryWhen(reactor.util.retry.Retry.backoff(maxRetries, Duration.ofSeconds(INTERACTIVE_RETRY_BACKOFF))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(retrySignal -> logger.warn("域名 {} 第 {} 次查询失败: {}，退避后重试",
+                                domain, retrySignal.totalRetries() + 1, retrySignal.failure().getMessage()))
+                        .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> retrySignal.failure()))
+                .timeout(interactiveTimeout)
+                .doOnNext(result -> {
+                    if (attempts.get() > 1) {
+                        logger.info("域名 {} 在第 {} 次尝试后完成: {}", domain, attempts.get(), result.getStatus());
                     }
-                } else {
-                    result = BeianResult.error("查询异常: " + e.getMessage());
-                }
-            }
-        }
-        
-        if (result == null) {
-            result = BeianResult.error("查询失败: 超过最大重试次数");
-        }
-        
+                })
+                .onErrorResume(error -> Mono.just(BeianResult.error(error instanceof IllegalStateException
+                        ? error.getMessage()
+                        : error instanceof TimeoutException
+                        ? "查询超时: 超过 " + interactiveTimeout.toSeconds() + " 秒"
+                        : "查询异常: " + error.getMessage())))
+                .defaultIfEmpty(BeianResult.error("查询失败: 超过最大重试次数"))
+                .map(result -> recordSingleDomain(domain, lookupKey, result, startTime));
+    }
+
+    private BeianResult recordSingleDomain(String domain, String lookupKey, BeianResult result, Instant startTime) {
         Duration duration = Duration.between(startTime, Instant.now());
         metricsService.recordCheckDuration(domain, duration);
-        metricsService.updateMetrics(domain, result);
+        
+        // 同时更新请求的域名与映射到同一可注册域名的配置名
+        Set<String> domains = new LinkedHashSet<>(domainGroups.allLookupTargets().getOrDefault(lookupKey, List.of()));
+        domains.add(domain);
+        for (String alias : domains) {
+            recordResult(alias, result);
+        }
+        fingerprints.recorded(lookupKey, result);
         
         logger.info("域名 {} 查询完成: {}, 总耗时: {}ms", domain, result.getStatus(), duration.toMillis());
         return result;
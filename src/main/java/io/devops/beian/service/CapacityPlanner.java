@@ -0,0 +1,502 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 检查容量估算
+ * 按当前配置（各分组查询目标数、检查间隔、预算权重、重试次数与退避，request-delay、限流或出口代理上限）
+ * 和观测到的上游请求耗时、错误率，估算每个分组一轮检查的上游请求数与耗时，判断能否在检查间隔内完成。
+ *
+ * 后台请求速率取 request-delay 间隔、每分钟限流、并发上限 / 单次请求占用时间（请求耗时 + 平均随机延迟）中的最小者，
+ * 启用出口代理池时按各出口分别计算后相加。每分钟限流按一分钟窗口计数，窗口内的请求只受 request-delay 与并发限制，
+ * 达到上限后暂停到下一分钟，因此请求按分钟成批发出。各分组同时开始检查，按预算权重分享速率，先完成的分组让出额度，
+ * 每个分组的速率还受自身并发（burst-size，重试退避期间仍占用）限制。聚合查询会减少请求数，估算按每个查询目标一次查询计算。
+ * 调度器在一轮检查结束 check-interval 秒后才开始下一轮，耗时超过间隔时实际检查周期为耗时 + 间隔。
+ *
+ * 启动就绪时输出一次估算结果，之后每分钟按最新观测重新估算，分组变为无法按时完成时输出警告。
+ */
+@Service
+public class CapacityPlanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CapacityPlanner.class);
+
+    private static final long REFRESH_MILLIS = 60_000;
+    // 每分钟限流的计数窗口
+    private static final double WINDOW_SECONDS = 60;
+    // 与调度器的重试退避上限一致
+    private static final double MAX_BACKOFF_SECONDS = 30;
+
+    private final BeianProperties beianProperties;
+    private final DomainGroupRegistry domainGroups;
+    private final EgressProxyPool egressPool;
+    private final MeterRegistry meterRegistry;
+
+    // 各分组上次估算是否能按时完成，只在变为无法完成时警告
+    private final Map<String, Boolean> feasible = new ConcurrentHashMap<>();
+    private volatile Plan latest;
+
+    public CapacityPlanner(BeianProperties beianProperties, DomainGroupRegistry domainGroups,
+                           EgressProxyPool egressPool, MeterRegistry meterRegistry) {
+        this.beianProperties = beianProperties;
+        this.domainGroups = domainGroups;
+        this.egressPool = egressPool;
+        this.meterRegistry = meterRegistry;
+        this.latest = plan();
+
+        if (!beianProperties.hasUpstreamRole()) {
+            return;
+        }
+        for (DomainGroupRegistry.Group group : domainGroups.groups()) {
+            String name = group.getName();
+            Gauge.builder("beian_plan_sweep_duration_seconds", this, planner -> planner.latest.groups.get(name).duration)
+                    .description("预计一轮分组检查的耗时")
+                    .tag("group", name)
+                    .register(meterRegistry);
+            Gauge.builder("beian_plan_sweep_requests", this, planner -> planner.latest.groups.get(name).requests)
+                    .description("预计一轮分组检查的上游请求数（含重试）")
+                    .tag("group", name)
+                    .register(meterRegistry);
+            Gauge.builder("beian_plan_feasible", this, planner -> planner.latest.groups.get(name).feasible() ? 1 : 0)
+                    .description("分组检查能否在检查间隔内完成 (1=能, 0=不能)")
+                    .tag("group", name)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("beian_plan_capacity_requests_per_second", this, planner -> planner.latest.capacity)
+                .description("按限流、request-delay 与并发估算的后台上游请求速率上限")
+                .register(meterRegistry);
+        Gauge.builder("beian_plan_requests_per_day", this, planner -> planner.latest.requestsPerDay)
+                .description("按预计检查周期估算的每天上游请求数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按最新观测重新估算，返回估算结果
+     */
+    public Map<String, Object> evaluate() {
+        Plan plan = plan();
+        latest = plan;
+        return plan.toMap();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!beianProperties.hasUpstreamRole()) {
+            return;
+        }
+        Plan plan = plan();
+        latest = plan;
+        double maxDuration = 0;
+        for (GroupPlan group : plan.groups.values()) {
+            maxDuration = Math.max(maxDuration, group.duration);
+        }
+        logger.atInfo()
+                .addKeyValue("event", "capacity_plan")
+                .addKeyValue("capacity_rps", plan.capacity)
+                .addKeyValue("bottleneck", plan.bottleneck)
+                .addKeyValue("requests_per_day", Math.round(plan.requestsPerDay))
+                .addKeyValue("source", plan.observation.source())
+                .log("检查容量估算: 后台请求上限 {} 次/秒 (瓶颈 {}), 最长分组检查预计耗时 {}s, 每天约 {} 次上游请求",
+                        String.format("%.3f", plan.capacity), plan.bottleneck, Math.round(maxDuration),
+                        Math.round(plan.requestsPerDay));
+        warnInfeasible(plan);
+    }
+
+    @Scheduled(fixedDelay = REFRESH_MILLIS, initialDelay = REFRESH_MILLIS)
+    public void refresh() {
+        if (!beianProperties.hasUpstreamRole()) {
+            return;
+        }
+        Plan plan = plan();
+        latest = plan;
+        warnInfeasible(plan);
+    }
+
+    private void warnInfeasible(Plan plan) {
+        double ratio = beianProperties.getPlanner().getMaxDurationRatio();
+        for (GroupPlan group : plan.groups.values()) {
+            Boolean previous = feasible.put(group.name, group.feasible());
+            if (group.feasible() || Boolean.FALSE.equals(previous)) {
+                continue;
+            }
+            logger.atWarn()
+                    .addKeyValue("event", "capacity_plan")
+                    .addKeyValue("group", group.name)
+                    .addKeyValue("lookups", group.lookups)
+                    .addKeyValue("requests", Math.round(group.requests))
+                    .addKeyValue("duration_s", Math.round(group.duration))
+                    .addKeyValue("check_interval_s", group.checkInterval)
+                    .addKeyValue("bottleneck", plan.bottleneck)
+                    .log("分组 {} 无法按计划完成检查: {} 个查询目标预计 {} 次上游请求, 耗时约 {}s, 超过检查间隔 {}s 的 {} 倍 "
+                                    + "(瓶颈 {}), 实际检查周期约 {}s; 可增大 check-interval、调整预算权重或放宽 {}",
+                            group.name, group.lookups, Math.round(group.requests), Math.round(group.duration),
+                            group.checkInterval, ratio, plan.bottleneck,
+                            Math.round(group.duration + group.checkInterval), plan.bottleneck);
+        }
+    }
+
+    Plan plan() {
+        BeianProperties.Planner config = beianProperties.getPlanner();
+        Observation observation = observe(config);
+        BeianProperties.Upstream upstream = beianProperties.getUpstream();
+        double jitter = (upstream.getMinJitterMs() + Math.max(upstream.getMinJitterMs(), upstream.getMaxJitterMs()))
+                / 2000.0;
+        double requestSeconds = observation.latency() + jitter;
+
+        // 后台请求速率上限及其瓶颈
+        Capacity capacity = new Capacity();
+        if (egressPool.isEnabled()) {
+            for (EgressProxyPool.Limit limit : egressPool.limits()) {
+                capacity.add(limit.maxRequestsPerMinute(), limit.maxConcurrent(), requestSeconds,
+                        beianProperties.getRequestDelay());
+            }
+        } else {
+            BeianProperties.RateLimit rateLimit = beianProperties.getRateLimit();
+            capacity.add(rateLimit.getMaxRequestsPerMinute(), rateLimit.getBurstSize(), requestSeconds,
+                    beianProperties.getRequestDelay());
+        }
+        String bottleneck = capacity.bounds.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse("rate-limit");
+
+        // 每个查询目标的请求数与占用并发的时间（请求 + 重试退避）
+        List<GroupPlan> groups = new ArrayList<>();
+        int burst = beianProperties.getRateLimit().getBurstSize();
+        double p = observation.errorRate();
+        for (DomainGroupRegistry.Group group : domainGroups.groups()) {
+            double attempts = 0;
+            double backoff = 0;
+            double reach = 1;
+            for (int k = 0; k <= group.getMaxRetries(); k++) {
+                attempts += reach;
+                if (k > 0) {
+                    backoff += reach * Math.min(group.getRetryBackoff() * Math.pow(2, k - 1), MAX_BACKOFF_SECONDS);
+                }
+                reach *= p;
+            }
+            double slotSeconds = attempts * requestSeconds + backoff;
+            int lookups = group.getLookupTargets().size();
+            groups.add(new GroupPlan(group.getName(), group.getDomains().size(), lookups, group.getCheckInterval(),
+                    group.getShare(), group.getMaxRetries(), attempts, lookups * attempts,
+                    burst * attempts / slotSeconds, slotSeconds));
+        }
+        share(groups, capacity);
+
+        Map<String, GroupPlan> byName = new LinkedHashMap<>();
+        double requestsPerDay = 0;
+        for (GroupPlan group : groups) {
+            group.feasibleWithin(group.checkInterval * config.getMaxDurationRatio());
+            requestsPerDay += group.requests * 86400 / (group.duration + group.checkInterval);
+            byName.put(group.name, group);
+        }
+        return new Plan(observation, requestSeconds, capacity.rate, bottleneck, byName, requestsPerDay);
+    }
+
+    /**
+     * 后台请求速率上限：各出口（未启用出口代理池时为全局限流）的上限相加，并累计各项限制的约束程度
+     */
+    private static final class Capacity {
+        private final Map<String, Double> bounds = new LinkedHashMap<>();
+        private double rate;
+        // 每分钟限流窗口内的请求数，以及窗口内（只受 request-delay 与并发限制）的速率上限
+        private double window;
+        private double initialRate;
+
+        void add(int maxRequestsPerMinute, int maxConcurrent, double requestSeconds, int requestDelay) {
+            double unlimited = maxConcurrent / requestSeconds;
+            Map<String, Double> rates = new LinkedHashMap<>();
+            rates.put("rate-limit", maxRequestsPerMinute / 60.0);
+            rates.put("burst-size", unlimited);
+            if (requestDelay > 0) {
+                rates.put("request-delay", 1.0 / requestDelay);
+                unlimited = Math.min(unlimited, 1.0 / requestDelay);
+            }
+            double endpointRate = rates.values().stream().mapToDouble(Double::doubleValue).min().orElse(0);
+            rates.forEach((name, value) -> {
+                if (value <= endpointRate) {
+                    bounds.merge(name, endpointRate, Double::sum);
+                }
+            });
+            rate += endpointRate;
+            initialRate += unlimited;
+            window += maxRequestsPerMinute;
+        }
+    }
+
+    /**
+     * 各分组同时开始，按预算权重分享后台请求速率（单个分组不超过自身并发上限），分组完成后其额度由其余分组分享；
+     * 一分钟内的请求数达到每分钟限流后暂停到下一分钟。计算各分组完成时间
+     */
+    private static void share(List<GroupPlan> groups, Capacity capacity) {
+        double[] remaining = new double[groups.size()];
+        boolean[] active = new boolean[groups.size()];
+        for (int i = 0; i < groups.size(); i++) {
+            remaining[i] = groups.get(i).requests;
+            active[i] = remaining[i] > 0;
+            groups.get(i).duration = groups.get(i).slotSeconds;
+        }
+        double now = 0;
+        double windowEnd = WINDOW_SECONDS;
+        double sentInWindow = 0;
+        boolean any = true;
+        while (any) {
+            if (sentInWindow >= capacity.window * (1 - 1e-9)) {
+                now = windowEnd;
+                windowEnd += WINDOW_SECONDS;
+                sentInWindow = 0;
+            }
+            double[] rates = allocate(groups, active, capacity.initialRate);
+            double total = 0;
+            double step = windowEnd - now;
+            for (int i = 0; i < groups.size(); i++) {
+                if (active[i] && rates[i] > 0) {
+                    step = Math.min(step, remaining[i] / rates[i]);
+                    total += rates[i];
+                }
+            }
+            if (total == 0) {
+                // 没有可用速率，剩余分组无法完成
+                for (int i = 0; i < groups.size(); i++) {
+                    if (active[i]) {
+                        groups.get(i).duration = Double.POSITIVE_INFINITY;
+                    }
+                }
+                return;
+            }
+            step = Math.min(step, (capacity.window - sentInWindow) / total);
+            now += step;
+            sentInWindow += total * step;
+            if (now >= windowEnd - 1e-9) {
+                windowEnd += WINDOW_SECONDS;
+                sentInWindow = 0;
+            }
+
+            any = false;
+            for (int i = 0; i < groups.size(); i++) {
+                if (!active[i]) {
+                    continue;
+                }
+                remaining[i] -= rates[i] * step;
+                if (remaining[i] <= 1e-9 * Math.max(1, groups.get(i).requests)) {
+                    active[i] = false;
+                    // 最后一批查询还需一次完整的占用时间
+                    groups.get(i).duration = now + groups.get(i).slotSeconds;
+                } else {
+                    any = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * 按预算权重分配速率，超过分组并发上限的部分分给其余分组
+     */
+    private static double[] allocate(List<GroupPlan> groups, boolean[] active, double capacity) {
+        double[] rates = new double[groups.size()];
+        boolean[] open = active.clone();
+        double left = capacity;
+        boolean capped = true;
+        while (capped) {
+            capped = false;
+            double shares = 0;
+            for (int i = 0; i < groups.size(); i++) {
+                if (open[i]) {
+                    shares += groups.get(i).share;
+                }
+            }
+            if (shares == 0) {
+                break;
+            }
+            for (int i = 0; i < groups.size(); i++) {
+                if (open[i] && left * groups.get(i).share / shares >= groups.get(i).maxRate) {
+                    rates[i] = groups.get(i).maxRate;
+                    left -= rates[i];
+                    open[i] = false;
+                    capped = true;
+                }
+            }
+            if (!capped) {
+                for (int i = 0; i < groups.size(); i++) {
+                    if (open[i]) {
+                        rates[i] = left * groups.get(i).share / shares;
+                    }
+                }
+            }
+        }
+        return rates;
+    }
+
+    /**
+     * 从上游请求耗时与调度通道计数中读取观测值，样本不足时使用配置的假定值
+     */
+    private Observation observe(BeianProperties.Planner config) {
+        long samples = 0;
+        long errors = 0;
+        double totalSeconds = 0;
+        for (Timer timer : meterRegistry.find("beian_upstream_request_seconds").timers()) {
+            samples += timer.count();
+            totalSeconds += timer.totalTime(TimeUnit.SECONDS);
+            if (BeianResult.Status.ERROR.getValue().equals(timer.getId().getTag("status"))) {
+                errors += timer.count();
+            }
+        }
+        double scheduled = 0;
+        double retries = 0;
+        for (Counter counter : meterRegistry.find("beian_dispatcher_requests_total").counters()) {
+            String lane = counter.getId().getTag("lane");
+            if (UpstreamDispatcher.Lane.SCHEDULED.getValue().equals(lane)) {
+                scheduled += counter.count();
+            } else if (UpstreamDispatcher.Lane.RETRY.getValue().equals(lane)) {
+                retries += counter.count();
+            }
+        }
+        double retryRatio = scheduled > 0 ? retries / scheduled : 0;
+        if (samples < config.getMinSamples()) {
+            return new Observation("assumed", samples, config.getAssumedLatencyMs() / 1000.0,
+                    config.getAssumedErrorRate(), retryRatio);
+        }
+        return new Observation("observed", samples, totalSeconds / samples, (double) errors / samples, retryRatio);
+    }
+
+    /**
+     * 上游请求观测值；source 为 assumed 时耗时与错误率取自配置
+     */
+    record Observation(String source, long samples, double latency, double errorRate, double retryRatio) {
+    }
+
+    /**
+     * 一次估算结果
+     */
+    static final class Plan {
+        private final Observation observation;
+        private final double requestSeconds;
+        private final double capacity;
+        private final String bottleneck;
+        private final Map<String, GroupPlan> groups;
+        private final double requestsPerDay;
+
+        Plan(Observation observation, double requestSeconds, double capacity, String bottleneck,
+             Map<String, GroupPlan> groups, double requestsPerDay) {
+            this.observation = observation;
+            this.requestSeconds = requestSeconds;
+            this.capacity = capacity;
+            this.bottleneck = bottleneck;
+            this.groups = groups;
+            this.requestsPerDay = requestsPerDay;
+        }
+
+        boolean feasible() {
+            return groups.values().stream().allMatch(GroupPlan::feasible);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> observed = new LinkedHashMap<>();
+            observed.put("source", observation.source());
+            observed.put("samples", observation.samples());
+            observed.put("latencyMs", Math.round(observation.latency() * 1000));
+            observed.put("errorRate", round(observation.errorRate()));
+            observed.put("retryRatio", round(observation.retryRatio()));
+
+            Map<String, Object> capacityInfo = new LinkedHashMap<>();
+            capacityInfo.put("requestsPerSecond", round(capacity));
+            capacityInfo.put("requestSeconds", round(requestSeconds));
+            capacityInfo.put("bottleneck", bottleneck);
+
+            Map<String, Object> groupInfo = new LinkedHashMap<>();
+            for (GroupPlan group : groups.values()) {
+                groupInfo.put(group.name, group.toMap());
+            }
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("feasible", feasible());
+            response.put("observed", observed);
+            response.put("capacity", capacityInfo);
+            response.put("requestsPerDay", Math.round(requestsPerDay));
+            response.put("groups", groupInfo);
+            return response;
+        }
+    }
+
+    /**
+     * 单个分组的估算结果
+     */
+    static final class GroupPlan {
+        private final String name;
+        private final int domains;
+        private final int lookups;
+        private final int checkInterval;
+        private final int share;
+        private final int maxRetries;
+        private final double attempts;
+        private final double requests;
+        // 分组并发限制下的请求速率上限
+        private final double maxRate;
+        // 单个查询目标占用并发的时间（请求 + 重试退避）
+        private final double slotSeconds;
+        private double duration;
+        private double limit;
+
+        GroupPlan(String name, int domains, int lookups, int checkInterval, int share, int maxRetries,
+                  double attempts, double requests, double maxRate, double slotSeconds) {
+            this.name = name;
+            this.domains = domains;
+            this.lookups = lookups;
+            this.checkInterval = checkInterval;
+            this.share = share;
+            this.maxRetries = maxRetries;
+            this.attempts = attempts;
+            this.requests = requests;
+            this.maxRate = maxRate;
+            this.slotSeconds = slotSeconds;
+        }
+
+        void feasibleWithin(double limit) {
+            this.limit = limit;
+        }
+
+        boolean feasible() {
+            return duration <= limit;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("domains", domains);
+            response.put("lookups", lookups);
+            response.put("checkInterval", checkInterval);
+            response.put("share", share);
+            response.put("maxRetries", maxRetries);
+            response.put("attemptsPerLookup", round(attempts));
+            response.put("requests", Math.round(requests));
+            response.put("durationSeconds", finite(duration));
+            response.put("effectivePeriodSeconds", finite(duration + checkInterval));
+            response.put("feasible", feasible());
+            return response;
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static Object finite(double seconds) {
+        return Double.isInfinite(seconds) ? null : Math.round(seconds);
+    }
+}
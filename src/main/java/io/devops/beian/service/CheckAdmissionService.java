@@ -0,0 +1,200 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 手动查询准入控制
+ * 限制同时执行的手动查询数并提供短暂的等待队列，饱和时快速拒绝；
+ * 准入全程异步：排队的查询在前一个查询结束时由释放方直接启动，等待期间不占用任何线程，
+ * 保证 /health 与 /prometheus 在高负载下仍可响应
+ */
+@Service
+public class CheckAdmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckAdmissionService.class);
+
+    private final BeianProperties beianProperties;
+    private final ScheduledExecutorService timeoutExecutor;
+    private final Deque<Waiter<?>> waiters = new ArrayDeque<>();
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private int available;
+
+    private final Counter queueFullCounter;
+    private final Counter timeoutCounter;
+    private final Timer waitTimer;
+
+    public CheckAdmissionService(BeianProperties beianProperties, MeterRegistry meterRegistry) {
+        this.beianProperties = beianProperties;
+        this.available = beianProperties.getAdmission().getMaxConcurrent();
+        this.timeoutExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "beian-admission-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.queueFullCounter = Counter.builder("beian_admission_rejected_total")
+                .description("被准入控制拒绝的手动查询数")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("beian_admission_rejected_total")
+                .description("被准入控制拒绝的手动查询数")
+                .tag("reason", "queue_timeout")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("beian_admission_wait_seconds")
+                .description("手动查询在准入队列中的等待时间")
+                .register(meterRegistry);
+        Gauge.builder("beian_admission_queue_size", this, CheckAdmissionService::queueSize)
+                .description("等待准入的手动查询数")
+                .register(meterRegistry);
+        Gauge.builder("beian_admission_in_flight", inFlight, AtomicInteger::get)
+                .description("正在执行的手动查询数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timeoutExecutor.shutdownNow();
+    }
+
+    /**
+     * 尝试准入并启动异步任务
+     * 有空闲名额时立即启动；否则进入等待队列，由先前查询结束时启动。
+     * 队列已满或等待超时时返回的 future 以 {@link AdmissionRejectedException} 异常结束
+     * @param task 启动查询并返回其结果的 future，不应阻塞调用线程
+     */
+    public <T> CompletableFuture<T> tryExecute(Supplier<CompletableFuture<T>> task) {
+        Waiter<T> waiter = new Waiter<>(task);
+        BeianProperties.Admission config = beianProperties.getAdmission();
+        synchronized (this) {
+            if (available > 0) {
+                available--;
+            } else if (waiters.size() >= config.getMaxQueue()) {
+                queueFullCounter.increment();
+                logger.debug("手动查询等待队列已满，拒绝请求");
+                waiter.result.completeExceptionally(new AdmissionRejectedException("queue_full"));
+                return waiter.result;
+            } else {
+                waiters.addLast(waiter);
+                waiter.timeout = timeoutExecutor.schedule(() -> expire(waiter),
+                        config.getQueueTimeoutMs(), TimeUnit.MILLISECONDS);
+                return waiter.result;
+            }
+        }
+        start(waiter);
+        return waiter.result;
+    }
+
+    /**
+     * 拒绝时建议客户端等待的秒数
+     */
+    public int getRetryAfterSeconds() {
+        return beianProperties.getAdmission().getRetryAfter();
+    }
+
+    private synchronized int queueSize() {
+        return waiters.size();
+    }
+
+    /**
+     * 在已持有名额的情况下启动任务，任务结束时释放名额
+     */
+    private <T> void start(Waiter<T> waiter) {
+        inFlight.incrementAndGet();
+        CompletableFuture<T> execution;
+        try {
+            execution = waiter.task.get();
+        } catch (RuntimeException e) {
+            execution = CompletableFuture.failedFuture(e);
+        }
+        execution.whenComplete((value, error) -> {
+            release();
+            if (error != null) {
+                waiter.result.completeExceptionally(error);
+            } else {
+                waiter.result.complete(value);
+            }
+        });
+    }
+
+    /**
+     * 释放名额：有排队的查询时直接把名额交给队首，否则归还
+     */
+    private void release() {
+        inFlight.decrementAndGet();
+        Waiter<?> next;
+        synchronized (this) {
+            next = waiters.pollFirst();
+            if (next == null) {
+                available++;
+                return;
+            }
+        }
+        next.timeout.cancel(false);
+        waitTimer.record(System.nanoTime() - next.enqueuedAt, TimeUnit.NANOSECONDS);
+        start(next);
+    }
+
+    private void expire(Waiter<?> waiter) {
+        synchronized (this) {
+            // 已被释放方取出启动的查询不再超时
+            if (!waiters.remove(waiter)) {
+                return;
+            }
+        }
+        waitTimer.record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+        timeoutCounter.increment();
+        logger.debug("手动查询等待准入超时，拒绝请求");
+        waiter.result.completeExceptionally(new AdmissionRejectedException("queue_timeout"));
+    }
+
+    /**
+     * 排队中的查询
+     */
+    private static final class Waiter<T> {
+        private final Supplier<CompletableFuture<T>> task;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+        private ScheduledFuture<?> timeout;
+
+        private Waiter(Supplier<CompletableFuture<T>> task) {
+            this.task = task;
+        }
+    }
+
+    /**
+     * 手动查询未获准入（队列已满或等待超时）
+     */
+    public static class AdmissionRejectedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String reason;
+
+        public AdmissionRejectedException(String reason) {
+            super("手动查询未获准入: " + reason);
+            this.reason = reason;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
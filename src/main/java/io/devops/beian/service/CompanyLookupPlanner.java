@@ -0,0 +1,141 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianInfo;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * 按主办单位聚合查询的规划器
+ * 同一主办单位的网站共用备案号前缀（如 京ICP备12345678号-1 与 京ICP备12345678号-2），
+ * 已知备案号或单位名称时按该关键字查询一次，即可更新响应中出现的所有被监控域名
+ */
+@Service
+public class CompanyLookupPlanner {
+
+    private static final Pattern SITE_SUFFIX = Pattern.compile("-\\d+$");
+    // 规范化后的可注册域名只包含小写 ASCII 字符
+    private static final Pattern DOMAIN_KEY = Pattern.compile("[a-z0-9.-]+");
+    private static final Pattern URL_SEPARATOR = Pattern.compile("[\\s,，;；、]+");
+
+    private final BeianProperties beianProperties;
+    private final DomainNormalizer domainNormalizer;
+    private final Counter coveredCounter;
+    private final Counter fallbackCounter;
+
+    public CompanyLookupPlanner(BeianProperties beianProperties,
+                                DomainNormalizer domainNormalizer,
+                                MeterRegistry meterRegistry) {
+        this.beianProperties = beianProperties;
+        this.domainNormalizer = domainNormalizer;
+        this.coveredCounter = Counter.builder("beian_fanin_covered_total")
+                .description("通过主办单位聚合查询更新的域名数")
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("beian_fanin_fallback_total")
+                .description("聚合查询未覆盖、回退为逐域名查询的域名数")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return beianProperties.getFanIn().isEnabled();
+    }
+
+    /**
+     * 根据上次查询结果规划聚合查询
+     * @param lookupKeys 本轮需要查询的可注册域名
+     * @param lastSuccess 可注册域名 -> 上次成功结果（未知时返回 null）
+     * @return 聚合关键字 -> 预计覆盖的可注册域名（仅包含达到最小聚合数的分组）
+     */
+    public Map<String, Set<String>> plan(Collection<String> lookupKeys, Function<String, BeianResult> lastSuccess) {
+        Map<String, Set<String>> groups = new LinkedHashMap<>();
+        if (!isEnabled()) {
+            return groups;
+        }
+
+        for (String key : lookupKeys) {
+            BeianResult result = lastSuccess.apply(key);
+            if (result == null || !result.isSuccess()) {
+                continue;
+            }
+            String companyKey = companyKeyOf(result.getData().get(0));
+            if (companyKey != null) {
+                groups.computeIfAbsent(companyKey, k -> new LinkedHashSet<>()).add(key);
+            }
+        }
+
+        int minDomains = beianProperties.getFanIn().getMinDomains();
+        groups.values().removeIf(keys -> keys.size() < minDomains);
+        return groups;
+    }
+
+    /**
+     * 将聚合查询结果按网站首页地址拆分到被监控的可注册域名
+     * @return 可注册域名 -> 属于该域名的备案记录
+     */
+    public Map<String, List<BeianInfo>> match(BeianResult companyResult, Set<String> monitoredKeys) {
+        Map<String, List<BeianInfo>> matched = new LinkedHashMap<>();
+        if (!companyResult.isSuccess()) {
+            return matched;
+        }
+
+        for (BeianInfo info : companyResult.getData()) {
+            if (info.getWebsiteUrl() == null) {
+                continue;
+            }
+            Set<String> keys = new LinkedHashSet<>();
+            for (String url : URL_SEPARATOR.split(info.getWebsiteUrl().trim())) {
+                if (!url.isEmpty()) {
+                    keys.add(domainNormalizer.normalize(url));
+                }
+            }
+            for (String key : keys) {
+                if (monitoredKeys.contains(key)) {
+                    matched.computeIfAbsent(key, k -> new ArrayList<>()).add(info);
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 记录一次聚合查询的覆盖情况
+     */
+    public void recordCoverage(int covered, int fallback) {
+        coveredCounter.increment(covered);
+        fallbackCounter.increment(fallback);
+    }
+
+    /**
+     * 聚合查询关键字：备案号去掉网站序号后的前缀，或主办单位名称
+     */
+    public String companyKeyOf(BeianInfo info) {
+        if ("company-name".equals(beianProperties.getFanIn().getKey())) {
+            return blankToNull(info.getCompanyName());
+        }
+        String beianNumber = blankToNull(info.getBeianNumber());
+        return beianNumber == null ? null : SITE_SUFFIX.matcher(beianNumber).replaceFirst("");
+    }
+
+    /**
+     * 是否为聚合查询关键字（而非域名），用于区分归档中的记录
+     */
+    public boolean isCompanyKey(String lookupKey) {
+        return !DOMAIN_KEY.matcher(lookupKey).matches();
+    }
+
+    private String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+}
\ No newline at end of file
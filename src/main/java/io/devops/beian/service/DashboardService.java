@@ -0,0 +1,269 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianInfo;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 状态页数据
+ * 按状态与分组筛选、服务端分页展示结果存储中的域名状态。筛选结果与渲染后的表格片段按结果存储版本号缓存，
+ * 结果内容变化前重复访问同一页直接返回缓存的 HTML，不再遍历域名与渲染模板。
+ */
+@Service
+public class DashboardService {
+
+    public static final String PENDING = "pending";
+
+    private static final String TABLE_TEMPLATE = "dashboard";
+    private static final Set<String> TABLE_FRAGMENT = Set.of("statusTable");
+
+    private final BeianProperties beianProperties;
+    private final BeianResultStore resultStore;
+    private final DomainGroupRegistry domainGroups;
+    private final ITemplateEngine templateEngine;
+    private final List<String> domains;
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    private volatile Snapshot snapshot = new Snapshot(-1, null);
+    // 渲染后的表格片段，按访问顺序淘汰
+    private final Map<String, String> pages;
+
+    public DashboardService(BeianProperties beianProperties,
+                            BeianResultStore resultStore,
+                            DomainGroupRegistry domainGroups,
+                            ITemplateEngine templateEngine,
+                            MeterRegistry meterRegistry) {
+        this.beianProperties = beianProperties;
+        this.resultStore = resultStore;
+        this.domainGroups = domainGroups;
+        this.templateEngine = templateEngine;
+        this.domains = domainGroups.allDomains();
+
+        int cachedPages = beianProperties.getDashboard().getCachedPages();
+        this.pages = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cachedPages;
+            }
+        });
+
+        cacheHits = Counter.builder("beian_dashboard_cache_total")
+                .description("状态页表格片段缓存命中情况")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        cacheMisses = Counter.builder("beian_dashboard_cache_total")
+                .description("状态页表格片段缓存命中情况")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public int domainCount() {
+        return domains.size();
+    }
+
+    /**
+     * 各状态的域名数（含 pending：尚无结果），按状态顺序
+     */
+    public Map<String, Integer> summary() {
+        return current().summary;
+    }
+
+    /**
+     * 可筛选的状态取值
+     */
+    public List<String> statuses() {
+        List<String> statuses = new ArrayList<>();
+        for (BeianResult.Status status : BeianResult.Status.values()) {
+            if (status != BeianResult.Status.BLOCKED) {
+                statuses.add(status.getValue());
+            }
+        }
+        statuses.add(PENDING);
+        return statuses;
+    }
+
+    /**
+     * 渲染一页状态表格；status、group 为空表示不筛选，页码从 1 开始，超出范围时取最近的有效页
+     */
+    public String renderTable(String status, String group, int page, Integer size) {
+        String statusFilter = status == null || status.isBlank() ? null : status;
+        String groupFilter = group == null || group.isBlank() ? null : group;
+        int pageSize = size == null || size < 1
+                ? beianProperties.getDashboard().getPageSize() : Math.min(size, 500);
+
+        Snapshot current = current();
+        List<String> matched = current.filtered.computeIfAbsent(
+                (statusFilter == null ? "" : statusFilter) + "|" + (groupFilter == null ? "" : groupFilter),
+                k -> filter(statusFilter, groupFilter));
+        int totalPages = Math.max(1, (matched.size() + pageSize - 1) / pageSize);
+        int pageNumber = Math.min(Math.max(page, 1), totalPages);
+
+        String cacheKey = current.version + "|" + statusFilter + "|" + groupFilter + "|" + pageNumber + "|" + pageSize;
+        String html = pages.get(cacheKey);
+        if (html != null) {
+            cacheHits.increment();
+            return html;
+        }
+        cacheMisses.increment();
+
+        List<Row> rows = new ArrayList<>(pageSize);
+        for (String domain : matched.subList((pageNumber - 1) * pageSize, Math.min(matched.size(), pageNumber * pageSize))) {
+            rows.add(toRow(domain));
+        }
+
+        Context context = new Context();
+        context.setVariable("rows", rows);
+        context.setVariable("total", matched.size());
+        context.setVariable("page", pageNumber);
+        context.setVariable("totalPages", totalPages);
+        context.setVariable("showGroups", domainGroups.groups().size() > 1);
+        context.setVariable("previousUrl", pageNumber > 1
+                ? pageUrl(statusFilter, groupFilter, pageNumber - 1, size) : null);
+        context.setVariable("nextUrl", pageNumber < totalPages
+                ? pageUrl(statusFilter, groupFilter, pageNumber + 1, size) : null);
+        html = templateEngine.process(TABLE_TEMPLATE, TABLE_FRAGMENT, context);
+        pages.put(cacheKey, html);
+        return html;
+    }
+
+    /**
+     * 当前版本的快照；结果变化后首次访问时重建，旧版本的缓存页随之失效
+     */
+    private Snapshot current() {
+        long version = resultStore.version();
+        Snapshot current = snapshot;
+        if (current.version == version) {
+            return current;
+        }
+
+        Map<String, Integer> summary = new LinkedHashMap<>();
+        statuses().forEach(status -> summary.put(status, 0));
+        for (String domain : domains) {
+            summary.merge(statusOf(domain), 1, Integer::sum);
+        }
+        current = new Snapshot(version, Collections.unmodifiableMap(summary));
+        snapshot = current;
+        pages.clear();
+        return current;
+    }
+
+    private List<String> filter(String status, String group) {
+        DomainGroupRegistry.Group selected = group == null ? null : domainGroups.get(group);
+        if (group != null && selected == null) {
+            return List.of();
+        }
+        List<String> candidates = selected == null ? domains : selected.getDomains();
+        if (status == null) {
+            return candidates;
+        }
+        List<String> matched = new ArrayList<>();
+        for (String domain : candidates) {
+            if (status.equals(statusOf(domain))) {
+                matched.add(domain);
+            }
+        }
+        return matched;
+    }
+
+    private String statusOf(String domain) {
+        BeianResult.Status status = resultStore.status(domain);
+        return status == null ? PENDING : status.getValue();
+    }
+
+    private Row toRow(String domain) {
+        BeianResult result = resultStore.get(domain);
+        String group = domainGroups.groupOf(domain).getName();
+        if (result == null) {
+            return new Row(domain, group, PENDING, null, null, null);
+        }
+        BeianInfo info = result.getData() == null || result.getData().isEmpty() ? null : result.getData().get(0);
+        return new Row(domain, group, result.getStatus().getValue(),
+                info == null ? null : info.getCompanyName(),
+                info == null ? null : info.getBeianNumber(),
+                info == null ? result.getMessage() : info.getWebsiteName());
+    }
+
+    private static String pageUrl(String status, String group, int page, Integer size) {
+        return UriComponentsBuilder.fromPath("/")
+                .queryParamIfPresent("status", Optional.ofNullable(status))
+                .queryParamIfPresent("group", Optional.ofNullable(group))
+                .queryParam("page", page)
+                .queryParamIfPresent("size", Optional.ofNullable(size))
+                .encode()
+                .toUriString();
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final Map<String, Integer> summary;
+        // 筛选条件 -> 匹配的域名（按配置顺序）
+        private final Map<String, List<String>> filtered = new ConcurrentHashMap<>();
+
+        Snapshot(long version, Map<String, Integer> summary) {
+            this.version = version;
+            this.summary = summary;
+        }
+    }
+
+    /**
+     * 状态表格的一行
+     */
+    public static final class Row {
+        private final String domain;
+        private final String group;
+        private final String status;
+        private final String companyName;
+        private final String beianNumber;
+        private final String detail;
+
+        Row(String domain, String group, String status, String companyName, String beianNumber, String detail) {
+            this.domain = domain;
+            this.group = group;
+            this.status = status;
+            this.companyName = companyName;
+            this.beianNumber = beianNumber;
+            this.detail = detail;
+        }
+
+        public String getDomain() {
+            return domain;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getCompanyName() {
+            return companyName;
+        }
+
+        public String getBeianNumber() {
+            return beianNumber;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+    }
+}
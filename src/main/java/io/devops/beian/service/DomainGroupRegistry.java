@@ -0,0 +1,241 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * 域名分组
+ * beian.domains 作为 default 分组（沿用全局检查间隔与重试次数），beian.groups 下每个命名分组
+ * 有独立的检查间隔、上游预算权重、重试策略与附加指标标签。同一域名出现在多个分组时归属先配置的分组。
+ *
+ * 配置了命名分组时，域名指标附加 group 标签与所有分组附加标签的并集（未配置的标签取空值），
+ * 使同名指标的标签集合一致。附加标签不能与域名指标的内置标签、公共标签或 Prometheus 目标标签重名，
+ * 且须为合法的 Prometheus 标签名，否则启动失败（重名时会静默覆盖内置标签）。
+ */
+@Service
+public class DomainGroupRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DomainGroupRegistry.class);
+
+    public static final String DEFAULT_GROUP = "default";
+
+    /**
+     * 域名指标已使用的标签（内置标签与 MetricsConfig 公共标签）及 Prometheus 抓取时附加的目标标签
+     */
+    static final Set<String> RESERVED_LABELS = Set.of(
+            "domain", "group", "error_type",
+            "company_name", "company_type", "beian_number", "website_name", "website_url", "approval_date",
+            "application", "version", "job", "instance");
+    private static final Pattern LABEL_NAME = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+    private final Map<String, Group> groupByDomain = new HashMap<>();
+    private final Group fallbackGroup;
+    private final boolean named;
+    private final List<String> labelKeys;
+    private final Map<String, List<String>> allLookupTargets;
+
+    public DomainGroupRegistry(BeianProperties beianProperties, DomainNormalizer domainNormalizer) {
+        if (beianProperties.getGroups().containsKey(DEFAULT_GROUP)) {
+            throw new IllegalArgumentException("分组名 " + DEFAULT_GROUP + " 保留给 beian.domains，请使用其他名称");
+        }
+
+        fallbackGroup = new Group(DEFAULT_GROUP, List.of(), beianProperties.getCheckInterval(), 1,
+                beianProperties.getMaxRetries(), 5, Map.of());
+        if (beianProperties.getDomains() != null && !beianProperties.getDomains().isEmpty()) {
+            register(new Group(DEFAULT_GROUP, beianProperties.getDomains(), beianProperties.getCheckInterval(), 1,
+                    beianProperties.getMaxRetries(), 5, Map.of()));
+        }
+        beianProperties.getGroups().forEach((name, config) -> register(new Group(name, config.getDomains(),
+                config.getCheckInterval() != null ? config.getCheckInterval() : beianProperties.getCheckInterval(),
+                config.getShare(),
+                config.getMaxRetries() != null ? config.getMaxRetries() : beianProperties.getMaxRetries(),
+                config.getRetryBackoff(),
+                config.getLabels())));
+
+        named = !beianProperties.getGroups().isEmpty();
+        Set<String> keys = new TreeSet<>();
+        beianProperties.getGroups().forEach((name, config) -> {
+            for (String key : config.getLabels().keySet()) {
+                validateLabel(name, key);
+                keys.add(key);
+            }
+        });
+        labelKeys = List.copyOf(keys);
+
+        Map<String, List<String>> merged = new LinkedHashMap<>();
+        for (Group group : groups.values()) {
+            group.lookupTargets = domainNormalizer.groupByRegistrable(group.domains);
+            group.lookupTargets.forEach((key, domains) ->
+                    merged.computeIfAbsent(key, k -> new ArrayList<>()).addAll(domains));
+        }
+        allLookupTargets = Collections.unmodifiableMap(merged);
+
+        if (named) {
+            for (Group group : groups.values()) {
+                logger.info("域名分组 {}: {} 个域名，检查间隔 {} 秒，预算权重 {}，最多重试 {} 次",
+                        group.name, group.domains.size(), group.checkInterval, group.share, group.maxRetries);
+            }
+        }
+    }
+
+    private static void validateLabel(String group, String key) {
+        if (!LABEL_NAME.matcher(key).matches() || key.startsWith("__")) {
+            throw new IllegalArgumentException("分组 " + group + " 的标签名 " + key
+                    + " 不是合法的 Prometheus 标签名（字母、数字与下划线，不能以数字或 __ 开头）");
+        }
+        if (RESERVED_LABELS.contains(key)) {
+            throw new IllegalArgumentException("分组 " + group + " 的标签名 " + key
+                    + " 与域名指标的内置标签重名，请使用其他名称");
+        }
+    }
+
+    private void register(Group group) {
+        List<String> owned = new ArrayList<>();
+        for (String domain : group.domains) {
+            Group existing = groupByDomain.putIfAbsent(domain, group);
+            if (existing == null) {
+                owned.add(domain);
+            } else if (existing != group) {
+                logger.warn("域名 {} 同时配置在分组 {} 与 {}，归属 {}", domain, existing.name, group.name, existing.name);
+            }
+        }
+        group.domains = List.copyOf(new LinkedHashSet<>(owned));
+        groups.put(group.name, group);
+    }
+
+    /**
+     * 所有分组（按配置顺序，default 分组在前）
+     */
+    public Collection<Group> groups() {
+        return groups.values();
+    }
+
+    /**
+     * 按名称获取分组，不存在时返回 null
+     */
+    public Group get(String name) {
+        return groups.get(name);
+    }
+
+    /**
+     * 域名所属分组，未配置的域名（如手动查询）视为 default 分组
+     */
+    public Group groupOf(String domain) {
+        return groupByDomain.getOrDefault(domain, fallbackGroup);
+    }
+
+    /**
+     * 分组的上游预算权重，未知分组为 1
+     */
+    public int share(String name) {
+        Group group = groups.get(name);
+        return group == null ? 1 : group.share;
+    }
+
+    /**
+     * 域名指标的分组标签；未配置命名分组时为空，保持原有指标标签不变
+     */
+    public Tags tags(String domain) {
+        if (!named) {
+            return Tags.empty();
+        }
+        Group group = groupOf(domain);
+        Tags tags = Tags.of("group", group.name);
+        for (String key : labelKeys) {
+            tags = tags.and(key, group.labels.getOrDefault(key, ""));
+        }
+        return tags;
+    }
+
+    /**
+     * 所有分组的域名
+     */
+    public List<String> allDomains() {
+        List<String> domains = new ArrayList<>();
+        groups.values().forEach(group -> domains.addAll(group.domains));
+        return domains;
+    }
+
+    /**
+     * 所有分组合并后的可注册域名 -> 配置名映射
+     */
+    public Map<String, List<String>> allLookupTargets() {
+        return allLookupTargets;
+    }
+
+    /**
+     * 一个域名分组的有效配置
+     */
+    public static final class Group {
+        private final String name;
+        private List<String> domains;
+        private final int checkInterval;
+        private final int share;
+        private final int maxRetries;
+        private final int retryBackoff;
+        private final Map<String, String> labels;
+        private Map<String, List<String>> lookupTargets = Map.of();
+
+        Group(String name, List<String> domains, int checkInterval, int share,
+              int maxRetries, int retryBackoff, Map<String, String> labels) {
+            this.name = name;
+            this.domains = domains;
+            this.checkInterval = checkInterval;
+            this.share = share;
+            this.maxRetries = maxRetries;
+            this.retryBackoff = retryBackoff;
+            this.labels = Map.copyOf(labels);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getDomains() {
+            return domains;
+        }
+
+        public int getCheckInterval() {
+            return checkInterval;
+        }
+
+        public int getShare() {
+            return share;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public int getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public Map<String, String> getLabels() {
+            return labels;
+        }
+
+        /**
+         * 分组内按可注册域名聚合的配置名
+         */
+        public Map<String, List<String>> getLookupTargets() {
+            return lookupTargets;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.IDN;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 域名规范化服务
+ * 备案信息属于可注册域名（如 www.example.com.cn -> example.com.cn），
+ * 按公共后缀列表求出可注册域名，并统一为小写 ASCII（punycode）形式，使多个配置名共享一次上游查询
+ */
+@Service
+public class DomainNormalizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DomainNormalizer.class);
+
+    private final BeianProperties beianProperties;
+    private final ResourceLoader resourceLoader;
+
+    private final Set<String> rules = new HashSet<>();
+    private final Set<String> wildcardRules = new HashSet<>();
+    private final Set<String> exceptionRules = new HashSet<>();
+
+    public DomainNormalizer(BeianProperties beianProperties, ResourceLoader resourceLoader) {
+        this.beianProperties = beianProperties;
+        this.resourceLoader = resourceLoader;
+    }
+
+    @PostConstruct
+    public void loadSuffixList() throws IOException {
+        if (!beianProperties.getNormalization().isEnabled()) {
+            return;
+        }
+
+        Resource resource = resourceLoader.getResource(beianProperties.getNormalization().getSuffixList());
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("//")) {
+                    continue;
+                }
+                if (line.startsWith("!")) {
+                    exceptionRules.add(toAscii(line.substring(1)));
+                } else if (line.startsWith("*.")) {
+                    wildcardRules.add(toAscii(line.substring(2)));
+                } else {
+                    rules.add(toAscii(line));
+                }
+            }
+        }
+        logger.info("已加载公共后缀列表 {}: {} 条规则", resource.getDescription(),
+                rules.size() + wildcardRules.size() + exceptionRules.size());
+    }
+
+    /**
+     * 规范化为可注册域名；无法识别时返回规范化后的原始主机名
+     */
+    public String normalize(String domain) {
+        String host = canonicalHost(domain);
+        if (!beianProperties.getNormalization().isEnabled() || host.isEmpty()) {
+            return host;
+        }
+
+        String[] labels = host.split("\\.");
+        int suffixStart = publicSuffixStart(labels);
+        if (suffixStart <= 0) {
+            // 域名本身就是公共后缀
+            return host;
+        }
+        return String.join(".", Arrays.copyOfRange(labels, suffixStart - 1, labels.length));
+    }
+
+    /**
+     * 按可注册域名聚合配置的域名，保持配置顺序
+     * @return 可注册域名 -> 映射到它的所有配置名
+     */
+    public Map<String, List<String>> groupByRegistrable(List<String> domains) {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (String domain : domains) {
+            groups.computeIfAbsent(normalize(domain), k -> new ArrayList<>()).add(domain);
+        }
+        return groups;
+    }
+
+    /**
+     * 去除协议、路径、端口与末尾的点，转换为小写 ASCII 主机名
+     */
+    private String canonicalHost(String domain) {
+        String host = domain.trim();
+        int schemeEnd = host.indexOf("://");
+        if (schemeEnd >= 0) {
+            host = host.substring(schemeEnd + 3);
+        }
+        int pathStart = host.indexOf('/');
+        if (pathStart >= 0) {
+            host = host.substring(0, pathStart);
+        }
+        int portStart = host.lastIndexOf(':');
+        if (portStart >= 0) {
+            host = host.substring(0, portStart);
+        }
+        while (host.endsWith(".")) {
+            host = host.substring(0, host.length() - 1);
+        }
+        return toAscii(host);
+    }
+
+    private String toAscii(String value) {
+        try {
+            return IDN.toASCII(value, IDN.ALLOW_UNASSIGNED).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return value.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * 公共后缀起始标签下标（按 PSL 算法：例外规则优先，其余取最长匹配，未匹配时默认顶级域）
+     */
+    private int publicSuffixStart(String[] labels) {
+        for (int i = 0; i < labels.length; i++) {
+            String candidate = join(labels, i);
+            if (exceptionRules.contains(candidate)) {
+                return i + 1;
+            }
+            if (rules.contains(candidate)) {
+                return i;
+            }
+            if (i + 1 < labels.length && wildcardRules.contains(join(labels, i + 1))) {
+                return i;
+            }
+        }
+        return labels.length - 1;
+    }
+
+    private String join(String[] labels, int from) {
+        return String.join(".", Arrays.copyOfRange(labels, from, labels.length));
+    }
+}
\ No newline at end of file
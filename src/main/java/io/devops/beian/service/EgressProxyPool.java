@@ -0,0 +1,318 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Service;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.transport.ProxyProvider;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleSupplier;
+
+/**
+ * 出口代理池
+ * 每个出口（HTTP/SOCKS 代理或本机直连）独立计算并发、每分钟请求数与请求间隔，
+ * 每次请求选择负载最低的健康出口；连续失败达到阈值的出口被摘除一段时间，再次摘除时时长加倍。
+ * 上游按来源 IP 限流时，总吞吐随出口数量线性增长。
+ */
+@Service
+public class EgressProxyPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(EgressProxyPool.class);
+    private static final String DIRECT = "direct";
+    private static final long WINDOW_MILLIS = 60_000;
+    // 健康分的指数滑动平均系数
+    private static final double SCORE_ALPHA = 0.2;
+
+    private final BeianProperties beianProperties;
+    private final List<Endpoint> endpoints;
+
+    public EgressProxyPool(BeianProperties beianProperties, MeterRegistry meterRegistry) {
+        this.beianProperties = beianProperties;
+
+        BeianProperties.Egress config = beianProperties.getEgress();
+        List<Endpoint> configured = new ArrayList<>();
+        if (config.isEnabled()) {
+            if (config.isIncludeDirect()) {
+                configured.add(new Endpoint(DIRECT, null, 0, 0));
+            }
+            for (BeianProperties.EgressProxy proxy : config.getProxies()) {
+                URI uri = URI.create(proxy.getUrl());
+                configured.add(new Endpoint(uri.getHost() + ":" + uri.getPort(), createConnector(uri),
+                        proxy.getMaxRequestsPerMinute(), proxy.getMaxConcurrent()));
+            }
+            logger.info("出口代理池已启用，共 {} 个出口", configured.size());
+        }
+        this.endpoints = Collections.unmodifiableList(configured);
+
+        for (Endpoint endpoint : endpoints) {
+            endpoint.registerMetrics(meterRegistry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return !endpoints.isEmpty();
+    }
+
+    /**
+     * 各出口的标识与连接器（直连出口的连接器为 null），用于启动预热
+     */
+    public Map<String, ClientHttpConnector> connectors() {
+        Map<String, ClientHttpConnector> connectors = new LinkedHashMap<>();
+        for (Endpoint endpoint : endpoints) {
+            connectors.put(endpoint.id, endpoint.connector);
+        }
+        return connectors;
+    }
+
+    /**
+     * 各出口的每分钟请求上限与并发上限（未单独配置时取全局限流），用于容量估算
+     */
+    public List<Limit> limits() {
+        List<Limit> limits = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            limits.add(new Limit(endpoint.id, endpoint.maxRequestsPerMinute, endpoint.maxConcurrent));
+        }
+        return limits;
+    }
+
+    /**
+     * 为一次请求选择出口：在健康且未达到并发、每分钟上限（后台请求还需满足 request-delay 间隔）的出口中，
+     * 取负载（并发占用率 + 每分钟额度占用率）除以健康分最小者
+     * @param spaced 是否需要满足 request-delay 间隔
+     * @return 出口租约，暂无可用出口时返回 null
+     */
+    public synchronized Lease tryAcquire(boolean spaced) {
+        long now = System.currentTimeMillis();
+        long spacingMillis = spaced ? beianProperties.getRequestDelay() * 1000L : 0;
+
+        Endpoint selected = null;
+        double selectedLoad = Double.MAX_VALUE;
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.isAvailable(now, spacingMillis)) {
+                continue;
+            }
+            double load = endpoint.load() / endpoint.score;
+            if (load < selectedLoad) {
+                selected = endpoint;
+                selectedLoad = load;
+            }
+        }
+        if (selected == null) {
+            return null;
+        }
+
+        selected.inFlight++;
+        selected.requestTimes.addLast(now);
+        selected.lastDispatch = now;
+        return new Lease(selected);
+    }
+
+    /**
+     * 记录请求结果：封禁或错误计为失败，连续失败达到阈值时摘除出口
+     */
+    private synchronized void release(Endpoint endpoint, BeianResult result) {
+        endpoint.inFlight--;
+        if (result == null) {
+            return;
+        }
+
+        BeianProperties.Egress config = beianProperties.getEgress();
+        boolean failed = result.getStatus() == BeianResult.Status.BLOCKED
+                || result.getStatus() == BeianResult.Status.ERROR;
+        (failed ? endpoint.failureCounter : endpoint.successCounter).increment();
+        endpoint.score = (1 - SCORE_ALPHA) * endpoint.score + (failed ? 0 : SCORE_ALPHA);
+        // 健康分保留下限，避免出口恢复后长期分不到请求
+        endpoint.score = Math.max(endpoint.score, 0.05);
+
+        if (!failed) {
+            endpoint.consecutiveFailures = 0;
+            endpoint.ejectMillis = config.getEjectDuration() * 1000L;
+            return;
+        }
+
+        endpoint.consecutiveFailures++;
+        if (endpoint.consecutiveFailures >= config.getFailureThreshold() && !endpoint.isEjected(System.currentTimeMillis())) {
+            endpoint.ejectedUntil = System.currentTimeMillis() + endpoint.ejectMillis;
+            endpoint.consecutiveFailures = 0;
+            endpoint.ejectionCounter.increment();
+            logger.warn("出口 {} 连续失败 {} 次，摘除 {} 秒", endpoint.id, config.getFailureThreshold(),
+                    endpoint.ejectMillis / 1000);
+            endpoint.ejectMillis = Math.min(endpoint.ejectMillis * 2, config.getMaxEjectDuration() * 1000L);
+        }
+    }
+
+    /**
+     * 按代理地址创建连接器：http(s):// 使用 HTTP CONNECT 代理，socks4:// 与 socks5:// 使用 SOCKS 代理
+     */
+    private ClientHttpConnector createConnector(URI uri) {
+        ProxyProvider.Proxy type = switch (uri.getScheme() == null ? "" : uri.getScheme().toLowerCase()) {
+            case "http", "https" -> ProxyProvider.Proxy.HTTP;
+            case "socks4" -> ProxyProvider.Proxy.SOCKS4;
+            case "socks", "socks5" -> ProxyProvider.Proxy.SOCKS5;
+            default -> throw new IllegalArgumentException("不支持的代理地址: " + uri.getHost() + ":" + uri.getPort());
+        };
+        if (uri.getHost() == null || uri.getPort() < 0) {
+            throw new IllegalArgumentException("代理地址缺少主机或端口: " + uri.getScheme() + "://" + uri.getHost());
+        }
+
+        String userInfo = uri.getRawUserInfo();
+        HttpClient httpClient = HttpClient.create().proxy(spec -> {
+            ProxyProvider.Builder builder = spec.type(type).host(uri.getHost()).port(uri.getPort());
+            if (userInfo != null) {
+                int separator = userInfo.indexOf(':');
+                String username = decode(separator < 0 ? userInfo : userInfo.substring(0, separator));
+                String password = separator < 0 ? "" : decode(userInfo.substring(separator + 1));
+                builder.username(username).password(name -> password);
+            }
+        });
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 一次请求占用的出口，请求结束时必须释放
+     */
+    public final class Lease {
+        private final Endpoint endpoint;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private Lease(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * 出口标识（host:port 或 direct）
+         */
+        public String id() {
+            return endpoint.id;
+        }
+
+        /**
+         * 出口连接器，直连时为 null
+         */
+        public ClientHttpConnector connector() {
+            return endpoint.connector;
+        }
+
+        /**
+         * 释放出口并记录结果；result 为 null 表示请求被取消，不计入健康分。重复调用无效
+         */
+        public void release(BeianResult result) {
+            if (released.compareAndSet(false, true)) {
+                EgressProxyPool.this.release(endpoint, result);
+            }
+        }
+    }
+
+    /**
+     * 出口的请求上限
+     */
+    public record Limit(String id, int maxRequestsPerMinute, int maxConcurrent) {
+    }
+
+    /**
+     * 出口状态（由池的锁保护）
+     */
+    private class Endpoint {
+        private final String id;
+        private final ClientHttpConnector connector;
+        private final int maxRequestsPerMinute;
+        private final int maxConcurrent;
+        private final ArrayDeque<Long> requestTimes = new ArrayDeque<>();
+
+        private int inFlight = 0;
+        private long lastDispatch = 0;
+        private int consecutiveFailures = 0;
+        private long ejectedUntil = 0;
+        private long ejectMillis;
+        private double score = 1.0;
+
+        private Counter successCounter;
+        private Counter failureCounter;
+        private Counter ejectionCounter;
+
+        Endpoint(String id, ClientHttpConnector connector, int maxRequestsPerMinute, int maxConcurrent) {
+            this.id = id;
+            this.connector = connector;
+            this.maxRequestsPerMinute = maxRequestsPerMinute > 0
+                    ? maxRequestsPerMinute : beianProperties.getRateLimit().getMaxRequestsPerMinute();
+            this.maxConcurrent = maxConcurrent > 0
+                    ? maxConcurrent : beianProperties.getRateLimit().getBurstSize();
+            this.ejectMillis = beianProperties.getEgress().getEjectDuration() * 1000L;
+        }
+
+        boolean isEjected(long now) {
+            return ejectedUntil > now;
+        }
+
+        boolean isAvailable(long now, long spacingMillis) {
+            while (!requestTimes.isEmpty() && requestTimes.peekFirst() <= now - WINDOW_MILLIS) {
+                requestTimes.pollFirst();
+            }
+            return !isEjected(now)
+                    && inFlight < maxConcurrent
+                    && requestTimes.size() < maxRequestsPerMinute
+                    && now - lastDispatch >= spacingMillis;
+        }
+
+        double load() {
+            return (double) (inFlight + 1) / maxConcurrent + (double) requestTimes.size() / maxRequestsPerMinute;
+        }
+
+        void registerMetrics(MeterRegistry meterRegistry) {
+            successCounter = Counter.builder("beian_egress_requests_total")
+                    .description("经各出口发出的上游请求数")
+                    .tag("egress", id)
+                    .tag("result", "success")
+                    .register(meterRegistry);
+            failureCounter = Counter.builder("beian_egress_requests_total")
+                    .description("经各出口发出的上游请求数")
+                    .tag("egress", id)
+                    .tag("result", "failure")
+                    .register(meterRegistry);
+            ejectionCounter = Counter.builder("beian_egress_ejections_total")
+                    .description("出口因连续失败被摘除的次数")
+                    .tag("egress", id)
+                    .register(meterRegistry);
+            Gauge.builder("beian_egress_in_flight", this, endpoint -> gauge(() -> endpoint.inFlight))
+                    .description("各出口正在进行的请求数")
+                    .tag("egress", id)
+                    .register(meterRegistry);
+            Gauge.builder("beian_egress_healthy", this,
+                            endpoint -> gauge(() -> endpoint.isEjected(System.currentTimeMillis()) ? 0 : 1))
+                    .description("出口是否可用 (1=可用, 0=已摘除)")
+                    .tag("egress", id)
+                    .register(meterRegistry);
+            Gauge.builder("beian_egress_score", this, endpoint -> gauge(() -> endpoint.score))
+                    .description("出口健康分（成功率的指数滑动平均）")
+                    .tag("egress", id)
+                    .register(meterRegistry);
+        }
+    }
+
+    private double gauge(DoubleSupplier supplier) {
+        synchronized (this) {
+            return supplier.getAsDouble();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 检查路径的错误日志采样
+ * 按错误类别（结果状态、异常类型等）计数，每个类别在一个采样窗口内最多输出 samples-per-window 条日志，
+ * 其余只计数；窗口结束时若有被抑制的日志，输出一条汇总。域名数再多，每轮检查的错误日志条数也有上限。
+ */
+@Service
+public class ErrorLogSampler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ErrorLogSampler.class);
+
+    // 错误类别数量上限，超出后归入 other，避免异常类型过多时计数表与指标无限增长
+    private static final int MAX_CLASSES = 64;
+    private static final String OTHER = "other";
+
+    private final int samplesPerWindow;
+    private final long windowMillis;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final LongAdder suppressed = new LongAdder();
+
+    public ErrorLogSampler(BeianProperties beianProperties, MeterRegistry meterRegistry) {
+        BeianProperties.Logging config = beianProperties.getLogging();
+        this.samplesPerWindow = config.getSamplesPerWindow();
+        this.windowMillis = config.getSampleWindow() * 1000L;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 按类别采样输出 WARN 日志，附带 error_class 字段
+     */
+    public void warn(Logger target, String errorClass, String format, Object... arguments) {
+        log(target, Level.WARN, errorClass, format, arguments);
+    }
+
+    /**
+     * 按类别采样输出 ERROR 日志，附带 error_class 字段
+     */
+    public void error(Logger target, String errorClass, String format, Object... arguments) {
+        log(target, Level.ERROR, errorClass, format, arguments);
+    }
+
+    /**
+     * 异常对应的错误类别
+     */
+    public static String errorClass(Throwable error) {
+        return error.getClass().getSimpleName();
+    }
+
+    /**
+     * 启动以来被抑制的日志总数，用于计算每轮检查的抑制条数
+     */
+    public long suppressedCount() {
+        return suppressed.sum();
+    }
+
+    private void log(Logger target, Level level, String errorClass, String format, Object[] arguments) {
+        if (!target.isEnabledForLevel(level)) {
+            return;
+        }
+        if (admit(errorClass, System.currentTimeMillis())) {
+            target.atLevel(level).addKeyValue("error_class", errorClass).log(format, arguments);
+        }
+    }
+
+    /**
+     * 当前窗口内该类别未达上限时放行，否则计为抑制
+     */
+    private boolean admit(String errorClass, long now) {
+        Window window = windows.get(errorClass);
+        if (window == null) {
+            String key = windows.size() < MAX_CLASSES ? errorClass : OTHER;
+            window = windows.computeIfAbsent(key, k -> new Window(k, now,
+                    meterRegistry.counter("beian_log_suppressed_total", "error_class", k)));
+        }
+        synchronized (window) {
+            if (now - window.start >= windowMillis) {
+                window.roll(now);
+            }
+            if (window.admitted < samplesPerWindow) {
+                window.admitted++;
+                return true;
+            }
+            window.suppressed++;
+        }
+        suppressed.increment();
+        window.suppressedCounter.increment();
+        return false;
+    }
+
+    /**
+     * 结束已到期的窗口，使错误停止后被抑制的条数也能及时汇总输出
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void rollExpiredWindows() {
+        long now = System.currentTimeMillis();
+        for (Window window : windows.values()) {
+            synchronized (window) {
+                if (now - window.start >= windowMillis) {
+                    window.roll(now);
+                }
+            }
+        }
+    }
+
+    /**
+     * 一个错误类别当前采样窗口的计数
+     */
+    private static final class Window {
+        final String errorClass;
+        final Counter suppressedCounter;
+        long start;
+        int admitted;
+        long suppressed;
+
+        Window(String errorClass, long start, Counter suppressedCounter) {
+            this.errorClass = errorClass;
+            this.suppressedCounter = suppressedCounter;
+            this.start = start;
+        }
+
+        void roll(long now) {
+            if (suppressed > 0) {
+                logger.atWarn().addKeyValue("error_class", errorClass).addKeyValue("suppressed", suppressed)
+                        .log("错误类别 {} 在过去 {} 秒内另有 {} 条日志未输出", errorClass,
+                                (now - start) / 1000, suppressed);
+            }
+            start = now;
+            admitted = 0;
+            suppressed = 0;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.config.MetricsConfig;
+import io.devops.beian.model.BeianInfo;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.prometheus.client.Collector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * mapped 结果存储的域名指标
+ * 抓取时直接遍历定长记录表输出 beian_status、beian_last_check_timestamp、beian_info 与 beian_check_errors_total，
+ * 指标名、标签与堆内模式下的 Micrometer 指标一致，但不为每个域名创建 Meter 对象。
+ * 只在 mapped 模式、启用 Prometheus 且输出域名指标（非 worker 角色）时注册。
+ */
+@Service
+public class MappedMetricsCollector extends Collector {
+
+    private static final double[] STATUS_VALUES = new double[BeianResult.Status.values().length];
+
+    static {
+        for (BeianResult.Status status : BeianResult.Status.values()) {
+            STATUS_VALUES[status.ordinal()] = switch (status) {
+                case SUCCESS -> 1;
+                case NOT_FOUND -> 0;
+                default -> -1;
+            };
+        }
+    }
+
+    private final BeianResultStore resultStore;
+    private final DomainGroupRegistry domainGroups;
+
+    public MappedMetricsCollector(BeianResultStore resultStore, DomainGroupRegistry domainGroups,
+                                  ObjectProvider<PrometheusMeterRegistry> prometheusRegistry,
+                                  BeianProperties beianProperties) {
+        this.resultStore = resultStore;
+        this.domainGroups = domainGroups;
+        PrometheusMeterRegistry registry = prometheusRegistry.getIfAvailable();
+        if (resultStore.isMapped() && registry != null && beianProperties.hasExporterRole()) {
+            registry.getPrometheusRegistry().register(this);
+        }
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        List<MetricFamilySamples.Sample> status = new ArrayList<>();
+        List<MetricFamilySamples.Sample> lastCheck = new ArrayList<>();
+        List<MetricFamilySamples.Sample> info = new ArrayList<>();
+        List<MetricFamilySamples.Sample> errors = new ArrayList<>();
+
+        resultStore.forEachMapped((domain, resultStatus, lastCheckTime, errorCounts, beianInfo) -> {
+            // 标签按名称排序，与 Micrometer 输出一致
+            TreeMap<String, String> labels = new TreeMap<>();
+            labels.put("domain", domain);
+            labels.put("application", MetricsConfig.APPLICATION);
+            labels.put("version", MetricsConfig.VERSION);
+            for (Tag tag : domainGroups.tags(domain)) {
+                labels.put(tag.getKey(), tag.getValue());
+            }
+            List<String> names = List.copyOf(labels.keySet());
+            List<String> values = List.copyOf(labels.values());
+
+            if (resultStatus != null) {
+                status.add(new MetricFamilySamples.Sample("beian_status", names, values,
+                        STATUS_VALUES[resultStatus.ordinal()]));
+            }
+            if (lastCheckTime > 0) {
+                lastCheck.add(new MetricFamilySamples.Sample("beian_last_check_timestamp", names, values, lastCheckTime));
+            }
+            if (beianInfo != null) {
+                info.add(infoSample(labels, beianInfo));
+            }
+            for (int i = 0; i < errorCounts.length; i++) {
+                if (errorCounts[i] > 0) {
+                    TreeMap<String, String> errorLabels = new TreeMap<>(labels);
+                    errorLabels.put("error_type", MappedResultTable.ERROR_TYPES[i]);
+                    errors.add(new MetricFamilySamples.Sample("beian_check_errors_total",
+                            List.copyOf(errorLabels.keySet()), List.copyOf(errorLabels.values()), errorCounts[i]));
+                }
+            }
+        });
+
+        List<MetricFamilySamples> families = new ArrayList<>(4);
+        families.add(new MetricFamilySamples("beian_status", Type.GAUGE,
+                "备案状态 (1=已备案, 0=未备案, -1=查询错误)", status));
+        families.add(new MetricFamilySamples("beian_last_check_timestamp", Type.GAUGE, "最后检查时间戳", lastCheck));
+        families.add(new MetricFamilySamples("beian_info", Type.GAUGE, "备案详细信息", info));
+        families.add(new MetricFamilySamples("beian_check_errors", Type.COUNTER, "备案查询错误次数", errors));
+        return families;
+    }
+
+    private static MetricFamilySamples.Sample infoSample(TreeMap<String, String> labels, BeianInfo info) {
+        TreeMap<String, String> infoLabels = new TreeMap<>(labels);
+        infoLabels.put("company_name", BeianMetricsService.sanitizeLabel(info.getCompanyName()));
+        infoLabels.put("company_type", BeianMetricsService.sanitizeLabel(info.getCompanyType()));
+        infoLabels.put("beian_number", BeianMetricsService.sanitizeLabel(info.getBeianNumber()));
+        infoLabels.put("website_name", BeianMetricsService.sanitizeLabel(info.getWebsiteName()));
+        infoLabels.put("website_url", BeianMetricsService.sanitizeLabel(info.getWebsiteUrl()));
+        infoLabels.put("approval_date", BeianMetricsService.sanitizeLabel(info.getApprovalDate()));
+        return new MetricFamilySamples.Sample("beian_info",
+                List.copyOf(infoLabels.keySet()), List.copyOf(infoLabels.values()), 1);
+    }
+}
@@ -0,0 +1,303 @@
+package io.devops.beian.service;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * 定长结果记录表
+ * 每个域名编号对应一条 320 字节的记录，保存在堆外内存（直接缓冲区或映射文件）中，不随域名数增加堆占用与 GC 扫描量。
+ * 主办单位名称等重复字符串以字典编号保存，备案号、网站名称、首页地址与错误信息以定长 UTF-8 字段保存，
+ * 超出字段长度或有多条备案记录时只标记 OVERFLOW，完整结果由调用方保存在堆内。
+ *
+ * 每条记录有独立的序号锁（seqlock）：写入方将序号由偶数改为奇数后写入，完成后加 2；
+ * 读取方不加锁，读取前后序号一致且为偶数时结果有效，否则重读。
+ */
+final class MappedResultTable {
+
+    /**
+     * 检查错误类型，顺序对应记录中的计数字段
+     */
+    static final String[] ERROR_TYPES = {"not_found", "parse_error", "query_error", "blocked", "unknown_error"};
+
+    static final int RECORD_SIZE = 320;
+
+    static final int FLAG_HAS_RECORD = 1;
+    static final int FLAG_OVERFLOW = 2;
+
+    private static final int SEQ = 0;
+    private static final int ERRORS = 4;
+    private static final int VERSION = 24;
+    private static final int LAST_CHECK = 32;
+    // 以下为结果内容，整段比较判断结果是否变化
+    private static final int CONTENT = 40;
+    private static final int FLAGS = 40;
+    // 状态序号 + 1，0 表示尚无结果
+    private static final int STATUS = 44;
+    private static final int MESSAGE = 48;
+    private static final int SERIAL = 52;
+    private static final int COMPANY_NAME = 56;
+    private static final int COMPANY_TYPE = 60;
+    private static final int APPROVAL_DATE = 64;
+    private static final int BEIAN_NUMBER = 68;
+    private static final int WEBSITE_NAME = 100;
+    private static final int WEBSITE_URL = 164;
+    private static final int ERROR = 228;
+    private static final int CONTENT_SIZE = RECORD_SIZE - CONTENT;
+
+    private static final int[][] STRING_FIELDS = {
+            {BEIAN_NUMBER, WEBSITE_NAME - BEIAN_NUMBER},
+            {WEBSITE_NAME, WEBSITE_URL - WEBSITE_NAME},
+            {WEBSITE_URL, ERROR - WEBSITE_URL},
+            {ERROR, RECORD_SIZE - ERROR}};
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+
+    private MappedResultTable(ByteBuffer buffer, int capacity) {
+        this.buffer = buffer.order(ByteOrder.nativeOrder());
+        this.capacity = capacity;
+    }
+
+    /**
+     * 分配容纳 capacity 条记录的表；path 为空时使用直接缓冲区，否则映射该文件（已有内容会被清空）
+     */
+    static MappedResultTable allocate(int capacity, String path) throws IOException {
+        long bytes = (long) capacity * RECORD_SIZE;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("结果表容量过大: " + capacity + "，单个表最多 "
+                    + Integer.MAX_VALUE / RECORD_SIZE + " 条记录");
+        }
+        if (path == null || path.isBlank()) {
+            return new MappedResultTable(ByteBuffer.allocateDirect((int) bytes), capacity);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(Path.of(path).toFile(), "rw")) {
+            // 先截断再扩展，保证映射区域全部为零
+            file.setLength(0);
+            file.setLength(bytes);
+            return new MappedResultTable(file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes), capacity);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long bytes() {
+        return (long) capacity * RECORD_SIZE;
+    }
+
+    /**
+     * 编码结果内容；字符串超出字段长度时清空字符串字段并标记 row.overflow
+     */
+    byte[] encode(Row row) {
+        byte[][] strings = {utf8(row.beianNumber), utf8(row.websiteName), utf8(row.websiteUrl), utf8(row.error)};
+        for (int i = 0; i < strings.length && !row.overflow; i++) {
+            row.overflow = strings[i] != null && strings[i].length > STRING_FIELDS[i][1] - 2;
+        }
+
+        ByteBuffer content = ByteBuffer.allocate(CONTENT_SIZE).order(ByteOrder.nativeOrder());
+        content.putInt(FLAGS - CONTENT, (row.hasRecord ? FLAG_HAS_RECORD : 0) | (row.overflow ? FLAG_OVERFLOW : 0));
+        content.putInt(STATUS - CONTENT, row.status + 1);
+        content.putInt(MESSAGE - CONTENT, row.messageId);
+        if (row.overflow) {
+            // 完整结果在堆内，记录中只保留状态与提示信息
+            return content.array();
+        }
+        content.putInt(SERIAL - CONTENT, row.serialId);
+        content.putInt(COMPANY_NAME - CONTENT, row.companyNameId);
+        content.putInt(COMPANY_TYPE - CONTENT, row.companyTypeId);
+        content.putInt(APPROVAL_DATE - CONTENT, row.approvalDate);
+        for (int i = 0; i < strings.length; i++) {
+            int offset = STRING_FIELDS[i][0] - CONTENT;
+            if (strings[i] == null) {
+                content.putShort(offset, (short) -1);
+            } else {
+                content.putShort(offset, (short) strings[i].length);
+                content.put(offset + 2, strings[i]);
+            }
+        }
+        return content.array();
+    }
+
+    /**
+     * 写入编码后的结果内容；内容与现有记录相同且 force 为 false 时不写入并返回 0，否则返回新分配的版本号
+     */
+    long write(int id, byte[] content, boolean force, LongSupplier nextVersion) {
+        int base = id * RECORD_SIZE;
+        int seq = lock(base);
+        try {
+            if (!force) {
+                byte[] current = new byte[CONTENT_SIZE];
+                buffer.get(base + CONTENT, current);
+                if (Arrays.equals(current, content)) {
+                    return 0;
+                }
+            }
+            long version = nextVersion.getAsLong();
+            buffer.put(base + CONTENT, content);
+            LONG.setOpaque(buffer, base + VERSION, version);
+            return version;
+        } finally {
+            unlock(base, seq);
+        }
+    }
+
+    /**
+     * 记录一次检查：errorType 非空时对应计数加 1，checkTime 大于 0 时更新最后检查时间
+     */
+    void recordCheck(int id, int errorType, long checkTime) {
+        int base = id * RECORD_SIZE;
+        int seq = lock(base);
+        try {
+            if (errorType >= 0) {
+                int offset = base + ERRORS + errorType * 4;
+                buffer.putInt(offset, buffer.getInt(offset) + 1);
+            }
+            if (checkTime > 0) {
+                buffer.putLong(base + LAST_CHECK, checkTime);
+            }
+        } finally {
+            unlock(base, seq);
+        }
+    }
+
+    /**
+     * 无锁读取一条记录；从未写入过的记录返回 false
+     */
+    boolean read(int id, Row row) {
+        int base = id * RECORD_SIZE;
+        byte[][] strings = new byte[STRING_FIELDS.length][];
+        while (true) {
+            int seq = (int) INT.getAcquire(buffer, base + SEQ);
+            if ((seq & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            for (int i = 0; i < ERROR_TYPES.length; i++) {
+                row.errors[i] = buffer.getInt(base + ERRORS + i * 4);
+            }
+            row.version = buffer.getLong(base + VERSION);
+            row.lastCheck = buffer.getLong(base + LAST_CHECK);
+            int flags = buffer.getInt(base + FLAGS);
+            row.hasRecord = (flags & FLAG_HAS_RECORD) != 0;
+            row.overflow = (flags & FLAG_OVERFLOW) != 0;
+            row.status = buffer.getInt(base + STATUS) - 1;
+            row.messageId = buffer.getInt(base + MESSAGE);
+            row.serialId = buffer.getInt(base + SERIAL);
+            row.companyNameId = buffer.getInt(base + COMPANY_NAME);
+            row.companyTypeId = buffer.getInt(base + COMPANY_TYPE);
+            row.approvalDate = buffer.getInt(base + APPROVAL_DATE);
+            boolean torn = false;
+            for (int i = 0; i < STRING_FIELDS.length && !torn; i++) {
+                int offset = base + STRING_FIELDS[i][0];
+                int length = buffer.getShort(offset);
+                if (length > STRING_FIELDS[i][1] - 2) {
+                    torn = true;
+                } else if (length < 0) {
+                    strings[i] = null;
+                } else {
+                    strings[i] = new byte[length];
+                    buffer.get(offset + 2, strings[i]);
+                }
+            }
+            VarHandle.loadLoadFence();
+            if (!torn && (int) INT.getVolatile(buffer, base + SEQ) == seq) {
+                break;
+            }
+        }
+        row.beianNumber = string(strings[0]);
+        row.websiteName = string(strings[1]);
+        row.websiteUrl = string(strings[2]);
+        row.error = string(strings[3]);
+        return row.status >= 0 || row.lastCheck > 0 || hasErrors(row);
+    }
+
+    /**
+     * 记录的结果状态序号，尚无结果时返回 -1（只读取状态字段）
+     */
+    int status(int id) {
+        int base = id * RECORD_SIZE;
+        while (true) {
+            int seq = (int) INT.getAcquire(buffer, base + SEQ);
+            int status = buffer.getInt(base + STATUS);
+            VarHandle.loadLoadFence();
+            if ((seq & 1) == 0 && (int) INT.getVolatile(buffer, base + SEQ) == seq) {
+                return status - 1;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 记录最后变化时的版本号，尚无结果时返回 0
+     */
+    long version(int id) {
+        return (long) LONG.getOpaque(buffer, id * RECORD_SIZE + VERSION);
+    }
+
+    private int lock(int base) {
+        while (true) {
+            int seq = (int) INT.getVolatile(buffer, base + SEQ);
+            if ((seq & 1) == 0 && INT.compareAndSet(buffer, base + SEQ, seq, seq + 1)) {
+                return seq;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void unlock(int base, int seq) {
+        INT.setRelease(buffer, base + SEQ, seq + 2);
+    }
+
+    private static boolean hasErrors(Row row) {
+        for (int count : row.errors) {
+            if (count != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] bytes) {
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 一条记录的内容，写入与读取时复用
+     */
+    static final class Row {
+        int status = -1;
+        int messageId = StringDictionary.NULL_ID;
+        String error;
+        boolean hasRecord;
+        boolean overflow;
+        int serialId = StringDictionary.NULL_ID;
+        int companyNameId = StringDictionary.NULL_ID;
+        int companyTypeId = StringDictionary.NULL_ID;
+        String beianNumber;
+        String websiteName;
+        String websiteUrl;
+        int approvalDate = -1;
+
+        // 以下只在读取时填充
+        long version;
+        long lastCheck;
+        final int[] errors = new int[ERROR_TYPES.length];
+    }
+}
@@ -0,0 +1,475 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多副本结果共享
+ * 成员来自静态配置或 DNS 发现，按查询关键字做最高随机权重（rendezvous）哈希确定归属成员。
+ * 非归属成员在查询上游前先向归属成员获取结果：归属成员有有效期内的结果时直接返回，
+ * 否则由归属成员查询上游（同一关键字的并发请求合并为一次），使同一结果在整个集群内每个有效期只查询一次上游。
+ * 归属成员不可达、超时或不认为自己是归属成员时，回退为本地查询上游。
+ * 归属成员只代为查询本实例配置的可注册域名与本实例发出过的聚合关键字，其他关键字返回空由请求方本地查询，
+ * 因此内部接口不能用来让本实例查询任意关键字；共享结果超过保留时间后定期清理。
+ */
+@Service
+public class PeerResultService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeerResultService.class);
+
+    public static final String RESULT_PATH = "/internal/peer/result";
+    public static final String TOKEN_HEADER = "X-Beian-Peer-Token";
+    public static final String FETCHED_AT_HEADER = "X-Beian-Fetched-At";
+
+    private static final long EVICT_INTERVAL_SECONDS = 60;
+
+    private final BeianProperties beianProperties;
+    private final UpstreamDispatcher upstreamDispatcher;
+    private final DomainGroupRegistry domainGroups;
+    private final Environment environment;
+    private final ErrorLogSampler errorLogSampler;
+    private final WebClient webClient;
+
+    // 查询关键字 -> 最近一次确定的结果（本实例或归属成员查询所得）
+    private final ConcurrentHashMap<String, SharedResult> shared = new ConcurrentHashMap<>();
+    // 本实例发出过的主办单位聚合关键字 -> 最近一次查询时间，归属本实例时可代其他成员查询
+    private final ConcurrentHashMap<String, Long> companyKeys = new ConcurrentHashMap<>();
+    // 正在查询上游的关键字，并发请求共享同一次查询
+    private final ConcurrentHashMap<String, Mono<SharedResult>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> lookupCounters = new HashMap<>();
+    private final Map<String, Counter> servedCounters = new HashMap<>();
+
+    private volatile List<Member> members = List.of();
+    private volatile int serverPort;
+    private ScheduledExecutorService maintenanceExecutor;
+
+    public PeerResultService(BeianProperties beianProperties,
+                             UpstreamDispatcher upstreamDispatcher,
+                             DomainGroupRegistry domainGroups,
+                             Environment environment,
+                             ErrorLogSampler errorLogSampler,
+                             MeterRegistry meterRegistry) {
+        this.beianProperties = beianProperties;
+        this.upstreamDispatcher = upstreamDispatcher;
+        this.domainGroups = domainGroups;
+        this.environment = environment;
+        this.errorLogSampler = errorLogSampler;
+        this.webClient = WebClient.builder().build();
+
+        for (String source : new String[] {"cache", "peer", "upstream", "fallback"}) {
+            lookupCounters.put(source, Counter.builder("beian_peer_lookups_total")
+                    .description("批量检查中各查询结果的来源")
+                    .tag("source", source)
+                    .register(meterRegistry));
+        }
+        for (String result : new String[] {"cache", "upstream", "not_owner", "unknown_key"}) {
+            servedCounters.put(result, Counter.builder("beian_peer_served_total")
+                    .description("响应其他成员的结果请求数")
+                    .tag("result", result)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("beian_peer_members", this, service -> service.members.size())
+                .description("当前集群成员数（含本实例）")
+                .register(meterRegistry);
+        Gauge.builder("beian_peer_shared_results", shared, Map::size)
+                .description("本实例保存的共享结果数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        BeianProperties.Cluster config = beianProperties.getCluster();
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        serverPort = environment.getProperty("server.port", Integer.class, 8080);
+        refreshMembers();
+        maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "beian-peer-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!config.getDnsName().isBlank()) {
+            maintenanceExecutor.scheduleWithFixedDelay(this::refreshMembers,
+                    config.getDnsRefreshInterval(), config.getDnsRefreshInterval(), TimeUnit.SECONDS);
+        }
+        maintenanceExecutor.scheduleWithFixedDelay(this::evictExpired,
+                EVICT_INTERVAL_SECONDS, EVICT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        logger.info("多副本结果共享已启用，结果有效期 {}", config.getResultTtl() > 0
+                ? config.getResultTtl() + " 秒" : "与各分组检查间隔相同");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (maintenanceExecutor != null) {
+            maintenanceExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 服务端口确定后（含随机端口）重新识别本实例
+     */
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if (event.getApplicationContext().getServerNamespace() != null) {
+            return;
+        }
+        serverPort = event.getWebServer().getPort();
+        if (beianProperties.getCluster().isEnabled()) {
+            refreshMembers();
+        }
+    }
+
+    public boolean isEnabled() {
+        return beianProperties.getCluster().isEnabled();
+    }
+
+    /**
+     * 批量检查的一次查询：有效期内的共享结果直接返回；关键字归属其他成员时先向该成员获取，
+     * 否则（或获取失败时）经调度器查询上游
+     * @param group 发起查询的域名分组，未配置 result-ttl 时结果有效期为该分组的检查间隔
+     */
+    public Mono<BeianResult> lookup(String key, UpstreamDispatcher.Lane lane, DomainGroupRegistry.Group group) {
+        if (!isEnabled()) {
+            return upstreamDispatcher.submit(key, lane, group.getName());
+        }
+
+        if (!domainGroups.allLookupTargets().containsKey(key)) {
+            companyKeys.put(key, System.currentTimeMillis());
+        }
+        long maxAgeMillis = ttlMillis(group);
+        SharedResult cached = fresh(key, maxAgeMillis);
+        if (cached != null) {
+            lookupCounters.get("cache").increment();
+            return Mono.just(cached.getResult());
+        }
+
+        Member owner = owner(key);
+        if (owner == null || owner.self) {
+            lookupCounters.get("upstream").increment();
+            return fetchUpstream(key, lane, group.getName()).map(SharedResult::getResult);
+        }
+
+        return askPeer(owner, key, maxAgeMillis)
+                .doOnNext(result -> lookupCounters.get("peer").increment())
+                .onErrorResume(error -> {
+                    errorLogSampler.warn(logger, "peer_lookup", "从成员 {} 获取 {} 的结果失败: {}，改为本地查询",
+                            owner.url, key, error.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    lookupCounters.get("fallback").increment();
+                    return fetchUpstream(key, lane, group.getName());
+                }))
+                .map(SharedResult::getResult);
+    }
+
+    /**
+     * 响应其他成员的结果请求：有效期内的结果直接返回；关键字是本实例自己的查询目标且本实例是归属成员时
+     * 查询上游后返回，否则返回空
+     * @param maxAgeSeconds 请求方可接受的结果有效期，为空时使用本实例配置
+     */
+    public Mono<SharedResult> serve(String key, Long maxAgeSeconds) {
+        DomainGroupRegistry.Group group = domainGroups.groupOf(key);
+        SharedResult cached = fresh(key, maxAgeSeconds != null && maxAgeSeconds > 0
+                ? maxAgeSeconds * 1000 : ttlMillis(group));
+        if (cached != null) {
+            servedCounters.get("cache").increment();
+            return Mono.just(cached);
+        }
+
+        if (!domainGroups.allLookupTargets().containsKey(key) && !companyKeys.containsKey(key)) {
+            // 不代其他成员查询本实例不监控的关键字，请求方回退为本地查询
+            servedCounters.get("unknown_key").increment();
+            return Mono.empty();
+        }
+
+        Member owner = owner(key);
+        if (owner == null || !owner.self) {
+            // 成员列表尚未一致时不代为查询，避免请求在成员之间转发
+            servedCounters.get("not_owner").increment();
+            return Mono.empty();
+        }
+        servedCounters.get("upstream").increment();
+        return fetchUpstream(key, UpstreamDispatcher.Lane.PEER, group.getName());
+    }
+
+    /**
+     * 校验内部接口共享密钥，未配置密钥时拒绝所有请求（启用结果共享时配置校验要求设置密钥）
+     */
+    public boolean isAuthorized(String token) {
+        String expected = beianProperties.getCluster().getToken();
+        if (expected.isEmpty()) {
+            return false;
+        }
+        return token != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 经调度器查询上游，同一关键字同时只发出一次查询
+     */
+    private Mono<SharedResult> fetchUpstream(String key, UpstreamDispatcher.Lane lane, String group) {
+        return inFlight.computeIfAbsent(key, k -> upstreamDispatcher.submit(k, lane, group)
+                .map(result -> {
+                    SharedResult fetched = new SharedResult(result, System.currentTimeMillis());
+                    remember(k, fetched);
+                    return fetched;
+                })
+                .doFinally(signal -> inFlight.remove(k))
+                .cache());
+    }
+
+    private Mono<SharedResult> askPeer(Member owner, String key, long maxAgeMillis) {
+        BeianProperties.Cluster config = beianProperties.getCluster();
+        return webClient.get()
+                .uri(owner.url + RESULT_PATH + "?key={key}&maxAge={maxAge}", key, maxAgeMillis / 1000)
+                .header(TOKEN_HEADER, config.getToken())
+                .exchangeToMono(response -> {
+                    if (response.statusCode().value() == HttpStatus.NOT_FOUND.value()) {
+                        return response.releaseBody().then(Mono.<SharedResult>empty());
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.createException().flatMap(Mono::error);
+                    }
+                    long fetchedAt = response.headers().header(FETCHED_AT_HEADER).stream()
+                            .findFirst().map(Long::parseLong).orElse(System.currentTimeMillis());
+                    return response.bodyToMono(BeianResult.class)
+                            .map(result -> new SharedResult(result, fetchedAt));
+                })
+                .timeout(Duration.ofSeconds(config.getPeerTimeout()))
+                .doOnNext(result -> remember(key, result));
+    }
+
+    /**
+     * 只缓存确定的结果，错误与封禁结果下次仍重新获取
+     */
+    private void remember(String key, SharedResult result) {
+        BeianResult.Status status = result.getResult().getStatus();
+        if (status != BeianResult.Status.ERROR && status != BeianResult.Status.BLOCKED) {
+            shared.put(key, result);
+        }
+    }
+
+    private SharedResult fresh(String key, long maxAgeMillis) {
+        SharedResult result = shared.get(key);
+        if (result == null || System.currentTimeMillis() - result.getFetchedAt() >= maxAgeMillis) {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * 清理超过保留时间的共享结果与聚合关键字：保留时间为所属分组结果有效期的两倍，
+     * 使请求方有效期略长于本实例时仍可命中
+     */
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        int before = shared.size();
+        shared.entrySet().removeIf(entry ->
+                now - entry.getValue().getFetchedAt() >= 2 * ttlMillis(domainGroups.groupOf(entry.getKey())));
+        companyKeys.entrySet().removeIf(entry -> now - entry.getValue() >= 2 * maxTtlMillis());
+        if (before != shared.size()) {
+            logger.debug("清理过期共享结果 {} 条，剩余 {} 条", before - shared.size(), shared.size());
+        }
+    }
+
+    private long maxTtlMillis() {
+        long max = 0;
+        for (DomainGroupRegistry.Group group : domainGroups.groups()) {
+            max = Math.max(max, ttlMillis(group));
+        }
+        return Math.max(max, ttlMillis(domainGroups.groupOf("")));
+    }
+
+    private long ttlMillis(DomainGroupRegistry.Group group) {
+        int ttl = beianProperties.getCluster().getResultTtl();
+        return (ttl > 0 ? ttl : group.getCheckInterval()) * 1000L;
+    }
+
+    /**
+     * 关键字的归属成员：各成员与关键字组合哈希后取最大者，成员增减时只有少量关键字改变归属
+     */
+    private Member owner(String key) {
+        Member owner = null;
+        long best = Long.MIN_VALUE;
+        for (Member member : members) {
+            long weight = mix(member.url.hashCode() * 0x9E3779B97F4A7C15L ^ key.hashCode());
+            if (owner == null || weight > best) {
+                owner = member;
+                best = weight;
+            }
+        }
+        return owner;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 合并静态配置与 DNS 解析的成员，识别本实例；DNS 解析失败时保留上次的成员列表
+     */
+    private synchronized void refreshMembers() {
+        BeianProperties.Cluster config = beianProperties.getCluster();
+        Set<String> urls = new LinkedHashSet<>();
+        for (String peer : config.getPeers()) {
+            urls.add(normalize(peer));
+        }
+        if (!config.getDnsName().isBlank()) {
+            try {
+                for (InetAddress address : InetAddress.getAllByName(config.getDnsName())) {
+                    String host = address instanceof Inet6Address
+                            ? "[" + address.getHostAddress() + "]" : address.getHostAddress();
+                    urls.add("http://" + host + ":" + config.getDnsPort());
+                }
+            } catch (Exception e) {
+                logger.warn("解析集群成员 {} 失败: {}，保留当前成员列表", config.getDnsName(), e.getMessage());
+                return;
+            }
+        }
+
+        List<Member> discovered = new ArrayList<>();
+        boolean selfFound = false;
+        for (String url : urls) {
+            boolean self = isSelf(url);
+            selfFound |= self;
+            discovered.add(new Member(url, self));
+        }
+        if (!selfFound) {
+            String selfUrl = config.getSelfUrl().isBlank() ? localUrl() : normalize(config.getSelfUrl());
+            logger.warn("成员列表中未找到本实例，以 {} 加入；各副本的成员地址需一致，建议配置 self-url", selfUrl);
+            discovered.add(new Member(selfUrl, true));
+        }
+        discovered.sort(Comparator.comparing(member -> member.url));
+
+        if (!discovered.equals(members)) {
+            members = List.copyOf(discovered);
+            logger.info("集群成员已更新: {}", discovered);
+        }
+    }
+
+    private boolean isSelf(String url) {
+        BeianProperties.Cluster config = beianProperties.getCluster();
+        if (!config.getSelfUrl().isBlank()) {
+            return normalize(config.getSelfUrl()).equals(url);
+        }
+        try {
+            URI uri = URI.create(url);
+            int port = uri.getPort() > 0 ? uri.getPort() : ("https".equals(uri.getScheme()) ? 443 : 80);
+            if (port != serverPort) {
+                return false;
+            }
+            InetAddress address = InetAddress.getByName(uri.getHost());
+            return address.isLoopbackAddress() || address.isAnyLocalAddress()
+                    || NetworkInterface.getByInetAddress(address) != null;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private String localUrl() {
+        try {
+            return "http://" + InetAddress.getLocalHost().getHostAddress() + ":" + serverPort;
+        } catch (Exception e) {
+            return "http://localhost:" + serverPort;
+        }
+    }
+
+    private static String normalize(String url) {
+        String trimmed = url.trim();
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+
+    /**
+     * 共享结果及其查询时间
+     */
+    public static final class SharedResult {
+        private final BeianResult result;
+        private final long fetchedAt;
+
+        SharedResult(BeianResult result, long fetchedAt) {
+            this.result = result;
+            this.fetchedAt = fetchedAt;
+        }
+
+        public BeianResult getResult() {
+            return result;
+        }
+
+        public long getFetchedAt() {
+            return fetchedAt;
+        }
+    }
+
+    /**
+     * 集群成员
+     */
+    private static final class Member {
+        private final String url;
+        private final boolean self;
+
+        Member(String url, boolean self) {
+            this.url = url;
+            this.self = self;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Member other && url.equals(other.url) && self == other.self;
+        }
+
+        @Override
+        public int hashCode() {
+            return url.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return self ? url + " (本实例)" : url;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.config.NamingConvention;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.iq80.snappy.Snappy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.util.retry.Retry;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Prometheus Remote Write 推送
+ * 域名指标变化时由 BeianMetricsService 登记，按序列合并（推送间隔内只保留最新值），
+ * 定时按批编码为 Remote Write 1.0 请求（protobuf + snappy）发送到接收端，使大规模部署不依赖频繁全量抓取。
+ * 待发送序列数有上限，超出时丢弃新序列并计数；网络错误、429 与 5xx 按指数退避重试，
+ * 重试耗尽后样本放回待发送队列（不覆盖期间产生的新值），等待下次推送。
+ * 未变化的序列按 keepalive-interval 重发当前值，避免在接收端过期。
+ */
+@Service
+public class RemoteWriteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteWriteService.class);
+
+    private final BeianProperties beianProperties;
+    private final MeterRegistry meterRegistry;
+    private final WebClient webClient;
+
+    // 待发送序列 -> 最新样本，按登记顺序发送
+    private final LinkedHashMap<Meter.Id, PendingSample> pending = new LinkedHashMap<>();
+    // 已成功发送的序列，用于判断是否变化与保活重发
+    private final ConcurrentHashMap<Meter.Id, SentSeries> sent = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> requestCounters = new HashMap<>();
+    private final Counter samplesCounter;
+    private final Counter droppedCounter;
+    private ScheduledExecutorService flushExecutor;
+
+    public RemoteWriteService(BeianProperties beianProperties, MeterRegistry meterRegistry) {
+        this.beianProperties = beianProperties;
+        this.meterRegistry = meterRegistry;
+        this.webClient = WebClient.builder()
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(64 * 1024))
+                .build();
+
+        for (String result : new String[] {"success", "retry", "failure", "rejected"}) {
+            requestCounters.put(result, Counter.builder("beian_remote_write_requests_total")
+                    .description("Remote Write 推送请求数")
+                    .tag("result", result)
+                    .register(meterRegistry));
+        }
+        samplesCounter = Counter.builder("beian_remote_write_samples_total")
+                .description("Remote Write 成功推送的样本数")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("beian_remote_write_dropped_total")
+                .description("待发送队列已满或接收端拒绝而丢弃的样本数")
+                .register(meterRegistry);
+        Gauge.builder("beian_remote_write_pending", this, RemoteWriteService::pendingCount)
+                .description("Remote Write 待发送序列数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        BeianProperties.RemoteWrite config = beianProperties.getRemoteWrite();
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "beian-remote-write");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely,
+                config.getFlushInterval(), config.getFlushInterval(), TimeUnit.SECONDS);
+        logger.info("Remote Write 推送已启用: {}，推送间隔 {} 秒", config.getUrl(), config.getFlushInterval());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flushExecutor == null) {
+            return;
+        }
+        flushExecutor.shutdownNow();
+        // 关闭前尽力推送最后一批变化，失败不再重试
+        try {
+            List<PendingSample> batch = drain(beianProperties.getRemoteWrite().getMaxSamplesPerRequest());
+            if (!batch.isEmpty()) {
+                send(batch, 0);
+            }
+        } catch (Exception e) {
+            logger.warn("关闭前推送 Remote Write 失败: {}", e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return beianProperties.getRemoteWrite().isEnabled();
+    }
+
+    /**
+     * 登记指标的当前值；与最近一次发送的值相同时忽略
+     */
+    public void record(Meter meter) {
+        if (!isEnabled()) {
+            return;
+        }
+        double value = currentValue(meter);
+        Meter.Id id = meter.getId();
+        synchronized (pending) {
+            if (!pending.containsKey(id)) {
+                SentSeries last = sent.get(id);
+                if (last != null && Double.compare(last.value, value) == 0) {
+                    return;
+                }
+                if (pending.size() >= beianProperties.getRemoteWrite().getBufferCapacity()) {
+                    droppedCounter.increment();
+                    return;
+                }
+            }
+            pending.put(id, new PendingSample(meter, value, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * 推送所有待发送样本；供定时任务与测试直接调用
+     */
+    public void flush() {
+        BeianProperties.RemoteWrite config = beianProperties.getRemoteWrite();
+        enqueueKeepalive(config.getKeepaliveInterval() * 1000L);
+        while (true) {
+            List<PendingSample> batch = drain(config.getMaxSamplesPerRequest());
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (!send(batch, config.getMaxRetries())) {
+                requeue(batch);
+                return;
+            }
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Remote Write 推送异常", e);
+        }
+    }
+
+    /**
+     * 发送一批样本，返回 false 表示可重试的失败（样本应保留）
+     */
+    private boolean send(List<PendingSample> batch, int maxRetries) {
+        BeianProperties.RemoteWrite config = beianProperties.getRemoteWrite();
+        byte[] body = Snappy.compress(encode(batch));
+        try {
+            webClient.post()
+                    .uri(config.getUrl())
+                    .header("Content-Encoding", "snappy")
+                    .header("Content-Type", "application/x-protobuf")
+                    .header("User-Agent", "beian-exporter")
+                    .header("X-Prometheus-Remote-Write-Version", "0.1.0")
+                    .headers(headers -> config.getHeaders().forEach(headers::set))
+                    .bodyValue(body)
+                    .retrieve()
+                    .toBodilessEntity()
+                    .timeout(Duration.ofSeconds(config.getRequestTimeout()))
+                    .retryWhen(Retry.backoff(maxRetries, Duration.ofSeconds(1))
+                            .maxBackoff(Duration.ofSeconds(30))
+                            .filter(RemoteWriteService::isRetryable)
+                            .doBeforeRetry(signal -> requestCounters.get("retry").increment()))
+                    .block();
+        } catch (Exception e) {
+            Throwable cause = Exceptions.isRetryExhausted(e) ? e.getCause() : Exceptions.unwrap(e);
+            if (!isRetryable(cause)) {
+                // 接收端拒绝（如 400 样本乱序、401 认证失败），重发不会成功
+                requestCounters.get("rejected").increment();
+                droppedCounter.increment(batch.size());
+                markSent(batch);
+                logger.warn("Remote Write 接收端拒绝 {} 个样本: {}", batch.size(), cause.getMessage());
+                return true;
+            }
+            requestCounters.get("failure").increment();
+            logger.warn("Remote Write 推送失败，{} 个样本等待下次推送: {}", batch.size(), cause.getMessage());
+            return false;
+        }
+
+        requestCounters.get("success").increment();
+        samplesCounter.increment(batch.size());
+        markSent(batch);
+        return true;
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            HttpStatusCode status = response.getStatusCode();
+            return status.is5xxServerError() || status.value() == 429;
+        }
+        return error instanceof WebClientRequestException || error instanceof TimeoutException;
+    }
+
+    private List<PendingSample> drain(int max) {
+        List<PendingSample> batch = new ArrayList<>(Math.min(max, 1024));
+        synchronized (pending) {
+            Iterator<PendingSample> iterator = pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < max) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * 发送失败的样本放回队列；期间已有新值的序列以新值为准
+     */
+    private void requeue(List<PendingSample> batch) {
+        synchronized (pending) {
+            for (PendingSample sample : batch) {
+                if (pending.containsKey(sample.meter.getId())
+                        || pending.size() < beianProperties.getRemoteWrite().getBufferCapacity()) {
+                    pending.putIfAbsent(sample.meter.getId(), sample);
+                } else {
+                    droppedCounter.increment();
+                }
+            }
+        }
+    }
+
+    private void markSent(List<PendingSample> batch) {
+        for (PendingSample sample : batch) {
+            sent.put(sample.meter.getId(), new SentSeries(sample.meter, sample.value, sample.timestamp));
+        }
+    }
+
+    /**
+     * 长时间未变化的序列重新登记当前值；已从注册表移除的序列不再重发
+     */
+    private void enqueueKeepalive(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        // 同一轮到期的序列共用一次注册表快照，避免按名称逐个扫描
+        Set<Meter.Id> registered = null;
+        for (Iterator<SentSeries> iterator = sent.values().iterator(); iterator.hasNext(); ) {
+            SentSeries series = iterator.next();
+            if (now - series.timestamp < intervalMillis) {
+                continue;
+            }
+            if (registered == null) {
+                registered = new HashSet<>();
+                for (Meter meter : meterRegistry.getMeters()) {
+                    registered.add(meter.getId());
+                }
+            }
+            if (!registered.contains(series.meter.getId())) {
+                iterator.remove();
+                continue;
+            }
+            synchronized (pending) {
+                if (!pending.containsKey(series.meter.getId())
+                        && pending.size() < beianProperties.getRemoteWrite().getBufferCapacity()) {
+                    pending.put(series.meter.getId(), new PendingSample(series.meter, currentValue(series.meter), now));
+                }
+            }
+        }
+    }
+
+    private int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    private static double currentValue(Meter meter) {
+        for (Measurement measurement : meter.measure()) {
+            return measurement.getValue();
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * 编码 WriteRequest：
+     * WriteRequest{repeated TimeSeries timeseries = 1}，TimeSeries{repeated Label labels = 1; repeated Sample samples = 2}，
+     * Label{string name = 1; string value = 2}，Sample{double value = 1; int64 timestamp = 2}
+     */
+    private byte[] encode(List<PendingSample> batch) {
+        NamingConvention naming = meterRegistry.config().namingConvention();
+        Map<String, String> externalLabels = beianProperties.getRemoteWrite().getExternalLabels();
+        ProtoWriter request = new ProtoWriter();
+        ProtoWriter series = new ProtoWriter();
+        ProtoWriter message = new ProtoWriter();
+        for (PendingSample sample : batch) {
+            Meter.Id id = sample.meter.getId();
+            // 标签需按名称排序
+            TreeMap<String, String> labels = new TreeMap<>(externalLabels);
+            for (Tag tag : id.getTagsAsIterable()) {
+                labels.put(naming.tagKey(tag.getKey()), tag.getValue());
+            }
+            labels.put("__name__", naming.name(id.getName(), id.getType(), id.getBaseUnit()));
+
+            series.reset();
+            for (Map.Entry<String, String> label : labels.entrySet()) {
+                message.reset();
+                message.writeString(1, label.getKey());
+                message.writeString(2, label.getValue());
+                series.writeMessage(1, message);
+            }
+            message.reset();
+            message.writeDouble(1, sample.value);
+            message.writeInt64(2, sample.timestamp);
+            series.writeMessage(2, message);
+            request.writeMessage(1, series);
+        }
+        return request.toByteArray();
+    }
+
+    private record PendingSample(Meter meter, double value, long timestamp) {
+    }
+
+    private record SentSeries(Meter meter, double value, long timestamp) {
+    }
+
+    /**
+     * 最小 protobuf 编码器，只支持 Remote Write 用到的字段类型
+     */
+    private static final class ProtoWriter extends ByteArrayOutputStream {
+
+        void writeString(int field, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(field << 3 | 2);
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeMessage(int field, ProtoWriter message) {
+            writeVarint(field << 3 | 2);
+            writeVarint(message.size());
+            write(message.buf, 0, message.count);
+        }
+
+        void writeDouble(int field, double value) {
+            writeVarint(field << 3 | 1);
+            long bits = Double.doubleToRawLongBits(value);
+            for (int i = 0; i < 8; i++) {
+                write((int) (bits >>> (8 * i)) & 0xFF);
+            }
+        }
+
+        void writeInt64(int field, long value) {
+            writeVarint(field << 3);
+            writeVarint(value);
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+    }
+}
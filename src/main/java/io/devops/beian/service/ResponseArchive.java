@@ -0,0 +1,411 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 原始响应归档
+ * 按域名保存最近一次上游响应正文，压缩后追加写入有界的分段文件，用于解析器修复后免请求重建结果
+ *
+ * 记录格式：[int 记录长度][short 域名长度][域名][long 时间戳][int 原文长度][deflate 压缩数据]
+ * 分段超出保留数量时，选择有效数据（仍是某个域名最新响应的记录）最少的分段，把其中的有效记录复制到当前分段再删除该分段，
+ * 因此保留的分段始终包含每个域名的最新响应；有效数据超过一半的分段不压缩，此时分段数可暂时超过保留数量。
+ */
+@Service
+public class ResponseArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseArchive.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final int HEADER_BYTES = 4;
+
+    private final BeianProperties beianProperties;
+    private final ErrorLogSampler errorLogSampler;
+
+    // 域名 -> 最新记录所在位置
+    private final ConcurrentHashMap<String, Location> index = new ConcurrentHashMap<>();
+    // 分段编号 -> 文件通道（按编号有序）
+    private final TreeMap<Long, FileChannel> segments = new TreeMap<>();
+    private final Map<Long, FileChannel> readChannels = new ConcurrentHashMap<>();
+    // 分段编号 -> 有效数据字节数（由本对象的锁保护）
+    private final Map<Long, Long> liveBytes = new HashMap<>();
+
+    private Path directory;
+    private long activeSegmentId;
+    private long activeSegmentSize;
+
+    public ResponseArchive(BeianProperties beianProperties, ErrorLogSampler errorLogSampler,
+                           MeterRegistry meterRegistry) {
+        this.beianProperties = beianProperties;
+        this.errorLogSampler = errorLogSampler;
+        Gauge.builder("beian_archive_entries", index, Map::size)
+                .description("归档中可重新解析的域名数")
+                .register(meterRegistry);
+        Gauge.builder("beian_archive_segments", readChannels, Map::size)
+                .description("归档分段文件数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+
+        directory = Paths.get(beianProperties.getArchive().getDirectory());
+        Files.createDirectories(directory);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .forEach(this::loadSegment);
+        }
+
+        if (segments.isEmpty()) {
+            rollSegment();
+        } else {
+            activeSegmentId = segments.lastKey();
+            activeSegmentSize = segments.get(activeSegmentId).size();
+        }
+        logger.info("原始响应归档已加载: {} 个域名, {} 个分段, 目录 {}", index.size(), segments.size(), directory);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (FileChannel channel : segments.values()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("关闭归档分段失败: {}", e.getMessage());
+            }
+        }
+        segments.clear();
+        readChannels.clear();
+    }
+
+    public boolean isEnabled() {
+        return beianProperties.getArchive().isEnabled();
+    }
+
+    /**
+     * 保存域名的最新原始响应
+     */
+    public void store(String domain, String body) {
+        if (!isEnabled() || directory == null) {
+            return;
+        }
+
+        byte[] record = encode(domain, body);
+        synchronized (this) {
+            try {
+                if (activeSegmentSize > 0
+                        && activeSegmentSize + record.length > beianProperties.getArchive().getMaxSegmentBytes()) {
+                    rollSegment();
+                }
+                setLatest(domain, writeToActive(record));
+            } catch (IOException e) {
+                errorLogSampler.warn(logger, "archive_write", "归档域名 {} 的原始响应失败: {}", domain, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 读取域名最近一次归档的原始响应及归档时间，不存在时返回 null
+     */
+    public Archived read(String domain) {
+        // 压缩分段时记录先复制到当前分段再关闭原分段，读到已关闭的分段时按更新后的位置重读
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Location location = index.get(domain);
+            if (location == null) {
+                return null;
+            }
+
+            FileChannel channel = readChannels.get(location.segmentId);
+            if (channel == null) {
+                if (index.get(domain) != location) {
+                    continue;
+                }
+                return null;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(location.length);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, location.offset + buffer.position()) < 0) {
+                        return null;
+                    }
+                }
+                buffer.flip();
+                return decode(buffer);
+            } catch (ClosedChannelException e) {
+                if (index.get(domain) == location) {
+                    return null;
+                }
+            } catch (IOException | DataFormatException | RuntimeException e) {
+                logger.warn("读取域名 {} 的归档响应失败: {}", domain, e.getMessage());
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 归档中是否有该域名的响应
+     */
+    public boolean contains(String domain) {
+        return index.containsKey(domain);
+    }
+
+    /**
+     * 当前可重新解析的域名列表
+     */
+    public List<String> domains() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    private Location writeToActive(byte[] record) throws IOException {
+        FileChannel channel = segments.get(activeSegmentId);
+        long offset = activeSegmentSize;
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+        activeSegmentSize += record.length;
+        return new Location(activeSegmentId, offset, record.length);
+    }
+
+    private void rollSegment() throws IOException {
+        long nextId = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Path path = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, nextId, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.put(nextId, channel);
+        readChannels.put(nextId, channel);
+        activeSegmentId = nextId;
+        activeSegmentSize = channel.size();
+
+        while (segments.size() > beianProperties.getArchive().getMaxSegments()) {
+            if (!compactSegment()) {
+                errorLogSampler.warn(logger, "archive_retention",
+                        "归档的有效数据超过保留容量，当前 {} 个分段，建议调大 max-segment-bytes 或 max-segments",
+                        segments.size());
+                break;
+            }
+        }
+    }
+
+    /**
+     * 选择有效数据最少的已写满分段，把其中的有效记录复制到当前分段后删除该分段；没有值得压缩的分段时返回 false
+     */
+    private boolean compactSegment() throws IOException {
+        long segmentId = -1;
+        long minLive = Long.MAX_VALUE;
+        for (Map.Entry<Long, FileChannel> segment : segments.entrySet()) {
+            long live = liveBytes.getOrDefault(segment.getKey(), 0L);
+            if (segment.getKey() != activeSegmentId && live < minLive) {
+                segmentId = segment.getKey();
+                minLive = live;
+            }
+        }
+        if (segmentId < 0 || minLive > segments.get(segmentId).size() / 2) {
+            return false;
+        }
+
+        FileChannel channel = segments.remove(segmentId);
+        List<Map.Entry<String, Location>> live = new ArrayList<>();
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            if (entry.getValue().segmentId == segmentId) {
+                live.add(entry);
+            }
+        }
+        for (Map.Entry<String, Location> entry : live) {
+            Location location = entry.getValue();
+            ByteBuffer record = ByteBuffer.allocate(location.length);
+            while (record.hasRemaining()) {
+                if (channel.read(record, location.offset + record.position()) < 0) {
+                    throw new IOException("归档记录不完整");
+                }
+            }
+            // 保留原记录的归档时间戳
+            setLatest(entry.getKey(), writeToActive(record.array()));
+        }
+        liveBytes.remove(segmentId);
+
+        readChannels.remove(segmentId);
+        channel.close();
+        Files.deleteIfExists(directory.resolve(
+                String.format("%s%012d%s", SEGMENT_PREFIX, segmentId, SEGMENT_SUFFIX)));
+        logger.info("归档分段 {} 已压缩，复制 {} 个域名的最新响应（{} 字节）后删除", segmentId, live.size(), minLive);
+        return true;
+    }
+
+    /**
+     * 更新域名最新记录的位置，同时维护各分段的有效数据量
+     */
+    private void setLatest(String domain, Location location) {
+        Location previous = index.put(domain, location);
+        if (previous != null) {
+            liveBytes.merge(previous.segmentId, (long) -previous.length, Long::sum);
+        }
+        liveBytes.merge(location.segmentId, (long) location.length, Long::sum);
+    }
+
+    /**
+     * 扫描分段文件重建索引，截断末尾不完整的记录；记录损坏时从损坏位置起截断
+     */
+    private void loadSegment(Path path) {
+        String name = path.getFileName().toString();
+        long segmentId = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            long offset = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+            while (offset + HEADER_BYTES <= size) {
+                header.clear();
+                channel.read(header, offset);
+                header.flip();
+                int length = header.getInt();
+                if (length <= HEADER_BYTES || offset + length > size) {
+                    break;
+                }
+
+                ByteBuffer record = ByteBuffer.allocate(length);
+                channel.read(record, offset);
+                record.flip();
+                String domain;
+                try {
+                    domain = readDomain(record);
+                } catch (DataFormatException | RuntimeException e) {
+                    logger.warn("归档分段 {} 在位置 {} 处记录损坏: {}", name, offset, e.getMessage());
+                    break;
+                }
+                setLatest(domain, new Location(segmentId, offset, length));
+                offset += length;
+            }
+
+            if (offset < size) {
+                logger.warn("归档分段 {} 自位置 {} 起存在 {} 字节不完整或损坏的数据，已截断", name, offset, size - offset);
+                channel.truncate(offset);
+            }
+            segments.put(segmentId, channel);
+            readChannels.put(segmentId, channel);
+        } catch (IOException e) {
+            logger.warn("加载归档分段 {} 失败: {}", name, e.getMessage());
+        }
+    }
+
+    private byte[] encode(String domain, String body) {
+        byte[] domainBytes = domain.getBytes(StandardCharsets.UTF_8);
+        byte[] raw = body.getBytes(StandardCharsets.UTF_8);
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            compressed.write(chunk, 0, n);
+        }
+        deflater.end();
+
+        int length = HEADER_BYTES + 2 + domainBytes.length + 8 + 4 + compressed.size();
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(length);
+        buffer.putShort((short) domainBytes.length);
+        buffer.put(domainBytes);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.putInt(raw.length);
+        buffer.put(compressed.toByteArray());
+        return buffer.array();
+    }
+
+    private String readDomain(ByteBuffer record) throws DataFormatException {
+        record.position(HEADER_BYTES);
+        int domainLength = record.getShort();
+        // 域名之后至少还有时间戳与原文长度
+        if (domainLength <= 0 || domainLength > record.remaining() - 12) {
+            throw new DataFormatException("归档记录的域名长度无效: " + domainLength);
+        }
+        byte[] domainBytes = new byte[domainLength];
+        record.get(domainBytes);
+        return new String(domainBytes, StandardCharsets.UTF_8);
+    }
+
+    private Archived decode(ByteBuffer record) throws DataFormatException {
+        readDomain(record);
+        long archivedAt = record.getLong();
+        int rawLength = record.getInt();
+        // deflate 的压缩比不超过约 1032:1，超出说明长度字段已损坏
+        if (rawLength < 0 || rawLength > (long) record.remaining() * 1032 + 64) {
+            throw new DataFormatException("归档记录的原文长度无效: " + rawLength);
+        }
+        byte[] raw = new byte[rawLength];
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(record);
+        int offset = 0;
+        try {
+            while (offset < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, offset, raw.length - offset);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("归档记录不完整或已损坏");
+                }
+                offset += n;
+            }
+        } finally {
+            inflater.end();
+        }
+        return new Archived(new String(raw, StandardCharsets.UTF_8), archivedAt);
+    }
+
+    /**
+     * 归档的原始响应；archivedAt 为归档时间（毫秒），即该响应的查询时间
+     */
+    public record Archived(String body, long archivedAt) {
+    }
+
+    /**
+     * 记录位置
+     */
+    private static class Location {
+        private final long segmentId;
+        private final long offset;
+        private final int length;
+
+        Location(long segmentId, long offset, int length) {
+            this.segmentId = segmentId;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
\ No newline at end of file
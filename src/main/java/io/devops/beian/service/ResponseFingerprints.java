@@ -0,0 +1,134 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 上游响应指纹
+ * 按查询关键字保存上次响应中与结果相关部分的 64 位指纹及其解析结果。指纹在解析后登记为待确认，
+ * 调度器把同一个结果对象完整记录到结果存储与指标后才确认；以其他结果记录该关键字时（包括错误、聚合查询拆分的结果）
+ * 指纹作废。因此命中已确认的指纹时，存储与指标中已是相同内容，可以跳过解析和指标重新处理。
+ *
+ * 有结果表格的页面只对 &lt;table&gt; 到最后一个 &lt;/table&gt; 之间的内容计算指纹（备案记录都在表格中，
+ * 页面其他部分的脚本、统计代码变化不影响结果），此时只有已备案结果可以复用；没有表格的页面对全文计算指纹。
+ */
+@Service
+public class ResponseFingerprints {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    // 两种范围使用不同的初始值，表格指纹与全文指纹不会相等
+    private static final long TABLE_SEED = FNV_OFFSET ^ 0x7461626c65L;
+
+    private final boolean enabled;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter skippedBytes;
+
+    public ResponseFingerprints(BeianProperties beianProperties, MeterRegistry meterRegistry) {
+        this.enabled = beianProperties.getUpstream().isSkipUnchanged();
+        this.hits = Counter.builder("beian_fingerprint_checks_total")
+                .description("按响应指纹判断结果是否变化的次数，hit 表示跳过了解析与指标处理")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("beian_fingerprint_checks_total")
+                .description("按响应指纹判断结果是否变化的次数，hit 表示跳过了解析与指标处理")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.skippedBytes = Counter.builder("beian_fingerprint_skipped_bytes_total")
+                .description("因指纹命中而未解析的响应字符数")
+                .register(meterRegistry);
+        Gauge.builder("beian_fingerprint_entries", entries, ConcurrentHashMap::size)
+                .description("保存的响应指纹数")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 计算响应中与结果相关部分的指纹，逐字符计算，不复制正文
+     */
+    static Fingerprint fingerprint(String body) {
+        int start = body.indexOf("<table");
+        int end = start < 0 ? -1 : body.lastIndexOf("</table>");
+        if (start >= 0 && end > start) {
+            return new Fingerprint(hash(body, start, end, TABLE_SEED), true);
+        }
+        return new Fingerprint(hash(body, 0, body.length(), FNV_OFFSET), false);
+    }
+
+    /**
+     * 指纹与该关键字已确认的指纹相同时返回上次的结果对象，否则返回 null
+     */
+    BeianResult match(String key, Fingerprint fingerprint, int bodyLength) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.confirmed && entry.hash == fingerprint.hash()) {
+            hits.increment();
+            skippedBytes.increment(bodyLength);
+            return entry.result;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * 登记新解析的结果；只有结果完全由指纹范围内的内容决定时才登记，否则作废旧指纹
+     */
+    void remember(String key, Fingerprint fingerprint, BeianResult result) {
+        boolean reusable = result.getStatus() == BeianResult.Status.SUCCESS
+                || (result.getStatus() == BeianResult.Status.NOT_FOUND && !fingerprint.tableOnly());
+        if (reusable) {
+            entries.put(key, new Entry(fingerprint.hash(), result, false));
+        } else {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * 结果对象是否为该关键字已确认指纹对应的结果（即与存储中的内容相同）
+     */
+    public boolean isCurrent(String key, BeianResult result) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.confirmed && entry.result == result;
+    }
+
+    /**
+     * 该关键字对应的结果已完整记录：记录的正是待确认的结果时确认指纹，否则作废
+     * 封禁结果不写入结果存储，也不改变状态指标，不影响已有指纹
+     */
+    public void recorded(String key, BeianResult result) {
+        if (!enabled || result.getStatus() == BeianResult.Status.BLOCKED) {
+            return;
+        }
+        entries.computeIfPresent(key, (k, entry) -> entry.result == result
+                ? (entry.confirmed ? entry : new Entry(entry.hash, entry.result, true))
+                : null);
+    }
+
+    private static long hash(String body, int start, int end, long seed) {
+        long hash = seed;
+        for (int i = start; i < end; i++) {
+            hash ^= body.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * 响应指纹，tableOnly 表示只覆盖结果表格部分
+     */
+    record Fingerprint(long hash, boolean tableOnly) {
+    }
+
+    private record Entry(long hash, BeianResult result, boolean confirmed) {
+    }
+}
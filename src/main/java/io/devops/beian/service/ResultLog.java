@@ -0,0 +1,515 @@
+package io.devops.beian.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 结果日志
+ * worker 把记录的每个查询结果追加写入共享目录中的分段文件，exporter 从最旧的分段开始读取并持续跟随新写入的记录，
+ * 使查询上游与输出指标、API 可以分别部署和扩容。同一目录只能有一个 worker 写入。
+ *
+ * 记录格式：[int 记录长度][byte 类型][short 域名长度][域名][long 时间戳][结果 JSON（RESULT、COMPACTED 类型）]
+ * UNCHANGED 类型表示结果与上次相同（响应指纹命中），只更新检查时间；COMPACTED 类型为压缩时复制的最新结果，
+ * 保留原记录的时间戳，已跟随过该域名的 exporter 不会把它当作新的检查结果。
+ * 分段超出保留数量时，选择有效数据（仍是某个域名最新结果的记录）最少的分段，把其中的有效记录复制到当前分段再删除该分段，
+ * 因此保留的分段始终包含每个域名的最新结果，新启动的 exporter 读完全部分段即可恢复完整状态。
+ * 有效数据超过一半的分段不压缩（复制的数据量与释放的相当），此时分段数可暂时超过保留数量。
+ */
+@Service
+public class ResultLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultLog.class);
+    private static final String SEGMENT_PREFIX = "results-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 4;
+    private static final byte RESULT = 1;
+    private static final byte UNCHANGED = 2;
+    private static final byte COMPACTED = 3;
+    private static final int TYPE_OFFSET = HEADER_BYTES;
+
+    private final BeianProperties beianProperties;
+    private final BeianProperties.ResultLog config;
+    private final ObjectMapper objectMapper;
+    private final ErrorLogSampler errorLogSampler;
+
+    private final Counter writtenResults;
+    private final Counter writtenUnchanged;
+    private final Counter compacted;
+    private final Counter applied;
+    private final AtomicLong lagBytes = new AtomicLong();
+
+    private Path directory;
+
+    // 写入端：分段编号 -> 文件通道，域名 -> 最新结果记录的位置
+    private final TreeMap<Long, FileChannel> segments = new TreeMap<>();
+    private final Map<String, Location> latest = new HashMap<>();
+    private final Map<Long, Long> liveBytes = new HashMap<>();
+    private long activeSegmentId;
+    private long activeSegmentSize;
+
+    // 读取端：当前读取的分段与位置，由 follow 的调用方串行访问
+    private final Object followLock = new Object();
+    private long readSegmentId;
+    private FileChannel readChannel;
+    private long readOffset;
+
+    public ResultLog(BeianProperties beianProperties, ObjectMapper objectMapper, ErrorLogSampler errorLogSampler,
+                     MeterRegistry meterRegistry) {
+        this.beianProperties = beianProperties;
+        this.config = beianProperties.getResultLog();
+        this.objectMapper = objectMapper;
+        this.errorLogSampler = errorLogSampler;
+        this.writtenResults = Counter.builder("beian_result_log_written_total")
+                .description("写入结果日志的记录数")
+                .tag("type", "result")
+                .register(meterRegistry);
+        this.writtenUnchanged = Counter.builder("beian_result_log_written_total")
+                .description("写入结果日志的记录数")
+                .tag("type", "unchanged")
+                .register(meterRegistry);
+        this.compacted = Counter.builder("beian_result_log_written_total")
+                .description("写入结果日志的记录数")
+                .tag("type", "compacted")
+                .register(meterRegistry);
+        this.applied = Counter.builder("beian_result_log_applied_total")
+                .description("exporter 从结果日志应用的记录数")
+                .register(meterRegistry);
+        Gauge.builder("beian_result_log_lag_bytes", lagBytes, AtomicLong::doubleValue)
+                .description("exporter 上次读取后结果日志中尚未读取的字节数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!config.isEnabled()) {
+            return;
+        }
+        directory = Paths.get(config.getDirectory());
+        Files.createDirectories(directory);
+        if (!isWriter()) {
+            logger.info("结果日志跟随已启用，目录 {}", directory);
+            return;
+        }
+
+        for (long segmentId : listSegmentIds()) {
+            loadSegment(segmentId);
+        }
+        if (segments.isEmpty()) {
+            rollSegment();
+        } else {
+            activeSegmentId = segments.lastKey();
+            activeSegmentSize = segments.get(activeSegmentId).size();
+        }
+        logger.info("结果日志已加载: {} 个域名, {} 个分段, 目录 {}", latest.size(), segments.size(), directory);
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (this) {
+            for (FileChannel channel : segments.values()) {
+                closeQuietly(channel);
+            }
+            segments.clear();
+        }
+        synchronized (followLock) {
+            if (readChannel != null) {
+                closeQuietly(readChannel);
+                readChannel = null;
+            }
+        }
+    }
+
+    /**
+     * 本实例是否写入结果日志（all、worker 角色且已启用）
+     */
+    public boolean isWriter() {
+        return config.isEnabled() && beianProperties.hasUpstreamRole();
+    }
+
+    /**
+     * 本实例是否跟随结果日志（exporter 角色）
+     */
+    public boolean isFollower() {
+        return config.isEnabled() && !beianProperties.hasUpstreamRole();
+    }
+
+    /**
+     * 写入域名的查询结果
+     */
+    public void append(String domain, BeianResult result) {
+        append(domain, result, System.currentTimeMillis());
+    }
+
+    /**
+     * 写入域名的查询结果，timestamp 为结果的查询时间（毫秒）
+     */
+    public void append(String domain, BeianResult result, long timestamp) {
+        if (!isWriter()) {
+            return;
+        }
+        try {
+            byte[] record = encode(RESULT, domain, timestamp, objectMapper.writeValueAsBytes(result));
+            synchronized (this) {
+                Location location = write(record);
+                // 封禁结果不覆盖已保存的结果，压缩时仍应保留之前的有效结果
+                if (location != null && result.getStatus() != BeianResult.Status.BLOCKED) {
+                    setLatest(domain, location);
+                }
+            }
+            writtenResults.increment();
+        } catch (IOException e) {
+            errorLogSampler.warn(logger, "result_log_write", "写入域名 {} 的结果日志失败: {}", domain, e.getMessage());
+        }
+    }
+
+    /**
+     * 写入结果未变化的记录
+     */
+    public void appendUnchanged(String domain) {
+        if (!isWriter()) {
+            return;
+        }
+        byte[] record = encode(UNCHANGED, domain, System.currentTimeMillis(), new byte[0]);
+        try {
+            synchronized (this) {
+                write(record);
+            }
+            writtenUnchanged.increment();
+        } catch (IOException e) {
+            errorLogSampler.warn(logger, "result_log_write", "写入域名 {} 的结果日志失败: {}", domain, e.getMessage());
+        }
+    }
+
+    /**
+     * 读取上次读取位置之后所有完整的记录并依次交给 handler，返回读取的记录数
+     */
+    public int follow(Consumer<Entry> handler) {
+        return follow(handler, () -> false);
+    }
+
+    /**
+     * 同 {@link #follow(Consumer)}，stop 返回 true 时在两条记录之间停止，其余记录下次再读
+     */
+    public int follow(Consumer<Entry> handler, BooleanSupplier stop) {
+        if (!isFollower()) {
+            return 0;
+        }
+        synchronized (followLock) {
+            int count = 0;
+            try {
+                while (true) {
+                    // 先列出分段再读到当前分段末尾：列出时已存在更新的分段，说明当前分段在此之前已写完
+                    List<Long> ids = listSegmentIds();
+                    Long next = null;
+                    for (long id : ids) {
+                        if (id > readSegmentId) {
+                            next = id;
+                            break;
+                        }
+                    }
+                    if (readChannel != null) {
+                        count += readAvailable(handler, stop);
+                    }
+                    if (next == null || stop.getAsBoolean()) {
+                        break;
+                    }
+                    // 读取前已被压缩删除的分段直接跳过，其中的最新结果已复制到后续分段
+                    if (readChannel != null) {
+                        closeQuietly(readChannel);
+                        readChannel = null;
+                    }
+                    readSegmentId = next;
+                    readOffset = 0;
+                    try {
+                        readChannel = FileChannel.open(segmentPath(next), StandardOpenOption.READ);
+                    } catch (NoSuchFileException e) {
+                        logger.debug("结果日志分段 {} 已被删除", next);
+                    }
+                }
+                lagBytes.set(readChannel == null ? 0 : Math.max(0, readChannel.size() - readOffset));
+            } catch (IOException e) {
+                errorLogSampler.warn(logger, "result_log_read", "读取结果日志失败: {}", e.getMessage());
+            }
+            applied.increment(count);
+            return count;
+        }
+    }
+
+    private int readAvailable(Consumer<Entry> handler, BooleanSupplier stop) throws IOException {
+        long size = readChannel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        int count = 0;
+        while (readOffset + HEADER_BYTES <= size && !stop.getAsBoolean()) {
+            header.clear();
+            readFully(readChannel, header, readOffset);
+            header.flip();
+            int length = header.getInt();
+            if (length <= HEADER_BYTES) {
+                logger.warn("结果日志分段 {} 在位置 {} 处数据损坏，跳过该分段其余部分", readSegmentId, readOffset);
+                readOffset = size;
+                break;
+            }
+            if (readOffset + length > size) {
+                // 记录尚未写完，下次再读
+                break;
+            }
+            ByteBuffer record = ByteBuffer.allocate(length);
+            readFully(readChannel, record, readOffset);
+            readOffset += length;
+            Entry entry = decode(record);
+            if (entry != null) {
+                handler.accept(entry);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 追加一条记录，当前分段写满时先切换分段；返回记录位置
+     */
+    private Location write(byte[] record) throws IOException {
+        if (segments.isEmpty()) {
+            return null;
+        }
+        if (activeSegmentSize > 0 && activeSegmentSize + record.length > config.getMaxSegmentBytes()) {
+            rollSegment();
+        }
+        return writeToActive(record);
+    }
+
+    private Location writeToActive(byte[] record) throws IOException {
+        FileChannel channel = segments.get(activeSegmentId);
+        long offset = activeSegmentSize;
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+        activeSegmentSize += record.length;
+        return new Location(activeSegmentId, offset, record.length);
+    }
+
+    private void rollSegment() throws IOException {
+        long nextId = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        FileChannel channel = FileChannel.open(segmentPath(nextId),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.put(nextId, channel);
+        activeSegmentId = nextId;
+        activeSegmentSize = channel.size();
+
+        while (segments.size() > config.getMaxSegments()) {
+            if (!compactSegment()) {
+                errorLogSampler.warn(logger, "result_log_retention",
+                        "结果日志的有效数据超过保留容量，当前 {} 个分段，建议调大 max-segment-bytes 或 max-segments",
+                        segments.size());
+                break;
+            }
+        }
+    }
+
+    /**
+     * 选择有效数据最少的已写满分段，把其中的有效记录复制到当前分段后删除该分段；没有值得压缩的分段时返回 false
+     */
+    private boolean compactSegment() throws IOException {
+        long segmentId = -1;
+        long minLive = Long.MAX_VALUE;
+        for (Map.Entry<Long, FileChannel> segment : segments.entrySet()) {
+            long live = liveBytes.getOrDefault(segment.getKey(), 0L);
+            if (segment.getKey() != activeSegmentId && live < minLive) {
+                segmentId = segment.getKey();
+                minLive = live;
+            }
+        }
+        if (segmentId < 0 || minLive > segments.get(segmentId).size() / 2) {
+            return false;
+        }
+
+        FileChannel channel = segments.remove(segmentId);
+        List<Map.Entry<String, Location>> live = new ArrayList<>();
+        for (Map.Entry<String, Location> entry : latest.entrySet()) {
+            if (entry.getValue().segmentId == segmentId) {
+                live.add(entry);
+            }
+        }
+
+        for (Map.Entry<String, Location> entry : live) {
+            Location location = entry.getValue();
+            ByteBuffer record = ByteBuffer.allocate(location.length);
+            readFully(channel, record, location.offset);
+            record.put(TYPE_OFFSET, COMPACTED);
+            setLatest(entry.getKey(), writeToActive(record.array()));
+        }
+        liveBytes.remove(segmentId);
+        compacted.increment(live.size());
+
+        closeQuietly(channel);
+        Files.deleteIfExists(segmentPath(segmentId));
+        logger.debug("结果日志分段 {} 已压缩，复制 {} 条最新结果（{} 字节）后删除", segmentId, live.size(), minLive);
+        return true;
+    }
+
+    /**
+     * 更新域名最新结果的位置，同时维护各分段的有效数据量
+     */
+    private void setLatest(String domain, Location location) {
+        Location previous = latest.put(domain, location);
+        if (previous != null) {
+            liveBytes.merge(previous.segmentId, (long) -previous.length, Long::sum);
+        }
+        liveBytes.merge(location.segmentId, (long) location.length, Long::sum);
+    }
+
+    /**
+     * 写入端启动时扫描分段文件重建各域名最新结果的位置，截断末尾不完整的记录
+     */
+    private void loadSegment(long segmentId) {
+        Path path = segmentPath(segmentId);
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            long offset = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+            while (offset + HEADER_BYTES <= size) {
+                header.clear();
+                readFully(channel, header, offset);
+                header.flip();
+                int length = header.getInt();
+                if (length <= HEADER_BYTES || offset + length > size) {
+                    break;
+                }
+                ByteBuffer record = ByteBuffer.allocate(length);
+                readFully(channel, record, offset);
+                Entry entry = decode(record);
+                if (entry != null && entry.result() != null
+                        && entry.result().getStatus() != BeianResult.Status.BLOCKED) {
+                    setLatest(entry.domain(), new Location(segmentId, offset, length));
+                }
+                offset += length;
+            }
+
+            if (offset < size) {
+                logger.warn("结果日志分段 {} 末尾存在 {} 字节不完整数据，已截断", path.getFileName(), size - offset);
+                channel.truncate(offset);
+            }
+            segments.put(segmentId, channel);
+        } catch (IOException e) {
+            logger.warn("加载结果日志分段 {} 失败: {}", path.getFileName(), e.getMessage());
+        }
+    }
+
+    private List<Long> listSegmentIds() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long segmentId) {
+        return directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, segmentId, SEGMENT_SUFFIX));
+    }
+
+    private static byte[] encode(byte type, String domain, long timestamp, byte[] payload) {
+        byte[] domainBytes = domain.getBytes(StandardCharsets.UTF_8);
+        int length = HEADER_BYTES + 1 + 2 + domainBytes.length + 8 + payload.length;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(length);
+        buffer.put(type);
+        buffer.putShort((short) domainBytes.length);
+        buffer.put(domainBytes);
+        buffer.putLong(timestamp);
+        buffer.put(payload);
+        return buffer.array();
+    }
+
+    /**
+     * 解析一条记录，无法识别的记录返回 null
+     */
+    private Entry decode(ByteBuffer record) {
+        record.position(HEADER_BYTES);
+        byte type = record.get();
+        byte[] domainBytes = new byte[record.getShort()];
+        record.get(domainBytes);
+        String domain = new String(domainBytes, StandardCharsets.UTF_8);
+        long timestamp = record.getLong();
+        if (type == UNCHANGED) {
+            return new Entry(domain, timestamp, null, false);
+        }
+        if (type != RESULT && type != COMPACTED) {
+            return null;
+        }
+        try {
+            BeianResult result = objectMapper.readValue(record.array(), record.position(), record.remaining(),
+                    BeianResult.class);
+            return new Entry(domain, timestamp, result, type == COMPACTED);
+        } catch (IOException e) {
+            errorLogSampler.warn(logger, "result_log_read", "解析域名 {} 的结果日志记录失败: {}", domain, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("结果日志记录不完整");
+            }
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.debug("关闭结果日志分段失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 一条结果日志记录；result 为 null 表示结果与上次相同，timestamp 为 worker 记录结果的时间（毫秒），
+     * compacted 表示压缩时复制的已有结果，不是一次新的检查
+     */
+    public record Entry(String domain, long timestamp, BeianResult result, boolean compacted) {
+
+        public boolean isUnchanged() {
+            return result == null;
+        }
+    }
+
+    /**
+     * 记录位置
+     */
+    private record Location(long segmentId, long offset, int length) {
+    }
+}
@@ -0,0 +1,364 @@
+package io.devops.beian.service;
+
+import io.devops.beian.model.BeianInfo;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 备案信息倒排索引
+ * 随每次结果记录增量维护，按主办单位名称（子串或前缀）、备案号前缀、单位性质、网站名称（子串）与审核日期范围查询域名。
+ *
+ * 名称类字段先按取值去重，再对不同取值建立单字与相邻两字索引：子串查询在查询词各两字组对应的取值集合中取最小的一个作为候选，
+ * 逐个校验是否包含查询词，只需检查少量候选取值，不随域名数增长。备案号与审核日期使用有序索引做前缀与范围查询。
+ * 只索引成功结果；结果变为未备案或查询失败时移出索引，与结果存储保持一致（封禁结果不改变已有记录）。
+ */
+@Service
+public class ResultSearchIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 域名 -> 已索引的取值，用于更新时移除旧记录
+    private final Map<String, Document> documents = new HashMap<>();
+    private final TextIndex companyNames = new TextIndex();
+    private final TextIndex websiteNames = new TextIndex();
+    private final Map<String, Set<String>> companyTypes = new HashMap<>();
+    private final TreeMap<String, Set<String>> beianNumbers = new TreeMap<>();
+    private final TreeMap<Integer, Set<String>> approvalDates = new TreeMap<>();
+
+    public ResultSearchIndex(MeterRegistry meterRegistry) {
+        Gauge.builder("beian_search_index_domains", this, index -> index.read(index.documents::size))
+                .description("搜索索引中的域名数")
+                .register(meterRegistry);
+        Gauge.builder("beian_search_index_companies", this, index -> index.read(index.companyNames.postings::size))
+                .description("搜索索引中的不同主办单位数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按最新结果更新域名的索引记录
+     */
+    public void update(String domain, BeianResult result) {
+        if (result.getStatus() == BeianResult.Status.BLOCKED) {
+            return;
+        }
+        Document document = result.isSuccess() && result.getData() != null ? Document.of(result.getData()) : null;
+
+        lock.writeLock().lock();
+        try {
+            Document previous = document == null ? documents.remove(domain) : documents.put(domain, document);
+            if (previous != null) {
+                unindex(domain, previous);
+            }
+            if (document != null) {
+                index(domain, document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询同时满足所有条件的域名（按域名排序）
+     */
+    public List<String> search(Query query) {
+        lock.readLock().lock();
+        try {
+            List<Set<String>> criteria = new ArrayList<>();
+            if (query.company != null) {
+                criteria.add(companyNames.match(query.company, query.companyPrefix));
+            }
+            if (query.websiteName != null) {
+                criteria.add(websiteNames.match(query.websiteName, false));
+            }
+            if (query.companyType != null) {
+                criteria.add(companyTypes.getOrDefault(query.companyType, Set.of()));
+            }
+            if (query.beianNumberPrefix != null) {
+                criteria.add(union(prefixRange(beianNumbers, query.beianNumberPrefix).values()));
+            }
+            if (query.approvedFrom != null || query.approvedTo != null) {
+                criteria.add(union(approvalDates.subMap(
+                        query.approvedFrom == null ? Integer.MIN_VALUE : query.approvedFrom, true,
+                        query.approvedTo == null ? Integer.MAX_VALUE : query.approvedTo, true).values()));
+            }
+            if (criteria.isEmpty()) {
+                return List.of();
+            }
+
+            // 从最小的候选集合开始逐个校验其他条件
+            criteria.sort(Comparator.comparingInt(Set::size));
+            List<String> matched = new ArrayList<>();
+            for (String domain : criteria.get(0)) {
+                boolean all = true;
+                for (int i = 1; i < criteria.size() && all; i++) {
+                    all = criteria.get(i).contains(domain);
+                }
+                if (all) {
+                    matched.add(domain);
+                }
+            }
+            matched.sort(null);
+            return matched;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return read(documents::size);
+    }
+
+    private void index(String domain, Document document) {
+        document.companyNames.forEach(value -> companyNames.add(value, domain));
+        document.websiteNames.forEach(value -> websiteNames.add(value, domain));
+        document.companyTypes.forEach(value -> companyTypes.computeIfAbsent(value, v -> new HashSet<>()).add(domain));
+        document.beianNumbers.forEach(value -> beianNumbers.computeIfAbsent(value, v -> new HashSet<>()).add(domain));
+        document.approvalDates.forEach(value -> approvalDates.computeIfAbsent(value, v -> new HashSet<>()).add(domain));
+    }
+
+    private void unindex(String domain, Document document) {
+        document.companyNames.forEach(value -> companyNames.remove(value, domain));
+        document.websiteNames.forEach(value -> websiteNames.remove(value, domain));
+        document.companyTypes.forEach(value -> removePosting(companyTypes, value, domain));
+        document.beianNumbers.forEach(value -> removePosting(beianNumbers, value, domain));
+        document.approvalDates.forEach(value -> removePosting(approvalDates, value, domain));
+    }
+
+    private static <K> void removePosting(Map<K, Set<String>> postings, K key, String domain) {
+        Set<String> domains = postings.get(key);
+        if (domains != null && domains.remove(domain) && domains.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    private static NavigableMap<String, Set<String>> prefixRange(TreeMap<String, Set<String>> map, String prefix) {
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static Set<String> union(Collection<Set<String>> postings) {
+        if (postings.size() == 1) {
+            return postings.iterator().next();
+        }
+        Set<String> union = new HashSet<>();
+        postings.forEach(union::addAll);
+        return union;
+    }
+
+    private <T> T read(Supplier<T> supplier) {
+        lock.readLock().lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * yyyy-MM-dd 转为 yyyyMMdd 整数，其他格式返回 null
+     */
+    public static Integer parseDate(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return null;
+        }
+        int packed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (i == 4 || i == 7) {
+                continue;
+            }
+            char c = date.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            packed = packed * 10 + (c - '0');
+        }
+        return packed;
+    }
+
+    /**
+     * 查询条件，未设置的条件不参与筛选
+     */
+    public static final class Query {
+        private String company;
+        private boolean companyPrefix;
+        private String websiteName;
+        private String companyType;
+        private String beianNumberPrefix;
+        private Integer approvedFrom;
+        private Integer approvedTo;
+
+        /**
+         * 主办单位名称包含（prefix 为 true 时以其开头）
+         */
+        public Query company(String company, boolean prefix) {
+            this.company = blankToNull(company);
+            this.companyPrefix = prefix;
+            return this;
+        }
+
+        public Query websiteName(String websiteName) {
+            this.websiteName = blankToNull(websiteName);
+            return this;
+        }
+
+        public Query companyType(String companyType) {
+            this.companyType = blankToNull(companyType);
+            return this;
+        }
+
+        public Query beianNumberPrefix(String beianNumberPrefix) {
+            this.beianNumberPrefix = blankToNull(beianNumberPrefix);
+            return this;
+        }
+
+        /**
+         * 审核日期范围（yyyyMMdd，含两端）
+         */
+        public Query approvedBetween(Integer from, Integer to) {
+            this.approvedFrom = from;
+            this.approvedTo = to;
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return company == null && websiteName == null && companyType == null
+                    && beianNumberPrefix == null && approvedFrom == null && approvedTo == null;
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+    }
+
+    /**
+     * 一个域名的已索引取值（多条备案记录时合并去重）
+     */
+    private static final class Document {
+        private final Set<String> companyNames = new LinkedHashSet<>(2);
+        private final Set<String> websiteNames = new LinkedHashSet<>(2);
+        private final Set<String> companyTypes = new LinkedHashSet<>(2);
+        private final Set<String> beianNumbers = new LinkedHashSet<>(2);
+        private final Set<Integer> approvalDates = new LinkedHashSet<>(2);
+
+        static Document of(List<BeianInfo> records) {
+            Document document = new Document();
+            for (BeianInfo info : records) {
+                addIfPresent(document.companyNames, info.getCompanyName());
+                addIfPresent(document.websiteNames, info.getWebsiteName());
+                addIfPresent(document.companyTypes, info.getCompanyType());
+                addIfPresent(document.beianNumbers, info.getBeianNumber());
+                Integer date = parseDate(info.getApprovalDate());
+                if (date != null) {
+                    document.approvalDates.add(date);
+                }
+            }
+            return document;
+        }
+
+        private static void addIfPresent(Set<String> values, String value) {
+            if (value != null && !value.isBlank()) {
+                values.add(value.trim());
+            }
+        }
+    }
+
+    /**
+     * 名称类字段索引：取值 -> 域名，以及单字/两字组 -> 取值
+     */
+    private static final class TextIndex {
+        private final Map<String, Set<String>> postings = new HashMap<>();
+        private final Map<String, Set<String>> grams = new HashMap<>();
+
+        void add(String value, String domain) {
+            postings.computeIfAbsent(value, v -> {
+                for (String gram : grams(normalize(v))) {
+                    grams.computeIfAbsent(gram, g -> new HashSet<>()).add(v);
+                }
+                return new HashSet<>();
+            }).add(domain);
+        }
+
+        void remove(String value, String domain) {
+            Set<String> domains = postings.get(value);
+            if (domains == null || !domains.remove(domain) || !domains.isEmpty()) {
+                return;
+            }
+            postings.remove(value);
+            for (String gram : grams(normalize(value))) {
+                removePosting(grams, gram, value);
+            }
+        }
+
+        /**
+         * 包含（或以其开头）查询词的取值对应的所有域名
+         * 候选取值为查询词各两字组中取值集合最小的一个，不求交集，由逐个校验排除不匹配的取值
+         */
+        Set<String> match(String query, boolean prefix) {
+            String normalized = normalize(query);
+            Set<String> candidates = null;
+            for (String gram : queryGrams(normalized)) {
+                Set<String> values = grams.getOrDefault(gram, Set.of());
+                if (candidates == null || values.size() < candidates.size()) {
+                    candidates = values;
+                }
+            }
+            if (candidates == null || candidates.isEmpty()) {
+                return Set.of();
+            }
+
+            List<Set<String>> matched = new ArrayList<>();
+            for (String value : candidates) {
+                String text = normalize(value);
+                if (prefix ? text.startsWith(normalized) : text.contains(normalized)) {
+                    matched.add(postings.get(value));
+                }
+            }
+            return matched.isEmpty() ? Set.of() : union(matched);
+        }
+
+        private static String normalize(String value) {
+            return value.toLowerCase(Locale.ROOT);
+        }
+
+        private static Set<String> grams(String text) {
+            Set<String> grams = new HashSet<>();
+            for (int i = 0; i < text.length(); i++) {
+                grams.add(text.substring(i, i + 1));
+                if (i + 1 < text.length()) {
+                    grams.add(text.substring(i, i + 2));
+                }
+            }
+            return grams;
+        }
+
+        /**
+         * 查询词的两字组（单字查询词使用单字索引）
+         */
+        private static List<String> queryGrams(String text) {
+            if (text.length() == 1) {
+                return List.of(text);
+            }
+            List<String> grams = new ArrayList<>(text.length() - 1);
+            for (int i = 0; i + 1 < text.length(); i++) {
+                grams.add(text.substring(i, i + 2));
+            }
+            return grams;
+        }
+    }
+}
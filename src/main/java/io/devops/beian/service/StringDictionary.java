@@ -0,0 +1,67 @@
+package io.devops.beian.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 字符串字典
+ * 为重复出现的字符串（主办单位名称、单位性质、提示信息等）分配整数编号，每个不同的值只保留一份；
+ * 编号只增不减，适用于取值集合有限的字段
+ */
+public class StringDictionary {
+
+    /**
+     * null 的编号
+     */
+    public static final int NULL_ID = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[256];
+    private int size = 0;
+
+    /**
+     * 获取字符串的编号，首次出现时分配新编号
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(value);
+            if (id == null) {
+                String[] current = values;
+                if (size == current.length) {
+                    current = Arrays.copyOf(current, current.length * 2);
+                }
+                current[size] = value;
+                // 先发布数组再发布编号，保证读到编号的线程一定能取到值
+                values = current;
+                id = size++;
+                ids.put(value, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * 根据编号取回字符串
+     */
+    public String decode(int id) {
+        return id == NULL_ID ? null : values[id];
+    }
+
+    /**
+     * 返回字典中与给定值相等的共享实例
+     */
+    public String intern(String value) {
+        return decode(encode(value));
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package io.devops.beian.service;
+
+import io.devops.beian.model.BeianResult;
+import org.slf4j.Logger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一轮分组检查的汇总
+ * 检查过程中只累加计数，结束时输出一条汇总日志，代替逐域名的 INFO 日志
+ */
+final class SweepSummary {
+
+    private final String group;
+    private final long startNanos = System.nanoTime();
+    private final long suppressedAtStart;
+    private final Map<BeianResult.Status, LongAdder> results = new EnumMap<>(BeianResult.Status.class);
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder unchanged = new LongAdder();
+
+    SweepSummary(String group, long suppressedAtStart) {
+        this.group = group;
+        this.suppressedAtStart = suppressedAtStart;
+        for (BeianResult.Status status : BeianResult.Status.values()) {
+            results.put(status, new LongAdder());
+        }
+    }
+
+    void recordResult(BeianResult.Status status) {
+        results.get(status).increment();
+    }
+
+    void recordRetry() {
+        retries.increment();
+    }
+
+    void recordExhausted() {
+        exhausted.increment();
+    }
+
+    /**
+     * 响应与上次相同，跳过了解析与结果记录
+     */
+    void recordUnchanged() {
+        unchanged.increment();
+    }
+
+    /**
+     * 输出汇总日志，结构化字段与消息内容一致
+     */
+    void log(Logger logger, int domains, int lookups, int companyQueries, int covered,
+             long suppressedNow, boolean failed) {
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        long suppressed = suppressedNow - suppressedAtStart;
+        long success = results.get(BeianResult.Status.SUCCESS).sum();
+        long notFound = results.get(BeianResult.Status.NOT_FOUND).sum();
+        long errors = 0;
+        for (Map.Entry<BeianResult.Status, LongAdder> entry : results.entrySet()) {
+            if (entry.getKey() != BeianResult.Status.SUCCESS && entry.getKey() != BeianResult.Status.NOT_FOUND) {
+                errors += entry.getValue().sum();
+            }
+        }
+        (failed ? logger.atError() : logger.atInfo())
+                .addKeyValue("event", "sweep")
+                .addKeyValue("group", group)
+                .addKeyValue("domains", domains)
+                .addKeyValue("lookups", lookups)
+                .addKeyValue("company_queries", companyQueries)
+                .addKeyValue("covered", covered)
+                .addKeyValue("success", success)
+                .addKeyValue("not_found", notFound)
+                .addKeyValue("errors", errors)
+                .addKeyValue("unchanged", unchanged.sum())
+                .addKeyValue("retries", retries.sum())
+                .addKeyValue("exhausted", exhausted.sum())
+                .addKeyValue("suppressed_logs", suppressed)
+                .addKeyValue("duration_ms", elapsedMillis)
+                .addKeyValue("failed", failed)
+                .log("分组 {} 检查{}: {} 个域名, {} 次查询 (聚合 {} 次覆盖 {} 个), 已备案 {}, 未备案 {}, 错误 {}, "
+                                + "结果未变化 {} 次, 重试 {} 次, 放弃 {} 个, 抑制错误日志 {} 条, 耗时 {}ms",
+                        group, failed ? "异常结束" : "完成", domains, lookups, companyQueries, covered,
+                        success, notFound, errors, unchanged.sum(), retries.sum(), exhausted.sum(), suppressed,
+                        elapsedMillis);
+    }
+}
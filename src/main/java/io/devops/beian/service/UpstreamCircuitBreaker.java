@@ -0,0 +1,184 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 上游熔断器
+ * 连续出现封禁页、403/429/5xx 或超时达到阈值后打开，打开期间暂停发往上游的请求；
+ * 冷却结束后进入半开状态放行少量探测请求，探测成功则关闭，失败则以加倍的冷却时间重新打开
+ */
+@Service
+public class UpstreamCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamCircuitBreaker.class);
+
+    /**
+     * 熔断器状态，value 即导出的指标值
+     */
+    public enum State {
+        CLOSED(0),
+        OPEN(1),
+        HALF_OPEN(2);
+
+        private final int value;
+
+        State(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * 上游失败分类
+     */
+    public enum FailureKind {
+        BLOCK_PAGE("block_page"),
+        HTTP_403("http_403"),
+        HTTP_429("http_429"),
+        HTTP_5XX("http_5xx"),
+        TIMEOUT("timeout"),
+        NETWORK("network");
+
+        private final String value;
+
+        FailureKind(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    private final BeianProperties beianProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<FailureKind, Counter> failureCounters = new EnumMap<>(FailureKind.class);
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private int probesInFlight = 0;
+    private long openUntil = 0;
+    private long currentOpenMillis;
+
+    public UpstreamCircuitBreaker(BeianProperties beianProperties, MeterRegistry meterRegistry) {
+        this.beianProperties = beianProperties;
+        this.meterRegistry = meterRegistry;
+        this.currentOpenMillis = beianProperties.getCircuitBreaker().getOpenDuration() * 1000L;
+
+        for (FailureKind kind : FailureKind.values()) {
+            failureCounters.put(kind, Counter.builder("beian_upstream_failures_total")
+                    .description("按类型统计的上游失败次数")
+                    .tag("kind", kind.getValue())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("beian_upstream_circuit_state", this, b -> b.getState().getValue())
+                .description("上游熔断器状态 (0=关闭, 1=打开, 2=半开)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 申请发出一次上游请求；半开状态下占用一个探测名额
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= beianProperties.getCircuitBreaker().getHalfOpenProbes()) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * 已申请但最终未发出的请求，归还探测名额
+     */
+    public synchronized void abandon() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    /**
+     * 上游正常响应
+     */
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            currentOpenMillis = beianProperties.getCircuitBreaker().getOpenDuration() * 1000L;
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    /**
+     * 上游失败
+     */
+    public synchronized void recordFailure(FailureKind kind) {
+        failureCounters.get(kind).increment();
+        BeianProperties.CircuitBreaker config = beianProperties.getCircuitBreaker();
+
+        if (state == State.HALF_OPEN) {
+            // 探测失败，冷却时间加倍
+            currentOpenMillis = Math.min(currentOpenMillis * 2, config.getMaxOpenDuration() * 1000L);
+            open(kind);
+            return;
+        }
+
+        consecutiveFailures++;
+        if (state == State.CLOSED && config.isEnabled() && consecutiveFailures >= config.getFailureThreshold()) {
+            open(kind);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 距离进入半开状态的剩余毫秒数，未打开时为 0
+     */
+    public synchronized long remainingOpenMillis() {
+        return state == State.OPEN ? Math.max(0, openUntil - System.currentTimeMillis()) : 0;
+    }
+
+    private void open(FailureKind kind) {
+        openUntil = System.currentTimeMillis() + currentOpenMillis;
+        transitionTo(State.OPEN);
+        logger.warn("上游连续失败（最近一次: {}），熔断器打开，{} 秒内暂停查询", kind.getValue(), currentOpenMillis / 1000);
+    }
+
+    private void transitionTo(State newState) {
+        if (state == newState) {
+            return;
+        }
+        logger.info("上游熔断器状态变更: {} -> {}", state, newState);
+        state = newState;
+        probesInFlight = 0;
+        if (newState == State.CLOSED) {
+            consecutiveFailures = 0;
+        }
+        Counter.builder("beian_upstream_circuit_transitions_total")
+                .description("上游熔断器状态切换次数")
+                .tag("state", newState.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+    }
+}
\ No newline at end of file
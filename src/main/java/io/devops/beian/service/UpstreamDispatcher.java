@@ -0,0 +1,462 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.jfr.RateLimitWaitEvent;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * 上游请求调度器
+ * 所有发往上游的查询都经过这里，按优先级通道排队并共享同一份限流预算：
+ * 手动查询 > 重试 > 其他副本转发的查询 > 定时检查。后台通道之间保持 request-delay 间隔，
+ * 手动查询不受间隔约束但仍受每分钟限流控制；连续抢占达到上限后让出一次给后台检查，避免饿死。
+ * 上游熔断打开期间后台通道暂停等待，手动查询立即返回 BLOCKED。
+ * 启用出口代理池时，限流与请求间隔改为按出口计算，由 EgressProxyPool 选择出口。
+ * 同一通道内按域名分组的预算权重轮转出队（stride 调度），多个分组同时检查时按权重分享请求额度。
+ */
+@Service
+public class UpstreamDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamDispatcher.class);
+    private static final long PERMIT_POLL_MILLIS = 200;
+    // stride 调度的步长基数，分组每出队一次前进 STRIDE / share
+    private static final long STRIDE = 1L << 20;
+
+    /**
+     * 优先级通道（声明顺序即优先级）
+     */
+    public enum Lane {
+        INTERACTIVE("interactive"),
+        RETRY("retry"),
+        PEER("peer"),
+        SCHEDULED("scheduled");
+
+        private final String value;
+
+        Lane(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    private final BeianProperties beianProperties;
+    private final BeianChecker beianChecker;
+    private final RateLimitService rateLimitService;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final EgressProxyPool egressPool;
+    private final DomainGroupRegistry domainGroups;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<Lane, FairQueue> lanes = new EnumMap<>(Lane.class);
+    private final Map<Lane, Timer> waitTimers = new EnumMap<>(Lane.class);
+    private final Map<String, Counter> dispatchCounters = new ConcurrentHashMap<>();
+
+    private long lastBackgroundDispatch = 0;
+    private int consecutivePreemptions = 0;
+    private volatile boolean running = false;
+    private Thread worker;
+
+    public UpstreamDispatcher(BeianProperties beianProperties,
+                              BeianChecker beianChecker,
+                              RateLimitService rateLimitService,
+                              UpstreamCircuitBreaker circuitBreaker,
+                              EgressProxyPool egressPool,
+                              DomainGroupRegistry domainGroups,
+                              MeterRegistry meterRegistry) {
+        this.beianProperties = beianProperties;
+        this.beianChecker = beianChecker;
+        this.rateLimitService = rateLimitService;
+        this.circuitBreaker = circuitBreaker;
+        this.egressPool = egressPool;
+        this.domainGroups = domainGroups;
+        this.meterRegistry = meterRegistry;
+
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new FairQueue());
+            Gauge.builder("beian_dispatcher_queue_size", this, d -> d.queueSize(lane))
+                    .description("各优先级通道等待中的上游请求数")
+                    .tag("lane", lane.getValue())
+                    .register(meterRegistry);
+            waitTimers.put(lane, Timer.builder("beian_dispatcher_wait_seconds")
+                    .description("上游请求在通道中的排队时间")
+                    .tag("lane", lane.getValue())
+                    .register(meterRegistry));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::dispatchLoop, "beian-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * 提交一次上游查询，订阅时入队，取消订阅时从队列中撤销
+     */
+    public Mono<BeianResult> submit(String domain, Lane lane) {
+        return submit(domain, lane, DomainGroupRegistry.DEFAULT_GROUP);
+    }
+
+    /**
+     * 提交一次属于指定域名分组的上游查询
+     */
+    public Mono<BeianResult> submit(String domain, Lane lane, String group) {
+        return submit(domain, lane, group, false);
+    }
+
+    /**
+     * 提交一次上游查询；failFast 为 true 时熔断期间不排队等待，与手动查询一样立即返回 BLOCKED
+     */
+    public Mono<BeianResult> submit(String domain, Lane lane, String group, boolean failFast) {
+        return Mono.create(sink -> {
+            Task task = new Task(domain, lane, group, domainGroups.share(group), sink, failFast);
+            sink.onCancel(() -> task.cancelled = true);
+            lock.lock();
+            try {
+                lanes.get(lane).add(task);
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                Task task = awaitNextTask();
+                if (task != null) {
+                    dispatch(task);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("上游请求调度异常", e);
+            }
+        }
+    }
+
+    /**
+     * 等待下一个可以发出的请求：选择通道、满足间隔并取得限流许可
+     */
+    private Task awaitNextTask() throws InterruptedException {
+        lock.lock();
+        try {
+            while (running) {
+                Lane lane = selectLane();
+                if (lane == null) {
+                    changed.await();
+                    continue;
+                }
+
+                Task task = lanes.get(lane).peek();
+                if (task.cancelled) {
+                    lanes.get(lane).discard();
+                    continue;
+                }
+
+                // 启用出口代理池时请求间隔按出口分别计算
+                if (lane != Lane.INTERACTIVE && !egressPool.isEnabled()) {
+                    long waitMillis = lastBackgroundDispatch
+                            + beianProperties.getRequestDelay() * 1000L - System.currentTimeMillis();
+                    if (waitMillis > 0) {
+                        // 等待期间有更高优先级请求到达时会被唤醒重新选择
+                        awaitPermit("request_delay", task, waitMillis);
+                        continue;
+                    }
+                }
+
+                if (!circuitBreaker.tryAcquire()) {
+                    if (lane == Lane.INTERACTIVE) {
+                        lanes.get(lane).discard();
+                        task.rejected = true;
+                        return task;
+                    }
+                    // 手动查询的重试不等待熔断结束，逐个取出并返回 BLOCKED
+                    Task failFast = removeFailFast();
+                    if (failFast != null) {
+                        failFast.rejected = true;
+                        return failFast;
+                    }
+                    // 熔断期间暂停后台检查，不发出请求也不覆盖已有指标
+                    awaitPermit("circuit_open", task,
+                            Math.max(PERMIT_POLL_MILLIS, circuitBreaker.remainingOpenMillis()));
+                    continue;
+                }
+
+                if (egressPool.isEnabled()) {
+                    task.egress = egressPool.tryAcquire(lane != Lane.INTERACTIVE);
+                    if (task.egress == null) {
+                        circuitBreaker.abandon();
+                        awaitPermit("egress_limit", task, PERMIT_POLL_MILLIS);
+                        continue;
+                    }
+                } else if (!rateLimitService.tryAcquire()) {
+                    circuitBreaker.abandon();
+                    awaitPermit("rate_limit", task, PERMIT_POLL_MILLIS);
+                    continue;
+                }
+
+                lanes.get(lane).poll();
+                if (lane == Lane.SCHEDULED || lanes.get(Lane.SCHEDULED).isEmpty()) {
+                    consecutivePreemptions = 0;
+                } else {
+                    consecutivePreemptions++;
+                }
+                if (lane != Lane.INTERACTIVE) {
+                    lastBackgroundDispatch = System.currentTimeMillis();
+                }
+                return task;
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从后台通道中取出一个 failFast 请求，没有时返回 null
+     */
+    private Task removeFailFast() {
+        for (Lane lane : Lane.values()) {
+            if (lane != Lane.INTERACTIVE) {
+                Task task = lanes.get(lane).remove(candidate -> candidate.failFast);
+                if (task != null) {
+                    return task;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 持有锁时等待限流条件，等待过程记录为 JFR 事件
+     */
+    private void awaitPermit(String reason, Task task, long waitMillis) throws InterruptedException {
+        RateLimitWaitEvent event = new RateLimitWaitEvent();
+        event.begin();
+        changed.await(waitMillis, TimeUnit.MILLISECONDS);
+        event.end();
+        if (event.shouldCommit()) {
+            event.reason = reason;
+            event.lane = task.lane.getValue();
+            event.domain = task.domain;
+            event.commit();
+        }
+    }
+
+    /**
+     * 按优先级选择通道；后台检查被连续抢占达到上限时优先放行一次
+     */
+    private Lane selectLane() {
+        if (!lanes.get(Lane.SCHEDULED).isEmpty()
+                && consecutivePreemptions >= beianProperties.getDispatcher().getStarvationLimit()) {
+            return Lane.SCHEDULED;
+        }
+        for (Lane lane : Lane.values()) {
+            if (!lanes.get(lane).isEmpty()) {
+                return lane;
+            }
+        }
+        return null;
+    }
+
+    private void dispatch(Task task) {
+        if (task.rejected) {
+            task.sink.success(BeianResult.blocked("上游熔断中，请稍后重试"));
+            return;
+        }
+
+        waitTimers.get(task.lane).record(Duration.ofNanos(System.nanoTime() - task.enqueuedAt));
+        dispatchCounters.computeIfAbsent(task.lane.getValue() + "/" + task.group,
+                key -> Counter.builder("beian_dispatcher_requests_total")
+                        .description("各通道、各域名分组发出的上游请求数")
+                        .tag("lane", task.lane.getValue())
+                        .tag("group", task.group)
+                        .register(meterRegistry)).increment();
+        logger.debug("发出上游查询: {} (通道 {})", task.domain, task.lane.getValue());
+
+        beianChecker.checkAsync(task.domain, Duration.ofSeconds(beianProperties.getRequestTimeout()), task.egress)
+                .doOnNext(result -> {
+                    if (task.egress != null) {
+                        task.egress.release(result);
+                    }
+                })
+                .doFinally(signal -> {
+                    if (task.egress != null) {
+                        task.egress.release(null);
+                    } else {
+                        rateLimitService.release();
+                    }
+                    lock.lock();
+                    try {
+                        changed.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                })
+                .subscribe(task.sink::success, task.sink::error, () -> task.sink.success());
+    }
+
+    private double queueSize(Lane lane) {
+        lock.lock();
+        try {
+            return lanes.get(lane).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 单个通道的等待队列：每个域名分组一个先进先出队列，按 stride 调度在分组之间轮转，
+     * 分组出队一次前进 STRIDE / share，总是选择进度最小的分组；分组从空闲变为有请求时
+     * 进度对齐到当前虚拟时间，空闲期间不积累额度（由调度器的锁保护）
+     */
+    static class FairQueue {
+        private final Map<String, Flow> flows = new LinkedHashMap<>();
+        private long virtualTime = 0;
+        private int size = 0;
+
+        void add(Task task) {
+            Flow flow = flows.computeIfAbsent(task.group, group -> new Flow());
+            if (flow.tasks.isEmpty()) {
+                flow.pass = Math.max(flow.pass, virtualTime);
+            }
+            flow.tasks.addLast(task);
+            size++;
+        }
+
+        Task peek() {
+            Flow flow = next();
+            return flow == null ? null : flow.tasks.peekFirst();
+        }
+
+        /**
+         * 取出下一个请求并推进所属分组的进度
+         */
+        Task poll() {
+            Flow flow = next();
+            Task task = flow.tasks.pollFirst();
+            size--;
+            virtualTime = flow.pass;
+            flow.pass += STRIDE / task.share;
+            return task;
+        }
+
+        /**
+         * 丢弃下一个请求（已取消或被拒绝），不计入分组进度
+         */
+        void discard() {
+            next().tasks.pollFirst();
+            size--;
+        }
+
+        /**
+         * 取出第一个满足条件的请求，不计入分组进度
+         */
+        Task remove(Predicate<Task> filter) {
+            for (Flow flow : flows.values()) {
+                Iterator<Task> tasks = flow.tasks.iterator();
+                while (tasks.hasNext()) {
+                    Task task = tasks.next();
+                    if (filter.test(task)) {
+                        tasks.remove();
+                        size--;
+                        return task;
+                    }
+                }
+            }
+            return null;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private Flow next() {
+            Flow selected = null;
+            for (Flow flow : flows.values()) {
+                if (!flow.tasks.isEmpty() && (selected == null || flow.pass < selected.pass)) {
+                    selected = flow;
+                }
+            }
+            return selected;
+        }
+    }
+
+    private static class Flow {
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        private long pass = 0;
+    }
+
+    /**
+     * 排队中的上游查询
+     */
+    static class Task {
+        private final String domain;
+        private final Lane lane;
+        private final String group;
+        private final int share;
+        private final MonoSink<BeianResult> sink;
+        private final boolean failFast;
+        private final long enqueuedAt = System.nanoTime();
+        private volatile boolean cancelled = false;
+        private boolean rejected = false;
+        private EgressProxyPool.Lease egress;
+
+        Task(String domain, Lane lane, String group, int share, MonoSink<BeianResult> sink) {
+            this(domain, lane, group, share, sink, false);
+        }
+
+        Task(String domain, Lane lane, String group, int share, MonoSink<BeianResult> sink, boolean failFast) {
+            this.domain = domain;
+            this.lane = lane;
+            this.group = group;
+            this.share = share;
+            this.sink = sink;
+            this.failFast = failFast;
+        }
+    }
+}
\ No newline at end of file
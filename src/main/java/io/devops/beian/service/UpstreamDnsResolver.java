@@ -0,0 +1,352 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.dns.DefaultDnsQuestion;
+import io.netty.handler.codec.dns.DnsRawRecord;
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.resolver.AbstractAddressResolver;
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.DnsServerAddressStreamProviders;
+import io.netty.resolver.dns.NoopDnsCache;
+import io.netty.resolver.dns.NoopDnsCnameCache;
+import io.netty.resolver.dns.SequentialDnsServerAddressStreamProvider;
+import io.netty.util.NetUtil;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Promise;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上游域名解析缓存
+ * 为上游查询客户端提供进程内解析缓存：按 DNS 记录的 TTL（限制在 min-ttl 与 max-ttl 之间）缓存，
+ * 记录使用超过 refresh-ahead 比例的缓存时间后，下次使用时在后台刷新，请求不等待解析；
+ * 过期后重新解析失败时，在 stale-ttl 内继续使用过期记录，避免 DNS 抖动直接造成查询失败。
+ * 同一主机的并发解析合并为一次查询。IP 地址不经过缓存。
+ */
+@Service
+public class UpstreamDnsResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamDnsResolver.class);
+    // 刷新失败后再次尝试的最短间隔
+    private static final long RETRY_INTERVAL_MILLIS = 5000;
+
+    private final BeianProperties.Dns config;
+    private final ConcurrentHashMap<String, CachedAddresses> cache = new ConcurrentHashMap<>();
+    // 主机 -> 进行中的解析
+    private final ConcurrentHashMap<String, CompletableFuture<List<InetAddress>>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> lookupCounters = new HashMap<>();
+    private final Map<String, Counter> refreshCounters = new HashMap<>();
+    private final Timer resolveSuccessTimer;
+    private final Timer resolveFailureTimer;
+
+    private EventLoopGroup eventLoopGroup;
+    private DnsNameResolver resolver;
+    private AddressResolverGroup<InetSocketAddress> resolverGroup;
+
+    public UpstreamDnsResolver(BeianProperties beianProperties, MeterRegistry meterRegistry) {
+        this.config = beianProperties.getDns();
+
+        for (String result : new String[] {"hit", "miss", "stale", "failure"}) {
+            lookupCounters.put(result, Counter.builder("beian_dns_lookups_total")
+                    .description("上游域名解析缓存查找次数")
+                    .tag("result", result)
+                    .register(meterRegistry));
+        }
+        for (String result : new String[] {"success", "failure"}) {
+            refreshCounters.put(result, Counter.builder("beian_dns_refresh_total")
+                    .description("上游域名解析后台刷新次数")
+                    .tag("result", result)
+                    .register(meterRegistry));
+        }
+        resolveSuccessTimer = Timer.builder("beian_dns_resolve_seconds")
+                .description("向 DNS 服务器解析上游域名的耗时")
+                .tag("result", "success")
+                .register(meterRegistry);
+        resolveFailureTimer = Timer.builder("beian_dns_resolve_seconds")
+                .description("向 DNS 服务器解析上游域名的耗时")
+                .tag("result", "failure")
+                .register(meterRegistry);
+        Gauge.builder("beian_dns_cache_size", cache, Map::size)
+                .description("上游域名解析缓存中的主机数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        eventLoopGroup = new NioEventLoopGroup(1, runnable -> {
+            Thread thread = new Thread(runnable, "beian-dns");
+            thread.setDaemon(true);
+            return thread;
+        });
+        DnsNameResolverBuilder builder = new DnsNameResolverBuilder(eventLoopGroup.next())
+                .channelType(NioDatagramChannel.class)
+                .queryTimeoutMillis(config.getQueryTimeoutMs())
+                // 缓存与刷新由本类负责，关闭 Netty 自带的缓存以取得真实 TTL
+                .resolveCache(NoopDnsCache.INSTANCE)
+                .cnameCache(NoopDnsCnameCache.INSTANCE);
+        if (config.getNameServers().isEmpty()) {
+            builder.nameServerProvider(DnsServerAddressStreamProviders.platformDefault());
+        } else {
+            List<InetSocketAddress> servers = new ArrayList<>();
+            for (String server : config.getNameServers()) {
+                servers.add(parseServer(server));
+            }
+            builder.nameServerProvider(new SequentialDnsServerAddressStreamProvider(servers));
+        }
+        resolver = builder.build();
+        resolverGroup = new CachingResolverGroup();
+        logger.info("上游域名解析缓存已启用，缓存时间 {}-{} 秒，过期后最多沿用 {} 秒",
+                config.getMinTtl(), config.getMaxTtl(), config.getStaleTtl());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (resolver != null) {
+            resolver.close();
+        }
+        if (eventLoopGroup != null) {
+            eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 供 Reactor Netty HttpClient 使用的解析器，未启用时返回 null（使用默认解析器）
+     */
+    public AddressResolverGroup<InetSocketAddress> addressResolverGroup() {
+        return resolverGroup;
+    }
+
+    /**
+     * 解析主机名，优先使用缓存
+     */
+    public CompletableFuture<List<InetAddress>> resolve(String host) {
+        long now = System.currentTimeMillis();
+        CachedAddresses cached = cache.get(host);
+        if (cached != null && now < cached.expiresAt) {
+            lookupCounters.get("hit").increment();
+            if (now >= cached.refreshAt) {
+                refresh(host);
+            }
+            return CompletableFuture.completedFuture(cached.addresses);
+        }
+
+        lookupCounters.get("miss").increment();
+        return lookup(host).handle((addresses, error) -> {
+            if (error == null) {
+                return addresses;
+            }
+            if (cached != null && now < cached.staleUntil) {
+                lookupCounters.get("stale").increment();
+                logger.warn("解析 {} 失败，沿用已过期的解析结果: {}", host, unwrap(error).getMessage());
+                // 短时间内直接使用过期结果并在后台重试，请求不再逐个等待解析超时
+                cache.put(host, new CachedAddresses(cached.addresses, now + RETRY_INTERVAL_MILLIS,
+                        Math.min(now + config.getMinTtl() * 1000L, cached.staleUntil), cached.staleUntil));
+                return cached.addresses;
+            }
+            lookupCounters.get("failure").increment();
+            throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+        });
+    }
+
+    /**
+     * 后台刷新，已有进行中的解析时不重复发起；失败时保留原记录
+     */
+    private void refresh(String host) {
+        if (inFlight.containsKey(host)) {
+            return;
+        }
+        lookup(host).whenComplete((addresses, error) -> {
+            refreshCounters.get(error == null ? "success" : "failure").increment();
+            if (error != null) {
+                logger.debug("后台刷新 {} 的解析结果失败: {}", host, unwrap(error).getMessage());
+                long now = System.currentTimeMillis();
+                cache.computeIfPresent(host, (h, cached) -> new CachedAddresses(cached.addresses,
+                        now + RETRY_INTERVAL_MILLIS, cached.expiresAt, cached.staleUntil));
+            }
+        });
+    }
+
+    /**
+     * 向 DNS 服务器解析并写入缓存，同一主机同时只有一次解析
+     */
+    private CompletableFuture<List<InetAddress>> lookup(String host) {
+        CompletableFuture<List<InetAddress>> created = new CompletableFuture<>();
+        CompletableFuture<List<InetAddress>> existing = inFlight.putIfAbsent(host, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        long start = System.nanoTime();
+        query(host, DnsRecordType.A)
+                .thenCompose(resolved -> resolved.addresses.isEmpty() ? query(host, DnsRecordType.AAAA)
+                        : CompletableFuture.completedFuture(resolved))
+                .whenComplete((resolved, error) -> {
+                    long elapsed = System.nanoTime() - start;
+                    if (error == null && resolved.addresses.isEmpty()) {
+                        error = new UnknownHostException(host);
+                    }
+                    if (error != null) {
+                        resolveFailureTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                        inFlight.remove(host, created);
+                        created.completeExceptionally(unwrap(error));
+                        return;
+                    }
+                    resolveSuccessTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                    long ttlMillis = Math.min(Math.max(resolved.ttl, config.getMinTtl()),
+                            Math.max(config.getMinTtl(), config.getMaxTtl())) * 1000L;
+                    long now = System.currentTimeMillis();
+                    cache.put(host, new CachedAddresses(resolved.addresses,
+                            now + (long) (ttlMillis * config.getRefreshAhead()), now + ttlMillis,
+                            now + ttlMillis + config.getStaleTtl() * 1000L));
+                    inFlight.remove(host, created);
+                    created.complete(resolved.addresses);
+                });
+        return created;
+    }
+
+    private CompletableFuture<Resolved> query(String host, DnsRecordType type) {
+        CompletableFuture<Resolved> future = new CompletableFuture<>();
+        resolver.resolveAll(new DefaultDnsQuestion(host, type)).addListener(result -> {
+            if (!result.isSuccess()) {
+                future.completeExceptionally(result.cause());
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            List<DnsRecord> records = (List<DnsRecord>) result.getNow();
+            List<InetAddress> addresses = new ArrayList<>(records.size());
+            long ttl = Long.MAX_VALUE;
+            try {
+                for (DnsRecord record : records) {
+                    if (record.type() == type && record instanceof DnsRawRecord raw) {
+                        addresses.add(InetAddress.getByAddress(host, ByteBufUtil.getBytes(raw.content())));
+                        ttl = Math.min(ttl, record.timeToLive());
+                    }
+                }
+                future.complete(new Resolved(addresses, ttl == Long.MAX_VALUE ? 0 : ttl));
+            } catch (UnknownHostException e) {
+                future.completeExceptionally(e);
+            } finally {
+                records.forEach(ReferenceCountUtil::release);
+            }
+        });
+        return future;
+    }
+
+    private static InetSocketAddress parseServer(String server) {
+        int separator = server.lastIndexOf(':');
+        if (separator > 0 && server.indexOf(':') == separator) {
+            return new InetSocketAddress(server.substring(0, separator), Integer.parseInt(server.substring(separator + 1)));
+        }
+        return new InetSocketAddress(server, 53);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * 缓存的解析结果：refreshAt 之后使用时后台刷新，expiresAt 之后重新解析，staleUntil 之前解析失败时仍可沿用
+     */
+    private record CachedAddresses(List<InetAddress> addresses, long refreshAt, long expiresAt, long staleUntil) {
+    }
+
+    private record Resolved(List<InetAddress> addresses, long ttl) {
+    }
+
+    /**
+     * 每个事件循环一个解析器实例，均委托给共享缓存
+     */
+    private final class CachingResolverGroup extends AddressResolverGroup<InetSocketAddress> {
+        @Override
+        protected AddressResolver<InetSocketAddress> newResolver(EventExecutor executor) {
+            return new CachingAddressResolver(executor);
+        }
+    }
+
+    private final class CachingAddressResolver extends AbstractAddressResolver<InetSocketAddress> {
+
+        CachingAddressResolver(EventExecutor executor) {
+            super(executor, InetSocketAddress.class);
+        }
+
+        @Override
+        protected boolean doIsResolved(InetSocketAddress address) {
+            return !address.isUnresolved();
+        }
+
+        @Override
+        protected void doResolve(InetSocketAddress unresolved, Promise<InetSocketAddress> promise) {
+            resolveAddresses(unresolved).whenComplete((addresses, error) -> {
+                if (error != null) {
+                    promise.tryFailure(unwrap(error));
+                } else {
+                    promise.trySuccess(addresses.get(0));
+                }
+            });
+        }
+
+        @Override
+        protected void doResolveAll(InetSocketAddress unresolved, Promise<List<InetSocketAddress>> promise) {
+            resolveAddresses(unresolved).whenComplete((addresses, error) -> {
+                if (error != null) {
+                    promise.tryFailure(unwrap(error));
+                } else {
+                    promise.trySuccess(addresses);
+                }
+            });
+        }
+
+        private CompletableFuture<List<InetSocketAddress>> resolveAddresses(InetSocketAddress unresolved) {
+            String host = unresolved.getHostString();
+            byte[] literal = NetUtil.createByteArrayFromIpAddressString(host);
+            if (literal != null) {
+                try {
+                    return CompletableFuture.completedFuture(List.of(new InetSocketAddress(
+                            InetAddress.getByAddress(host, literal), unresolved.getPort())));
+                } catch (UnknownHostException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+            return UpstreamDnsResolver.this.resolve(host).thenApply(addresses -> {
+                List<InetSocketAddress> socketAddresses = new ArrayList<>(addresses.size());
+                for (InetAddress address : addresses) {
+                    socketAddresses.add(new InetSocketAddress(address, unresolved.getPort()));
+                }
+                return socketAddresses;
+            });
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianInfo;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动预热
+ * 在 Web 服务已启动、应用就绪之前执行：后台预建上游连接的同时，从归档重建结果，
+ * 用内置样例页面反复执行解析与指标标签处理，并执行若干次指标抓取，使这些热点代码在接收流量前完成 JIT 编译。
+ * Spring Boot 在所有 ApplicationRunner 结束后才把就绪状态切换为 ACCEPTING_TRAFFIC，
+ * 因此预热期间就绪探针返回 OUT_OF_SERVICE，定时检查也在就绪后才开始。
+ * exporter 角色不查询上游，只读完结果日志中已有的记录并预热指标抓取。
+ */
+@Service
+public class WarmupService implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupService.class);
+
+    private static final String[] SAMPLE_PAGES = {"warmup/success.html", "warmup/not_found.html", "warmup/blocked.html"};
+    // 指标抓取耗时随域名数增长，只在该时间内重复抓取
+    private static final long METRICS_BUDGET_MILLIS = 5000;
+
+    private final BeianProperties.Warmup config;
+    private final boolean upstreamRole;
+    private final BeianChecker beianChecker;
+    private final BeianScheduler scheduler;
+    private final ResponseArchive responseArchive;
+    private final EgressProxyPool egressProxyPool;
+    private final ResultLog resultLog;
+    private final ObjectProvider<PrometheusMeterRegistry> prometheusRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // 各阶段耗时（秒），未执行的阶段为 0
+    private final Map<String, Double> durations = new ConcurrentHashMap<>();
+
+    public WarmupService(BeianProperties beianProperties,
+                         BeianChecker beianChecker,
+                         BeianScheduler scheduler,
+                         ResponseArchive responseArchive,
+                         EgressProxyPool egressProxyPool,
+                         ResultLog resultLog,
+                         ObjectProvider<PrometheusMeterRegistry> prometheusRegistry,
+                         ApplicationEventPublisher eventPublisher,
+                         MeterRegistry meterRegistry) {
+        this.config = beianProperties.getWarmup();
+        this.upstreamRole = beianProperties.hasUpstreamRole();
+        this.beianChecker = beianChecker;
+        this.scheduler = scheduler;
+        this.responseArchive = responseArchive;
+        this.egressProxyPool = egressProxyPool;
+        this.resultLog = resultLog;
+        this.prometheusRegistry = prometheusRegistry;
+        this.eventPublisher = eventPublisher;
+
+        for (String phase : new String[] {"archive", "result_log", "parse", "metrics", "connections", "total"}) {
+            durations.put(phase, 0.0);
+            Gauge.builder("beian_warmup_duration_seconds", durations, map -> map.get(phase))
+                    .description("启动预热各阶段耗时")
+                    .tag("phase", phase)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(config.getTimeout());
+        try {
+            // 建立连接主要是等待网络，与后续的 CPU 预热并行
+            CompletableFuture<Long> connections = warmupConnections(deadline);
+            restoreFromArchive(deadline);
+            int applied = catchUpResultLog(deadline);
+            int parsed = warmupParser(deadline);
+            int scrapes = warmupMetrics(deadline);
+            long connected = awaitConnections(connections, deadline);
+            logger.info("启动预热完成: 应用结果日志 {} 条, 解析样例页面 {} 次, 指标抓取 {} 次, 预建上游连接 {} 个, 耗时 {}ms",
+                    applied, parsed, scrapes, connected, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            // 预热只影响首批请求的延迟，失败时照常就绪
+            logger.warn("启动预热未完成: {}", e.getMessage(), e);
+        } finally {
+            durations.put("total", seconds(System.nanoTime() - start));
+        }
+    }
+
+    private CompletableFuture<Long> warmupConnections(long deadline) {
+        if (config.getConnections() == 0 || !upstreamRole) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        long start = System.nanoTime();
+        Duration timeout = Duration.ofNanos(Math.max(0, deadline - start));
+        return beianChecker.warmupConnections(egressProxyPool.connectors(), config.getConnections(), timeout)
+                .doFinally(signal -> durations.put("connections", seconds(System.nanoTime() - start)))
+                .onErrorResume(error -> Mono.just(0L))
+                .toFuture();
+    }
+
+    private long awaitConnections(CompletableFuture<Long> connections, long deadline) {
+        try {
+            return connections.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            logger.warn("预建上游连接未在预热时限内完成");
+            return 0;
+        }
+    }
+
+    /**
+     * 从归档的原始响应重建结果与指标，重启后无需等待首轮检查即可输出上次的状态；
+     * 超过预热时限后不再解析剩余域名，由就绪后的首轮检查补齐
+     */
+    private void restoreFromArchive(long deadline) {
+        if (!config.isRestoreFromArchive() || !responseArchive.isEnabled() || !upstreamRole) {
+            return;
+        }
+        long start = System.nanoTime();
+        scheduler.rebuildFromArchive(true, () -> System.nanoTime() >= deadline);
+        durations.put("archive", seconds(System.nanoTime() - start));
+    }
+
+    /**
+     * exporter 读完结果日志中已有的记录，就绪时即输出 worker 的最新结果；
+     * 超过预热时限后停止，其余记录由就绪后的定时跟随应用
+     */
+    private int catchUpResultLog(long deadline) {
+        if (!resultLog.isFollower()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        int applied = scheduler.applyResultLog(() -> System.nanoTime() >= deadline);
+        if (System.nanoTime() >= deadline) {
+            logger.warn("结果日志未在预热时限内读完，剩余记录在就绪后继续应用");
+        }
+        durations.put("result_log", seconds(System.nanoTime() - start));
+        return applied;
+    }
+
+    /**
+     * 反复解析内置样例页面（已备案、未备案、拦截页），并处理解析出的指标标签
+     */
+    private int warmupParser(long deadline) {
+        if (!upstreamRole || config.getParseIterations() == 0) {
+            return 0;
+        }
+        List<String> pages = samplePages();
+        if (pages.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        int parsed = 0;
+        int labels = 0;
+        for (int i = 0; i < config.getParseIterations() && System.nanoTime() < deadline; i++) {
+            for (String page : pages) {
+                BeianResult result = beianChecker.classifyBody(page);
+                if (result.getData() != null) {
+                    for (BeianInfo info : result.getData()) {
+                        labels += BeianMetricsService.sanitizeLabel(info.getCompanyName()).length()
+                                + BeianMetricsService.sanitizeLabel(info.getWebsiteUrl()).length();
+                    }
+                }
+                parsed++;
+            }
+        }
+        durations.put("parse", seconds(System.nanoTime() - start));
+        logger.debug("样例页面解析预热完成，标签字符数 {}", labels);
+        return parsed;
+    }
+
+    /**
+     * 执行若干次 Prometheus 指标抓取（结果丢弃）
+     */
+    private int warmupMetrics(long deadline) {
+        PrometheusMeterRegistry registry = prometheusRegistry.getIfAvailable();
+        if (registry == null) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        long budgetEnd = Math.min(deadline, start + TimeUnit.MILLISECONDS.toNanos(METRICS_BUDGET_MILLIS));
+        int iterations = Math.max(1, config.getParseIterations() / 20);
+        int scrapes = 0;
+        while (scrapes < iterations && System.nanoTime() < budgetEnd) {
+            registry.scrape();
+            scrapes++;
+        }
+        durations.put("metrics", seconds(System.nanoTime() - start));
+        return scrapes;
+    }
+
+    private static List<String> samplePages() {
+        List<String> pages = new ArrayList<>(SAMPLE_PAGES.length);
+        for (String name : SAMPLE_PAGES) {
+            try (InputStream in = new ClassPathResource(name).getInputStream()) {
+                pages.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                logger.warn("读取预热样例页面 {} 失败: {}", name, e.getMessage());
+            }
+        }
+        return pages;
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+}
@@ -0,0 +1,24 @@
+package io.devops.beian.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基准程序的 key=value 命令行参数
+ */
+final class Args {
+
+    private Args() {
+    }
+
+    static Map<String, String> parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                values.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        return values;
+    }
+}
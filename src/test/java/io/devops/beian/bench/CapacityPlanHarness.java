@@ -0,0 +1,113 @@
+package io.devops.beian.bench;
+
+import io.devops.beian.BeianExporterApplication;
+import io.devops.beian.service.BeianScheduler;
+import io.devops.beian.service.CapacityPlanner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * 检查容量估算验证
+ * 在进程内启动上游模拟器与应用，域名均分到若干分组。首轮检查积累请求耗时与错误率观测，等待一分钟限流窗口过去后
+ * 读取估算结果，再触发一轮检查，逐分组比较预计耗时与实际耗时。
+ *
+ * 运行：mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *         -Dexec.mainClass=io.devops.beian.bench.CapacityPlanHarness -Dexec.args="domains=600 shares=4,1 rpm=1200"
+ *
+ * 参数（key=value）：domains、shares（各分组预算权重，逗号分隔）、rpm（每分钟请求上限）、burst（并发上限）、
+ * retries、jitter-ms（随机延迟上限），其余参数传给 UpstreamSimulator（如 latency-p50、5xx-rate）
+ */
+public class CapacityPlanHarness {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Args.parse(args);
+        int domains = Integer.parseInt(options.getOrDefault("domains", "600"));
+        String[] shares = options.getOrDefault("shares", "4,1").split(",");
+        String rpm = options.getOrDefault("rpm", "1200");
+        int burst = Integer.parseInt(options.getOrDefault("burst", "8"));
+        String retries = options.getOrDefault("retries", "2");
+        String jitter = options.getOrDefault("jitter-ms", "0");
+
+        UpstreamSimulator simulator = new UpstreamSimulator(UpstreamSimulator.Profile.parse(options));
+        simulator.start();
+
+        Map<String, Object> properties = SweepLoadHarness.applicationProperties(simulator.baseUrl(), domains, burst,
+                retries);
+        properties.put("beian.domains", "");
+        properties.put("beian.rate-limit.max-requests-per-minute", rpm);
+        properties.put("beian.upstream.max-jitter-ms", jitter);
+        for (int g = 0; g < shares.length; g++) {
+            StringJoiner groupDomains = new StringJoiner(",");
+            for (int i = g; i < domains; i += shares.length) {
+                groupDomains.add("load-" + i + ".com.cn");
+            }
+            properties.put("beian.groups.g" + g + ".domains", groupDomains.toString());
+            properties.put("beian.groups.g" + g + ".share", shares[g].trim());
+            properties.put("beian.groups.g" + g + ".retry-backoff", 1);
+        }
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("capacity-plan-harness", properties));
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BeianExporterApplication.class)
+                .web(WebApplicationType.NONE)
+                .environment(environment)
+                .run()) {
+            BeianScheduler scheduler = context.getBean(BeianScheduler.class);
+            CapacityPlanner planner = context.getBean(CapacityPlanner.class);
+            System.out.printf("验证开始: %d 个域名, 分组权重 %s, 每分钟上限 %s, 并发 %d, 模拟器: %s%n",
+                    domains, String.join(",", shares), rpm, burst, UpstreamSimulator.Profile.parse(options));
+
+            Map<String, Object> before = planner.evaluate();
+            System.out.printf("首轮前估算（假定值）: %s%n", before);
+            while (!scheduler.isRunning()) {
+                Thread.sleep(20);
+            }
+            while (scheduler.isRunning()) {
+                Thread.sleep(50);
+            }
+            // 首轮请求落在限流窗口内，等窗口过去后再开始比较
+            Thread.sleep(60_000);
+
+            Map<String, Object> plan = planner.evaluate();
+            System.out.printf("估算: %s%n", plan);
+
+            long start = System.nanoTime();
+            scheduler.triggerCheck();
+            Map<String, Double> actual = waitForGroups(scheduler, shares.length, start);
+            @SuppressWarnings("unchecked")
+            Map<String, Map<String, Object>> groups = (Map<String, Map<String, Object>>) plan.get("groups");
+            for (Map.Entry<String, Double> entry : actual.entrySet()) {
+                Object predicted = groups.get(entry.getKey()).get("durationSeconds");
+                System.out.printf("分组 %s: 预计 %s s, 实际 %.1f s%n", entry.getKey(), predicted, entry.getValue());
+            }
+            System.out.printf("模拟器: 共 %d 次请求%n", simulator.requestCount());
+        } finally {
+            simulator.stop();
+        }
+    }
+
+    /**
+     * 等待各分组检查结束，返回各分组从 start 起的耗时（秒）
+     */
+    private static Map<String, Double> waitForGroups(BeianScheduler scheduler, int groups, long start)
+            throws InterruptedException {
+        Map<String, Double> durations = new LinkedHashMap<>();
+        while (durations.size() < groups) {
+            for (int g = 0; g < groups; g++) {
+                String name = "g" + g;
+                if (!durations.containsKey(name) && !scheduler.isRunning(name)) {
+                    durations.put(name, (System.nanoTime() - start) / 1e9);
+                }
+            }
+            Thread.sleep(10);
+        }
+        return durations;
+    }
+}
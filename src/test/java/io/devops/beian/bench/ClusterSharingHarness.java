@@ -0,0 +1,134 @@
+package io.devops.beian.bench;
+
+import io.devops.beian.BeianExporterApplication;
+import io.devops.beian.service.BeianResultStore;
+import io.devops.beian.service.BeianScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * 多副本结果共享验证
+ * 在进程内启动上游模拟器和 N 个启用 beian.cluster 的应用实例（各自监听本地端口、互为静态成员），
+ * 各实例监控部分重叠的域名列表。预热结束并等待共享结果过期后，同时触发所有实例检查一轮，
+ * 统计该轮上游请求数：共享生效时应等于不同域名数，而不是各实例域名数之和。
+ *
+ * 运行：mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *         -Dexec.mainClass=io.devops.beian.bench.ClusterSharingHarness -Dexec.args="instances=3 domains=600 overlap=0.8"
+ *
+ * 参数（key=value）：instances、domains（每个实例的域名数）、overlap（相邻实例域名重叠比例）、
+ * base-port（第一个实例的端口）、ttl（共享结果有效期，秒，需大于一轮检查耗时）、concurrency、
+ * cluster（false 时关闭共享作为对照），其余参数传给 UpstreamSimulator
+ */
+public class ClusterSharingHarness {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Args.parse(args);
+        int instances = Integer.parseInt(options.getOrDefault("instances", "3"));
+        int domains = Integer.parseInt(options.getOrDefault("domains", "600"));
+        double overlap = Double.parseDouble(options.getOrDefault("overlap", "0.8"));
+        int basePort = Integer.parseInt(options.getOrDefault("base-port", "18100"));
+        int ttl = Integer.parseInt(options.getOrDefault("ttl", "30"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        boolean cluster = Boolean.parseBoolean(options.getOrDefault("cluster", "true"));
+
+        UpstreamSimulator simulator = new UpstreamSimulator(UpstreamSimulator.Profile.parse(options));
+        simulator.start();
+
+        int shift = (int) Math.round(domains * (1 - overlap));
+        int uniqueDomains = domains + (instances - 1) * shift;
+        StringJoiner peers = new StringJoiner(",");
+        for (int i = 0; i < instances; i++) {
+            peers.add("http://127.0.0.1:" + (basePort + i));
+        }
+
+        List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+        try {
+            for (int i = 0; i < instances; i++) {
+                Map<String, Object> properties = SweepLoadHarness.applicationProperties(
+                        simulator.baseUrl(), 0, concurrency, "1");
+                StringJoiner domainList = new StringJoiner(",");
+                for (int d = i * shift; d < i * shift + domains; d++) {
+                    domainList.add("load-" + d + ".com.cn");
+                }
+                properties.put("beian.domains", domainList.toString());
+                properties.put("beian.rate-limit.max-requests-per-minute", Integer.MAX_VALUE);
+                properties.put("server.port", basePort + i);
+                properties.put("beian.cluster.enabled", cluster);
+                properties.put("beian.cluster.peers", peers.toString());
+                properties.put("beian.cluster.result-ttl", ttl);
+                properties.put("beian.cluster.token", "cluster-sharing-harness");
+
+                StandardEnvironment environment = new StandardEnvironment();
+                environment.getPropertySources().addFirst(new MapPropertySource("cluster-sharing-harness", properties));
+                contexts.add(new SpringApplicationBuilder(BeianExporterApplication.class)
+                        .web(WebApplicationType.SERVLET)
+                        .environment(environment)
+                        .run());
+            }
+
+            System.out.printf("验证开始: %d 个实例, 每个 %d 个域名, 重叠 %.0f%%, 不同域名 %d 个, 结果共享 %s%n",
+                    instances, domains, overlap * 100, uniqueDomains, cluster ? "开启" : "关闭");
+
+            // 启动时自动执行的首轮检查作为预热，之后等待共享结果全部过期
+            for (ConfigurableApplicationContext context : contexts) {
+                awaitSweep(context, true);
+            }
+            System.out.printf("预热完成, 上游请求 %d 次, 等待 %d 秒使共享结果过期%n", simulator.requestCount(), ttl);
+            Thread.sleep(ttl * 1000L + 500);
+
+            long requestsBefore = simulator.requestCount();
+            long start = System.nanoTime();
+            for (ConfigurableApplicationContext context : contexts) {
+                context.getBean(BeianScheduler.class).triggerCheck();
+            }
+            for (ConfigurableApplicationContext context : contexts) {
+                awaitSweep(context, false);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long requests = simulator.requestCount() - requestsBefore;
+
+            System.out.printf("一轮检查耗时 %.2f s, 各实例共查询 %d 个域名, 上游请求 %d 次 (不同域名 %d 个, %.2f 次/域名)%n",
+                    seconds, domains * instances, requests, uniqueDomains, (double) requests / uniqueDomains);
+            for (int i = 0; i < contexts.size(); i++) {
+                MeterRegistry registry = contexts.get(i).getBean(MeterRegistry.class);
+                StringJoiner sources = new StringJoiner(", ");
+                for (Counter counter : registry.find("beian_peer_lookups_total").counters()) {
+                    sources.add(counter.getId().getTag("source") + "=" + (long) counter.count());
+                }
+                StringJoiner served = new StringJoiner(", ");
+                for (Counter counter : registry.find("beian_peer_served_total").counters()) {
+                    served.add(counter.getId().getTag("result") + "=" + (long) counter.count());
+                }
+                System.out.printf("实例 %d: 结果来源 {%s}, 响应其他成员 {%s}, 已有结果 %d 个%n", i, sources, served,
+                        contexts.get(i).getBean(BeianResultStore.class).size());
+            }
+        } finally {
+            contexts.forEach(ConfigurableApplicationContext::close);
+            simulator.stop();
+        }
+    }
+
+    /**
+     * 等待一轮检查结束；startup 为 true 时先等待启动时自动触发的检查开始
+     */
+    private static void awaitSweep(ConfigurableApplicationContext context, boolean startup) throws InterruptedException {
+        BeianScheduler scheduler = context.getBean(BeianScheduler.class);
+        BeianResultStore resultStore = context.getBean(BeianResultStore.class);
+        while (startup && !scheduler.isRunning() && resultStore.size() == 0) {
+            Thread.sleep(20);
+        }
+        while (scheduler.isRunning()) {
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package io.devops.beian.bench;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地 DNS 服务器替身
+ * 在 UDP 端口上应答 A 查询：任何主机名都解析为 127.0.0.1，TTL 固定；AAAA 等其他类型返回空应答。
+ * 可按比例返回 SERVFAIL 或完全停止应答，以验证解析缓存的后台刷新与沿用过期结果。
+ *
+ * 独立运行：mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *         -Dexec.mainClass=io.devops.beian.bench.DnsStubServer -Dexec.args="port=15353 ttl=5"
+ * 然后配置 beian.dns.name-servers: [127.0.0.1:15353]
+ */
+public class DnsStubServer {
+
+    private static final byte[] LOOPBACK = {127, 0, 0, 1};
+
+    private final DatagramSocket socket;
+    private final int ttl;
+    private volatile double failRate;
+    private volatile boolean down;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public DnsStubServer(int port, int ttl, double failRate) throws SocketException {
+        this.socket = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        this.ttl = ttl;
+        this.failRate = failRate;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Args.parse(args);
+        DnsStubServer server = new DnsStubServer(
+                Integer.parseInt(options.getOrDefault("port", "15353")),
+                Integer.parseInt(options.getOrDefault("ttl", "5")),
+                Double.parseDouble(options.getOrDefault("fail-rate", "0")));
+        server.start();
+        System.out.println("DNS 替身已启动: " + server.address());
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.println(server.summary());
+        }
+    }
+
+    public void start() {
+        Thread thread = new Thread(this::serve, "dns-stub");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        socket.close();
+    }
+
+    /**
+     * 供 beian.dns.name-servers 使用的地址
+     */
+    public String address() {
+        return "127.0.0.1:" + socket.getLocalPort();
+    }
+
+    public void setFailRate(double failRate) {
+        this.failRate = failRate;
+    }
+
+    /**
+     * 停止应答（模拟 DNS 服务器不可达，查询超时）
+     */
+    public void setDown(boolean down) {
+        this.down = down;
+    }
+
+    public long queryCount() {
+        return queries.sum();
+    }
+
+    public String summary() {
+        return String.format("DNS 替身: 收到 %d 次查询, 其中 %d 次失败或未应答", queries.sum(), failed.sum());
+    }
+
+    private void serve() {
+        byte[] buffer = new byte[512];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                queries.increment();
+                if (down) {
+                    failed.increment();
+                    continue;
+                }
+                boolean fail = failRate > 0 && ThreadLocalRandom.current().nextDouble() < failRate;
+                if (fail) {
+                    failed.increment();
+                }
+                byte[] response = answer(packet.getData(), fail);
+                socket.send(new DatagramPacket(response, response.length, packet.getSocketAddress()));
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    System.err.println("DNS 替身处理查询失败: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 按查询构造应答：复制报文头与问题，A 查询附加一条指向 127.0.0.1 的记录
+     */
+    private byte[] answer(byte[] query, boolean fail) {
+        // 问题部分从第 12 字节开始：若干长度前缀的标签，以 0 结尾，随后是类型与类别
+        int position = 12;
+        while (query[position] != 0) {
+            position += (query[position] & 0xFF) + 1;
+        }
+        int questionEnd = position + 5;
+        int type = ((query[position + 1] & 0xFF) << 8) | (query[position + 2] & 0xFF);
+        boolean answered = !fail && type == 1;
+
+        ByteBuffer response = ByteBuffer.allocate(questionEnd + (answered ? 16 : 0));
+        response.putShort(0, (short) (((query[0] & 0xFF) << 8) | (query[1] & 0xFF)));
+        // QR=1, RD=1, RA=1, RCODE=0 或 2 (SERVFAIL)
+        response.putShort(2, (short) (fail ? 0x8182 : 0x8180));
+        response.putShort(4, (short) 1);
+        response.putShort(6, (short) (answered ? 1 : 0));
+        response.put(12, query, 12, questionEnd - 12);
+        if (answered) {
+            response.position(questionEnd);
+            // 名称压缩指针指向问题中的主机名
+            response.putShort((short) 0xC00C);
+            response.putShort((short) 1);
+            response.putShort((short) 1);
+            response.putInt(ttl);
+            response.putShort((short) 4);
+            response.put(LOOPBACK);
+        }
+        return response.array();
+    }
+}
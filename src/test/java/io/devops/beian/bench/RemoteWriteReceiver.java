@@ -0,0 +1,194 @@
+package io.devops.beian.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.iq80.snappy.Snappy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地 Remote Write 接收端替身
+ * 在 /api/v1/write 接收 snappy 压缩的 WriteRequest，解码后统计请求数、样本数、压缩前后字节数与各指标的序列数，
+ * 可按比例返回 503 以验证重试与失败后保留样本。
+ *
+ * 独立运行：mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *         -Dexec.mainClass=io.devops.beian.bench.RemoteWriteReceiver -Dexec.args="port=19090 fail-rate=0.2"
+ * 然后将 beian.remote-write.url 指向 http://localhost:19090/api/v1/write
+ */
+public class RemoteWriteReceiver {
+
+    private static final String WRITE_PATH = "/api/v1/write";
+
+    private final HttpServer server;
+    private final double failRate;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    // 指标名 -> 收到的样本数
+    private final Map<String, LongAdder> samplesByName = new ConcurrentHashMap<>();
+
+    public RemoteWriteReceiver(int port, double failRate) throws IOException {
+        this.failRate = failRate;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 64);
+        server.setExecutor(Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "remote-write-receiver");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext(WRITE_PATH, this::handle);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Args.parse(args);
+        RemoteWriteReceiver receiver = new RemoteWriteReceiver(
+                Integer.parseInt(options.getOrDefault("port", "19090")),
+                Double.parseDouble(options.getOrDefault("fail-rate", "0")));
+        receiver.start();
+        System.out.println("Remote Write 接收端已启动: " + receiver.url());
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.println(receiver.summary());
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * 供 beian.remote-write.url 使用的地址
+     */
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + WRITE_PATH;
+    }
+
+    public long sampleCount() {
+        return samples.sum();
+    }
+
+    public String summary() {
+        StringBuilder summary = new StringBuilder(String.format(
+                "接收端: 请求 %d 次 (返回 503 %d 次), 样本 %d 个, 压缩后 %.1f KB (压缩前 %.1f KB)",
+                requests.sum(), failed.sum(), samples.sum(), compressedBytes.sum() / 1024.0, rawBytes.sum() / 1024.0));
+        samplesByName.forEach((name, count) -> summary.append(String.format("%n  %s: %d", name, count.sum())));
+        return summary.toString();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.increment();
+            if (failRate > 0 && ThreadLocalRandom.current().nextDouble() < failRate) {
+                failed.increment();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            if (!"snappy".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+
+            byte[] compressed = exchange.getRequestBody().readAllBytes();
+            byte[] raw = Snappy.uncompress(compressed, 0, compressed.length);
+            compressedBytes.add(compressed.length);
+            rawBytes.add(raw.length);
+            decodeWriteRequest(raw);
+            exchange.sendResponseHeaders(204, -1);
+        }
+    }
+
+    /**
+     * 解码 WriteRequest，只统计样本数与 __name__
+     */
+    private void decodeWriteRequest(byte[] data) {
+        ProtoReader request = new ProtoReader(data, 0, data.length);
+        while (request.hasMore()) {
+            int tag = (int) request.varint();
+            if (tag >>> 3 != 1) {
+                request.skip(tag);
+                continue;
+            }
+            int length = (int) request.varint();
+            ProtoReader series = new ProtoReader(data, request.position, request.position + length);
+            request.position += length;
+
+            String name = "";
+            int seriesSamples = 0;
+            while (series.hasMore()) {
+                int field = (int) series.varint();
+                int fieldLength = (int) series.varint();
+                if (field >>> 3 == 1) {
+                    ProtoReader label = new ProtoReader(data, series.position, series.position + fieldLength);
+                    String key = label.string();
+                    String value = label.string();
+                    if ("__name__".equals(key)) {
+                        name = value;
+                    }
+                } else if (field >>> 3 == 2) {
+                    seriesSamples++;
+                }
+                series.position += fieldLength;
+            }
+            samples.add(seriesSamples);
+            samplesByName.computeIfAbsent(name, n -> new LongAdder()).add(seriesSamples);
+        }
+    }
+
+    private static final class ProtoReader {
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        ProtoReader(byte[] data, int offset, int limit) {
+            this.data = data;
+            this.position = offset;
+            this.limit = limit;
+        }
+
+        boolean hasMore() {
+            return position < limit;
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        String string() {
+            varint();
+            int length = (int) varint();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        void skip(int tag) {
+            switch (tag & 7) {
+                case 0 -> varint();
+                case 1 -> position += 8;
+                case 2 -> position += (int) varint();
+                case 5 -> position += 4;
+                default -> throw new IllegalArgumentException("不支持的字段类型: " + (tag & 7));
+            }
+        }
+    }
+}
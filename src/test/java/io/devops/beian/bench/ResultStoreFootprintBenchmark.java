@@ -0,0 +1,125 @@
+package io.devops.beian.bench;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianInfo;
+import io.devops.beian.model.BeianResult;
+import io.devops.beian.service.BeianResultStore;
+import io.devops.beian.service.DomainGroupRegistry;
+import io.devops.beian.service.DomainNormalizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 结果存储堆占用基准
+ * 生成具有真实重复度的合成结果（少量主办单位、两种单位性质、有限的审核日期），
+ * 分别以原始 BeianResult、BeianResultStore 紧凑形式与 mapped 定长记录表保存，报告每 10 万域名的堆占用
+ * （mapped 模式另报告堆外记录表大小）。
+ *
+ * 运行：mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *         -Dexec.mainClass=io.devops.beian.bench.ResultStoreFootprintBenchmark [-Dexec.args=100000]
+ */
+public class ResultStoreFootprintBenchmark {
+
+    private static final String[] COMPANY_TYPES = {"企业", "个人"};
+
+    public static void main(String[] args) throws Exception {
+        int domains = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int companies = Math.max(1, domains / 50);
+
+        long baseline = usedHeap();
+        Map<String, BeianResult> plain = new ConcurrentHashMap<>();
+        fill(domains, companies, plain::put);
+        long plainBytes = usedHeap() - baseline;
+        report("BeianResult (原始)", plainBytes, domains);
+        plain.clear();
+        plain = null;
+
+        List<String> names = new ArrayList<>(domains);
+        for (int i = 0; i < domains; i++) {
+            names.add("domain-" + i + ".com.cn");
+        }
+
+        long compactBytes = measureStore("heap", names, companies);
+        System.out.printf("节省: %.1f%%%n", 100.0 * (plainBytes - compactBytes) / plainBytes);
+        measureStore("mapped", names, companies);
+        System.out.printf("堆外记录表: %.1f MB%n", (domains + 1024) * 320 / 1048576.0);
+    }
+
+    /**
+     * 测量指定存储方式的堆占用；配置与分组在基线之前创建，不计入结果
+     */
+    private static long measureStore(String mode, List<String> names, int companies) throws InterruptedException {
+        BeianProperties properties = properties(names, mode);
+        DomainGroupRegistry groups = groups(properties);
+        long baseline = usedHeap();
+        BeianResultStore store = new BeianResultStore(properties, groups, new SimpleMeterRegistry());
+        fill(names.size(), companies, store::put);
+        long bytes = usedHeap() - baseline;
+        report("BeianResultStore (" + mode + ")", bytes, names.size());
+        // 保持引用直到测量结束
+        System.out.println("校验: " + store.size() + " 个域名, " + groups.allDomains().size() + " 个配置域名");
+        return bytes;
+    }
+
+    private static BeianProperties properties(List<String> domains, String mode) {
+        BeianProperties properties = new BeianProperties();
+        properties.setDomains(domains);
+        properties.getNormalization().setEnabled(false);
+        properties.getStore().setMode(mode);
+        return properties;
+    }
+
+    private static DomainGroupRegistry groups(BeianProperties properties) {
+        return new DomainGroupRegistry(properties, new DomainNormalizer(properties, new DefaultResourceLoader()));
+    }
+
+    /**
+     * 模拟解析结果：每次解析都会产生新的字符串实例
+     */
+    private static void fill(int domains, int companies, ResultSink sink) {
+        Random random = new Random(42);
+        for (int i = 0; i < domains; i++) {
+            String domain = "domain-" + i + ".com.cn";
+            if (i % 10 == 0) {
+                sink.put(domain, BeianResult.notFound(new String("该域名未备案")));
+                continue;
+            }
+            int company = random.nextInt(companies);
+            List<BeianInfo> data = new ArrayList<>();
+            data.add(new BeianInfo(
+                    new String("1"),
+                    new String("示例科技有限公司" + company),
+                    new String(COMPANY_TYPES[company % 2]),
+                    "京ICP备" + (10000000 + company) + "号-" + (i % 50 + 1),
+                    "示例网站" + i,
+                    "www." + domain,
+                    String.format("20%02d-%02d-%02d", 10 + random.nextInt(14), 1 + random.nextInt(12), 1 + random.nextInt(28))));
+            sink.put(domain, BeianResult.success(data));
+        }
+    }
+
+    private static void report(String label, long bytes, int domains) {
+        System.out.printf("%-24s %8.1f MB, %6.0f 字节/域名, 每10万域名 %.1f MB%n",
+                label, bytes / 1048576.0, (double) bytes / domains, bytes * (100_000.0 / domains) / 1048576.0);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @FunctionalInterface
+    private interface ResultSink {
+        void put(String domain, BeianResult result);
+    }
+}
\ No newline at end of file
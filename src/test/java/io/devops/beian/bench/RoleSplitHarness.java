@@ -0,0 +1,219 @@
+package io.devops.beian.bench;
+
+import io.devops.beian.BeianExporterApplication;
+import io.devops.beian.model.BeianResult;
+import io.devops.beian.service.BeianResultStore;
+import io.devops.beian.service.BeianScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * worker / exporter 角色拆分验证
+ * 在进程内启动上游模拟器、一个 worker 和 N 个 exporter（共享临时结果日志目录）。worker 完成首轮检查后启动 exporter，
+ * 报告 exporter 读完结果日志（就绪前）的耗时；之后 worker 每检查一轮，报告 exporter 跟上的延迟，
+ * 结束时逐域名比对 worker 与各 exporter 的结果状态，并比较两种角色一次指标抓取的大小。
+ * 分段较小时会触发多次压缩，最后再启动一个 exporter 验证只读保留分段也能恢复全部结果。
+ * 各 exporter 的未备案错误计数应等于读到的检查轮数 × 未备案域名数（压缩复制的记录不重复计数）。
+ *
+ * 运行：mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *         -Dexec.mainClass=io.devops.beian.bench.RoleSplitHarness -Dexec.args="domains=5000 exporters=2"
+ *
+ * 参数（key=value）：domains、exporters、sweeps、concurrency、segment-bytes（结果日志分段大小）、
+ * segments（保留分段数）、poll-ms（exporter 读取间隔）、skip-unchanged（为 false 时每轮都写入完整结果，更容易触发压缩），
+ * 其余参数传给 UpstreamSimulator
+ */
+public class RoleSplitHarness {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Args.parse(args);
+        int domains = Integer.parseInt(options.getOrDefault("domains", "5000"));
+        int exporters = Integer.parseInt(options.getOrDefault("exporters", "2"));
+        int sweeps = Integer.parseInt(options.getOrDefault("sweeps", "3"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        String segmentBytes = options.getOrDefault("segment-bytes", "262144");
+        String segments = options.getOrDefault("segments", "4");
+        String pollMs = options.getOrDefault("poll-ms", "200");
+        String skipUnchanged = options.getOrDefault("skip-unchanged", "true");
+
+        UpstreamSimulator simulator = new UpstreamSimulator(UpstreamSimulator.Profile.parse(options));
+        simulator.start();
+        Path directory = Files.createTempDirectory("beian-result-log");
+
+        List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+        try {
+            Map<String, Object> common = SweepLoadHarness.applicationProperties(simulator.baseUrl(), domains,
+                    concurrency, "1");
+            common.put("beian.rate-limit.max-requests-per-minute", Integer.MAX_VALUE);
+            common.put("beian.result-log.enabled", true);
+            common.put("beian.result-log.directory", directory.toString());
+            common.put("beian.result-log.max-segment-bytes", segmentBytes);
+            common.put("beian.result-log.max-segments", segments);
+            common.put("beian.result-log.poll-interval-ms", pollMs);
+            common.put("beian.upstream.skip-unchanged", skipUnchanged);
+
+            ConfigurableApplicationContext worker = start(common, "worker");
+            contexts.add(worker);
+            BeianScheduler scheduler = worker.getBean(BeianScheduler.class);
+            BeianResultStore workerStore = worker.getBean(BeianResultStore.class);
+            System.out.printf("验证开始: %d 个域名, %d 个 exporter, 结果日志 %s (分段 %s 字节, 保留 %s 个)%n",
+                    domains, exporters, directory, segmentBytes, segments);
+
+            long start = System.nanoTime();
+            while (!scheduler.isRunning() && workerStore.size() == 0) {
+                Thread.sleep(20);
+            }
+            while (scheduler.isRunning()) {
+                Thread.sleep(50);
+            }
+            System.out.printf("worker 首轮检查耗时 %.2f s%n", (System.nanoTime() - start) / 1e9);
+
+            List<ConfigurableApplicationContext> exporterContexts = new ArrayList<>();
+            for (int i = 0; i < exporters; i++) {
+                start = System.nanoTime();
+                ConfigurableApplicationContext exporter = start(common, "exporter");
+                contexts.add(exporter);
+                exporterContexts.add(exporter);
+                System.out.printf("exporter %d 就绪耗时 %.2f s, 已有结果 %d 个%n", i, (System.nanoTime() - start) / 1e9,
+                        exporter.getBean(BeianResultStore.class).size());
+            }
+
+            for (int sweep = 1; sweep <= sweeps; sweep++) {
+                double[] appliedBefore = new double[exporters];
+                for (int i = 0; i < exporters; i++) {
+                    appliedBefore[i] = applied(exporterContexts.get(i));
+                }
+                double writtenBefore = written(worker);
+                start = System.nanoTime();
+                scheduler.triggerCheck();
+                while (scheduler.isRunning()) {
+                    Thread.sleep(20);
+                }
+                long sweepDone = System.nanoTime();
+                double written = written(worker) - writtenBefore;
+                StringBuilder lags = new StringBuilder();
+                for (int i = 0; i < exporters; i++) {
+                    // 压缩复制的记录也会被 exporter 读取，至少应读到本轮写入的记录数；
+                    // exporter 落后于分段删除时未变化记录会丢失，最多等待 30 秒
+                    long deadline = sweepDone + 30_000_000_000L;
+                    while (applied(exporterContexts.get(i)) - appliedBefore[i] < written
+                            && System.nanoTime() < deadline) {
+                        Thread.sleep(5);
+                    }
+                    lags.append(String.format(" exporter %d 延迟 %.0f ms;", i, (System.nanoTime() - sweepDone) / 1e6));
+                }
+                System.out.printf("第 %d 轮: worker 检查耗时 %.2f s, 写入 %.0f 条记录;%s%n", sweep,
+                        (sweepDone - start) / 1e9, written, lags);
+            }
+
+            long notFound = 0;
+            for (int i = 0; i < domains; i++) {
+                if (workerStore.status("load-" + i + ".com.cn") == BeianResult.Status.NOT_FOUND) {
+                    notFound++;
+                }
+            }
+            for (int i = 0; i < exporters; i++) {
+                System.out.printf("exporter %d: %s, 未备案计数 %.0f (应为 %d)%n", i,
+                        compare(workerStore, exporterContexts.get(i), domains),
+                        notFoundCount(exporterContexts.get(i)), (sweeps + 1) * notFound);
+            }
+            MeterRegistry workerRegistry = worker.getBean(MeterRegistry.class);
+            for (Counter counter : workerRegistry.find("beian_result_log_written_total").counters()) {
+                System.out.printf("结果日志写入 %s: %.0f 条%n", counter.getId().getTag("type"), counter.count());
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                System.out.printf("保留分段 %d 个%n", files.count());
+            }
+
+            start = System.nanoTime();
+            ConfigurableApplicationContext late = start(common, "exporter");
+            contexts.add(late);
+            System.out.printf("新 exporter 就绪耗时 %.2f s: %s%n", (System.nanoTime() - start) / 1e9,
+                    compare(workerStore, late, domains));
+
+            System.out.printf("指标抓取: worker %s, exporter %s%n", scrape(worker), scrape(exporterContexts.get(0)));
+            System.out.printf("模拟器: 共 %d 次请求%n", simulator.requestCount());
+        } finally {
+            contexts.forEach(ConfigurableApplicationContext::close);
+            simulator.stop();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(Map<String, Object> common, String role) {
+        StandardEnvironment environment = new StandardEnvironment();
+        Map<String, Object> properties = new HashMap<>(common);
+        properties.put("beian.role", role);
+        environment.getPropertySources().addFirst(new MapPropertySource("role-split-test-" + role, properties));
+        return new SpringApplicationBuilder(BeianExporterApplication.class)
+                .web(WebApplicationType.NONE)
+                .environment(environment)
+                .run();
+    }
+
+    private static double applied(ConfigurableApplicationContext context) {
+        return context.getBean(MeterRegistry.class).get("beian_result_log_applied_total").counter().count();
+    }
+
+    private static double notFoundCount(ConfigurableApplicationContext context) {
+        double total = 0;
+        for (Counter counter : context.getBean(MeterRegistry.class).find("beian_check_errors_total")
+                .tag("error_type", "not_found").counters()) {
+            total += counter.count();
+        }
+        return total;
+    }
+
+    private static double written(ConfigurableApplicationContext context) {
+        double total = 0;
+        for (Counter counter : context.getBean(MeterRegistry.class).find("beian_result_log_written_total").counters()) {
+            if (!"compacted".equals(counter.getId().getTag("type"))) {
+                total += counter.count();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 逐域名比对结果状态
+     */
+    private static String compare(BeianResultStore workerStore, ConfigurableApplicationContext exporter, int domains) {
+        BeianResultStore exporterStore = exporter.getBean(BeianResultStore.class);
+        int mismatched = 0;
+        for (int i = 0; i < domains; i++) {
+            String domain = "load-" + i + ".com.cn";
+            if (!Objects.equals(workerStore.status(domain), exporterStore.status(domain))) {
+                mismatched++;
+            }
+        }
+        return String.format("已有结果 %d 个, 与 worker 状态不一致 %d 个", exporterStore.size(), mismatched);
+    }
+
+    private static String scrape(ConfigurableApplicationContext context) {
+        PrometheusMeterRegistry prometheus = context.getBeanProvider(PrometheusMeterRegistry.class).getIfAvailable();
+        if (prometheus == null) {
+            return "未启用";
+        }
+        String scraped = prometheus.scrape();
+        return String.format("%d 行 %.1f KB", scraped.lines().count(), scraped.length() / 1024.0);
+    }
+}
@@ -0,0 +1,85 @@
+package io.devops.beian.bench;
+
+import io.devops.beian.model.BeianInfo;
+import io.devops.beian.model.BeianResult;
+import io.devops.beian.service.ResultSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * 搜索索引基准
+ * 以合成的备案结果（城市 + 字号 + 行业 + 组织形式组成的主办单位名称）建立索引，
+ * 报告建索引耗时与各类查询的耗时分位数和命中数。
+ *
+ * 运行：mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *         -Dexec.mainClass=io.devops.beian.bench.SearchIndexBenchmark [-Dexec.args=100000]
+ */
+public class SearchIndexBenchmark {
+
+    private static final String[] CITIES = {"北京", "上海", "广州", "深圳", "杭州", "成都", "武汉", "南京", "西安", "苏州"};
+    private static final String[] NAMES = {"星辰", "云帆", "华信", "远景", "创新", "博远", "智联", "优品", "蓝海", "天成",
+            "鼎盛", "新航", "卓越", "嘉禾", "恒通", "锦程", "明德", "瑞丰", "宏图", "启明"};
+    private static final String[] INDUSTRIES = {"科技", "网络", "信息技术", "文化传媒", "电子商务", "教育咨询", "软件"};
+    private static final String[] FORMS = {"有限公司", "股份有限公司", "工作室"};
+    private static final String[] PROVINCES = {"京", "沪", "粤", "浙", "川", "鄂", "苏", "陕"};
+    private static final int QUERIES = 2000;
+
+    public static void main(String[] args) {
+        int domains = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int companies = Math.max(1, domains / 5);
+        Random random = new Random(42);
+
+        String[] companyNames = new String[companies];
+        for (int c = 0; c < companies; c++) {
+            companyNames[c] = CITIES[random.nextInt(CITIES.length)] + NAMES[random.nextInt(NAMES.length)]
+                    + NAMES[random.nextInt(NAMES.length)] + INDUSTRIES[random.nextInt(INDUSTRIES.length)]
+                    + FORMS[random.nextInt(FORMS.length)];
+        }
+
+        ResultSearchIndex index = new ResultSearchIndex(new SimpleMeterRegistry());
+        long start = System.nanoTime();
+        for (int i = 0; i < domains; i++) {
+            int company = random.nextInt(companies);
+            BeianInfo info = new BeianInfo("1", companyNames[company], company % 3 == 0 ? "个人" : "企业",
+                    PROVINCES[company % PROVINCES.length] + "ICP备" + (10_000_000 + company) + "号-" + (1 + i % 5),
+                    NAMES[i % NAMES.length] + "网站" + i, "www.domain-" + i + ".com.cn",
+                    String.format("20%02d-%02d-%02d", 10 + random.nextInt(14), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+            index.update("domain-" + i + ".com.cn", BeianResult.success(List.of(info)));
+        }
+        System.out.printf("建立索引: %d 个域名, %d 个主办单位, 耗时 %.1f ms%n",
+                index.size(), companies, (System.nanoTime() - start) / 1e6);
+
+        measure(index, "主办单位全称", q -> new ResultSearchIndex.Query().company(companyNames[q % companies], false));
+        measure(index, "主办单位子串(4字)", q -> new ResultSearchIndex.Query()
+                .company(NAMES[q % NAMES.length] + NAMES[(q / NAMES.length) % NAMES.length], false));
+        measure(index, "主办单位前缀", q -> new ResultSearchIndex.Query()
+                .company(CITIES[q % CITIES.length] + NAMES[(q / CITIES.length) % NAMES.length], true));
+        measure(index, "备案号前缀", q -> new ResultSearchIndex.Query()
+                .beianNumberPrefix(PROVINCES[q % PROVINCES.length] + "ICP备" + (10_000_000 + q * 7 % companies) / 10));
+        measure(index, "审核日期(一周)+性质", q -> new ResultSearchIndex.Query()
+                .approvedBetween(20200101 + q % 12 * 100, 20200107 + q % 12 * 100).companyType("个人"));
+    }
+
+    private static void measure(ResultSearchIndex index, String label, IntFunction<ResultSearchIndex.Query> queries) {
+        long[] nanos = new long[QUERIES];
+        long hits = 0;
+        // 预热
+        for (int q = 0; q < QUERIES; q++) {
+            hits += index.search(queries.apply(q)).size();
+        }
+        hits = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            long start = System.nanoTime();
+            hits += index.search(queries.apply(q)).size();
+            nanos[q] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-16s P50=%6.1fµs P99=%7.1fµs 最大=%7.1fµs 平均命中 %.1f%n", label,
+                nanos[QUERIES / 2] / 1e3, nanos[QUERIES * 99 / 100] / 1e3, nanos[QUERIES - 1] / 1e3,
+                (double) hits / QUERIES);
+    }
+}
@@ -0,0 +1,154 @@
+package io.devops.beian.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地替身出口代理（HTTP CONNECT 隧道）
+ * 出站连接绑定到指定的本地回环地址（127.0.0.2、127.0.0.3 ...），
+ * 配合 UpstreamSimulator 的 max-rps（按来源地址限流）模拟多个出口 IP。
+ *
+ * 独立运行：mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *         -Dexec.mainClass=io.devops.beian.bench.StandInProxy -Dexec.args="port=18090 source=127.0.0.2"
+ * 然后在 beian.egress.proxies 中配置 url: http://127.0.0.1:18090
+ */
+public class StandInProxy {
+
+    private static final int MAX_HEADER_BYTES = 8192;
+
+    private final ServerSocket serverSocket;
+    private final InetAddress sourceAddress;
+    private final ExecutorService workers;
+    private final LongAdder tunnels = new LongAdder();
+    private volatile boolean running = true;
+
+    public StandInProxy(int port, String sourceAddress) throws IOException {
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress("127.0.0.1", port));
+        this.sourceAddress = InetAddress.getByName(sourceAddress);
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stand-in-proxy-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Args.parse(args);
+        StandInProxy proxy = new StandInProxy(Integer.parseInt(options.getOrDefault("port", "18090")),
+                options.getOrDefault("source", "127.0.0.2"));
+        proxy.start();
+        System.out.println("替身代理已启动: " + proxy.url() + "，出站地址 " + proxy.sourceAddress.getHostAddress());
+        Thread.currentThread().join();
+    }
+
+    public void start() {
+        workers.execute(this::acceptLoop);
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // 关闭时忽略
+        }
+        workers.shutdownNow();
+    }
+
+    /**
+     * 供 beian.egress.proxies[].url 使用的代理地址
+     */
+    public String url() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    public long tunnelCount() {
+        return tunnels.sum();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket client = serverSocket.accept();
+                workers.execute(() -> handle(client));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("替身代理接受连接失败: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handle(Socket client) {
+        try (client) {
+            String header = readHeader(client.getInputStream());
+            String[] requestLine = header.split("\r\n", 2)[0].split(" ");
+            OutputStream clientOut = client.getOutputStream();
+            if (requestLine.length < 2 || !"CONNECT".equals(requestLine[0])) {
+                clientOut.write("HTTP/1.1 405 Method Not Allowed\r\nContent-Length: 0\r\n\r\n"
+                        .getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+
+            int separator = requestLine[1].lastIndexOf(':');
+            String host = requestLine[1].substring(0, separator);
+            int port = Integer.parseInt(requestLine[1].substring(separator + 1));
+            try (Socket upstream = new Socket()) {
+                upstream.bind(new InetSocketAddress(sourceAddress, 0));
+                upstream.connect(new InetSocketAddress(host, port), 5000);
+                clientOut.write("HTTP/1.1 200 Connection Established\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                clientOut.flush();
+                tunnels.increment();
+
+                workers.execute(() -> pipe(upstream, client));
+                pipe(client, upstream);
+            }
+        } catch (IOException e) {
+            // 任一端断开即结束隧道
+        }
+    }
+
+    private static String readHeader(InputStream in) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4 && header.size() < MAX_HEADER_BYTES) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("连接在请求头结束前关闭");
+            }
+            header.write(b);
+            matched = (b == '\r' && matched % 2 == 0) || (b == '\n' && matched % 2 == 1) ? matched + 1 : 0;
+        }
+        return header.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static void pipe(Socket from, Socket to) {
+        byte[] buffer = new byte[16 * 1024];
+        try {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+            to.shutdownOutput();
+        } catch (IOException e) {
+            // 任一端断开即结束
+        }
+    }
+}
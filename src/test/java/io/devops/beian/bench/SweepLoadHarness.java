@@ -0,0 +1,309 @@
+package io.devops.beian.bench;
+
+import io.devops.beian.BeianExporterApplication;
+import io.devops.beian.service.BeianResultStore;
+import io.devops.beian.service.BeianScheduler;
+import io.devops.beian.service.RemoteWriteService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量检查端到端压测
+ * 在进程内启动上游模拟器和完整的应用上下文（不启动 Web 服务器），配置 N 个合成域名，
+ * 首轮检查作为预热，之后逐轮触发检查，报告吞吐、上游请求耗时分位数、调度排队耗时与堆分配量。
+ *
+ * 运行：mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *         -Dexec.mainClass=io.devops.beian.bench.SweepLoadHarness -Dexec.args="domains=10000 concurrency=64"
+ *
+ * 参数（key=value）：domains、sweeps、concurrency、max-retries、rpm（每分钟请求上限，默认不限）、
+ * upstream（使用外部模拟器时的查询地址），
+ * proxies（经 N 个替身出口代理访问）、proxy-rpm（每个代理每分钟请求上限），
+ * groups（按逗号分隔的预算权重把域名均分为多个分组，如 groups=3,1，报告各分组完成时间），
+ * remote-write（true 时启动本地接收端并开启推送，每轮结束后推送一次，报告推送的样本数）、remote-write-fail-rate，
+ * store（heap 或 mapped，结束时报告一次指标抓取的耗时与大小以及 GC 后的堆占用），
+ * dns（true 时启动本地 DNS 替身并以主机名访问进程内模拟器，开启解析缓存）、dns-ttl、dns-fail-rate、
+ * dns-down（true 时预热后 DNS 替身停止应答，验证沿用过期解析结果），
+ * log-format（text 或 json，每轮检查输出一条汇总日志，错误日志按类别采样），
+ * 其余参数传给 UpstreamSimulator（latency-p50、latency-p99、block-page-rate、429-rate、max-rps 等）
+ */
+public class SweepLoadHarness {
+
+    // MetricsConfig 添加的公共标签，输出时省略
+    private static final Set<String> COMMON_TAGS = Set.of("application", "version");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Args.parse(args);
+        int domains = Integer.parseInt(options.getOrDefault("domains", "10000"));
+        int sweeps = Integer.parseInt(options.getOrDefault("sweeps", "2"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        String maxRetries = options.getOrDefault("max-retries", "1");
+        String rpm = options.getOrDefault("rpm", String.valueOf(Integer.MAX_VALUE));
+        int proxyCount = Integer.parseInt(options.getOrDefault("proxies", "0"));
+        String proxyRpm = options.getOrDefault("proxy-rpm", "0");
+        String[] groupShares = options.containsKey("groups") ? options.get("groups").split(",") : new String[0];
+        boolean remoteWrite = Boolean.parseBoolean(options.getOrDefault("remote-write", "false"));
+        String store = options.getOrDefault("store", "heap");
+        boolean dns = Boolean.parseBoolean(options.getOrDefault("dns", "false"));
+
+        UpstreamSimulator simulator = null;
+        String baseUrl = options.get("upstream");
+        if (baseUrl == null) {
+            simulator = new UpstreamSimulator(UpstreamSimulator.Profile.parse(options));
+            simulator.start();
+            baseUrl = simulator.baseUrl();
+        }
+
+        DnsStubServer dnsStub = null;
+        if (dns && simulator != null) {
+            dnsStub = new DnsStubServer(0, Integer.parseInt(options.getOrDefault("dns-ttl", "5")),
+                    Double.parseDouble(options.getOrDefault("dns-fail-rate", "0")));
+            dnsStub.start();
+            // 以主机名访问模拟器，每个新连接都经过解析
+            baseUrl = baseUrl.replace("127.0.0.1", "upstream.beian.test");
+        }
+
+        // 每个替身代理使用不同的出站回环地址，模拟多个出口 IP
+        List<StandInProxy> proxies = new ArrayList<>();
+        for (int i = 0; i < proxyCount; i++) {
+            StandInProxy proxy = new StandInProxy(0, "127.0.0." + (i + 2));
+            proxy.start();
+            proxies.add(proxy);
+        }
+
+        RemoteWriteReceiver receiver = null;
+        if (remoteWrite) {
+            receiver = new RemoteWriteReceiver(0,
+                    Double.parseDouble(options.getOrDefault("remote-write-fail-rate", "0")));
+            receiver.start();
+        }
+
+        // 压测配置优先级高于 application.yml
+        StandardEnvironment environment = new StandardEnvironment();
+        Map<String, Object> properties = applicationProperties(baseUrl, domains, concurrency, maxRetries);
+        properties.put("beian.rate-limit.max-requests-per-minute", rpm);
+        properties.put("beian.store.mode", store);
+        properties.put("beian.logging.format", options.getOrDefault("log-format", "text"));
+        if (dnsStub != null) {
+            properties.put("beian.dns.enabled", true);
+            properties.put("beian.dns.name-servers", dnsStub.address());
+            properties.put("beian.dns.min-ttl", 1);
+            properties.put("beian.dns.query-timeout-ms", 500);
+        }
+        if (!proxies.isEmpty()) {
+            properties.put("beian.egress.enabled", true);
+            for (int i = 0; i < proxies.size(); i++) {
+                properties.put("beian.egress.proxies[" + i + "].url", proxies.get(i).url());
+                properties.put("beian.egress.proxies[" + i + "].max-requests-per-minute", proxyRpm);
+            }
+        }
+        if (receiver != null) {
+            // 推送由压测在每轮结束后触发
+            properties.put("beian.remote-write.enabled", true);
+            properties.put("beian.remote-write.url", receiver.url());
+            properties.put("beian.remote-write.flush-interval", Integer.MAX_VALUE / 1000);
+            properties.put("beian.remote-write.buffer-capacity", domains * 4);
+        }
+        if (groupShares.length > 0) {
+            splitIntoGroups(properties, domains, groupShares);
+        }
+        environment.getPropertySources().addFirst(new MapPropertySource("sweep-load-harness", properties));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BeianExporterApplication.class)
+                .web(WebApplicationType.NONE)
+                .environment(environment)
+                .run();
+        try {
+            BeianScheduler scheduler = context.getBean(BeianScheduler.class);
+            BeianResultStore resultStore = context.getBean(BeianResultStore.class);
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+
+            System.out.printf("压测开始: %d 个域名, 并发 %d, 出口代理 %d 个, 上游 %s%n",
+                    domains, concurrency, proxies.size(), baseUrl);
+
+            // 启动时自动执行的首轮检查作为预热
+            long warmupStart = System.nanoTime();
+            while (!scheduler.isRunning() && resultStore.size() == 0) {
+                Thread.sleep(20);
+            }
+            while (scheduler.isRunning()) {
+                Thread.sleep(100);
+            }
+            report("预热", domains, System.nanoTime() - warmupStart, 0);
+            if (dnsStub != null && Boolean.parseBoolean(options.getOrDefault("dns-down", "false"))) {
+                dnsStub.setDown(true);
+                System.out.println("DNS 替身停止应答");
+            }
+
+            for (int sweep = 1; sweep <= sweeps; sweep++) {
+                double allocatedBefore = allocatedBytes(registry);
+                long start = System.nanoTime();
+                scheduler.triggerCheck();
+                long[] groupFinished = new long[groupShares.length];
+                while (scheduler.isRunning()) {
+                    for (int g = 0; g < groupShares.length; g++) {
+                        if (groupFinished[g] == 0 && !scheduler.isRunning("g" + g)) {
+                            groupFinished[g] = System.nanoTime();
+                        }
+                    }
+                    Thread.sleep(20);
+                }
+                report("第 " + sweep + " 轮", domains, System.nanoTime() - start,
+                        allocatedBytes(registry) - allocatedBefore);
+                if (receiver != null) {
+                    long samplesBefore = receiver.sampleCount();
+                    long flushStart = System.nanoTime();
+                    context.getBean(RemoteWriteService.class).flush();
+                    System.out.printf("  推送 %d 个变化样本, 耗时 %.2f s%n", receiver.sampleCount() - samplesBefore,
+                            (System.nanoTime() - flushStart) / 1e9);
+                }
+                for (int g = 0; g < groupShares.length; g++) {
+                    long finished = groupFinished[g] == 0 ? System.nanoTime() : groupFinished[g];
+                    System.out.printf("  分组 g%d (权重 %s): 耗时 %.2f s%n", g, groupShares[g], (finished - start) / 1e9);
+                }
+            }
+
+            printTimer(registry, "beian_upstream_request_seconds", "上游请求耗时");
+            printTimer(registry, "beian_dispatcher_wait_seconds", "调度排队耗时");
+            if (dnsStub != null) {
+                printTimer(registry, "beian_dns_resolve_seconds", "DNS 解析耗时");
+                for (Counter counter : registry.find("beian_dns_lookups_total").counters()) {
+                    System.out.printf("解析缓存 %s: %.0f 次%n", counter.getId().getTag("result"), counter.count());
+                }
+                for (Counter counter : registry.find("beian_dns_refresh_total").counters()) {
+                    System.out.printf("后台刷新 %s: %.0f 次%n", counter.getId().getTag("result"), counter.count());
+                }
+                System.out.println(dnsStub.summary());
+            }
+            for (Counter counter : registry.find("beian_egress_requests_total").counters()) {
+                System.out.printf("出口 %s (%s): %.0f 次%n", counter.getId().getTag("egress"),
+                        counter.getId().getTag("result"), counter.count());
+            }
+            if (receiver != null) {
+                System.out.println(receiver.summary());
+            }
+            PrometheusMeterRegistry prometheus = context.getBeanProvider(PrometheusMeterRegistry.class).getIfAvailable();
+            if (prometheus != null) {
+                prometheus.scrape();
+                long scrapeStart = System.nanoTime();
+                String scraped = prometheus.scrape();
+                System.out.printf("指标抓取 (%s): %d 行, %.1f KB, 耗时 %.1f ms%n", store,
+                        scraped.lines().count(), scraped.length() / 1024.0, (System.nanoTime() - scrapeStart) / 1e6);
+            }
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            System.out.printf("GC 后堆占用: %.1f MB%n", (runtime.totalMemory() - runtime.freeMemory()) / 1048576.0);
+            if (simulator != null) {
+                System.out.printf("模拟器: 共 %d 次请求, 其中 %d 次返回 429%n",
+                        simulator.requestCount(), simulator.throttledCount());
+            }
+        } finally {
+            context.close();
+            if (simulator != null) {
+                simulator.stop();
+            }
+            proxies.forEach(StandInProxy::stop);
+            if (dnsStub != null) {
+                dnsStub.stop();
+            }
+            if (receiver != null) {
+                receiver.stop();
+            }
+        }
+    }
+
+    static Map<String, Object> applicationProperties(String baseUrl, int domains,
+                                                     int concurrency, String maxRetries) {
+        StringJoiner domainList = new StringJoiner(",");
+        for (int i = 0; i < domains; i++) {
+            domainList.add("load-" + i + ".com.cn");
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("beian.domains", domainList.toString());
+        properties.put("beian.upstream.base-url", baseUrl);
+        properties.put("beian.upstream.min-jitter-ms", 0);
+        properties.put("beian.upstream.max-jitter-ms", 0);
+        properties.put("beian.request-delay", 0);
+        properties.put("beian.max-retries", maxRetries);
+        properties.put("beian.check-interval", Integer.MAX_VALUE / 1000);
+        properties.put("beian.rate-limit.burst-size", concurrency);
+        properties.put("logging.level.io.devops.beian", "INFO");
+        // 分位数在客户端计算，统计窗口覆盖整个压测
+        for (String timer : new String[] {"beian_upstream_request_seconds", "beian_dispatcher_wait_seconds",
+                "beian_dns_resolve_seconds"}) {
+            properties.put("management.metrics.distribution.percentiles." + timer, "0.5,0.9,0.99,0.999");
+            properties.put("management.metrics.distribution.expiry." + timer, "1h");
+            properties.put("management.metrics.distribution.buffer-length." + timer, 1);
+        }
+        return properties;
+    }
+
+    /**
+     * 把合成域名均分到 g0、g1 ... 分组，各分组使用给定的预算权重
+     */
+    private static void splitIntoGroups(Map<String, Object> properties, int domains, String[] shares) {
+        properties.put("beian.domains", "");
+        for (int g = 0; g < shares.length; g++) {
+            StringJoiner groupDomains = new StringJoiner(",");
+            for (int i = g; i < domains; i += shares.length) {
+                groupDomains.add("load-" + i + ".com.cn");
+            }
+            properties.put("beian.groups.g" + g + ".domains", groupDomains.toString());
+            properties.put("beian.groups.g" + g + ".share", shares[g].trim());
+        }
+    }
+
+    /**
+     * 年轻代分配量（JVM GC 指标，在每次 GC 时更新）
+     */
+    private static double allocatedBytes(MeterRegistry registry) {
+        System.gc();
+        Counter counter = registry.find("jvm.gc.memory.allocated").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static void report(String label, int domains, long nanos, double allocated) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-6s 耗时 %7.2f s, 吞吐 %8.1f 域名/秒", label, seconds, domains / seconds);
+        if (allocated > 0) {
+            System.out.printf(", 分配 %8.1f MB (%.1f KB/域名)", allocated / 1048576, allocated / domains / 1024);
+        }
+        System.out.println();
+    }
+
+    private static void printTimer(MeterRegistry registry, String name, String label) {
+        for (Timer timer : registry.find(name).timers()) {
+            if (timer.count() == 0) {
+                continue;
+            }
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            StringJoiner values = new StringJoiner(", ");
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                values.add(String.format("P%s=%.1fms", String.format("%.1f", percentile.percentile() * 100).replace(".0", ""),
+                        percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            StringJoiner tags = new StringJoiner(",", "{", "}");
+            timer.getId().getTags().stream()
+                    .filter(tag -> !COMMON_TAGS.contains(tag.getKey()))
+                    .forEach(tag -> tags.add(tag.getKey() + "=" + tag.getValue()));
+            System.out.printf("%s %s: %d 次, %s, 最大 %.1fms%n", label, tags, timer.count(), values,
+                    snapshot.max(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package io.devops.beian.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地上游模拟器
+ * 模拟备案查询站点 /search/{domain}，按配置比例返回备案结果、未备案、验证码拦截页、
+ * 结构变化的页面、429 与 5xx，响应延迟服从对数正态分布（由中位数与 P99 确定）。
+ * 是否备案由域名哈希决定，多轮查询结果稳定；其余异常按请求随机出现。
+ * max-rps 按来源地址计数，配合 StandInProxy 的不同出站地址模拟多出口。
+ *
+ * 独立运行：mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *         -Dexec.mainClass=io.devops.beian.bench.UpstreamSimulator -Dexec.args="port=18081 latency-p50=200"
+ * 然后将 beian.upstream.base-url 指向 http://localhost:18081/search/
+ */
+public class UpstreamSimulator {
+
+    private static final String SEARCH_PATH = "/search/";
+    private static final String[] COMPANY_TYPES = {"企业", "个人", "事业单位"};
+
+    private final Profile profile;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ScheduledExecutorService responders;
+    private final byte[] padding;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final Map<String, RateWindow> windows = new ConcurrentHashMap<>();
+
+    public UpstreamSimulator(Profile profile) throws IOException {
+        this.profile = profile;
+        this.padding = buildPadding(profile.pageBytes);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", profile.port), 1024);
+        this.handlers = Executors.newFixedThreadPool(profile.threads, daemonThreads("simulator-handler"));
+        this.responders = Executors.newScheduledThreadPool(profile.threads, daemonThreads("simulator-responder"));
+        server.setExecutor(handlers);
+        server.createContext(SEARCH_PATH, this::handle);
+    }
+
+    public static void main(String[] args) throws Exception {
+        UpstreamSimulator simulator = new UpstreamSimulator(Profile.parse(args));
+        simulator.start();
+        System.out.println("上游模拟器已启动: " + simulator.baseUrl());
+        System.out.println("模拟参数: " + simulator.profile);
+        Thread.currentThread().join();
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        responders.shutdownNow();
+        handlers.shutdownNow();
+    }
+
+    /**
+     * 供 beian.upstream.base-url 使用的查询地址前缀
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + SEARCH_PATH;
+    }
+
+    public long requestCount() {
+        return requests.sum();
+    }
+
+    public long throttledCount() {
+        return throttled.sum();
+    }
+
+    private void handle(HttpExchange exchange) {
+        requests.increment();
+        String domain = URLDecoder.decode(
+                exchange.getRequestURI().getRawPath().substring(SEARCH_PATH.length()), StandardCharsets.UTF_8);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        int status = 200;
+        String body;
+        if (overRateLimit(exchange.getRemoteAddress().getAddress().getHostAddress())
+                || random.nextDouble() < profile.http429Rate) {
+            throttled.increment();
+            status = 429;
+            body = "Too Many Requests";
+        } else if (random.nextDouble() < profile.http5xxRate) {
+            status = 502;
+            body = "Bad Gateway";
+        } else if (random.nextDouble() < profile.blockPageRate) {
+            body = blockPage();
+        } else if (random.nextDouble() < profile.malformedRate) {
+            body = malformedPage();
+        } else if (Math.floorMod(domain.hashCode(), 1000) < profile.notFoundRate * 1000) {
+            body = notFoundPage(domain);
+        } else {
+            body = resultPage(domain);
+        }
+
+        int responseStatus = status;
+        responders.schedule(() -> respond(exchange, responseStatus, body), sampleLatency(random), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 同一来源地址每秒请求数超过阈值时返回 429（模拟上游按 IP 限流）
+     */
+    private boolean overRateLimit(String source) {
+        if (profile.maxRps <= 0) {
+            return false;
+        }
+        return windows.computeIfAbsent(source, s -> new RateWindow()).increment() > profile.maxRps;
+    }
+
+    /**
+     * 对数正态分布延迟：中位数为 latencyP50，P99 为 latencyP99
+     */
+    private long sampleLatency(ThreadLocalRandom random) {
+        if (profile.latencyP50 <= 0) {
+            return 0;
+        }
+        double mu = Math.log(profile.latencyP50);
+        double sigma = profile.latencyP99 > profile.latencyP50
+                ? (Math.log(profile.latencyP99) - mu) / 2.326 : 0;
+        return (long) Math.exp(mu + sigma * random.nextGaussian());
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) {
+        try (exchange) {
+            byte[] content = body.getBytes(StandardCharsets.UTF_8);
+            boolean padded = status == 200;
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(status, content.length + (padded ? padding.length : 0));
+            OutputStream out = exchange.getResponseBody();
+            out.write(content);
+            if (padded) {
+                out.write(padding);
+            }
+        } catch (IOException e) {
+            // 客户端已超时断开
+        }
+    }
+
+    private String resultPage(String domain) {
+        int hash = Math.floorMod(domain.hashCode(), Integer.MAX_VALUE);
+        int company = hash % Math.max(1, profile.companies);
+        int sites = 1 + (hash >>> 8) % 2;
+        StringBuilder html = new StringBuilder(1024);
+        html.append("<html><head><title>").append(domain).append(" 备案查询</title></head><body>")
+                .append("<table class=\"table\"><tbody>");
+        for (int i = 1; i <= sites; i++) {
+            html.append("<tr>")
+                    .append("<td class=\"text-center\">").append(i).append("</td>")
+                    .append("<td>示例科技有限公司").append(company).append("</td>")
+                    .append("<td>").append(COMPANY_TYPES[company % COMPANY_TYPES.length]).append("</td>")
+                    .append("<td>京ICP备").append(10_000_000 + company).append("号-").append(i).append("</td>")
+                    .append("<td>示例网站").append(i).append("</td>")
+                    .append("<td><div>").append(i == 1 ? "www." : "m.").append(domain)
+                    .append("<i class=\"bi bi-box-arrow-up-right\"></i></div></td>")
+                    .append("<td><div class=\"text-center\">")
+                    .append(String.format("20%02d-%02d-%02d", 10 + hash % 14, 1 + hash % 12, 1 + hash % 28))
+                    .append("</div></td>")
+                    .append("</tr>");
+        }
+        return html.append("</tbody></table></body></html>").toString();
+    }
+
+    private String notFoundPage(String domain) {
+        return "<html><body><div class=\"alert\">没有找到 " + domain + " 的备案信息</div></body></html>";
+    }
+
+    private String blockPage() {
+        return "<html><body><div id=\"nc\">请完成滑动验证后继续访问</div>"
+                + "<script>var acw_sc__v2 = '" + Long.toHexString(System.nanoTime()) + "';</script></body></html>";
+    }
+
+    private String malformedPage() {
+        return "<html><body><div class=\"result-list\"><span>页面结构已调整</span></div></body></html>";
+    }
+
+    /**
+     * 填充到真实页面体积的脚本与样式（不影响解析）
+     */
+    private static byte[] buildPadding(int bytes) {
+        StringBuilder filler = new StringBuilder(Math.max(0, bytes));
+        while (filler.length() < bytes) {
+            filler.append("<!-- layout ").append(filler.length()).append(" --><div class=\"col-md-4\"></div>\n");
+        }
+        return filler.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 单个来源地址的一秒计数窗口
+     */
+    private static class RateWindow {
+        private final AtomicLong second = new AtomicLong();
+        private final AtomicInteger count = new AtomicInteger();
+
+        int increment() {
+            long now = System.currentTimeMillis() / 1000;
+            long current = second.get();
+            if (current != now && second.compareAndSet(current, now)) {
+                count.set(0);
+            }
+            return count.incrementAndGet();
+        }
+    }
+
+    /**
+     * 模拟参数，命令行以 key=value 形式覆盖
+     */
+    public static class Profile {
+        int port = 0;
+        int threads = 8;
+        long latencyP50 = 150;
+        long latencyP99 = 1500;
+        double notFoundRate = 0.1;
+        double blockPageRate = 0.0;
+        double malformedRate = 0.0;
+        double http429Rate = 0.0;
+        double http5xxRate = 0.0;
+        int maxRps = 0;
+        int companies = 2000;
+        int pageBytes = 32 * 1024;
+
+        public static Profile parse(String... args) {
+            return parse(Args.parse(args));
+        }
+
+        static Profile parse(Map<String, String> args) {
+            Profile profile = new Profile();
+            profile.port = Integer.parseInt(args.getOrDefault("port", String.valueOf(profile.port)));
+            profile.threads = Integer.parseInt(args.getOrDefault("threads", String.valueOf(profile.threads)));
+            profile.latencyP50 = Long.parseLong(args.getOrDefault("latency-p50", String.valueOf(profile.latencyP50)));
+            profile.latencyP99 = Long.parseLong(args.getOrDefault("latency-p99", String.valueOf(profile.latencyP99)));
+            profile.notFoundRate = Double.parseDouble(args.getOrDefault("not-found-rate", String.valueOf(profile.notFoundRate)));
+            profile.blockPageRate = Double.parseDouble(args.getOrDefault("block-page-rate", String.valueOf(profile.blockPageRate)));
+            profile.malformedRate = Double.parseDouble(args.getOrDefault("malformed-rate", String.valueOf(profile.malformedRate)));
+            profile.http429Rate = Double.parseDouble(args.getOrDefault("429-rate", String.valueOf(profile.http429Rate)));
+            profile.http5xxRate = Double.parseDouble(args.getOrDefault("5xx-rate", String.valueOf(profile.http5xxRate)));
+            profile.maxRps = Integer.parseInt(args.getOrDefault("max-rps", String.valueOf(profile.maxRps)));
+            profile.companies = Integer.parseInt(args.getOrDefault("companies", String.valueOf(profile.companies)));
+            profile.pageBytes = Integer.parseInt(args.getOrDefault("page-bytes", String.valueOf(profile.pageBytes)));
+            return profile;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("延迟 P50=%dms P99=%dms, 未备案 %.1f%%, 拦截页 %.1f%%, 结构变化 %.1f%%, "
+                            + "429 %.1f%%, 5xx %.1f%%, 每秒上限 %s, 页面 %d 字节",
+                    latencyP50, latencyP99, notFoundRate * 100, blockPageRate * 100, malformedRate * 100,
+                    http429Rate * 100, http5xxRate * 100, maxRps > 0 ? maxRps + "/来源" : "无", pageBytes);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package io.devops.beian.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地状态变更通知 Webhook 替身
+ * 在 /hook 接收批量 JSON 通知，保存每个批次的事件以便检查批量合并与翻转抵消；
+ * 可按比例返回 503 以验证重试，或延迟响应以验证停止时等待最后一批投递。
+ *
+ * 独立运行：mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *         -Dexec.mainClass=io.devops.beian.bench.WebhookReceiver -Dexec.args="port=19000 fail-rate=0.2"
+ * 然后配置 beian.notification.webhooks: [http://127.0.0.1:19000/hook]
+ */
+public class WebhookReceiver {
+
+    private static final String HOOK_PATH = "/hook";
+
+    private final HttpServer server;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile double failRate;
+    private volatile long delayMillis;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    // 成功接收的批次，每个批次为事件列表
+    private final List<List<Map<String, Object>>> batches = new CopyOnWriteArrayList<>();
+
+    public WebhookReceiver(int port, double failRate, long delayMillis) throws IOException {
+        this.failRate = failRate;
+        this.delayMillis = delayMillis;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 64);
+        server.setExecutor(Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "webhook-receiver");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext(HOOK_PATH, this::handle);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Args.parse(args);
+        WebhookReceiver receiver = new WebhookReceiver(
+                Integer.parseInt(options.getOrDefault("port", "19000")),
+                Double.parseDouble(options.getOrDefault("fail-rate", "0")),
+                Long.parseLong(options.getOrDefault("delay-ms", "0")));
+        receiver.start();
+        System.out.println("Webhook 接收端已启动: " + receiver.url());
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.println(receiver.summary());
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * 供 beian.notification.webhooks 使用的地址
+     */
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + HOOK_PATH;
+    }
+
+    public void setFailRate(double failRate) {
+        this.failRate = failRate;
+    }
+
+    public void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    public long requestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * 已接收的批次（按到达顺序）
+     */
+    public List<List<Map<String, Object>>> batches() {
+        return new ArrayList<>(batches);
+    }
+
+    public String summary() {
+        int events = batches.stream().mapToInt(List::size).sum();
+        return String.format("接收端: 请求 %d 次 (返回 503 %d 次), 批次 %d 个, 事件 %d 条",
+                requests.sum(), failed.sum(), batches.size(), events);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.increment();
+            if (failRate > 0 && ThreadLocalRandom.current().nextDouble() < failRate) {
+                failed.increment();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            Map<String, Object> payload = objectMapper.readValue(exchange.getRequestBody(), Map.class);
+            List<Map<String, Object>> events = (List<Map<String, Object>>) payload.get("events");
+            if (events == null || ((Number) payload.get("count")).intValue() != events.size()) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            batches.add(events);
+            exchange.sendResponseHeaders(204, -1);
+        }
+    }
+}
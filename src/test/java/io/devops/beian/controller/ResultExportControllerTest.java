@@ -0,0 +1,29 @@
+package io.devops.beian.controller;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 批量导出按 Accept-Encoding 的 q 值协商 gzip
+ */
+class ResultExportControllerTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"gzip", "GZIP", "gzip, deflate, br", "deflate;q=0.5, gzip;q=0.8", "x-gzip",
+            "gzip;q=1.0", "gzip; q=0.001", "*", "br, *;q=0.1", "gzip;q=0.5, *;q=0"})
+    void acceptsGzip(String acceptEncoding) {
+        assertTrue(ResultExportController.acceptsGzip(acceptEncoding));
+    }
+
+    @ParameterizedTest
+    @NullSource
+    @ValueSource(strings = {"", "identity", "deflate, br", "gzip;q=0", "gzip; q=0.000", "GZIP;Q=0",
+            "*;q=0", "gzip;q=0, *", "gzip;q=abc", "gzipx"})
+    void rejectsGzip(String acceptEncoding) {
+        assertFalse(ResultExportController.acceptsGzip(acceptEncoding));
+    }
+}
@@ -0,0 +1,127 @@
+package io.devops.beian.service;
+
+import io.devops.beian.bench.WebhookReceiver;
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianInfo;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 状态变更通知：在本地 Webhook 替身上检查批量合并、翻转抵消与停止时发送最后一批
+ */
+class BeianNotificationServiceTest {
+
+    private static final BeianResult SUCCESS = BeianResult.success(List.of(new BeianInfo()));
+    private static final BeianResult NOT_FOUND = BeianResult.notFound("未备案");
+
+    private WebhookReceiver receiver;
+    private BeianNotificationService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        receiver = new WebhookReceiver(0, 0, 0);
+        receiver.start();
+
+        BeianProperties properties = new BeianProperties();
+        BeianProperties.Notification config = properties.getNotification();
+        config.setEnabled(true);
+        config.setWebhooks(List.of(receiver.url()));
+        // 窗口足够长，只由测试触发发送
+        config.setBatchWindow(3600);
+        config.setMaxRetries(0);
+        config.setShutdownTimeout(5);
+        service = new BeianNotificationService(properties, new SimpleMeterRegistry());
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+        receiver.stop();
+    }
+
+    @Test
+    void mergesChangesOfSameDomainIntoOneBatch() throws Exception {
+        service.onResult("a.com", SUCCESS);
+        service.onResult("b.com", NOT_FOUND);
+        // 首次结果只作为基线
+        service.flush();
+        Thread.sleep(200);
+        assertEquals(0, receiver.requestCount());
+
+        service.onResult("a.com", NOT_FOUND);
+        service.onResult("b.com", SUCCESS);
+        service.onResult("b.com", NOT_FOUND);
+        service.onResult("b.com", SUCCESS);
+        service.flush();
+        waitForBatches(1);
+
+        List<Map<String, Object>> batch = receiver.batches().get(0);
+        assertEquals(2, batch.size());
+        Map<String, Object> a = event(batch, "a.com");
+        assertEquals("SUCCESS", a.get("previousStatus"));
+        assertEquals("NOT_FOUND", a.get("currentStatus"));
+        assertEquals(1, a.get("flipCount"));
+        Map<String, Object> b = event(batch, "b.com");
+        assertEquals("NOT_FOUND", b.get("previousStatus"));
+        assertEquals("SUCCESS", b.get("currentStatus"));
+        // 第二次翻转抵消了第一次，第三次重新计为一条事件
+        assertEquals(1, b.get("flipCount"));
+    }
+
+    @Test
+    void suppressesChangesRevertedWithinWindow() throws Exception {
+        service.onResult("a.com", SUCCESS);
+        service.onResult("a.com", NOT_FOUND);
+        service.onResult("a.com", SUCCESS);
+        // 错误结果不改变已知状态
+        service.onResult("a.com", BeianResult.error("timeout"));
+        service.flush();
+        Thread.sleep(200);
+        assertEquals(0, receiver.requestCount());
+
+        // 抵消后的下一次变更重新计为一条事件
+        service.onResult("a.com", NOT_FOUND);
+        service.flush();
+        waitForBatches(1);
+        assertEquals(1, receiver.batches().get(0).size());
+        assertEquals(1, event(receiver.batches().get(0), "a.com").get("flipCount"));
+    }
+
+    @Test
+    void stopDeliversFinalBatch() {
+        receiver.setDelayMillis(500);
+        service.onResult("a.com", SUCCESS);
+        service.onResult("a.com", NOT_FOUND);
+
+        service.stop();
+        assertEquals(1, receiver.batches().size());
+        assertEquals("NOT_FOUND", event(receiver.batches().get(0), "a.com").get("currentStatus"));
+    }
+
+    private void waitForBatches(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (receiver.batches().size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, receiver.batches().size());
+    }
+
+    private static Map<String, Object> event(List<Map<String, Object>> batch, String domain) {
+        Map<String, Object> event = batch.stream()
+                .filter(e -> domain.equals(e.get("domain")))
+                .findFirst()
+                .orElse(null);
+        assertTrue(event != null, "批次中缺少 " + domain);
+        return event;
+    }
+}
@@ -0,0 +1,118 @@
+package io.devops.beian.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianInfo;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 结果存储：heap 与 mapped 模式下编码后取回的结果与写入的结果一致
+ */
+class BeianResultStoreTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"heap", "mapped"})
+    void roundTripsSingleRecord(String mode) throws Exception {
+        BeianResultStore store = store(mode);
+        BeianResult result = BeianResult.success(List.of(new BeianInfo("91110000000000000X", "某某科技有限公司", "企业",
+                "京ICP备12345678号-1", "示例网站", "www.example.com.cn", "2023-05-06")));
+        result.setMessage("查询成功");
+        store.put("example.com.cn", result);
+        assertRoundTrip(result, store.get("example.com.cn"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"heap", "mapped"})
+    void roundTripsNullFieldsAndNonStandardDate(String mode) throws Exception {
+        BeianResultStore store = store(mode);
+        BeianResult result = BeianResult.success(List.of(new BeianInfo(null, "个人", null,
+                "沪ICP备00000001号", null, null, "2023/5/6")));
+        store.put("example.com.cn", result);
+        assertRoundTrip(result, store.get("example.com.cn"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"heap", "mapped"})
+    void roundTripsMultipleRecordsAndLongFields(String mode) throws Exception {
+        BeianResultStore store = store(mode);
+        BeianResult multiple = BeianResult.success(List.of(
+                new BeianInfo("1", "某某科技有限公司", "企业", "京ICP备12345678号-1", "网站一", "a.example.cn", "2023-05-06"),
+                new BeianInfo("2", "某某科技有限公司", "企业", "京ICP备12345678号-2", "网站二", "b.example.cn", "2023-05-07")));
+        store.put("example.cn", multiple);
+        assertRoundTrip(multiple, store.get("example.cn"));
+
+        // 超出记录表字段长度的结果在 mapped 模式下保存在堆内
+        BeianResult longUrl = BeianResult.success(List.of(new BeianInfo("3", "某某科技有限公司", "企业",
+                "京ICP备12345678号-3", "网站三", "www.example.cn " + "x".repeat(200), "2023-05-08")));
+        store.put("example.com.cn", longUrl);
+        assertRoundTrip(longUrl, store.get("example.com.cn"));
+        assertRoundTrip(multiple, store.get("example.cn"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"heap", "mapped"})
+    void roundTripsNotFoundAndError(String mode) throws Exception {
+        BeianResultStore store = store(mode);
+        BeianResult notFound = BeianResult.notFound("未查询到备案信息");
+        store.put("example.com.cn", notFound);
+        assertRoundTrip(notFound, store.get("example.com.cn"));
+        assertEquals(BeianResult.Status.NOT_FOUND, store.status("example.com.cn"));
+
+        BeianResult error = BeianResult.error("连接超时: example.cn");
+        store.put("example.cn", error);
+        assertRoundTrip(error, store.get("example.cn"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"heap", "mapped"})
+    void roundTripsUnconfiguredDomains(String mode) throws Exception {
+        BeianResultStore store = store(mode);
+        BeianResult result = BeianResult.notFound("未查询到备案信息");
+        store.put("manual.example.org", result);
+        assertRoundTrip(result, store.get("manual.example.org"));
+        assertNull(store.get("missing.example.org"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"heap", "mapped"})
+    void bumpsVersionOnlyWhenContentChanges(String mode) {
+        BeianResultStore store = store(mode);
+        store.put("example.com.cn", BeianResult.notFound("未查询到备案信息"));
+        long version = store.version();
+        store.put("example.com.cn", BeianResult.notFound("未查询到备案信息"));
+        assertEquals(version, store.version());
+        store.put("example.com.cn", BeianResult.blocked("访问受限"));
+        assertEquals(version, store.version());
+        assertEquals(BeianResult.Status.NOT_FOUND, store.status("example.com.cn"));
+
+        store.put("example.com.cn", BeianResult.error("超时"));
+        List<String> changed = new ArrayList<>();
+        store.forEachChangedSince(version, (domain, changedVersion, result) -> changed.add(domain));
+        assertEquals(List.of("example.com.cn"), changed);
+    }
+
+    private BeianResultStore store(String mode) {
+        BeianProperties properties = new BeianProperties();
+        properties.setDomains(List.of("example.com.cn", "example.cn"));
+        properties.getStore().setMode(mode);
+        DomainNormalizer normalizer = new DomainNormalizer(properties, new DefaultResourceLoader());
+        return new BeianResultStore(properties, new DomainGroupRegistry(properties, normalizer),
+                new SimpleMeterRegistry());
+    }
+
+    private void assertRoundTrip(BeianResult expected, BeianResult actual) throws Exception {
+        assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(actual));
+    }
+}
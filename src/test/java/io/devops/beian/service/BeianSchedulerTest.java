@@ -0,0 +1,140 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianInfo;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * exporter 跟随结果日志：落后于压缩时，压缩副本中的更新结果同样应用到指标
+ */
+class BeianSchedulerTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<ResultLog> opened = new ArrayList<>();
+    private ResultLog writer;
+    private ResultLog follower;
+    private BeianScheduler exporter;
+    private BeianResultStore resultStore;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        writer = open("worker");
+        // 与 exporter 读取进度一致的跟随者，用于确认 exporter 确实只读到了压缩副本
+        follower = open("exporter");
+
+        BeianProperties properties = properties("exporter");
+        properties.setDomains(List.of("a.cn"));
+        DomainGroupRegistry domainGroups = new DomainGroupRegistry(properties,
+                new DomainNormalizer(properties, new DefaultResourceLoader()));
+        registry = new SimpleMeterRegistry();
+        resultStore = new BeianResultStore(properties, domainGroups, registry);
+        BeianMetricsService metricsService = new BeianMetricsService(registry, domainGroups,
+                new RemoteWriteService(properties, registry), resultStore, properties);
+        exporter = new BeianScheduler(properties, null, metricsService, null, null, null, null, resultStore,
+                null, null, domainGroups, new ResultSearchIndex(registry), null, null, null, open("exporter"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(ResultLog::close);
+    }
+
+    @Test
+    void laggingExporterAppliesNewerCompactedResultToMetrics() {
+        List<ResultLog.Entry> seen = new ArrayList<>();
+        writer.append("a.cn", BeianResult.notFound("未备案"), 1_000L);
+        writeRounds(2);
+        follow(seen);
+        assertEquals(0, status());
+
+        // exporter 停止跟随期间，更新结果所在的分段被压缩删除
+        writeRounds(2);
+        writer.append("a.cn", BeianResult.success(List.of(new BeianInfo(null, "示例公司", "企业",
+                "京ICP备10000001号-1", "示例", null, "2023-01-01"))), 2_000L);
+        writeRounds(30);
+        follow(seen);
+
+        List<ResultLog.Entry> updates = seen.stream()
+                .filter(entry -> "a.cn".equals(entry.domain()) && entry.timestamp() == 2_000L).toList();
+        assertFalse(updates.isEmpty());
+        assertTrue(updates.stream().allMatch(ResultLog.Entry::compacted), "更新结果的原记录应已被压缩删除");
+
+        assertEquals(BeianResult.Status.SUCCESS, resultStore.status("a.cn"));
+        assertEquals(1, status());
+        assertEquals(1, registry.get("beian_info").tag("domain", "a.cn").gauge().value());
+        assertEquals(2.0, registry.get("beian_last_check_timestamp").tag("domain", "a.cn").gauge().value());
+    }
+
+    @Test
+    void alreadyAppliedCompactedCopyDoesNotRegressMetrics() {
+        writer.append("a.cn", BeianResult.notFound("未备案"), 1_000L);
+        writer.append("a.cn", BeianResult.error("超时"), 2_000L);
+        exporter.applyResultLog();
+        writer.append("a.cn", BeianResult.notFound("未备案"), 3_000L);
+        exporter.applyResultLog();
+        assertEquals(0, status());
+
+        // 之后读到的压缩副本与已应用的结果相同，不重复计数
+        writeRounds(30);
+        exporter.applyResultLog();
+        assertEquals(0, status());
+        assertEquals(1, registry.get("beian_check_errors_total").tag("domain", "a.cn").counter().count());
+    }
+
+    private void follow(List<ResultLog.Entry> seen) {
+        exporter.applyResultLog();
+        follower.follow(seen::add);
+    }
+
+    private double status() {
+        return registry.get("beian_status").tag("domain", "a.cn").gauge().value();
+    }
+
+    private void writeRounds(int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < 20; i++) {
+                writer.append("d" + i + ".cn", BeianResult.notFound("round-" + round + "-" + i));
+            }
+        }
+    }
+
+    private BeianProperties properties(String role) {
+        BeianProperties properties = new BeianProperties();
+        properties.setRole(role);
+        BeianProperties.ResultLog config = properties.getResultLog();
+        config.setEnabled(true);
+        config.setDirectory(directory.toString());
+        config.setMaxSegmentBytes(2048);
+        config.setMaxSegments(3);
+        return properties;
+    }
+
+    private ResultLog open(String role) throws IOException {
+        BeianProperties properties = properties(role);
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        ResultLog log = new ResultLog(properties, Jackson2ObjectMapperBuilder.json().build(),
+                new ErrorLogSampler(properties, meters), meters);
+        log.open();
+        opened.add(log);
+        return log;
+    }
+}
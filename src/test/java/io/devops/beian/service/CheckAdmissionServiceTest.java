@@ -0,0 +1,124 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.service.CheckAdmissionService.AdmissionRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 手动查询准入：排队不阻塞调用线程，名额释放时启动队首，队列满或超时时异步拒绝
+ */
+class CheckAdmissionServiceTest {
+
+    private SimpleMeterRegistry registry;
+    private CheckAdmissionService admission;
+    private final List<CompletableFuture<String>> started = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        BeianProperties properties = new BeianProperties();
+        BeianProperties.Admission config = properties.getAdmission();
+        config.setMaxConcurrent(1);
+        config.setMaxQueue(2);
+        config.setQueueTimeoutMs(300);
+        registry = new SimpleMeterRegistry();
+        admission = new CheckAdmissionService(properties, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        admission.shutdown();
+    }
+
+    @Test
+    void queuedTaskStartsWhenPermitIsReleased() throws Exception {
+        CompletableFuture<String> first = submit();
+        long before = System.nanoTime();
+        CompletableFuture<String> second = submit();
+        // 排队不占用调用线程
+        assertTrue(System.nanoTime() - before < TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(1, started.size());
+        assertEquals(1, queueSize());
+
+        started.get(0).complete("a");
+        assertEquals("a", first.get(1, TimeUnit.SECONDS));
+        assertEquals(2, started.size());
+        assertEquals(0, queueSize());
+
+        started.get(1).complete("b");
+        assertEquals("b", second.get(1, TimeUnit.SECONDS));
+        assertEquals(0, registry.get("beian_admission_in_flight").gauge().value());
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() {
+        submit();
+        submit();
+        submit();
+        CompletableFuture<String> rejected = submit();
+        assertEquals("queue_full", rejection(rejected).getReason());
+        assertEquals(1, started.size());
+        assertEquals(1, registry.get("beian_admission_rejected_total").tag("reason", "queue_full").counter().count());
+    }
+
+    @Test
+    void rejectsWhenQueueWaitTimesOut() throws Exception {
+        submit();
+        CompletableFuture<String> waiting = submit();
+        assertEquals("queue_timeout", rejection(waiting).getReason());
+        assertEquals(0, queueSize());
+
+        // 超时的查询不再启动，释放的名额留给后续请求
+        started.get(0).complete("a");
+        assertEquals(1, started.size());
+        CompletableFuture<String> next = submit();
+        assertEquals(2, started.size());
+        started.get(1).complete("c");
+        assertEquals("c", next.get(1, TimeUnit.SECONDS));
+        assertEquals(1, registry.get("beian_admission_rejected_total").tag("reason", "queue_timeout").counter().count());
+    }
+
+    @Test
+    void failedTaskReleasesPermit() throws Exception {
+        CompletableFuture<String> failing = admission.tryExecute(() -> {
+            throw new IllegalStateException("boom");
+        });
+        assertTrue(failing.isCompletedExceptionally());
+
+        CompletableFuture<String> next = submit();
+        assertFalse(next.isDone());
+        started.get(0).complete("ok");
+        assertEquals("ok", next.get(1, TimeUnit.SECONDS));
+    }
+
+    private CompletableFuture<String> submit() {
+        return admission.tryExecute(() -> {
+            CompletableFuture<String> execution = new CompletableFuture<>();
+            started.add(execution);
+            return execution;
+        });
+    }
+
+    private double queueSize() {
+        return registry.get("beian_admission_queue_size").gauge().value();
+    }
+
+    private static AdmissionRejectedException rejection(CompletableFuture<String> future) {
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS));
+        return assertInstanceOf(AdmissionRejectedException.class, error.getCause());
+    }
+}
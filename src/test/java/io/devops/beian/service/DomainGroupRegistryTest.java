@@ -0,0 +1,51 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.micrometer.core.instrument.Tags;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 域名分组：附加标签的合并与标签名校验
+ */
+class DomainGroupRegistryTest {
+
+    @Test
+    void unionsLabelKeysAcrossGroups() {
+        DomainGroupRegistry registry = registry(Map.of("tier", "critical"), Map.of("team", "web"));
+        assertEquals(Tags.of("group", "g0", "team", "", "tier", "critical"), registry.tags("g0.cn"));
+        assertEquals(Tags.of("group", "g1", "team", "web", "tier", ""), registry.tags("g1.cn"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"domain", "group", "error_type", "company_name", "application", "version", "job"})
+    void rejectsReservedLabelNames(String key) {
+        assertThrows(IllegalArgumentException.class, () -> registry(Map.of(key, "x")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"1tier", "tier-name", "__tier", "层级", ""})
+    void rejectsInvalidLabelNames(String key) {
+        assertThrows(IllegalArgumentException.class, () -> registry(Map.of(key, "x")));
+    }
+
+    @SafeVarargs
+    private static DomainGroupRegistry registry(Map<String, String>... labels) {
+        BeianProperties properties = new BeianProperties();
+        for (int g = 0; g < labels.length; g++) {
+            BeianProperties.DomainGroup group = new BeianProperties.DomainGroup();
+            group.setDomains(List.of("g" + g + ".cn"));
+            group.setLabels(labels[g]);
+            properties.getGroups().put("g" + g, group);
+        }
+        return new DomainGroupRegistry(properties, new DomainNormalizer(properties, new DefaultResourceLoader()));
+    }
+}
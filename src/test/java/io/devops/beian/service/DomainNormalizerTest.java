@@ -0,0 +1,90 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 域名规范化：按内置公共后缀列表求可注册域名
+ */
+class DomainNormalizerTest {
+
+    private BeianProperties properties;
+    private DomainNormalizer normalizer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new BeianProperties();
+        normalizer = new DomainNormalizer(properties, new DefaultResourceLoader());
+        normalizer.loadSuffixList();
+    }
+
+    @Test
+    void stripsSubdomainsToRegistrableDomain() {
+        assertEquals("example.com", normalizer.normalize("www.example.com"));
+        assertEquals("example.com", normalizer.normalize("a.b.example.com"));
+        assertEquals("example.com", normalizer.normalize("example.com"));
+    }
+
+    @Test
+    void keepsMultiLabelPublicSuffixes() {
+        assertEquals("example.com.cn", normalizer.normalize("www.example.com.cn"));
+        assertEquals("example.com.cn", normalizer.normalize("example.com.cn"));
+    }
+
+    @Test
+    void appliesWildcardAndExceptionRules() {
+        // *.ck：ck 下一级均为公共后缀；!www.ck 例外
+        assertEquals("example.co.ck", normalizer.normalize("www.example.co.ck"));
+        assertEquals("www.ck", normalizer.normalize("www.ck"));
+        assertEquals("www.ck", normalizer.normalize("a.www.ck"));
+    }
+
+    @Test
+    void canonicalizesSchemePortPathCaseAndTrailingDot() {
+        assertEquals("example.com.cn", normalizer.normalize("HTTPS://WWW.Example.com.cn:8443/path?q=1"));
+        assertEquals("example.com", normalizer.normalize("www.example.com."));
+        assertEquals("example.com", normalizer.normalize("  www.example.com  "));
+    }
+
+    @Test
+    void convertsInternationalizedNamesToPunycode() {
+        // 例子.公司.cn -> xn--fsqu00a.xn--55qx5d.cn
+        assertEquals("xn--fsqu00a.xn--55qx5d.cn", normalizer.normalize("www.例子.公司.cn"));
+        assertEquals("xn--fiqs8s", normalizer.normalize("中国"));
+    }
+
+    @Test
+    void returnsPublicSuffixUnchanged() {
+        assertEquals("com.cn", normalizer.normalize("com.cn"));
+        assertEquals("cn", normalizer.normalize("cn"));
+    }
+
+    @Test
+    void unknownTopLevelDomainDefaultsToOneLabelSuffix() {
+        assertEquals("example.internal-tld", normalizer.normalize("www.example.internal-tld"));
+    }
+
+    @Test
+    void groupsConfiguredNamesByRegistrableDomainInOrder() {
+        Map<String, List<String>> groups = normalizer.groupByRegistrable(
+                List.of("www.example.com.cn", "other.cn", "example.com.cn", "api.example.com.cn"));
+        assertEquals(List.of("example.com.cn", "other.cn"), List.copyOf(groups.keySet()));
+        assertEquals(List.of("www.example.com.cn", "example.com.cn", "api.example.com.cn"),
+                groups.get("example.com.cn"));
+    }
+
+    @Test
+    void disabledNormalizationOnlyCanonicalizesHost() throws Exception {
+        properties.getNormalization().setEnabled(false);
+        DomainNormalizer disabled = new DomainNormalizer(properties, new DefaultResourceLoader());
+        disabled.loadSuffixList();
+        assertEquals("www.example.com.cn", disabled.normalize("https://WWW.example.com.cn/"));
+    }
+}
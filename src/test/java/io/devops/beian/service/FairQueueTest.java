@@ -0,0 +1,149 @@
+package io.devops.beian.service;
+
+import io.devops.beian.service.UpstreamDispatcher.FairQueue;
+import io.devops.beian.service.UpstreamDispatcher.Lane;
+import io.devops.beian.service.UpstreamDispatcher.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 通道等待队列的 stride 调度：分组按预算权重轮转出队，分组内先进先出
+ */
+class FairQueueTest {
+
+    private final FairQueue queue = new FairQueue();
+    private final Map<Task, String> groups = new IdentityHashMap<>();
+
+    @Test
+    void emptyQueueHasNothingToPeek() {
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+    }
+
+    @Test
+    void keepsFifoOrderWithinGroup() {
+        Task first = add("a", 1);
+        Task second = add("a", 1);
+        Task third = add("a", 1);
+        assertSame(first, queue.poll());
+        assertSame(second, queue.poll());
+        assertSame(third, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void alternatesBetweenEqualShares() {
+        for (int i = 0; i < 4; i++) {
+            add("a", 1);
+        }
+        for (int i = 0; i < 4; i++) {
+            add("b", 1);
+        }
+        assertEquals(List.of("a", "b", "a", "b", "a", "b", "a", "b"), drain(8));
+    }
+
+    @Test
+    void dequeuesInProportionToShares() {
+        for (int i = 0; i < 300; i++) {
+            add("heavy", 3);
+            add("light", 1);
+        }
+        List<String> order = drain(200);
+        // 任意前缀中两个分组的出队次数之比都接近 3:1
+        int heavy = 0;
+        for (int i = 0; i < order.size(); i++) {
+            if ("heavy".equals(order.get(i))) {
+                heavy++;
+            }
+            int light = i + 1 - heavy;
+            assertTrue(Math.abs(heavy - 3 * light) <= 3, "第 " + (i + 1) + " 次出队时 heavy=" + heavy + ", light=" + light);
+        }
+        assertEquals(150, heavy);
+        assertEquals(400, queue.size());
+    }
+
+    @Test
+    void idleGroupDoesNotAccumulateCredit() {
+        for (int i = 0; i < 20; i++) {
+            add("busy", 1);
+        }
+        drain(10);
+        // 空闲期间没有积累额度，加入后与 busy 轮流出队，而不是连续出队 10 次
+        for (int i = 0; i < 10; i++) {
+            add("late", 1);
+        }
+        List<String> order = drain(6);
+        Map<String, Integer> counts = count(order);
+        assertEquals(3, counts.get("busy"));
+        assertEquals(3, counts.get("late"));
+    }
+
+    @Test
+    void discardDoesNotAdvanceGroupProgress() {
+        add("a", 1);
+        add("a", 1);
+        add("b", 1);
+        add("b", 1);
+        assertEquals("a", groups.get(queue.peek()));
+        queue.discard();
+        assertEquals(3, queue.size());
+        // a 的进度未前进，仍然先于 b
+        assertEquals(List.of("a", "b", "b"), drain(3));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void removeTakesFirstMatchingTaskWithoutAdvancingProgress() {
+        Task first = add("a", 1);
+        Task target = add("a", 1);
+        add("b", 1);
+        assertSame(target, queue.remove(task -> task == target));
+        assertNull(queue.remove(task -> task == target));
+        assertEquals(2, queue.size());
+        assertSame(first, queue.poll());
+        assertEquals("b", groups.get(queue.poll()));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void peekReturnsTaskThatPollRemoves() {
+        add("a", 2);
+        add("b", 1);
+        add("b", 1);
+        for (int i = 0; i < 3; i++) {
+            Task peeked = queue.peek();
+            assertSame(peeked, queue.poll());
+        }
+    }
+
+    private Task add(String group, int share) {
+        Task task = new Task(group + "-" + groups.size() + ".com", Lane.SCHEDULED, group, share, null);
+        groups.put(task, group);
+        queue.add(task);
+        return task;
+    }
+
+    private List<String> drain(int count) {
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            order.add(groups.get(queue.poll()));
+        }
+        return order;
+    }
+
+    private static Map<String, Integer> count(List<String> order) {
+        Map<String, Integer> counts = new HashMap<>();
+        order.forEach(group -> counts.merge(group, 1, Integer::sum));
+        return counts;
+    }
+}
@@ -0,0 +1,171 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 原始响应归档：压缩后保留最新响应，损坏的记录不影响启动，读取与压缩并发时不丢失域名
+ */
+class ResponseArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<ResponseArchive> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(ResponseArchive::close);
+    }
+
+    @Test
+    void compactionKeepsLatestResponseOfEveryDomain() throws Exception {
+        ResponseArchive archive = open();
+        writeRounds(archive, 40);
+        assertTrue(segmentFiles().size() <= 4, "分段数应保持在 max-segments 附近，实际 " + segmentFiles().size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(body(39, i), archive.read("d" + i + ".cn").body());
+        }
+
+        archive.close();
+        ResponseArchive reopened = open();
+        assertEquals(10, reopened.domains().size());
+        assertEquals(body(39, 3), reopened.read("d3.cn").body());
+    }
+
+    @Test
+    void corruptDomainLengthTruncatesSegmentInsteadOfFailingStartup() throws Exception {
+        ResponseArchive archive = open();
+        archive.store("a.cn", "first");
+        archive.store("b.cn", "second");
+        archive.store("c.cn", "third");
+        archive.close();
+
+        Path segment = segmentFiles().get(0);
+        int firstLength;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            channel.read(header, 0);
+            firstLength = header.flip().getInt();
+            // 第二条记录的域名长度改为负数
+            channel.write(ByteBuffer.allocate(2).putShort(0, (short) -1), firstLength + 4);
+        }
+
+        ResponseArchive reopened = open();
+        assertEquals("first", reopened.read("a.cn").body());
+        assertFalse(reopened.contains("b.cn"));
+        assertFalse(reopened.contains("c.cn"));
+        assertEquals(firstLength, Files.size(segment));
+
+        // 截断后可以继续追加
+        reopened.store("b.cn", "again");
+        assertEquals("again", reopened.read("b.cn").body());
+    }
+
+    @Test
+    void oversizedDomainLengthTruncatesSegment() throws Exception {
+        ResponseArchive archive = open();
+        archive.store("a.cn", "first");
+        archive.close();
+
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(2).putShort(0, Short.MAX_VALUE), 4);
+        }
+
+        ResponseArchive reopened = open();
+        assertFalse(reopened.contains("a.cn"));
+        assertEquals(0, Files.size(segment));
+    }
+
+    @Test
+    void corruptBodyLengthReadsAsMissing() throws Exception {
+        ResponseArchive archive = open();
+        archive.store("a.cn", "first");
+        archive.close();
+
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // [int 记录长度][short 域名长度]["a.cn"][long 时间戳] 之后为原文长度
+            channel.write(ByteBuffer.allocate(4).putInt(0, -5), 4 + 2 + 4 + 8);
+        }
+
+        ResponseArchive reopened = open();
+        assertTrue(reopened.contains("a.cn"));
+        assertNull(reopened.read("a.cn"));
+    }
+
+    @Test
+    void readsDuringCompactionFindEveryDomain() throws Exception {
+        ResponseArchive archive = open();
+        writeRounds(archive, 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger missing = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (writing.get()) {
+                for (int i = 0; i < 10; i++) {
+                    if (archive.read("d" + i + ".cn") == null) {
+                        missing.incrementAndGet();
+                    }
+                }
+            }
+        });
+        reader.start();
+        writeRounds(archive, 300);
+        writing.set(false);
+        reader.join();
+        assertEquals(0, missing.get());
+    }
+
+    private static void writeRounds(ResponseArchive archive, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < 10; i++) {
+                archive.store("d" + i + ".cn", body(round, i));
+            }
+        }
+    }
+
+    private static String body(int round, int i) {
+        return "{\"round\":" + round + ",\"domain\":" + i + ",\"padding\":\"" + "x".repeat(round % 7) + "\"}";
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".dat")).sorted().toList();
+        }
+    }
+
+    private ResponseArchive open() throws IOException {
+        BeianProperties properties = new BeianProperties();
+        BeianProperties.Archive config = properties.getArchive();
+        config.setEnabled(true);
+        config.setDirectory(directory.toString());
+        config.setMaxSegmentBytes(1024);
+        config.setMaxSegments(3);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ResponseArchive archive = new ResponseArchive(properties, new ErrorLogSampler(properties, registry), registry);
+        archive.open();
+        opened.add(archive);
+        return archive;
+    }
+}
@@ -0,0 +1,195 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 结果日志：分段压缩后保留每个域名的最新结果，复制的记录标记为压缩类型并保留原时间戳
+ */
+class ResultLogTest {
+
+    private static final int DOMAINS = 20;
+
+    @TempDir
+    Path directory;
+
+    private final List<ResultLog> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(ResultLog::close);
+    }
+
+    @Test
+    void compactionKeepsLatestResultOfEveryDomain() throws Exception {
+        ResultLog writer = open("all");
+        Map<String, String> expected = writeRounds(writer, 30);
+
+        assertTrue(segmentCount() <= 4, "分段数应保持在 max-segments 附近，实际 " + segmentCount());
+        assertEquals(expected, latestMessages(followAll()));
+    }
+
+    @Test
+    void compactedCopiesKeepTimestampAndAreMarked() throws Exception {
+        ResultLog writer = open("all");
+        // 只写一次的域名，后续轮次中它所在的分段会被压缩
+        writer.append("stable.cn", BeianResult.notFound("stable"), 1_000L);
+        writeRounds(writer, 30);
+
+        List<ResultLog.Entry> entries = followAll();
+        List<ResultLog.Entry> stable = entries.stream().filter(entry -> "stable.cn".equals(entry.domain())).toList();
+        assertFalse(stable.isEmpty());
+        ResultLog.Entry last = stable.get(stable.size() - 1);
+        assertTrue(last.compacted(), "压缩复制的记录应标记为压缩类型");
+        assertEquals(1_000L, last.timestamp());
+        assertEquals("stable", last.result().getMessage());
+        assertTrue(entries.stream().anyMatch(entry -> !entry.compacted()));
+    }
+
+    @Test
+    void followerSeesCompactedCopiesAfterOriginals() throws Exception {
+        ResultLog writer = open("all");
+        ResultLog follower = open("exporter");
+        List<ResultLog.Entry> entries = new ArrayList<>();
+
+        writer.append("stable.cn", BeianResult.notFound("stable"), 1_000L);
+        follower.follow(entries::add);
+        writeRounds(writer, 30);
+        follower.follow(entries::add);
+
+        // 已跟随过原记录的 exporter 之后再读到压缩副本，原时间戳可用于判断无需重复应用
+        List<ResultLog.Entry> stable = entries.stream().filter(entry -> "stable.cn".equals(entry.domain())).toList();
+        assertFalse(stable.get(0).compacted());
+        assertTrue(stable.size() > 1);
+        stable.subList(1, stable.size()).forEach(entry -> {
+            assertTrue(entry.compacted());
+            assertEquals(1_000L, entry.timestamp());
+        });
+    }
+
+    @Test
+    void blockedResultDoesNotReplaceRetainedResult() throws Exception {
+        ResultLog writer = open("all");
+        writer.append("blocked.cn", BeianResult.notFound("before"), 1_000L);
+        writer.append("blocked.cn", BeianResult.blocked("blocked"), 2_000L);
+        writeRounds(writer, 30);
+
+        Map<String, String> latest = latestMessages(followAll());
+        assertEquals("before", latest.get("blocked.cn"));
+    }
+
+    @Test
+    void reopenedWriterContinuesCompaction() throws Exception {
+        ResultLog writer = open("all");
+        Map<String, String> expected = writeRounds(writer, 15);
+        writer.close();
+        opened.remove(writer);
+
+        ResultLog reopened = open("all");
+        for (int round = 15; round < 30; round++) {
+            for (int i = 0; i < DOMAINS; i++) {
+                String message = "round-" + round + "-" + i;
+                reopened.append("d" + i + ".cn", BeianResult.notFound(message));
+                expected.put("d" + i + ".cn", message);
+            }
+        }
+        assertTrue(segmentCount() <= 4, "分段数应保持在 max-segments 附近，实际 " + segmentCount());
+        assertEquals(expected, latestMessages(followAll()));
+    }
+
+    @Test
+    void followStopsBetweenRecordsAndResumesLater() throws Exception {
+        ResultLog writer = open("all");
+        Map<String, String> expected = writeRounds(writer, 30);
+        ResultLog follower = open("exporter");
+        List<ResultLog.Entry> entries = new ArrayList<>();
+
+        assertEquals(5, follower.follow(entries::add, () -> entries.size() >= 5));
+        follower.follow(entries::add);
+        assertEquals(expected, latestMessages(entries));
+        assertEquals(entries.size(), followAll().size());
+    }
+
+    @Test
+    void unchangedRecordsCarryNoResult() throws Exception {
+        ResultLog writer = open("all");
+        writer.append("a.cn", BeianResult.notFound("a"));
+        writer.appendUnchanged("a.cn");
+
+        List<ResultLog.Entry> entries = followAll();
+        assertEquals(2, entries.size());
+        assertTrue(entries.get(1).isUnchanged());
+    }
+
+    /**
+     * 每轮为每个域名写入一条新结果，返回各域名最后一次写入的提示信息
+     */
+    private Map<String, String> writeRounds(ResultLog writer, int rounds) {
+        Map<String, String> expected = new HashMap<>();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < DOMAINS; i++) {
+                String message = "round-" + round + "-" + i;
+                writer.append("d" + i + ".cn", BeianResult.notFound(message));
+                expected.put("d" + i + ".cn", message);
+            }
+        }
+        return expected;
+    }
+
+    private List<ResultLog.Entry> followAll() throws IOException {
+        List<ResultLog.Entry> entries = new ArrayList<>();
+        open("exporter").follow(entries::add);
+        return entries;
+    }
+
+    private static Map<String, String> latestMessages(List<ResultLog.Entry> entries) {
+        Map<String, String> latest = new HashMap<>();
+        for (ResultLog.Entry entry : entries) {
+            if (entry.result() != null && entry.result().getStatus() != BeianResult.Status.BLOCKED) {
+                latest.put(entry.domain(), entry.result().getMessage());
+            }
+        }
+        latest.remove("stable.cn");
+        return latest;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log")).count();
+        }
+    }
+
+    private ResultLog open(String role) throws IOException {
+        BeianProperties properties = new BeianProperties();
+        properties.setRole(role);
+        BeianProperties.ResultLog config = properties.getResultLog();
+        config.setEnabled(true);
+        config.setDirectory(directory.toString());
+        config.setMaxSegmentBytes(2048);
+        config.setMaxSegments(3);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ResultLog log = new ResultLog(properties, Jackson2ObjectMapperBuilder.json().build(),
+                new ErrorLogSampler(properties, registry), registry);
+        log.open();
+        opened.add(log);
+        return log;
+    }
+}
@@ -0,0 +1,127 @@
+package io.devops.beian.service;
+
+import io.devops.beian.model.BeianInfo;
+import io.devops.beian.model.BeianResult;
+import io.devops.beian.service.ResultSearchIndex.Query;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 备案信息倒排索引：各查询条件、条件组合与结果变化后的增量维护
+ */
+class ResultSearchIndexTest {
+
+    private ResultSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ResultSearchIndex(new SimpleMeterRegistry());
+        index.update("a.com.cn", success(info("北京某某科技有限公司", "企业", "京ICP备10000001号-1", "某某官网", "2021-03-15")));
+        index.update("b.com.cn", success(info("北京某某科技有限公司", "企业", "京ICP备10000001号-2", "某某商城", "2022-07-01")));
+        index.update("c.cn", success(info("上海示例信息技术有限公司", "企业", "沪ICP备20000002号-1", "示例博客", "2023-01-20")));
+        index.update("d.cn", success(info("张三", "个人", "粤ICP备30000003号-1", "个人博客", "2020-12-31")));
+        index.update("e.cn", BeianResult.notFound("未备案"));
+    }
+
+    @Test
+    void matchesCompanySubstringAndPrefix() {
+        assertEquals(List.of("a.com.cn", "b.com.cn"), index.search(new Query().company("某某科技", false)));
+        assertEquals(List.of("a.com.cn", "b.com.cn"), index.search(new Query().company("北京", true)));
+        assertEquals(List.of(), index.search(new Query().company("某某科技", true)));
+        assertEquals(List.of("d.cn"), index.search(new Query().company("张", false)));
+        assertEquals(List.of(), index.search(new Query().company("不存在的单位", false)));
+    }
+
+    @Test
+    void matchesWebsiteNameCaseInsensitively() {
+        index.update("f.cn", success(info("示例", "企业", "京ICP备40000004号-1", "Example Blog", "2023-02-02")));
+        assertEquals(List.of("c.cn", "d.cn"), index.search(new Query().websiteName("博客")));
+        assertEquals(List.of("f.cn"), index.search(new Query().websiteName("example")));
+    }
+
+    @Test
+    void matchesCompanyTypeAndBeianNumberPrefix() {
+        assertEquals(List.of("d.cn"), index.search(new Query().companyType("个人")));
+        assertEquals(List.of("a.com.cn", "b.com.cn"), index.search(new Query().beianNumberPrefix("京ICP备10000001号")));
+        assertEquals(List.of("c.cn"), index.search(new Query().beianNumberPrefix("沪")));
+    }
+
+    @Test
+    void matchesApprovalDateRangeInclusive() {
+        assertEquals(List.of("a.com.cn", "b.com.cn"),
+                index.search(new Query().approvedBetween(20210315, 20220701)));
+        assertEquals(List.of("c.cn"), index.search(new Query().approvedBetween(20230101, null)));
+        assertEquals(List.of("d.cn"), index.search(new Query().approvedBetween(null, 20201231)));
+    }
+
+    @Test
+    void intersectsCombinedCriteria() {
+        assertEquals(List.of("b.com.cn"), index.search(new Query()
+                .company("某某", false)
+                .approvedBetween(20220101, null)));
+        assertEquals(List.of(), index.search(new Query()
+                .companyType("个人")
+                .beianNumberPrefix("京")));
+    }
+
+    @Test
+    void emptyQueryMatchesNothing() {
+        Query query = new Query().company("  ", false).websiteName(null);
+        assertTrue(query.isEmpty());
+        assertEquals(List.of(), index.search(query));
+    }
+
+    @Test
+    void reindexesChangedResultsAndDropsRemovedOnes() {
+        assertEquals(4, index.size());
+        index.update("a.com.cn", success(info("上海示例信息技术有限公司", "企业", "沪ICP备20000002号-2", "示例商城", "2023-05-05")));
+        assertEquals(List.of("b.com.cn"), index.search(new Query().company("北京", true)));
+        assertEquals(List.of("a.com.cn", "c.cn"), index.search(new Query().company("示例信息", false)));
+
+        index.update("c.cn", BeianResult.notFound("未备案"));
+        assertEquals(List.of("a.com.cn"), index.search(new Query().company("示例信息", false)));
+        assertEquals(3, index.size());
+
+        index.update("b.com.cn", BeianResult.error("超时"));
+        assertEquals(List.of(), index.search(new Query().company("北京", true)));
+        assertEquals(List.of(), index.search(new Query().beianNumberPrefix("京")));
+    }
+
+    @Test
+    void blockedResultKeepsExistingDocument() {
+        index.update("a.com.cn", BeianResult.blocked("访问受限"));
+        assertEquals(List.of("a.com.cn", "b.com.cn"), index.search(new Query().company("北京", true)));
+    }
+
+    @Test
+    void indexesEveryRecordOfMultiRecordResults() {
+        index.update("g.cn", BeianResult.success(List.of(
+                info("甲公司", "企业", "浙ICP备50000005号-1", "甲网站", "2019-01-01"),
+                info("乙公司", "企业", "浙ICP备50000005号-2", "乙网站", "2019-02-02"))));
+        assertEquals(List.of("g.cn"), index.search(new Query().company("乙公司", false)));
+        assertEquals(List.of("g.cn"), index.search(new Query().approvedBetween(20190101, 20190101)));
+    }
+
+    @Test
+    void parsesOnlyIsoDates() {
+        assertEquals(20230506, ResultSearchIndex.parseDate("2023-05-06"));
+        assertNull(ResultSearchIndex.parseDate("2023/05/06"));
+        assertNull(ResultSearchIndex.parseDate("2023-5-6"));
+        assertNull(ResultSearchIndex.parseDate(null));
+    }
+
+    private static BeianResult success(BeianInfo info) {
+        return BeianResult.success(List.of(info));
+    }
+
+    private static BeianInfo info(String company, String type, String beianNumber, String websiteName, String date) {
+        return new BeianInfo(null, company, type, beianNumber, websiteName, null, date);
+    }
+}
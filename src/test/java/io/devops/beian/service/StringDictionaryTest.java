@@ -0,0 +1,85 @@
+package io.devops.beian.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 字符串字典：编号分配、取回与共享实例
+ */
+class StringDictionaryTest {
+
+    @Test
+    void encodesEqualValuesToSameId() {
+        StringDictionary dictionary = new StringDictionary();
+        int id = dictionary.encode("某某科技有限公司");
+        assertEquals(id, dictionary.encode(new String("某某科技有限公司")));
+        assertNotEquals(id, dictionary.encode("企业"));
+        assertEquals("某某科技有限公司", dictionary.decode(id));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void encodesNullAsReservedId() {
+        StringDictionary dictionary = new StringDictionary();
+        assertEquals(StringDictionary.NULL_ID, dictionary.encode(null));
+        assertNull(dictionary.decode(StringDictionary.NULL_ID));
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    void internReturnsSharedInstance() {
+        StringDictionary dictionary = new StringDictionary();
+        String first = dictionary.intern(new String("企业"));
+        assertSame(first, dictionary.intern(new String("企业")));
+    }
+
+    @Test
+    void keepsValuesWhenGrowing() {
+        StringDictionary dictionary = new StringDictionary();
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, dictionary.encode("value-" + i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals("value-" + i, dictionary.decode(i));
+        }
+    }
+
+    @Test
+    void concurrentEncodersAgreeOnIds() throws Exception {
+        StringDictionary dictionary = new StringDictionary();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    int[] ids = new int[2000];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = dictionary.encode("value-" + i);
+                    }
+                    return ids;
+                }));
+            }
+            int[] expected = futures.get(0).get();
+            for (Future<int[]> future : futures) {
+                int[] ids = future.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertEquals(expected[i], ids[i]);
+                    assertEquals("value-" + i, dictionary.decode(ids[i]));
+                }
+            }
+            assertEquals(2000, dictionary.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
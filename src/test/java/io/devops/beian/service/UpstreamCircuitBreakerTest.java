@@ -0,0 +1,134 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.service.UpstreamCircuitBreaker.FailureKind;
+import io.devops.beian.service.UpstreamCircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 上游熔断器状态切换：关闭 -> 打开 -> 半开 -> 关闭 / 重新打开
+ */
+class UpstreamCircuitBreakerTest {
+
+    private BeianProperties properties;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new BeianProperties();
+        BeianProperties.CircuitBreaker config = properties.getCircuitBreaker();
+        config.setFailureThreshold(3);
+        config.setOpenDuration(1);
+        config.setMaxOpenDuration(3);
+        config.setHalfOpenProbes(1);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        UpstreamCircuitBreaker breaker = new UpstreamCircuitBreaker(properties, registry);
+        breaker.recordFailure(FailureKind.HTTP_5XX);
+        breaker.recordFailure(FailureKind.TIMEOUT);
+        assertEquals(State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+
+        breaker.recordFailure(FailureKind.BLOCK_PAGE);
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertTrue(breaker.remainingOpenMillis() > 0);
+        assertEquals(1, registry.get("beian_upstream_failures_total").tag("kind", "block_page").counter().count());
+        assertEquals(1, registry.get("beian_upstream_circuit_transitions_total").tag("state", "open").counter().count());
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        UpstreamCircuitBreaker breaker = new UpstreamCircuitBreaker(properties, registry);
+        breaker.recordFailure(FailureKind.HTTP_429);
+        breaker.recordFailure(FailureKind.HTTP_429);
+        breaker.recordSuccess();
+        breaker.recordFailure(FailureKind.HTTP_429);
+        breaker.recordFailure(FailureKind.HTTP_429);
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void staysClosedWhenDisabled() {
+        properties.getCircuitBreaker().setEnabled(false);
+        UpstreamCircuitBreaker breaker = new UpstreamCircuitBreaker(properties, registry);
+        for (int i = 0; i < 10; i++) {
+            breaker.recordFailure(FailureKind.HTTP_403);
+        }
+        assertEquals(State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void halfOpenProbeSuccessCloses() throws Exception {
+        UpstreamCircuitBreaker breaker = openBreaker();
+        Thread.sleep(1100);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        // 探测名额已用完
+        assertFalse(breaker.tryAcquire());
+
+        breaker.recordSuccess();
+        assertEquals(State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void abandonedProbeReleasesSlot() throws Exception {
+        UpstreamCircuitBreaker breaker = openBreaker();
+        Thread.sleep(1100);
+
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.abandon();
+        assertTrue(breaker.tryAcquire());
+        assertEquals(State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenProbeFailureReopensWithDoubledCooldown() throws Exception {
+        UpstreamCircuitBreaker breaker = openBreaker();
+        Thread.sleep(1100);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.recordFailure(FailureKind.TIMEOUT);
+        assertEquals(State.OPEN, breaker.getState());
+        assertTrue(breaker.remainingOpenMillis() > 1500, "冷却时间应加倍为 2 秒");
+        assertTrue(breaker.remainingOpenMillis() <= 2000);
+    }
+
+    @Test
+    void cooldownIsCappedAtMaxOpenDuration() throws Exception {
+        UpstreamCircuitBreaker breaker = openBreaker();
+        Thread.sleep(1100);
+        assertTrue(breaker.tryAcquire());
+        breaker.recordFailure(FailureKind.TIMEOUT);
+        Thread.sleep(2100);
+        assertTrue(breaker.tryAcquire());
+        breaker.recordFailure(FailureKind.TIMEOUT);
+
+        // 1 -> 2 -> 4 秒，上限 3 秒
+        assertTrue(breaker.remainingOpenMillis() > 2500);
+        assertTrue(breaker.remainingOpenMillis() <= 3000);
+    }
+
+    private UpstreamCircuitBreaker openBreaker() {
+        UpstreamCircuitBreaker breaker = new UpstreamCircuitBreaker(properties, registry);
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure(FailureKind.HTTP_5XX);
+        }
+        assertEquals(State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
@@ -0,0 +1,60 @@
+package io.devops.beian.service;
+
+import io.devops.beian.config.BeianProperties;
+import io.devops.beian.model.BeianResult;
+import io.devops.beian.service.UpstreamDispatcher.Lane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 熔断期间：手动查询与 failFast 重试立即返回 BLOCKED，普通后台请求继续等待
+ */
+class UpstreamDispatcherTest {
+
+    private UpstreamDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        BeianProperties properties = new BeianProperties();
+        properties.setRequestDelay(0);
+        properties.getCircuitBreaker().setFailureThreshold(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UpstreamCircuitBreaker circuitBreaker = new UpstreamCircuitBreaker(properties, registry);
+        circuitBreaker.recordFailure(UpstreamCircuitBreaker.FailureKind.HTTP_5XX);
+        DomainGroupRegistry domainGroups = new DomainGroupRegistry(properties,
+                new DomainNormalizer(properties, new DefaultResourceLoader()));
+        // 熔断打开时不会发出请求，无需查询器
+        dispatcher = new UpstreamDispatcher(properties, null, new RateLimitService(properties), circuitBreaker,
+                new EgressProxyPool(properties, registry), domainGroups, registry);
+        dispatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void failFastRetryIsRejectedBehindWaitingRetries() {
+        CompletableFuture<BeianResult> waiting = dispatcher.submit("a.cn", Lane.RETRY).toFuture();
+        BeianResult rejected = dispatcher.submit("b.cn", Lane.RETRY, DomainGroupRegistry.DEFAULT_GROUP, true)
+                .block(Duration.ofSeconds(2));
+        assertEquals(BeianResult.Status.BLOCKED, rejected.getStatus());
+        assertFalse(waiting.isDone());
+    }
+
+    @Test
+    void interactiveRequestIsRejected() {
+        BeianResult rejected = dispatcher.submit("a.cn", Lane.INTERACTIVE).block(Duration.ofSeconds(2));
+        assertEquals(BeianResult.Status.BLOCKED, rejected.getStatus());
+    }
+}
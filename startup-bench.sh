@@ -0,0 +1,53 @@
+#!/bin/bash
+
+# Beian Exporter 启动时间与内存对比脚本
+# 依次构建并启动 JVM / AOT+CDS / 原生镜像，记录 /health 就绪耗时与稳定后的 RSS
+
+set -e
+
+PORT=${PORT:-18080}
+TARGETS=${TARGETS:-"jvm cds native"}
+SETTLE_SECONDS=${SETTLE_SECONDS:-5}
+
+echo "🚀 开始启动性能对比..."
+
+if ! command -v docker &> /dev/null; then
+    echo "❌ Docker 未安装，请先安装 Docker"
+    exit 1
+fi
+
+RESULTS=""
+
+for target in $TARGETS; do
+    image="beian-exporter:${target}"
+    echo "🐳 构建镜像 ${image}（--target ${target}）..."
+    docker build -q -t "$image" --target "$target" . > /dev/null
+
+    name="beian-bench-${target}"
+    docker rm -f "$name" &> /dev/null || true
+
+    echo "⏱️  启动 ${image}..."
+    start=$(date +%s%N)
+    docker run -d --name "$name" -p "${PORT}:8080" "$image" > /dev/null
+    until curl -sf "http://localhost:${PORT}/health" > /dev/null; do
+        if [ "$(docker inspect -f '{{.State.Running}}' "$name")" != "true" ]; then
+            echo "❌ ${target} 启动失败："
+            docker logs "$name" | tail -20
+            exit 1
+        fi
+        sleep 0.05
+    done
+    elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+
+    sleep "$SETTLE_SECONDS"
+    rss=$(docker stats --no-stream --format '{{.MemUsage}}' "$name" | cut -d'/' -f1 | tr -d ' ')
+    size=$(docker image inspect -f '{{.Size}}' "$image" | awk '{printf "%.0fMB", $1 / 1048576}')
+
+    docker rm -f "$name" > /dev/null
+    RESULTS="${RESULTS}$(printf '%-8s %10sms %12s %10s' "$target" "$elapsed" "$rss" "$size")\n"
+done
+
+echo ""
+echo "📊 对比结果（就绪耗时含容器启动）:"
+printf '%-8s %12s %12s %10s\n' "目标" "就绪耗时" "内存占用" "镜像大小"
+printf "$RESULTS"